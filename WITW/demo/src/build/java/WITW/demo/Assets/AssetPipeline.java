@@ -0,0 +1,260 @@
+package WITW.demo.Assets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Etapa de build del frontend (fase process-classes de Maven). Por cada página HTML de static: junta y minifica
+ * los módulos de cada script type="module", minifica las hojas de estilo locales, escribe el resultado en
+ * {@value #ASSETS_DIR}/ con el hash del contenido en el nombre y reescribe la página para que apunte a esos
+ * nombres. Páginas y assets quedan también precomprimidos en .gz y, si el comando brotli está disponible,
+ * en .br.
+ *
+ * Lee siempre de src/main/resources/static, así un build incremental no vuelve a procesar páginas ya reescritas.
+ * Sin este paso (p. ej. al correr desde el IDE) las páginas siguen cargando los módulos sueltos.
+ */
+public final class AssetPipeline {
+
+    static final String ASSETS_DIR="assets";
+    private static final int HASH_LENGTH=10;
+    private static final Pattern TAG=Pattern.compile("<(script|link)\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+    // Una url() relativa dejaría de resolver desde assets/: el build falla en lugar de publicar CSS roto.
+    private static final Pattern RELATIVE_CSS_URL=Pattern.compile("url\\(\\s*['\"]?(?!data:|https?:|/)");
+    private static final Pattern ATTRIBUTE=Pattern.compile("\\b(src|href|type|rel)\\s*=\\s*(['\"])([^'\"]*)\\2",
+        Pattern.CASE_INSENSITIVE);
+
+    private final Path source;
+    private final Path output;
+    private final boolean brotli;
+    // Asset de origen -> nombre con hash, relativo a output.
+    private final Map<Path,String> built=new LinkedHashMap<>();
+
+    AssetPipeline(Path source, Path output, boolean brotli) {
+        this.source=source.toAbsolutePath().normalize();
+        this.output=output.toAbsolutePath().normalize();
+        this.brotli=brotli;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length!=2)
+        {
+            System.err.println("Usage: AssetPipeline <source static dir> <output static dir>");
+            System.exit(2);
+        }
+        final boolean brotli=brotliAvailable();
+        if (!brotli)
+        {
+            System.out.println("brotli command not found: writing only .gz variants");
+        }
+        final Map<Path,String> assets=new AssetPipeline(Path.of(args[0]), Path.of(args[1]), brotli).run();
+        assets.forEach((asset, name) -> System.out.println("Built "+name+" from "+asset.getFileName()));
+    }
+
+    /**
+     * @return los assets generados, de origen a nombre con hash
+     */
+    Map<Path,String> run() throws IOException {
+        if (Files.exists(source.resolve(ASSETS_DIR)))
+        {
+            throw new IllegalStateException(source.resolve(ASSETS_DIR)+" is reserved for generated assets");
+        }
+        deleteRecursively(output.resolve(ASSETS_DIR));
+        final List<Path> pages;
+        try (Stream<Path> files=Files.walk(source))
+        {
+            pages=files.filter(file -> file.getFileName().toString().endsWith(".html")).sorted().toList();
+        }
+        for (Path page : pages)
+        {
+            final String html=rewrite(page, Files.readString(page, StandardCharsets.UTF_8));
+            final Path target=output.resolve(source.relativize(page).toString());
+            Files.createDirectories(target.getParent());
+            write(target, html.getBytes(StandardCharsets.UTF_8));
+        }
+        return built;
+    }
+
+    private String rewrite(Path page, String html) throws IOException {
+        final StringBuilder out=new StringBuilder(html.length());
+        final Matcher tags=TAG.matcher(html);
+        int last=0;
+        while (tags.find())
+        {
+            final String tag=tags.group();
+            final Map<String,String> attributes=new LinkedHashMap<>();
+            final Matcher matcher=ATTRIBUTE.matcher(tag);
+            while (matcher.find())
+            {
+                attributes.put(matcher.group(1).toLowerCase(), matcher.group(3));
+            }
+
+            final boolean script=tags.group(1).equalsIgnoreCase("script");
+            final String url=attributes.get(script ? "src" : "href");
+            final boolean bundled=script ? "module".equals(attributes.get("type"))
+                : "stylesheet".equalsIgnoreCase(attributes.get("rel"));
+            final Path asset=bundled ? local(page, url) : null;
+            if (asset!=null)
+            {
+                final String name=build(asset, script);
+                final String relative=page.getParent().relativize(source).resolve(name).toString().replace('\\', '/');
+                out.append(html, last, tags.start()).append(tag.replace("\""+url+"\"", "\""+relative+"\"")
+                    .replace("'"+url+"'", "'"+relative+"'"));
+                last=tags.end();
+            }
+        }
+        out.append(html, last, html.length());
+        return out.toString();
+    }
+
+    // Archivo local dentro de static al que apunta la URL, o null si es externa o no existe.
+    private Path local(Path page, String url) {
+        if (url==null || url.isEmpty() || url.contains(":") || url.startsWith("//"))
+        {
+            return null;
+        }
+        final Path file=(url.startsWith("/") ? source.resolve(url.substring(1)) : page.resolveSibling(url)).normalize();
+        return file.startsWith(source) && Files.isRegularFile(file) ? file : null;
+    }
+
+    private String build(Path asset, boolean script) throws IOException {
+        String name=built.get(asset);
+        if (name!=null)
+        {
+            return name;
+        }
+        final String code=script ? Minifier.js(ModuleBundler.bundle(asset))
+            : Minifier.css(Files.readString(asset, StandardCharsets.UTF_8));
+        if (!script && RELATIVE_CSS_URL.matcher(code).find())
+        {
+            throw new IllegalStateException("Relative url() in "+asset+" would break once moved to "+ASSETS_DIR);
+        }
+        final byte[] content=code.getBytes(StandardCharsets.UTF_8);
+
+        final String file=asset.getFileName().toString();
+        final int dot=file.lastIndexOf('.');
+        name=ASSETS_DIR+"/"+file.substring(0, dot).toLowerCase()+"."+hash(content)+file.substring(dot);
+        final Path target=output.resolve(name);
+        Files.createDirectories(target.getParent());
+        write(target, content);
+        built.put(asset, name);
+        return name;
+    }
+
+    // Escribe el archivo y sus variantes comprimidas, solo si son más chicas que el original.
+    private void write(Path target, byte[] content) throws IOException {
+        Files.write(target, content);
+        final Path gzip=target.resolveSibling(target.getFileName()+".gz");
+        final byte[] compressed=gzip(content);
+        if (compressed.length<content.length)
+        {
+            Files.write(gzip, compressed);
+        }
+        else
+        {
+            Files.deleteIfExists(gzip);
+        }
+        if (brotli)
+        {
+            brotli(target);
+        }
+    }
+
+    static byte[] gzip(byte[] content) {
+        final ByteArrayOutputStream bytes=new ByteArrayOutputStream(content.length/2+64);
+        try (GZIPOutputStream out=new GZIPOutputStream(bytes) {{ def.setLevel(Deflater.BEST_COMPRESSION); }})
+        {
+            out.write(content);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void brotli(Path file) throws IOException {
+        final Path compressed=file.resolveSibling(file.getFileName()+".br");
+        final int exit=run("brotli", "-f", "-q", "11", "-o", compressed.toString(), file.toString());
+        if (exit!=0)
+        {
+            throw new IOException("brotli exited with "+exit+" for "+file);
+        }
+        if (Files.size(compressed)>=Files.size(file))
+        {
+            Files.delete(compressed);
+        }
+    }
+
+    private static boolean brotliAvailable() {
+        try
+        {
+            return run("brotli", "--version")==0;
+        }
+        catch (IOException e)
+        {
+            return false;
+        }
+    }
+
+    private static int run(String... command) throws IOException {
+        final Process process=new ProcessBuilder(command).redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try
+        {
+            if (!process.waitFor(1, TimeUnit.MINUTES))
+            {
+                process.destroyForcibly();
+                throw new IOException("Timed out running "+command[0]);
+            }
+            return process.exitValue();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted running "+command[0], e);
+        }
+    }
+
+    private static String hash(byte[] content) {
+        try
+        {
+            final byte[] digest=MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(digest).substring(0, HASH_LENGTH);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory))
+        {
+            return;
+        }
+        try (Stream<Path> files=Files.walk(directory))
+        {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList())
+            {
+                Files.delete(file);
+            }
+        }
+    }
+}
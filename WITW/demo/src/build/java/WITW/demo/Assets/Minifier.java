@@ -0,0 +1,281 @@
+package WITW.demo.Assets;
+
+import java.util.Set;
+
+/**
+ * Minificación conservadora de JS y CSS sin árbol sintáctico: quita comentarios, indentación y los espacios que
+ * no separan dos palabras. Los strings, los template literals y las expresiones regulares se copian intactos,
+ * y en JS los saltos de línea se conservan salvo donde la sentencia no puede terminar (ASI).
+ */
+final class Minifier {
+
+    // Tras estos caracteres la sentencia sigue en la línea siguiente: el salto se puede quitar.
+    private static final String JS_CONTINUES_AFTER="{;,([:=&|?*<>%^~!";
+    private static final String JS_CLOSES=")]},;";
+    private static final Set<String> JS_REGEX_KEYWORDS=Set.of("return", "typeof", "instanceof", "in", "of", "new",
+        "delete", "void", "throw", "case", "do", "else", "yield", "await");
+    private static final String CSS_PUNCTUATION="{};,>";
+
+    private Minifier() {
+    }
+
+    static String js(String source) {
+        final StringBuilder out=new StringBuilder(source.length());
+        char pending=0;
+        int i=0;
+        while (i<source.length())
+        {
+            final char c=source.charAt(i);
+            if (c=='\n' || c=='\r')
+            {
+                pending='\n';
+                i++;
+            }
+            else if (Character.isWhitespace(c))
+            {
+                pending=pending==0 ? ' ' : pending;
+                i++;
+            }
+            else if (c=='/' && next(source, i)=='/')
+            {
+                i=lineEnd(source, i);
+            }
+            else if (c=='/' && next(source, i)=='*')
+            {
+                final int end=blockCommentEnd(source, i);
+                pending=pending=='\n' || source.substring(i, end).indexOf('\n')>=0 ? '\n' : pending==0 ? ' ' : pending;
+                i=end;
+            }
+            else
+            {
+                flushJsWhitespace(out, pending, c);
+                pending=0;
+                final int end;
+                if (c=='"' || c=='\'')
+                {
+                    end=stringEnd(source, i);
+                }
+                else if (c=='`')
+                {
+                    end=templateEnd(source, i);
+                }
+                else if (c=='/' && regexAllowed(out))
+                {
+                    end=regexEnd(source, i);
+                }
+                else
+                {
+                    end=i+1;
+                }
+                out.append(source, i, end);
+                i=end;
+            }
+        }
+        return out.toString();
+    }
+
+    static String css(String source) {
+        final StringBuilder out=new StringBuilder(source.length());
+        boolean pending=false;
+        int i=0;
+        while (i<source.length())
+        {
+            final char c=source.charAt(i);
+            if (Character.isWhitespace(c))
+            {
+                pending=true;
+                i++;
+            }
+            else if (c=='/' && next(source, i)=='*')
+            {
+                pending=true;
+                i=blockCommentEnd(source, i);
+            }
+            else
+            {
+                if (pending && out.length()>0 && CSS_PUNCTUATION.indexOf(c)<0
+                    && (CSS_PUNCTUATION+":(").indexOf(out.charAt(out.length()-1))<0)
+                {
+                    out.append(' ');
+                }
+                pending=false;
+                if (c=='}' && out.length()>0 && out.charAt(out.length()-1)==';')
+                {
+                    out.setLength(out.length()-1);
+                }
+                final int end=c=='"' || c=='\'' ? stringEnd(source, i) : i+1;
+                out.append(source, i, end);
+                i=end;
+            }
+        }
+        return out.toString();
+    }
+
+    private static void flushJsWhitespace(StringBuilder out, char pending, char next) {
+        if (pending==0 || out.length()==0)
+        {
+            return;
+        }
+        final char previous=out.charAt(out.length()-1);
+        if (pending=='\n')
+        {
+            if (JS_CONTINUES_AFTER.indexOf(previous)<0 && JS_CLOSES.indexOf(next)<0)
+            {
+                out.append('\n');
+            }
+        }
+        // "a + +b" y "a - -b" necesitan el espacio para no convertirse en ++ o --.
+        else if (isIdentifierPart(previous) && isIdentifierPart(next)
+            || previous==next && (next=='+' || next=='-'))
+        {
+            out.append(' ');
+        }
+    }
+
+    // Una / abre una regex donde se espera un valor: al inicio, tras un operador o tras return, typeof, etc.
+    private static boolean regexAllowed(StringBuilder out) {
+        if (out.length()==0)
+        {
+            return true;
+        }
+        final char previous=out.charAt(out.length()-1);
+        if (previous==')' || previous==']')
+        {
+            return false;
+        }
+        if (!isIdentifierPart(previous))
+        {
+            return true;
+        }
+        int start=out.length();
+        while (start>0 && isIdentifierPart(out.charAt(start-1)))
+        {
+            start--;
+        }
+        return JS_REGEX_KEYWORDS.contains(out.substring(start));
+    }
+
+    private static int stringEnd(String source, int start) {
+        final char quote=source.charAt(start);
+        int i=start+1;
+        while (i<source.length() && source.charAt(i)!=quote)
+        {
+            i+=source.charAt(i)=='\\' ? 2 : 1;
+        }
+        return Math.min(i+1, source.length());
+    }
+
+    private static int templateEnd(String source, int start) {
+        int i=start+1;
+        while (i<source.length())
+        {
+            final char c=source.charAt(i);
+            if (c=='\\')
+            {
+                i+=2;
+            }
+            else if (c=='`')
+            {
+                return i+1;
+            }
+            else if (c=='$' && next(source, i)=='{')
+            {
+                i=expressionEnd(source, i+2);
+            }
+            else
+            {
+                i++;
+            }
+        }
+        return source.length();
+    }
+
+    // Fin de una expresión ${...} de un template, que puede contener strings, templates y llaves anidadas.
+    private static int expressionEnd(String source, int start) {
+        int depth=1;
+        int i=start;
+        while (i<source.length())
+        {
+            final char c=source.charAt(i);
+            if (c=='"' || c=='\'')
+            {
+                i=stringEnd(source, i);
+                continue;
+            }
+            if (c=='`')
+            {
+                i=templateEnd(source, i);
+                continue;
+            }
+            if (c=='{')
+            {
+                depth++;
+            }
+            else if (c=='}' && --depth==0)
+            {
+                return i+1;
+            }
+            i++;
+        }
+        return source.length();
+    }
+
+    private static int regexEnd(String source, int start) {
+        boolean inClass=false;
+        int i=start+1;
+        while (i<source.length())
+        {
+            final char c=source.charAt(i);
+            if (c=='\\')
+            {
+                i+=2;
+                continue;
+            }
+            if (c=='\n')
+            {
+                throw new IllegalArgumentException("Unterminated regular expression at offset "+start);
+            }
+            if (c=='[')
+            {
+                inClass=true;
+            }
+            else if (c==']')
+            {
+                inClass=false;
+            }
+            else if (c=='/' && !inClass)
+            {
+                i++;
+                while (i<source.length() && Character.isLetter(source.charAt(i)))
+                {
+                    i++;
+                }
+                return i;
+            }
+            i++;
+        }
+        return source.length();
+    }
+
+    private static int lineEnd(String source, int start) {
+        final int end=source.indexOf('\n', start);
+        return end<0 ? source.length() : end;
+    }
+
+    private static int blockCommentEnd(String source, int start) {
+        final int end=source.indexOf("*/", start+2);
+        if (end<0)
+        {
+            throw new IllegalArgumentException("Unterminated comment at offset "+start);
+        }
+        return end+2;
+    }
+
+    private static char next(String source, int i) {
+        return i+1<source.length() ? source.charAt(i+1) : 0;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c=='_' || c=='$' || c>127;
+    }
+}
@@ -0,0 +1,102 @@
+package WITW.demo.Assets;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Junta un módulo ES y sus dependencias relativas en un solo archivo. Cada dependencia queda en su propia
+ * función (sus nombres internos no chocan con los de otros módulos) que devuelve lo que exporta, y cada import
+ * se reemplaza por una desestructuración de ese resultado. Admite la forma que usa el frontend: import { a, b as c }
+ * from './x.js' y export delante de class, function, const, let o var; cualquier otra falla el build.
+ */
+final class ModuleBundler {
+
+    private static final Pattern IMPORT=Pattern.compile(
+        "^[ \\t]*import\\s*\\{([^}]*)}\\s*from\\s*(['\"])([^'\"]+)\\2[ \\t]*;?", Pattern.MULTILINE);
+    private static final Pattern EXPORT=Pattern.compile(
+        "^([ \\t]*)export\\s+((?:async\\s+)?function\\s*\\*?|class|const|let|var)\\s*([A-Za-z_$][\\w$]*)", Pattern.MULTILINE);
+    private static final Pattern OTHER_MODULE_SYNTAX=Pattern.compile("^[ \\t]*(import|export)\\b", Pattern.MULTILINE);
+
+    private final Map<Path,String> names=new LinkedHashMap<>();
+    private final List<String> chunks=new ArrayList<>();
+    private final Set<Path> visiting=new HashSet<>();
+
+    private ModuleBundler() {
+    }
+
+    /**
+     * @return el código del módulo de entrada precedido por el de todas sus dependencias
+     */
+    static String bundle(Path entry) throws IOException {
+        final ModuleBundler bundler=new ModuleBundler();
+        bundler.visit(entry.toAbsolutePath().normalize(), true);
+        return String.join("\n", bundler.chunks);
+    }
+
+    private String visit(Path module, boolean entry) throws IOException {
+        final String existing=names.get(module);
+        if (existing!=null)
+        {
+            return existing;
+        }
+        if (!visiting.add(module))
+        {
+            throw new IllegalStateException("Circular import of "+module);
+        }
+
+        final String source=Files.readString(module, StandardCharsets.UTF_8);
+        final StringBuilder body=new StringBuilder(source.length());
+        final Matcher imports=IMPORT.matcher(source);
+        int last=0;
+        while (imports.find())
+        {
+            final String specifier=imports.group(3);
+            if (!specifier.startsWith("./") && !specifier.startsWith("../"))
+            {
+                throw new IllegalStateException("Only relative imports can be bundled: "+specifier+" in "+module);
+            }
+            final String dependency=visit(module.resolveSibling(specifier).normalize(), false);
+            body.append(source, last, imports.start())
+                .append("const {").append(imports.group(1).trim().replaceAll("\\s+as\\s+", ":")).append("}=")
+                .append(dependency).append(';');
+            last=imports.end();
+        }
+        body.append(source, last, source.length());
+
+        final List<String> exported=new ArrayList<>();
+        final Matcher exports=EXPORT.matcher(body);
+        final StringBuilder code=new StringBuilder(body.length());
+        last=0;
+        while (exports.find())
+        {
+            code.append(body, last, exports.start()).append(exports.group(1)).append(exports.group(2)).append(' ')
+                .append(exports.group(3));
+            exported.add(exports.group(3));
+            last=exports.end();
+        }
+        code.append(body, last, body.length());
+
+        final Matcher unsupported=OTHER_MODULE_SYNTAX.matcher(code);
+        if (unsupported.find())
+        {
+            throw new IllegalStateException("Unsupported "+unsupported.group(1)+" form in "+module);
+        }
+
+        visiting.remove(module);
+        final String name="__module"+names.size();
+        names.put(module, name);
+        chunks.add(entry ? code.toString()
+            : "const "+name+"=(()=>{\n"+code+"\nreturn {"+String.join(",", exported)+"};\n})();");
+        return name;
+    }
+}
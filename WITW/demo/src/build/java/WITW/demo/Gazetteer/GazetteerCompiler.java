@@ -0,0 +1,197 @@
+package WITW.demo.Gazetteer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Etapa de build del geocodificador (fase process-classes de Maven): convierte la lista de localidades en TSV
+ * (nombre, región, latitud, longitud, población; # para comentarios) en la imagen binaria que Gazetteer mapea a
+ * memoria. Además del nombre completo, cada palabra interior entra al trie como inicio de sugerencias, así
+ * "montt" sugiere Puerto Montt; para geocodificar solo vale el nombre completo.
+ */
+public final class GazetteerCompiler {
+
+    private static final class Entry {
+        String name;
+        String region;
+        double latitude;
+        double longitude;
+        int population;
+    }
+
+    private static final class Node {
+        final TreeMap<Integer,Node> children=new TreeMap<>();
+        final List<Integer> exact=new ArrayList<>();
+        final List<Integer> top=new ArrayList<>();
+        int offset;
+    }
+
+    private GazetteerCompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length!=2)
+        {
+            System.err.println("Usage: GazetteerCompiler <source tsv> <output image>");
+            System.exit(2);
+        }
+        final int places=compile(Path.of(args[0]), Path.of(args[1]));
+        System.out.println("Built gazetteer "+args[1]+" with "+places+" places");
+    }
+
+    /**
+     * @return cantidad de localidades escritas
+     */
+    static int compile(Path source, Path output) throws IOException {
+        final List<Entry> entries=parse(source);
+        // Los ids siguen la población: las primeras localidades que pasan por un nodo son sus más pobladas.
+        entries.sort(Comparator.comparingInt((Entry entry) -> entry.population).reversed()
+            .thenComparing(entry -> entry.name));
+        final Node root=new Node();
+        for (int id=0; id<entries.size(); id++)
+        {
+            final String key=Gazetteer.fold(entries.get(id).name);
+            insert(root, key, id, true);
+            for (int space=key.indexOf(' '); space>=0; space=key.indexOf(' ', space+1))
+            {
+                insert(root, key.substring(space+1), id, false);
+            }
+        }
+
+        final ByteArrayOutputStream strings=new ByteArrayOutputStream();
+        final Map<String,Integer> stringOffsets=new HashMap<>();
+        final int stringsStart=Gazetteer.HEADER_BYTES+entries.size()*Gazetteer.PLACE_BYTES;
+        for (Entry entry : entries)
+        {
+            intern(entry.name, strings, stringOffsets, stringsStart);
+            intern(entry.region, strings, stringOffsets, stringsStart);
+        }
+        final ByteArrayOutputStream trie=new ByteArrayOutputStream();
+        write(root, new DataOutputStream(trie), trie, stringsStart+strings.size());
+
+        final ByteArrayOutputStream image=new ByteArrayOutputStream();
+        final DataOutputStream out=new DataOutputStream(image);
+        out.writeInt(Gazetteer.MAGIC);
+        out.writeInt(entries.size());
+        out.writeInt(root.offset);
+        for (Entry entry : entries)
+        {
+            out.writeInt(stringOffsets.get(entry.name));
+            out.writeInt(stringOffsets.get(entry.region));
+            out.writeInt((int) Math.round(entry.latitude*1e6));
+            out.writeInt((int) Math.round(entry.longitude*1e6));
+            out.writeInt(entry.population);
+        }
+        strings.writeTo(out);
+        trie.writeTo(out);
+        out.flush();
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        final Path temporary=output.resolveSibling(output.getFileName()+".tmp");
+        Files.write(temporary, image.toByteArray());
+        Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return entries.size();
+    }
+
+    private static List<Entry> parse(Path source) throws IOException {
+        final List<Entry> entries=new ArrayList<>();
+        int number=0;
+        for (String line : Files.readAllLines(source, StandardCharsets.UTF_8))
+        {
+            number++;
+            if (line.isBlank() || line.startsWith("#"))
+            {
+                continue;
+            }
+            final String[] fields=line.split("\t");
+            if (fields.length!=5 || Gazetteer.fold(fields[0]).isEmpty())
+            {
+                throw new IllegalArgumentException(source+":"+number+": expected name, region, latitude, longitude and population");
+            }
+            final Entry entry=new Entry();
+            entry.name=fields[0].strip();
+            entry.region=fields[1].strip();
+            entry.latitude=Double.parseDouble(fields[2]);
+            entry.longitude=Double.parseDouble(fields[3]);
+            entry.population=Integer.parseInt(fields[4].strip());
+            if (Math.abs(entry.latitude)>90 || Math.abs(entry.longitude)>180)
+            {
+                throw new IllegalArgumentException(source+":"+number+": coordinates out of range");
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static void insert(Node root, String key, int id, boolean exact) {
+        Node node=root;
+        for (byte label : key.getBytes(StandardCharsets.UTF_8))
+        {
+            node=node.children.computeIfAbsent(Byte.toUnsignedInt(label), ignored -> new Node());
+            if (node.top.size()<Gazetteer.TOP_PLACES && !node.top.contains(id))
+            {
+                node.top.add(id);
+            }
+        }
+        // Un nodo guarda hasta 255 homónimas; locate solo usa la primera.
+        if (exact && node.exact.size()<255)
+        {
+            node.exact.add(id);
+        }
+    }
+
+    private static void intern(String value, ByteArrayOutputStream strings, Map<String,Integer> offsets, int start) {
+        if (offsets.containsKey(value))
+        {
+            return;
+        }
+        final byte[] bytes=value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length>0xffff)
+        {
+            throw new IllegalArgumentException("Name too long: "+value);
+        }
+        offsets.put(value, start+strings.size());
+        strings.write(bytes.length>>>8);
+        strings.write(bytes.length);
+        strings.writeBytes(bytes);
+    }
+
+    // Los hijos se escriben antes que el padre para conocer sus offsets; la raíz queda al final.
+    private static void write(Node node, DataOutputStream out, ByteArrayOutputStream trie, int start) throws IOException {
+        for (Node child : node.children.values())
+        {
+            write(child, out, trie, start);
+        }
+        node.offset=start+trie.size();
+        out.writeShort(node.children.size());
+        out.writeByte(node.exact.size());
+        out.writeByte(node.top.size());
+        for (int label : node.children.keySet())
+        {
+            out.writeByte(label);
+        }
+        for (Node child : node.children.values())
+        {
+            out.writeInt(child.offset);
+        }
+        for (int id : node.exact)
+        {
+            out.writeInt(id);
+        }
+        for (int id : node.top)
+        {
+            out.writeInt(id);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package WITW.demo;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compara un resultado JMH (-rf json) contra el baseline versionado en src/jmh/baseline y termina con código 1
+ * si algún benchmark empeoró. Los bytes asignados por operación (gc.alloc.rate.norm, de -prof gc) casi no
+ * dependen de la máquina y son la señal principal; el tiempo solo es comparable en el mismo hardware.
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="'JwtBenchmark|PasswordHashingBenchmark' -prof gc -rf json -rff target/jmh-result.json"
+ * mvn -Pjmh exec:exec -Djmh.main=WITW.demo.BaselineComparison
+ *     -Djmh.args="src/jmh/baseline/auth-hot-path.json target/jmh-result.json [umbral tiempo] [umbral bytes]"
+ */
+public class BaselineComparison {
+
+    private static final String ALLOCATION_METRIC="gc.alloc.rate.norm";
+    // Diferencias menores a esto son ruido de TLABs y del propio profiler.
+    private static final double ALLOCATION_SLACK_BYTES=64;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length<2)
+        {
+            System.err.println("Usage: BaselineComparison <baseline.json> <result.json> [time threshold] [allocation threshold]");
+            System.exit(2);
+        }
+        final double timeThreshold=args.length>2 ? Double.parseDouble(args[2]) : 0.25;
+        final double allocationThreshold=args.length>3 ? Double.parseDouble(args[3]) : 0.10;
+
+        final Map<String,JsonNode> baseline=read(new File(args[0]));
+        final Map<String,JsonNode> current=read(new File(args[1]));
+        int regressions=0;
+
+        for (Map.Entry<String,JsonNode> entry : current.entrySet())
+        {
+            final JsonNode before=baseline.get(entry.getKey());
+            if (before==null)
+            {
+                System.out.printf("NEW        %s%n", entry.getKey());
+                continue;
+            }
+            final JsonNode after=entry.getValue();
+
+            final double beforeScore=before.path("primaryMetric").path("score").asDouble();
+            final double afterScore=after.path("primaryMetric").path("score").asDouble();
+            // En modo throughput un score menor es peor; en el resto (tiempo por operación) es peor uno mayor.
+            final double slowdown="thrpt".equals(after.path("mode").asText())
+                ? beforeScore/afterScore-1
+                : afterScore/beforeScore-1;
+            final boolean slower=slowdown>timeThreshold;
+
+            final JsonNode beforeAllocation=before.path("secondaryMetrics").path(ALLOCATION_METRIC);
+            final JsonNode afterAllocation=after.path("secondaryMetrics").path(ALLOCATION_METRIC);
+            boolean allocates=false;
+            String allocation="";
+            if (!beforeAllocation.isMissingNode() && !afterAllocation.isMissingNode())
+            {
+                final double beforeBytes=beforeAllocation.path("score").asDouble();
+                final double afterBytes=afterAllocation.path("score").asDouble();
+                allocates=afterBytes-beforeBytes>ALLOCATION_SLACK_BYTES && afterBytes>beforeBytes*(1+allocationThreshold);
+                allocation=String.format("  %.0f -> %.0f B/op", beforeBytes, afterBytes);
+            }
+
+            if (slower || allocates)
+            {
+                regressions++;
+            }
+            System.out.printf("%-10s %s  %.3f -> %.3f %s (%+.1f%%)%s%n",
+                slower || allocates ? "REGRESSION" : "OK", entry.getKey(), beforeScore, afterScore,
+                after.path("primaryMetric").path("scoreUnit").asText(), slowdown*100, allocation);
+        }
+
+        for (String key : baseline.keySet())
+        {
+            if (!current.containsKey(key))
+            {
+                System.out.printf("MISSING    %s%n", key);
+            }
+        }
+        System.exit(regressions>0 ? 1 : 0);
+    }
+
+    private static Map<String,JsonNode> read(File file) throws IOException {
+        final Map<String,JsonNode> results=new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file))
+        {
+            final Map<String,String> params=new TreeMap<>();
+            result.path("params").properties().forEach(param -> params.put(param.getKey(), param.getValue().asText()));
+            results.put(result.path("benchmark").asText()+":"+result.path("mode").asText()+(params.isEmpty() ? "" : params), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,93 @@
+package WITW.demo.Event;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.server.ResponseStatusException;
+
+import WITW.demo.WitwApplication;
+import WITW.demo.User.User;
+
+/**
+ * Inscripciones por segundo a un mismo evento muy concurrido: cada operación es un usuario nuevo que se
+ * inscribe, así que todas compiten por el update del contador de la fila del evento. Con seats=full el evento
+ * ya no tiene cupos y se mide el rechazo, que no debería tocar la fila. Reemplaza el piso de joins/s que tenía
+ * AttendanceServiceTest: la corrección se prueba allá, el rendimiento se mide acá.
+ * Por defecto usa H2 en memoria; con -Dbench.jdbc.url (y .user/.password) se mide contra MySQL.
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="AttendanceJoinBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(32)
+@Fork(1)
+public class AttendanceJoinBenchmark {
+
+    @Param({"open", "full"})
+    String seats;
+
+    private final AtomicInteger users=new AtomicInteger();
+
+    private ConfigurableApplicationContext context;
+    private AttendanceService attendanceService;
+    private Long eventId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context=new SpringApplicationBuilder(WitwApplication.class).run(
+            "--server.port=0",
+            "--spring.datasource.url="+System.getProperty("bench.jdbc.url",
+                "jdbc:h2:mem:bench-attendance;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE"),
+            "--spring.datasource.username="+System.getProperty("bench.jdbc.user", "sa"),
+            "--spring.datasource.password="+System.getProperty("bench.jdbc.password", ""),
+            "--spring.jpa.database-platform="+System.getProperty("bench.jdbc.dialect", "org.hibernate.dialect.H2Dialect"),
+            "--witw.comments.write-behind.journal-dir="+Files.createTempDirectory("bench-journal"),
+            "--logging.level.root=ERROR");
+        attendanceService=context.getBean(AttendanceService.class);
+        eventId=context.getBean(EventRepository.class).save(Event.builder()
+            .name("Hot event")
+            .startsAt(LocalDateTime.now().plusDays(1))
+            .capacity("full".equals(seats) ? 0 : Integer.MAX_VALUE)
+            .geohash("66jc")
+            .build()).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean join() {
+        try
+        {
+            return attendanceService.join(eventId, User.builder().id(users.incrementAndGet()).build()).isAttending();
+        }
+        catch (ResponseStatusException e)
+        {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package WITW.demo.Event;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import WITW.demo.Geo.BoundingBox;
+import WITW.demo.Geo.GeoHash;
+
+/**
+ * Compara la consulta "eventos en esta vista y rango de fechas" del índice en memoria
+ * con la consulta SQL equivalente (prefijos de geohash + filtro de coordenadas y fecha).
+ * Por defecto usa H2 en memoria; con -Dbench.jdbc.url (y .user/.password) se mide contra MySQL.
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="EventSpatialIndexBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventSpatialIndexBenchmark {
+
+    private static final LocalDateTime BASE=LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final int LIMIT=500;
+
+    @Param({"200000"})
+    int events;
+
+    // Vista del mapa sobre Santiago a un zoom de ciudad, con un mes de rango.
+    private final BoundingBox viewport=BoundingBox.of(-33.60, -70.80, -33.35, -70.45);
+    private final LocalDateTime from=BASE.plusDays(30);
+    private final LocalDateTime to=BASE.plusDays(60);
+
+    private EventSpatialIndex index;
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        index=new EventSpatialIndex(null, event -> { });
+        connection=DriverManager.getConnection(
+            System.getProperty("bench.jdbc.url", "jdbc:h2:mem:bench;MODE=MySQL"),
+            System.getProperty("bench.jdbc.user", "sa"),
+            System.getProperty("bench.jdbc.password", ""));
+
+        try (Statement ddl=connection.createStatement())
+        {
+            ddl.execute("drop table if exists bench_event");
+            ddl.execute("create table bench_event (id bigint primary key, name varchar(255), latitude double, "
+                +"longitude double, starts_at timestamp, geohash varchar(12))");
+            ddl.execute("create index idx_bench_event_geohash on bench_event (geohash)");
+        }
+
+        final SplittableRandom random=new SplittableRandom(42);
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert=connection.prepareStatement("insert into bench_event values (?,?,?,?,?,?)"))
+        {
+            for (long id=1; id<=events; id++)
+            {
+                // La mitad de los eventos en Santiago y el resto repartidos por Chile.
+                final boolean santiago=random.nextBoolean();
+                final double lat=santiago ? random.nextDouble(-33.7, -33.2) : random.nextDouble(-45, -18);
+                final double lon=santiago ? random.nextDouble(-70.9, -70.4) : random.nextDouble(-73, -68);
+                final LocalDateTime startsAt=BASE.plusMinutes(random.nextInt(365*24*60));
+
+                index.upsert(new IndexedEvent(id, "Evento "+id, lat, lon, startsAt));
+                insert.setLong(1, id);
+                insert.setString(2, "Evento "+id);
+                insert.setDouble(3, lat);
+                insert.setDouble(4, lon);
+                insert.setTimestamp(5, Timestamp.valueOf(startsAt));
+                insert.setString(6, GeoHash.encode(lat, lon, GeoHash.MAX_PRECISION));
+                insert.addBatch();
+                if (id%1000==0)
+                {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public List<IndexedEvent> inMemoryIndex() {
+        return index.query(viewport, from, to, LIMIT);
+    }
+
+    @Benchmark
+    public List<IndexedEvent> sqlGeohashQuery() throws SQLException {
+        final List<String> cells=GeoHash.coveringCells(viewport, EventService.MAX_QUERY_CELLS);
+        final StringBuilder sql=new StringBuilder("select id, name, latitude, longitude, starts_at from bench_event where (");
+        for (int i=0; i<cells.size(); i++)
+        {
+            sql.append(i==0 ? "" : " or ").append("geohash like ?");
+        }
+        sql.append(") and latitude between ? and ? and longitude between ? and ? and starts_at between ? and ? limit ?");
+
+        try (PreparedStatement query=connection.prepareStatement(sql.toString()))
+        {
+            int p=1;
+            for (String cell : cells)
+            {
+                query.setString(p++, cell+"%");
+            }
+            query.setDouble(p++, viewport.getMinLatitude());
+            query.setDouble(p++, viewport.getMaxLatitude());
+            query.setDouble(p++, viewport.getMinLongitude());
+            query.setDouble(p++, viewport.getMaxLongitude());
+            query.setTimestamp(p++, Timestamp.valueOf(from));
+            query.setTimestamp(p++, Timestamp.valueOf(to));
+            query.setInt(p, LIMIT);
+
+            final List<IndexedEvent> result=new ArrayList<>();
+            try (ResultSet rows=query.executeQuery())
+            {
+                while (rows.next())
+                {
+                    result.add(new IndexedEvent(rows.getLong(1), rows.getString(2), rows.getDouble(3),
+                        rows.getDouble(4), rows.getTimestamp(5).toLocalDateTime()));
+                }
+            }
+            return result;
+        }
+    }
+}
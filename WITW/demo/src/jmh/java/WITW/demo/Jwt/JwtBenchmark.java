@@ -0,0 +1,144 @@
+package WITW.demo.Jwt;
+
+import java.io.IOException;
+import java.security.Key;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import WITW.demo.User.Role;
+import WITW.demo.User.User;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+/**
+ * Camino caliente de la autenticación: emisión y verificación del token con el codec HS256 frente a jjwt, la
+ * verificación desde la caché de tokens verificados y una pasada completa del filtro JWT. Con claimsAuthentication=false el filtro resuelve el usuario mediante un
+ * UserDetailsService de prueba que responde desde memoria.
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="JwtBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private User user;
+    private JwtService jwtService;
+    private String token;
+    private Key key;
+    private JwtParser parser;
+    private Hs256TokenCodec codec;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        user=User.builder().id(1).username("ana").lastname("Perez").password("encoded").role(Role.USER).build();
+        final JwtKeyRing keyRing=new JwtKeyRing("", "");
+        jwtService=new JwtService(keyRing, new SimpleMeterRegistry());
+        token=jwtService.getToken(user);
+        key=keyRing.signingKey().getKey();
+        parser=Jwts.parserBuilder().setSigningKey(key).build();
+        codec=keyRing.signingKey().getCodec();
+    }
+
+    @State(Scope.Benchmark)
+    public static class FilterState {
+
+        @Param({"true", "false"})
+        boolean claimsAuthentication;
+
+        private final FilterChain chain=(request, response) -> { };
+
+        private JwtAuthenticationFilter filter;
+        private MockHttpServletRequest request;
+        private MockHttpServletResponse response;
+
+        @Setup(Level.Trial)
+        public void setUp(JwtBenchmark benchmark) {
+            // Sin repositorio: el token no está revocado y el filtro de Bloom lo descarta sin consultar la tabla.
+            filter=new JwtAuthenticationFilter(benchmark.jwtService, username -> benchmark.user, new TokenVersionRegistry(),
+                new TokenRevocationList(null, null, event -> { }, Duration.ofSeconds(10), 10_000), new SimpleMeterRegistry());
+            ReflectionTestUtils.setField(filter, "claimsAuthentication", claimsAuthentication);
+
+            request=new MockHttpServletRequest("GET", "/api/v1/events");
+            request.setServletPath("/api/v1/events");
+            request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer "+benchmark.token);
+            response=new MockHttpServletResponse();
+        }
+    }
+
+    @Benchmark
+    public String getToken() {
+        return jwtService.getToken(user);
+    }
+
+    // Emisión con jjwt, como antes del codec, para comparar con getToken.
+    @Benchmark
+    public String getTokenJjwt() {
+        final long now=System.currentTimeMillis();
+        return Jwts.builder()
+            .claim("uid", 1).claim("role", "USER").claim("ver", 0)
+            .setSubject("ana")
+            .setIssuedAt(new Date(now))
+            .setExpiration(new Date(now+JwtService.TOKEN_VALIDITY.toMillis()))
+            .signWith(key, SignatureAlgorithm.HS256)
+            .compact();
+    }
+
+    // Parseo y HMAC completos con jjwt: lo que pagaba la primera request de cada token antes del codec.
+    @Benchmark
+    public String parseAndVerify() {
+        return parser.parseClaimsJws(token).getBody().getSubject();
+    }
+
+    // Lo mismo con el codec HS256, que es lo que paga ahora la primera request de cada token.
+    @Benchmark
+    public VerifiedToken decode() {
+        return codec.decode(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyCached() {
+        return jwtService.verify(token);
+    }
+
+    @Benchmark
+    public Authentication filterPass(FilterState state) throws ServletException, IOException {
+        try
+        {
+            state.filter.doFilterInternal(state.request, state.response, state.chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        }
+        finally
+        {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
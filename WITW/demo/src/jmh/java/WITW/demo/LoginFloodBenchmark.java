@@ -0,0 +1,165 @@
+package WITW.demo;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Prueba de carga del rate limiter: unos pocos clientes legítimos llaman a la API mientras un atacante envía
+ * attackRate logins por segundo con contraseñas erróneas (credential stuffing, un hash BCrypt por intento). La
+ * latencia de api (SampleTime, p0.99) se compara entre flood=none (sin ataque), flood=unlimited (límites
+ * desactivados) y flood=limited (límites de application.properties, que rechazan el ataque con 429 antes de
+ * hashear). El ataque es de lazo abierto: la tasa no baja porque el servidor tarde en responder, y las
+ * respuestas por status se imprimen al final de cada trial.
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="LoginFloodBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class LoginFloodBenchmark {
+
+    private static final String USERNAME="bench";
+    private static final String PASSWORD="bench-password";
+    private static final int ATTACK_THREADS=4;
+
+    @Param({"none", "unlimited", "limited"})
+    String flood;
+
+    @Param("200")
+    int attackRate;
+
+    private final Map<Integer,LongAdder> loginStatuses=new ConcurrentHashMap<>();
+    private final AtomicLong attempts=new AtomicLong();
+    // Acota las requests del ataque en vuelo para que el cliente no agote la memoria si el servidor se atrasa.
+    private final Semaphore inFlight=new Semaphore(2000);
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI demo;
+    private URI login;
+    private String authorization;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        context=new SpringApplicationBuilder(WitwApplication.class).run(
+            "--server.port=0",
+            "--spring.datasource.url=jdbc:h2:mem:bench-flood;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+            "--witw.comments.write-behind.journal-dir="+Files.createTempDirectory("bench-journal"),
+            "--witw.rate-limit.enabled="+"limited".equals(flood),
+            // Los clientes legítimos también salen de 127.0.0.1: la API queda con un límite que no alcanzan.
+            "--witw.rate-limit.api.per-ip=1000000/PT1S",
+            // Cada username inexistente del ataque dejaría un warning de la caché de usuarios.
+            "--logging.level.root=ERROR");
+
+        final String base="http://localhost:"+context.getEnvironment().getProperty("local.server.port");
+        demo=URI.create(base+"/api/v1/demo");
+        login=URI.create(base+"/auth/login");
+        client=HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        final String user="{\"username\":\""+USERNAME+"\",\"password\":\""+PASSWORD+"\",\"lastname\":\"Bench\"}";
+        final HttpResponse<String> registered=client.send(json(URI.create(base+"/auth/register"), user),
+            HttpResponse.BodyHandlers.ofString());
+        if (registered.statusCode()!=200)
+        {
+            throw new IllegalStateException("Unexpected status "+registered.statusCode());
+        }
+        final String body=registered.body();
+        final int start=body.indexOf("\"token\":\"")+9;
+        authorization="Bearer "+body.substring(start, body.indexOf('"', start));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        final Map<Integer,Long> statuses=new TreeMap<>();
+        loginStatuses.forEach((status, count) -> statuses.put(status, count.sum()));
+        System.out.println("\nLogin flood responses by status: "+statuses);
+        context.close();
+    }
+
+    @Benchmark
+    @Group("flood")
+    @GroupThreads(4)
+    public int api() throws IOException, InterruptedException {
+        final HttpRequest request=HttpRequest.newBuilder(demo)
+            .header("Authorization", authorization)
+            .POST(HttpRequest.BodyPublishers.noBody())
+            .build();
+        final int status=client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status!=200)
+        {
+            throw new IllegalStateException("Unexpected status "+status);
+        }
+        return status;
+    }
+
+    @Benchmark
+    @Group("flood")
+    @GroupThreads(ATTACK_THREADS)
+    public void attack() {
+        LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(ATTACK_THREADS)/attackRate);
+        if ("none".equals(flood))
+        {
+            return;
+        }
+        if (!inFlight.tryAcquire())
+        {
+            count(0);
+            return;
+        }
+        // Cada intento prueba otro username: el límite por username solo no alcanzaría.
+        final String credentials="{\"username\":\"victim"+attempts.incrementAndGet()+"\",\"password\":\"guess\"}";
+        client.sendAsync(json(login, credentials), HttpResponse.BodyHandlers.discarding())
+            .whenComplete((response, e) -> {
+                inFlight.release();
+                count(response==null ? -1 : response.statusCode());
+            });
+    }
+
+    // 0: no se envió por tener demasiadas en vuelo; -1: error de conexión.
+    private void count(int status) {
+        loginStatuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    private static HttpRequest json(URI uri, String body) {
+        return HttpRequest.newBuilder(uri)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+}
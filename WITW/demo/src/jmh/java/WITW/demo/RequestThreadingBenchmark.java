@@ -0,0 +1,149 @@
+package WITW.demo;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Levanta la aplicación completa (Tomcat, filtro JWT, Hikari) con hilos de plataforma o virtuales y la carga
+ * con muchos clientes concurrentes: Throughput da requests/ms y SampleTime los percentiles (p0.99) por request.
+ *
+ * userLookup=claims autentica desde el token; userLookup=database desactiva los claims y la caché de usuarios
+ * para que cada request haga la consulta bloqueante del usuario en el filtro. Los hilos virtuales que quedan
+ * fijados a su carrier (p. ej. I/O de JDBC dentro de un bloque synchronized) se imprimen por -Djdk.tracePinnedThreads.
+ * Por defecto usa H2 en memoria; con -Dbench.jdbc.url (y .user/.password) se mide contra MySQL.
+ *
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="RequestThreadingBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(400)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.tracePinnedThreads=short")
+public class RequestThreadingBenchmark {
+
+    private static final String USERNAME="bench";
+    private static final String PASSWORD="bench-password";
+
+    @Param({"false", "true"})
+    boolean virtualThreads;
+
+    @Param({"claims", "database"})
+    String userLookup;
+
+    private final LongAdder rejectedLogins=new LongAdder();
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI demo;
+    private URI login;
+    private String authorization;
+    private String credentials;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        final String url=System.getProperty("bench.jdbc.url",
+            "jdbc:h2:mem:bench-http;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE");
+        final boolean database="database".equals(userLookup);
+
+        final List<String> args=new ArrayList<>(List.of(
+            "--server.port=0",
+            "--spring.threads.virtual.enabled="+virtualThreads,
+            "--spring.datasource.url="+url,
+            "--spring.datasource.username="+System.getProperty("bench.jdbc.user", "sa"),
+            "--spring.datasource.password="+System.getProperty("bench.jdbc.password", ""),
+            "--witw.jwt.claims-authentication="+!database,
+            "--witw.security.user-cache.maximum-size="+(database ? 0 : 10000),
+            "--witw.comments.write-behind.journal-dir="+Files.createTempDirectory("bench-journal"),
+            // Todos los clientes salen de 127.0.0.1: con los límites por IP se mediría el 429.
+            "--witw.rate-limit.enabled=false",
+            "--logging.level.root=WARN"));
+        if (url.startsWith("jdbc:h2:"))
+        {
+            args.add("--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect");
+        }
+        context=new SpringApplicationBuilder(WitwApplication.class).run(args.toArray(String[]::new));
+
+        final String base="http://localhost:"+context.getEnvironment().getProperty("local.server.port");
+        demo=URI.create(base+"/api/v1/demo");
+        login=URI.create(base+"/auth/login");
+        client=HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        credentials="{\"username\":\""+USERNAME+"\",\"password\":\""+PASSWORD+"\"}";
+
+        final String user="{\"username\":\""+USERNAME+"\",\"password\":\""+PASSWORD+"\",\"lastname\":\"Bench\"}";
+        final HttpResponse<String> registered=client.send(json(URI.create(base+"/auth/register"), user),
+            HttpResponse.BodyHandlers.ofString());
+        expect(registered.statusCode(), 200);
+        final String body=registered.body();
+        final int start=body.indexOf("\"token\":\"")+9;
+        authorization="Bearer "+body.substring(start, body.indexOf('"', start));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        // Con la cola de hashing llena el login responde 503 de inmediato: sin este dato el p99 engaña.
+        System.out.println("\nLogins rejected with 503: "+rejectedLogins.sum());
+        context.close();
+    }
+
+    @Benchmark
+    public int demo() throws IOException, InterruptedException {
+        final HttpRequest request=HttpRequest.newBuilder(demo)
+            .header("Authorization", authorization)
+            .POST(HttpRequest.BodyPublishers.noBody())
+            .build();
+        return expect(client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode(), 200);
+    }
+
+    @Benchmark
+    public int login() throws IOException, InterruptedException {
+        final int status=client.send(json(login, credentials), HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status==503)
+        {
+            rejectedLogins.increment();
+            return status;
+        }
+        return expect(status, 200);
+    }
+
+    private static HttpRequest json(URI uri, String body) {
+        return HttpRequest.newBuilder(uri)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+
+    private static int expect(int status, int expected) {
+        if (status!=expected)
+        {
+            throw new IllegalStateException("Unexpected status "+status);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,220 @@
+package WITW.demo;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compara el arranque del jar estándar con el del perfil fast-startup (AOT + jar extraído + CDS): tiempo desde
+ * que se lanza la JVM hasta que responde el primer request (GET /actuator/health con 200, que pasa por la cadena
+ * de seguridad, MVC y el pool de conexiones) y RSS del proceso en ese momento. Las variantes se alternan en cada
+ * ronda para que el ruido de la máquina les toque a las dos por igual; la primera ronda es de calentamiento (cache
+ * de disco) y no se cuenta. La salida de las apps queda en target/startup-benchmark.log.
+ *
+ * La app usa la base de datos de application.properties; para otra, pasar sus argumentos al final. --classpath
+ * agrega un jar al classpath de las dos variantes (p. ej. el driver H2 para medir sin MySQL).
+ *
+ * mvn -Pfast-startup -DskipTests verify
+ * mvn -Pjmh test-compile exec:exec -Djmh.main=WITW.demo.StartupBenchmark -Djmh.args="[--runs=5] [--classpath=<jar>] [argumentos de la app]"
+ */
+public class StartupBenchmark {
+
+    private static final String MAIN_CLASS="WITW.demo.WitwApplication";
+    private static final String PROPERTIES_LAUNCHER="org.springframework.boot.loader.launch.PropertiesLauncher";
+    private static final Duration STARTUP_TIMEOUT=Duration.ofMinutes(2);
+    private static final Path TARGET=Path.of("target");
+    private static final Path LOG=TARGET.resolve("startup-benchmark.log");
+
+    private static final class Sample {
+        final long millis;
+        final long rssKb;
+
+        Sample(long millis, long rssKb) {
+            this.millis=millis;
+            this.rssKb=rssKb;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs=5;
+        String classpath=null;
+        final List<String> appArgs=new ArrayList<>();
+        for (String arg : args)
+        {
+            if (arg.startsWith("--runs="))
+            {
+                runs=Integer.parseInt(arg.substring("--runs=".length()));
+            }
+            else if (arg.startsWith("--classpath="))
+            {
+                classpath=arg.substring("--classpath=".length());
+            }
+            else
+            {
+                appArgs.add(arg);
+            }
+        }
+
+        final Path jar=bootJar();
+        final Path extracted=TARGET.resolve("fast-startup").resolve(jar.getFileName());
+        final Path archive=TARGET.resolve("fast-startup/app.jsa");
+        if (!Files.exists(extracted) || !Files.exists(archive))
+        {
+            System.err.println("Missing "+extracted+" or "+archive+": run mvn -Pfast-startup -DskipTests verify first");
+            System.exit(2);
+        }
+        final String java=Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+        final List<String> standard=new ArrayList<>(List.of(java));
+        if (classpath==null)
+        {
+            standard.addAll(List.of("-jar", jar.toString()));
+        }
+        else
+        {
+            standard.addAll(List.of("-Dloader.path="+classpath, "-cp", jar.toString(), PROPERTIES_LAUNCHER));
+        }
+        standard.addAll(appArgs);
+
+        // El classpath con el que se generó el archivo CDS tiene que ser un prefijo del de ejecución: lo extra va al final.
+        final List<String> optimized=new ArrayList<>(List.of(java, "-XX:SharedArchiveFile="+archive, "-Dspring.aot.enabled=true",
+            "-cp", classpath==null ? extracted.toString() : extracted+File.pathSeparator+classpath, MAIN_CLASS));
+        optimized.addAll(appArgs);
+
+        Files.deleteIfExists(LOG);
+        final List<Sample> standardSamples=new ArrayList<>();
+        final List<Sample> optimizedSamples=new ArrayList<>();
+        for (int round=0; round<=runs; round++)
+        {
+            final Sample before=run(standard);
+            final Sample after=run(optimized);
+            System.out.printf("%-10s standard %6d ms %6d MiB   fast-startup %6d ms %6d MiB%n",
+                round==0 ? "warm-up" : "run "+round, before.millis, before.rssKb/1024, after.millis, after.rssKb/1024);
+            if (round>0)
+            {
+                standardSamples.add(before);
+                optimizedSamples.add(after);
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-14s %10s %8s %8s %16s%n", "", "median ms", "min ms", "max ms", "median RSS MiB");
+        print("standard", standardSamples);
+        print("fast-startup", optimizedSamples);
+        System.out.printf("%nTime to first request: %.0f%% of standard, RSS: %.0f%% of standard%n",
+            100.0*median(optimizedSamples, true)/median(standardSamples, true),
+            100.0*median(optimizedSamples, false)/median(standardSamples, false));
+    }
+
+    private static Path bootJar() throws IOException {
+        try (Stream<Path> files=Files.list(TARGET))
+        {
+            return files.filter(file -> file.toString().endsWith(".jar") && !file.toString().endsWith("-plain.jar"))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No jar in "+TARGET+": run mvn -Pfast-startup -DskipTests verify first"));
+        }
+    }
+
+    private static Sample run(List<String> command) throws IOException, InterruptedException {
+        final int port=freePort();
+        final List<String> full=new ArrayList<>(command);
+        full.add("--server.port="+port);
+        final HttpClient client=HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        final HttpRequest health=HttpRequest.newBuilder(URI.create("http://localhost:"+port+"/actuator/health"))
+            .timeout(Duration.ofSeconds(5))
+            .build();
+
+        final long started=System.nanoTime();
+        final Process process=new ProcessBuilder(full)
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.appendTo(LOG.toFile()))
+            .start();
+        try
+        {
+            while (true)
+            {
+                if (!process.isAlive())
+                {
+                    throw new IllegalStateException("Application exited with "+process.exitValue()+", see "+LOG);
+                }
+                if (System.nanoTime()-started>STARTUP_TIMEOUT.toNanos())
+                {
+                    throw new IllegalStateException("No healthy response after "+STARTUP_TIMEOUT+", see "+LOG);
+                }
+                try
+                {
+                    if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode()==200)
+                    {
+                        break;
+                    }
+                }
+                catch (ConnectException e)
+                {
+                    // todavía no escucha
+                }
+                Thread.sleep(10);
+            }
+            final long millis=TimeUnit.NANOSECONDS.toMillis(System.nanoTime()-started);
+            return new Sample(millis, rssKb(process.pid()));
+        }
+        finally
+        {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS))
+            {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static long rssKb(long pid) throws IOException, InterruptedException {
+        final Path status=Path.of("/proc", Long.toString(pid), "status");
+        if (Files.exists(status))
+        {
+            for (String line : Files.readAllLines(status))
+            {
+                if (line.startsWith("VmRSS:"))
+                {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        }
+        // Fuera de Linux (macOS): ps informa el RSS en KiB.
+        final Process ps=new ProcessBuilder("ps", "-o", "rss=", "-p", Long.toString(pid)).start();
+        final String output=new String(ps.getInputStream().readAllBytes()).trim();
+        ps.waitFor();
+        return output.isEmpty() ? 0 : Long.parseLong(output);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket=new ServerSocket(0))
+        {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void print(String variant, List<Sample> samples) {
+        final long[] millis=samples.stream().mapToLong(sample -> sample.millis).sorted().toArray();
+        System.out.printf("%-14s %10d %8d %8d %16d%n", variant, median(samples, true), millis[0], millis[millis.length-1],
+            median(samples, false)/1024);
+    }
+
+    private static long median(List<Sample> samples, boolean time) {
+        final long[] values=samples.stream().mapToLong(sample -> time ? sample.millis : sample.rssKb).toArray();
+        Arrays.sort(values);
+        return values[values.length/2];
+    }
+}
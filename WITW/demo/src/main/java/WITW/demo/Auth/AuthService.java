@@ -2,15 +2,21 @@ package WITW.demo.Auth;
 
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import WITW.demo.Jwt.JwtService;
+import WITW.demo.Jwt.TokenRevocationList;
+import WITW.demo.Jwt.VerifiedToken;
+import WITW.demo.RateLimit.RateLimits;
 import WITW.demo.User.Role;
 import WITW.demo.User.User;
 import WITW.demo.User.UserRepository;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -21,10 +27,39 @@ public class AuthService {
     private final JwtService jwtService;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
+    private final PasswordHashingExecutor passwordHashing;
+    private final TokenRevocationList revocations;
+    private final RateLimits rateLimits;
+    // Timer witw.auth.login/register (con la excepción como tag) y un span por llamada si hay tracing.
+    private final ObservationRegistry observationRegistry;
 
     public AuthResponse login(LoginRequest request) {
-        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
-        UserDetails user=userRepository.findByUsername(request.getUsername()).orElseThrow();
+        return Observation.createNotStarted("witw.auth.login", observationRegistry)
+            .observe(() -> authenticate(request));
+    }
+
+    public AuthResponse register(RegisterRequest request) {
+        return Observation.createNotStarted("witw.auth.register", observationRegistry)
+            .observe(() -> createUser(request));
+    }
+
+    /**
+     * Revoca el token hasta su vencimiento. Un token inválido o vencido no necesita revocarse.
+     *
+     * @throws io.jsonwebtoken.JwtException si el token es inválido, está adulterado o expiró
+     */
+    public void logout(String token) {
+        final VerifiedToken verified=jwtService.verify(token);
+        revocations.revoke(token, verified.getExpiration());
+    }
+
+    private AuthResponse authenticate(LoginRequest request) {
+        // Los intentos por username se cuentan antes del hash, aunque vengan de muchas IPs.
+        rateLimits.acquireLogin(request.getUsername());
+        // BCrypt corre en el pool de hashing; el principal autenticado evita una segunda consulta del usuario.
+        Authentication authentication=passwordHashing.execute(() -> authenticationManager.authenticate(
+            new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())));
+        UserDetails user=(UserDetails) authentication.getPrincipal();
         String token=jwtService.getToken(user);
         return AuthResponse.builder()
             .token(token)
@@ -32,10 +67,10 @@ public class AuthService {
 
     }
 
-    public AuthResponse register(RegisterRequest request) {
+    private AuthResponse createUser(RegisterRequest request) {
         User user = User.builder()
             .username(request.getUsername())
-            .password(passwordEncoder.encode( request.getPassword()))
+            .password(passwordHashing.execute(() -> passwordEncoder.encode(request.getPassword())))
             .firstname(request.getFirstname())
             .lastname(request.lastname)
             .country(request.getCountry())
@@ -47,7 +82,7 @@ public class AuthService {
         return AuthResponse.builder()
             .token(jwtService.getToken(user))
             .build();
-        
+
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package WITW.demo.Auth;
+
+public class HashingCapacityExceededException extends RuntimeException {
+
+    public HashingCapacityExceededException() {
+        super("Password hashing capacity exceeded, retry later");
+    }
+}
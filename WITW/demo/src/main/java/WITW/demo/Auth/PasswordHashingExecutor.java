@@ -0,0 +1,113 @@
+package WITW.demo.Auth;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import WITW.demo.Metrics.HibernateStatementCounter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Pool acotado y dedicado para el trabajo de BCrypt (login y registro).
+ * Con la cola llena la tarea se rechaza de inmediato, así una ráfaga de logins no puede
+ * acaparar todos los hilos de Tomcat ni dejar sin CPU al resto de la API.
+ */
+@Component
+public class PasswordHashingExecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    // Separa la espera en la cola del costo de BCrypt: un login lento por saturación no es un login lento por strength.
+    private final Timer queueWait;
+    private final Timer hashing;
+
+    public PasswordHashingExecutor(
+            @Value("${witw.security.hashing.threads:0}") int threads,
+            @Value("${witw.security.hashing.queue-capacity:64}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        final int poolSize = threads>0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor=new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            new CustomizableThreadFactory("password-hashing-"),
+            new ThreadPoolExecutor.AbortPolicy());
+        this.queueWait=Timer.builder("witw.auth.hashing.wait")
+            .description("Time a password hashing task waits in the queue")
+            .register(meterRegistry);
+        this.hashing=Timer.builder("witw.auth.hashing.run")
+            .description("Time spent running BCrypt")
+            .register(meterRegistry);
+        Gauge.builder("witw.auth.hashing.queue", executor, pool -> pool.getQueue().size())
+            .description("Password hashing tasks waiting for a thread")
+            .register(meterRegistry);
+    }
+
+    public <T> T execute(Supplier<T> task) {
+        final Future<T> future;
+        // El hilo de la request espera el resultado, así que el conteo de sentencias se puede compartir.
+        final Supplier<T> counted=HibernateStatementCounter.propagate(task);
+        final long submitted=System.nanoTime();
+        try
+        {
+            future=executor.submit(() -> {
+                final long started=System.nanoTime();
+                queueWait.record(started-submitted, TimeUnit.NANOSECONDS);
+                try
+                {
+                    return counted.get();
+                }
+                finally
+                {
+                    hashing.record(System.nanoTime()-started, TimeUnit.NANOSECONDS);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            throw new HashingCapacityExceededException();
+        }
+
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new HashingCapacityExceededException();
+        }
+        catch (ExecutionException e)
+        {
+            // Se relanza la excepción original (p. ej. BadCredentialsException) tal como la lanzó la tarea.
+            if (e.getCause() instanceof RuntimeException cause)
+            {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error)
+            {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,39 @@
+package WITW.demo.Comment;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@EntityListeners(CommentEntityListener.class)
+@Table(name="comment", indexes = {@Index(name="idx_comment_event_created", columnList="eventId, createdAt")})
+public class Comment {
+    // Id asignado en el servidor al aceptar el comentario: permite insertar en batch (IDENTITY lo impide)
+    // y reintentar una escritura sin duplicarla.
+    @Id
+    UUID id;
+    @Column(nullable = false)
+    Long eventId;
+    @Column(nullable = false)
+    Integer userId;
+    @Column(nullable = false)
+    String username;
+    @Column(nullable = false, length = 1000)
+    String text;
+    @Column(nullable = false)
+    LocalDateTime createdAt;
+}
@@ -0,0 +1,8 @@
+package WITW.demo.Comment;
+
+import lombok.Value;
+
+@Value
+public class CommentChangedEvent {
+    Comment comment;
+}
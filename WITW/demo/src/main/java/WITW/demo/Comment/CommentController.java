@@ -0,0 +1,75 @@
+package WITW.demo.Comment;
+
+import java.util.List;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import WITW.demo.Sync.ChangeVersions;
+import WITW.demo.User.User;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/events/{id}/comments")
+@RequiredArgsConstructor
+public class CommentController {
+
+    private final CommentService commentService;
+    private final ChangeVersions versions;
+
+    @PostMapping
+    public ResponseEntity<CommentResponse> create(@PathVariable Long id, @RequestBody CommentRequest request, @AuthenticationPrincipal User user)
+    {
+        return ResponseEntity.accepted().body(commentService.create(id, request, user));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<CommentResponse>> list(@PathVariable Long id, @RequestParam(defaultValue = "50") int limit,
+        WebRequest request)
+    {
+        // Un comentario cuenta como cambio del evento: comparte la versión con GET /events/{id}.
+        if (request.checkNotModified(versions.eventTag(id)))
+        {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(commentService.list(id, limit));
+    }
+
+    @GetMapping(value = "page")
+    public ResponseEntity<CommentPage> page(@PathVariable Long id, @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int limit, WebRequest request)
+    {
+        if (request.checkNotModified(versions.eventTag(id)))
+        {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(commentService.page(id, cursor, limit));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Void> invalidCursor()
+    {
+        return ResponseEntity.badRequest().build();
+    }
+
+    @ExceptionHandler(WriteQueueFullException.class)
+    public ResponseEntity<Void> writeQueueFull()
+    {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .build();
+    }
+}
@@ -0,0 +1,18 @@
+package WITW.demo.Comment;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import jakarta.persistence.PostPersist;
+import lombok.RequiredArgsConstructor;
+
+// Igual que EventEntityListener: Hibernate lo crea con el contenedor de beans de Spring.
+@RequiredArgsConstructor
+public class CommentEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void onCommentSaved(Comment comment) {
+        eventPublisher.publishEvent(new CommentChangedEvent(comment));
+    }
+}
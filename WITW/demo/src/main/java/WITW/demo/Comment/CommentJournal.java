@@ -0,0 +1,249 @@
+package WITW.demo.Comment;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Log de escritura adelantada para los comentarios aceptados y todavía no persistidos.
+ * Cada comentario es una línea JSON en el segmento actual; al iniciar un flush se rota el segmento
+ * y el anterior se borra recién cuando su contenido quedó en la base de datos.
+ * Sin fsync, una línea escrita sobrevive a una caída del proceso (queda en el page cache del sistema);
+ * con fsync también a una caída de la máquina. El fsync se hace en {@link #sync}, fuera del lock del llamador,
+ * y cada uno cubre todas las líneas escritas hasta ese momento: los comentarios concurrentes lo comparten.
+ * Salvo {@link #sync}, no es thread-safe: el llamador serializa los accesos.
+ */
+@Slf4j
+class CommentJournal implements Closeable {
+
+    private static final String PREFIX="comments-";
+    private static final String SUFFIX=".log";
+    private static final String DEAD_LETTER="dead-letter.log";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final ObjectMapper objectMapper;
+
+    private final List<Path> closedSegments=new ArrayList<>();
+    private long sequence;
+    private Path currentPath;
+    private FileChannel current;
+
+    // written lo avanza append; synced, el último fsync. syncLock ordena los fsync con la rotación del segmento.
+    private volatile long written;
+    private volatile long synced;
+    private final ReentrantLock syncLock=new ReentrantLock();
+
+    CommentJournal(Path directory, boolean fsync, ObjectMapper objectMapper) {
+        this.directory=directory;
+        this.fsync=fsync;
+        this.objectMapper=objectMapper;
+        try
+        {
+            Files.createDirectories(directory);
+            for (Path segment : segments())
+            {
+                closedSegments.add(segment);
+                sequence=Math.max(sequence, sequenceOf(segment));
+            }
+            open();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Cannot open comment journal in "+directory, e);
+        }
+    }
+
+    /**
+     * Comentarios de los segmentos que quedaron de una ejecución anterior, en orden de escritura.
+     * Las líneas incompletas (una escritura cortada por la caída) se descartan.
+     */
+    List<Comment> recover() {
+        final List<Comment> comments=new ArrayList<>();
+        for (Path segment : closedSegments)
+        {
+            try (Stream<String> lines=Files.lines(segment, StandardCharsets.UTF_8))
+            {
+                lines.filter(line -> !line.isBlank()).forEach(line -> {
+                    try
+                    {
+                        comments.add(objectMapper.readValue(line, Comment.class));
+                    }
+                    catch (JsonProcessingException e)
+                    {
+                        log.warn("Skipping unreadable journal entry in {}", segment);
+                    }
+                });
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return comments;
+    }
+
+    /**
+     * Escribe la línea del comentario, sin fsync, y devuelve su número para pasarlo a {@link #sync}.
+     */
+    long append(Comment comment) {
+        try
+        {
+            final ByteBuffer line=ByteBuffer.wrap((objectMapper.writeValueAsString(comment)+"\n").getBytes(StandardCharsets.UTF_8));
+            while (line.hasRemaining())
+            {
+                current.write(line);
+            }
+            return ++written;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Con fsync, espera a que la línea esté en disco. Se llama sin el lock del llamador, en paralelo con append.
+     */
+    void sync(long line) {
+        if (!fsync || synced>=line)
+        {
+            return;
+        }
+        syncLock.lock();
+        try
+        {
+            // Otro hilo pudo haber hecho el fsync que cubre esta línea mientras se esperaba el lock.
+            if (synced<line)
+            {
+                final long target=written;
+                current.force(false);
+                synced=target;
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        finally
+        {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Aparta un comentario que la base rechaza siempre, para revisarlo a mano. No se recupera al arrancar.
+     */
+    void deadLetter(Comment comment) {
+        try
+        {
+            Files.writeString(directory.resolve(DEAD_LETTER), objectMapper.writeValueAsString(comment)+"\n",
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Cierra el segmento actual, abre uno nuevo y devuelve todos los segmentos cerrados hasta ahora.
+     */
+    List<Path> rotate() {
+        syncLock.lock();
+        try
+        {
+            // Las líneas que todavía esperan su fsync están en este segmento: se sincroniza antes de cerrarlo.
+            if (fsync)
+            {
+                current.force(false);
+                synced=written;
+            }
+            current.close();
+            closedSegments.add(currentPath);
+            open();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        finally
+        {
+            syncLock.unlock();
+        }
+        final List<Path> rotated=List.copyOf(closedSegments);
+        closedSegments.clear();
+        return rotated;
+    }
+
+    /**
+     * Los segmentos recuperados al abrir el journal; quedan a cargo del llamador.
+     */
+    List<Path> takeRecoveredSegments() {
+        final List<Path> recovered=List.copyOf(closedSegments);
+        closedSegments.clear();
+        return recovered;
+    }
+
+    void delete(List<Path> segments) {
+        for (Path segment : segments)
+        {
+            try
+            {
+                Files.deleteIfExists(segment);
+            }
+            catch (IOException e)
+            {
+                log.warn("Cannot delete journal segment {}", segment, e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        syncLock.lock();
+        try
+        {
+            current.close();
+        }
+        finally
+        {
+            syncLock.unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        currentPath=directory.resolve(PREFIX+String.format("%019d", ++sequence)+SUFFIX);
+        current=FileChannel.open(currentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files=Files.list(directory))
+        {
+            return files
+                .filter(path -> path.getFileName().toString().startsWith(PREFIX) && path.getFileName().toString().endsWith(SUFFIX))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        final String name=segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length()-SUFFIX.length()));
+    }
+}
@@ -0,0 +1,26 @@
+package WITW.demo.Comment;
+
+import java.util.List;
+
+import WITW.demo.Paging.KeysetCursor;
+
+import lombok.Value;
+
+@Value
+public class CommentPage {
+    // Del más nuevo al más viejo.
+    List<CommentPreview> comments;
+    // Cursor para seguir con los más viejos (GET /events/{id}/comments/page), o null si no hay más.
+    String next;
+
+    // rows trae hasta size+1 comentarios en orden: el sobrante no se entrega, solo indica que hay más.
+    public static CommentPage of(List<CommentPreview> rows, int size) {
+        if (rows.size()<=size)
+        {
+            return new CommentPage(rows, null);
+        }
+        final List<CommentPreview> comments=rows.subList(0, size);
+        final CommentPreview last=comments.get(size-1);
+        return new CommentPage(List.copyOf(comments), KeysetCursor.encode(last.getCreatedAt(), last.getId()));
+    }
+}
@@ -0,0 +1,15 @@
+package WITW.demo.Comment;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import lombok.Value;
+
+// Las columnas que muestra un comentario en la tarjeta del evento: se leen solo estas (ver CommentRepository).
+@Value
+public class CommentPreview {
+    UUID id;
+    String username;
+    String text;
+    LocalDateTime createdAt;
+}
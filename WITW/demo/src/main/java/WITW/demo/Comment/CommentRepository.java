@@ -0,0 +1,32 @@
+package WITW.demo.Comment;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface CommentRepository extends JpaRepository<Comment,UUID>, CommentRepositoryCustom {
+
+    String PREVIEW="select new WITW.demo.Comment.CommentPreview(c.id, c.username, c.text, c.createdAt) from Comment c ";
+
+    List<Comment> findByEventIdOrderByCreatedAtDesc(Long eventId, Pageable pageable);
+
+    // Paginación por keyset sobre (createdAt, id) descendente: cada página es un rango de idx_comment_event_created
+    // (InnoDB agrega la clave primaria al final de cada índice secundario).
+    @Query(PREVIEW+"where c.eventId=:eventId order by c.createdAt desc, c.id desc")
+    List<CommentPreview> findPreviews(@Param("eventId") Long eventId, Pageable pageable);
+
+    @Query(PREVIEW+"where c.eventId=:eventId and (c.createdAt<:createdAt or (c.createdAt=:createdAt and c.id<:id))"
+        +" order by c.createdAt desc, c.id desc")
+    List<CommentPreview> findPreviewsBefore(@Param("eventId") Long eventId, @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") UUID id, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Comment c where c.eventId=:eventId")
+    int deleteByEventId(@Param("eventId") Long eventId);
+}
@@ -0,0 +1,8 @@
+package WITW.demo.Comment;
+
+import java.util.List;
+import java.util.Map;
+
+public interface CommentRepositoryCustom {
+    Map<Long,List<CommentPreview>> findLatestPreviews(List<Long> eventIds, int perEvent);
+}
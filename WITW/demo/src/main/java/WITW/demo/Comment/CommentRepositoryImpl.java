@@ -0,0 +1,53 @@
+package WITW.demo.Comment;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+public class CommentRepositoryImpl implements CommentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Una sola sentencia con una parte por evento: cada parte lee un rango corto de idx_comment_event_created
+    // (los últimos perEvent comentarios) sin recorrer el resto de los comentarios del evento, cosa que sí haría
+    // un row_number() sobre todos. Devuelve cada lista del más nuevo al más viejo.
+    @Override
+    public Map<Long,List<CommentPreview>> findLatestPreviews(List<Long> eventIds, int perEvent) {
+        if (eventIds.isEmpty())
+        {
+            return Map.of();
+        }
+        final StringBuilder hql=new StringBuilder("select p.eventId, p.id, p.username, p.text, p.createdAt from (");
+        for (int i=0; i<eventIds.size(); i++)
+        {
+            hql.append(i==0 ? "(" : " union all (")
+                .append("select c.eventId eventId, c.id id, c.username username, c.text text, c.createdAt createdAt from Comment c")
+                .append(" where c.eventId=:event").append(i)
+                .append(" order by c.createdAt desc, c.id desc limit :perEvent)");
+        }
+        hql.append(") p order by p.eventId, p.createdAt desc, p.id desc");
+
+        final TypedQuery<Object[]> query=entityManager.createQuery(hql.toString(), Object[].class);
+        for (int i=0; i<eventIds.size(); i++)
+        {
+            query.setParameter("event"+i, eventIds.get(i));
+        }
+        query.setParameter("perEvent", perEvent);
+
+        final Map<Long,List<CommentPreview>> previews=new HashMap<>();
+        for (Object[] row : query.getResultList())
+        {
+            previews.computeIfAbsent((Long) row[0], eventId -> new ArrayList<>())
+                .add(new CommentPreview((UUID) row[1], (String) row[2], (String) row[3], (LocalDateTime) row[4]));
+        }
+        return previews;
+    }
+}
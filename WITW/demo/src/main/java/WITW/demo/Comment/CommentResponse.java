@@ -0,0 +1,33 @@
+package WITW.demo.Comment;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentResponse {
+    UUID id;
+    Long eventId;
+    Integer userId;
+    String username;
+    String text;
+    LocalDateTime createdAt;
+
+    public static CommentResponse from(Comment comment) {
+        return CommentResponse.builder()
+            .id(comment.getId())
+            .eventId(comment.getEventId())
+            .userId(comment.getUserId())
+            .username(comment.getUsername())
+            .text(comment.getText())
+            .createdAt(comment.getCreatedAt())
+            .build();
+    }
+}
@@ -0,0 +1,73 @@
+package WITW.demo.Comment;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import WITW.demo.Event.EventSpatialIndex;
+import WITW.demo.Paging.KeysetCursor;
+import WITW.demo.User.User;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class CommentService {
+
+    static final int MAX_LENGTH=1000;
+    static final int MAX_RESULTS=100;
+
+    private final CommentRepository commentRepository;
+    private final CommentWriteBehind writeBehind;
+    private final EventSpatialIndex spatialIndex;
+
+    // Se valida contra el índice en memoria: aceptar un comentario no toca la base de datos.
+    public CommentResponse create(Long eventId, CommentRequest request, User user) {
+        if (request.getText()==null || request.getText().isBlank() || request.getText().length()>MAX_LENGTH)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "text must have between 1 and "+MAX_LENGTH+" characters");
+        }
+        if (spatialIndex.get(eventId)==null)
+        {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Event not found");
+        }
+        final Comment comment=Comment.builder()
+            .id(UUID.randomUUID())
+            .eventId(eventId)
+            .userId(user.getId())
+            .username(user.getUsername())
+            .text(request.getText().strip())
+            .createdAt(LocalDateTime.now())
+            .build();
+
+        writeBehind.submit(comment);
+        return CommentResponse.from(comment);
+    }
+
+    // Los comentarios aceptados aparecen acá una vez escritos (a lo sumo flush-interval después).
+    @Transactional(readOnly = true)
+    public List<CommentResponse> list(Long eventId, int limit) {
+        return commentRepository.findByEventIdOrderByCreatedAtDesc(eventId, PageRequest.of(0, Math.max(1, Math.min(limit, MAX_RESULTS)))).stream()
+            .map(CommentResponse::from)
+            .toList();
+    }
+
+    // Sin cursor, los más recientes; con cursor, los anteriores al último entregado.
+    @Transactional(readOnly = true)
+    public CommentPage page(Long eventId, String cursor, int limit) {
+        final int size=Math.max(1, Math.min(limit, MAX_RESULTS));
+        final PageRequest page=PageRequest.of(0, size+1);
+        if (cursor==null)
+        {
+            return CommentPage.of(commentRepository.findPreviews(eventId, page), size);
+        }
+        final KeysetCursor before=KeysetCursor.decode(cursor);
+        return CommentPage.of(commentRepository.findPreviewsBefore(eventId, before.getAt(), before.uuidId(), page), size);
+    }
+}
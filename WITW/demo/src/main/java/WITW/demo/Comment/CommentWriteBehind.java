@@ -0,0 +1,434 @@
+package WITW.demo.Comment;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Escritura diferida de comentarios: se aceptan en una cola acotada (y en el journal) y un único hilo
+ * los inserta en batch, cuando la cola alcanza {@code flush-size} o cada {@code flush-interval}.
+ * Con la cola llena se rechaza el comentario (503) en vez de acumular memoria o frenar las lecturas.
+ * Si la base de datos falla, el lote se reintenta sin tomar comentarios nuevos, así la cola se llena
+ * y la presión vuelve a los clientes. Después de {@value #BATCH_ATTEMPTS} intentos fallidos se escribe de a un
+ * comentario, y el que la base sigue rechazando {@value #ROW_ATTEMPTS} veces se aparta al archivo de descartes
+ * del journal. Los comentarios de un evento que se borró antes de escribirlos se descartan.
+ */
+@Slf4j
+@Component
+public class CommentWriteBehind implements DisposableBean {
+
+    private static final Duration RETRY_DELAY=Duration.ofSeconds(1);
+    static final int BATCH_ATTEMPTS=3;
+    static final int ROW_ATTEMPTS=3;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+    private final CommentJournal journal;
+    private final ArrayBlockingQueue<Comment> queue;
+    private final int flushSize;
+    private final int batchSize;
+    private final Duration flushInterval;
+
+    // journalLock agrega cada comentario al journal y a la cola juntos, y el escritor vacía la cola y rota el
+    // segmento con él tomado: lo que se saca de la cola está en los segmentos rotados. lock solo despierta al escritor.
+    private final ReentrantLock journalLock=new ReentrantLock();
+    private final ReentrantLock lock=new ReentrantLock();
+    private final Condition flushRequested=lock.newCondition();
+    private final Thread writer;
+    private volatile boolean running=true;
+
+    // Solo los usa el hilo escritor: el lote en curso y los segmentos del journal que lo respaldan.
+    // Un lote recuperado o que ya falló una vez puede estar (en parte) en la base: se escribe sin duplicar.
+    private List<Comment> pending;
+    private List<Path> pendingSegments;
+    private boolean retrying;
+    private int failedAttempts;
+    private final Map<UUID,Integer> rowFailures=new HashMap<>();
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter rejected;
+    private final Counter deadLettered;
+    private final Counter discarded;
+
+    public CommentWriteBehind(
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${witw.comments.write-behind.queue-capacity:10000}") int queueCapacity,
+            @Value("${witw.comments.write-behind.flush-size:500}") int flushSize,
+            @Value("${witw.comments.write-behind.flush-interval:PT0.2S}") Duration flushInterval,
+            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize,
+            @Value("${witw.comments.write-behind.journal-dir:data/journal}") Path journalDirectory,
+            @Value("${witw.comments.write-behind.fsync:false}") boolean fsync) {
+        this.entityManager=entityManager;
+        this.transaction=new TransactionTemplate(transactionManager);
+        this.queue=new ArrayBlockingQueue<>(queueCapacity);
+        this.flushSize=flushSize;
+        this.batchSize=batchSize;
+        this.flushInterval=flushInterval;
+        this.journal=new CommentJournal(journalDirectory, fsync, objectMapper);
+
+        // Lo que quedó en el journal de una ejecución anterior se escribe antes que cualquier comentario nuevo.
+        this.pending=journal.recover();
+        this.pendingSegments=journal.takeRecoveredSegments();
+        this.retrying=true;
+        if (pending.isEmpty())
+        {
+            journal.delete(pendingSegments);
+            pendingSegments=List.of();
+        }
+        else
+        {
+            log.info("Recovered {} comments from the journal", pending.size());
+        }
+
+        this.writer=new Thread(this::run, "comment-writer");
+        this.writer.setDaemon(true);
+
+        Gauge.builder("witw.comments.queue.depth", queue, ArrayBlockingQueue::size)
+            .description("Accepted comments waiting to be written")
+            .register(meterRegistry);
+        this.flushTimer=Timer.builder("witw.comments.flush")
+            .description("Time to write each batch of comments")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.batchSizes=DistributionSummary.builder("witw.comments.flush.size")
+            .description("Comments per batch write")
+            .register(meterRegistry);
+        this.rejected=Counter.builder("witw.comments.rejected")
+            .description("Comments rejected because the write queue was full")
+            .register(meterRegistry);
+        this.deadLettered=Counter.builder("witw.comments.dead_lettered")
+            .description("Comments the database kept rejecting, moved to the dead letter file")
+            .register(meterRegistry);
+        this.discarded=Counter.builder("witw.comments.discarded")
+            .description("Comments dropped because their event was deleted before they were written")
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!writer.isAlive())
+        {
+            writer.start();
+        }
+    }
+
+    /**
+     * Acepta el comentario: cuando este método retorna, el comentario está en el journal y se va a escribir.
+     */
+    public void submit(Comment comment) {
+        final long line;
+        final boolean flushNow;
+        journalLock.lock();
+        try
+        {
+            // Solo el escritor saca elementos de la cola: con el lock tomado, si hay lugar ahora lo hay al agregar.
+            if (!running || queue.remainingCapacity()==0)
+            {
+                rejected.increment();
+                throw new WriteQueueFullException();
+            }
+            line=journal.append(comment);
+            queue.add(comment);
+            flushNow=queue.size()>=flushSize;
+        }
+        finally
+        {
+            journalLock.unlock();
+        }
+
+        if (flushNow)
+        {
+            lock.lock();
+            try
+            {
+                flushRequested.signal();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+        // Fuera de los locks: los comentarios que llegan mientras tanto comparten el siguiente fsync.
+        journal.sync(line);
+    }
+
+    public int depth() {
+        return queue.size();
+    }
+
+    /**
+     * Escribe lo que haya pendiente. Devuelve false si la escritura falló y el lote queda para reintentar.
+     * Lo llama el hilo escritor; fuera de él solo es seguro si el escritor no está corriendo.
+     */
+    boolean flush() {
+        if (pending.isEmpty())
+        {
+            journalLock.lock();
+            try
+            {
+                if (queue.isEmpty())
+                {
+                    return true;
+                }
+                pending=new ArrayList<>(queue.size());
+                queue.drainTo(pending);
+                pendingSegments=journal.rotate();
+                retrying=false;
+                failedAttempts=0;
+                rowFailures.clear();
+            }
+            finally
+            {
+                journalLock.unlock();
+            }
+        }
+
+        final long start=System.nanoTime();
+        final int size=pending.size();
+        if (failedAttempts>=BATCH_ATTEMPTS)
+        {
+            // Un solo comentario que la base rechaza haría fallar el lote para siempre: se aísla escribiéndolos de a uno.
+            if (!writeEach())
+            {
+                failedAttempts++;
+                return false;
+            }
+        }
+        else
+        {
+            try
+            {
+                discarded.increment(write(pending, retrying));
+            }
+            catch (RuntimeException e)
+            {
+                retrying=true;
+                failedAttempts++;
+                log.warn("Cannot write {} comments, retrying in {}", pending.size(), RETRY_DELAY, e);
+                return false;
+            }
+        }
+        flushTimer.record(System.nanoTime()-start, TimeUnit.NANOSECONDS);
+        batchSizes.record(size);
+
+        journal.delete(pendingSegments);
+        pending=List.of();
+        pendingSegments=List.of();
+        return true;
+    }
+
+    /**
+     * Escribe cada comentario pendiente en su propia transacción y deja pendientes solo los que fallaron.
+     * Devuelve true si no queda ninguno.
+     */
+    private boolean writeEach() {
+        final List<Comment> failed=new ArrayList<>();
+        Boolean databaseUp=null;
+        for (Comment comment : pending)
+        {
+            try
+            {
+                discarded.increment(write(List.of(comment), true));
+            }
+            catch (RuntimeException e)
+            {
+                if (databaseUp==null)
+                {
+                    databaseUp=databaseUp();
+                }
+                // Con la base caída el fallo no es del comentario: se reintenta sin contarlo.
+                if (databaseUp && rowFailures.merge(comment.getId(), 1, Integer::sum)>=ROW_ATTEMPTS)
+                {
+                    log.error("Comment {} failed {} times, moving it to the dead letter file", comment.getId(), ROW_ATTEMPTS, e);
+                    journal.deadLetter(comment);
+                    deadLettered.increment();
+                }
+                else
+                {
+                    log.warn("Cannot write comment {}, retrying in {}", comment.getId(), RETRY_DELAY, e);
+                    failed.add(comment);
+                }
+            }
+        }
+        pending=failed;
+        return failed.isEmpty();
+    }
+
+    private boolean databaseUp() {
+        try
+        {
+            transaction.executeWithoutResult(tx -> entityManager.createNativeQuery("select 1").getSingleResult());
+            return true;
+        }
+        catch (RuntimeException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Inserta los comentarios en una transacción y devuelve cuántos se descartaron por ser de eventos borrados.
+     */
+    private int write(List<Comment> comments, boolean skipExisting) {
+        return transaction.execute(tx -> {
+            final Set<UUID> existing=skipExisting ? existingIds(comments) : Set.of();
+            final Set<Long> events=lockEvents(comments);
+            int persisted=0;
+            int dropped=0;
+            for (Comment comment : comments)
+            {
+                if (existing.contains(comment.getId()))
+                {
+                    continue;
+                }
+                if (!events.contains(comment.getEventId()))
+                {
+                    dropped++;
+                    continue;
+                }
+                entityManager.persist(comment);
+                // Hibernate agrupa los inserts de cada flush en batches de hibernate.jdbc.batch_size.
+                if (++persisted%batchSize==0)
+                {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            return dropped;
+        });
+    }
+
+    /**
+     * Los eventos de los comentarios que todavía existen, con un lock compartido hasta el commit: un borrado
+     * concurrente (que toma la fila del evento en exclusiva) espera a estos inserts y borra también sus
+     * comentarios, o termina antes y el evento ya no aparece acá.
+     */
+    private Set<Long> lockEvents(List<Comment> comments) {
+        final List<Long> ids=comments.stream().map(Comment::getEventId).distinct().sorted().toList();
+        final Set<Long> existing=new HashSet<>();
+        for (int from=0; from<ids.size(); from+=batchSize)
+        {
+            existing.addAll(entityManager.createQuery("select e.id from Event e where e.id in :ids order by e.id", Long.class)
+                .setParameter("ids", ids.subList(from, Math.min(ids.size(), from+batchSize)))
+                .setLockMode(LockModeType.PESSIMISTIC_READ)
+                .getResultList());
+        }
+        return existing;
+    }
+
+    private Set<UUID> existingIds(List<Comment> comments) {
+        final Set<UUID> existing=new HashSet<>();
+        for (int from=0; from<comments.size(); from+=batchSize)
+        {
+            final List<UUID> ids=comments.subList(from, Math.min(comments.size(), from+batchSize)).stream()
+                .map(Comment::getId)
+                .toList();
+            existing.addAll(entityManager.createQuery("select c.id from Comment c where c.id in :ids", UUID.class)
+                .setParameter("ids", ids)
+                .getResultList());
+        }
+        return existing;
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty() || !pending.isEmpty())
+        {
+            lock.lock();
+            try
+            {
+                if (running && pending.isEmpty() && queue.size()<flushSize)
+                {
+                    flushRequested.awaitNanos(flushInterval.toNanos());
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            finally
+            {
+                lock.unlock();
+            }
+
+            if (!flush())
+            {
+                if (!running)
+                {
+                    // Al apagar no se reintenta: el journal conserva el lote para el próximo arranque.
+                    return;
+                }
+                try
+                {
+                    Thread.sleep(RETRY_DELAY.toMillis());
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException, IOException {
+        lock.lock();
+        try
+        {
+            running=false;
+            flushRequested.signal();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+        if (writer.isAlive())
+        {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        journalLock.lock();
+        try
+        {
+            journal.close();
+        }
+        finally
+        {
+            journalLock.unlock();
+        }
+    }
+}
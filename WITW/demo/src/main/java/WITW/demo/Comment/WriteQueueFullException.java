@@ -0,0 +1,8 @@
+package WITW.demo.Comment;
+
+public class WriteQueueFullException extends RuntimeException {
+
+    public WriteQueueFullException() {
+        super("Write queue is full, retry later");
+    }
+}
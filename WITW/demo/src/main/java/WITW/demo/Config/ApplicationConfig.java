@@ -1,16 +1,22 @@
 package WITW.demo.Config;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import WITW.demo.User.CachedUserDetailsService;
+import WITW.demo.User.User;
 import WITW.demo.User.UserRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -21,6 +27,15 @@ public class ApplicationConfig {
 
     private final UserRepository userRepository;
 
+    @Value("${witw.security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    @Value("${witw.security.user-cache.maximum-size:10000}")
+    private long userCacheMaximumSize;
+
+    @Value("${witw.security.user-cache.time-to-live:PT10M}")
+    private Duration userCacheTimeToLive;
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception
     {
@@ -33,18 +48,37 @@ public class ApplicationConfig {
         DaoAuthenticationProvider authenticationProvider= new DaoAuthenticationProvider();
         authenticationProvider.setUserDetailsService(userDetailService());
         authenticationProvider.setPasswordEncoder(passwordEncoder());
+        authenticationProvider.setUserDetailsPasswordService(userDetailsPasswordService());
         return authenticationProvider;
     }
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength);
+    }
+
+    // Si un hash guardado usa un strength menor al configurado, se vuelve a calcular en el siguiente login exitoso.
+    @Bean
+    public UserDetailsPasswordService userDetailsPasswordService() {
+        return (user, newPassword) -> {
+            if (userRepository.rehashPassword(user.getUsername(), newPassword)==0)
+            {
+                return user;
+            }
+            userDetailService().invalidate(user.getUsername());
+            if (user instanceof User appUser)
+            {
+                appUser.setPassword(newPassword);
+            }
+            return user;
+        };
     }
 
     @Bean
-    public UserDetailsService userDetailService() {
-        return username -> userRepository.findByUsername(username)
+    public CachedUserDetailsService userDetailService() {
+        UserDetailsService repositoryLookup = username -> userRepository.findByUsername(username)
         .orElseThrow(()-> new UsernameNotFoundException("User not fournd"));
+        return new CachedUserDetailsService(repositoryLookup, userCacheMaximumSize, userCacheTimeToLive);
     }
 
 }
\ No newline at end of file
@@ -10,6 +10,10 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import WITW.demo.Jwt.JwtAuthenticationFilter;
+import WITW.demo.RateLimit.RateLimitFilter;
+import WITW.demo.User.Role;
+
+import jakarta.servlet.DispatcherType;
 
 import lombok.RequiredArgsConstructor;
 
@@ -19,6 +23,7 @@ import lombok.RequiredArgsConstructor;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final AuthenticationProvider authProvider;
 
     @Bean
@@ -31,6 +36,13 @@ public class SecurityConfig {
             .authorizeHttpRequests(authRequest ->
               authRequest
                 .requestMatchers("/auth/**").permitAll()
+                // Los <script> y <link> del navegador no mandan el token; son archivos públicos del frontend.
+                .requestMatchers(StaticResourceConfig.ASSETS_PATTERN).permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+                // Las métricas exponen endpoints y tiempos internos: el scrape usa el token de un ADMIN.
+                .requestMatchers("/actuator/prometheus").hasAuthority(Role.ADMIN.name())
+                // El cierre de un stream SSE vuelve a despachar la request ya autorizada.
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .anyRequest().authenticated()
                 )
             .sessionManagement(sessionManager->
@@ -38,6 +50,7 @@ public class SecurityConfig {
                   .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authenticationProvider(authProvider)
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class)
             .build();
             
             
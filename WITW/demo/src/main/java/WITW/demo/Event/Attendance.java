@@ -0,0 +1,35 @@
+package WITW.demo.Event;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name="attendance",
+    uniqueConstraints = {@UniqueConstraint(name="uk_attendance_event_user", columnNames = {"eventId", "userId"})},
+    indexes = {@Index(name="idx_attendance_user", columnList="userId")})
+public class Attendance {
+    @Id
+    @GeneratedValue
+    Long id;
+    @Column(nullable = false)
+    Long eventId;
+    @Column(nullable = false)
+    Integer userId;
+    @Column(nullable = false)
+    LocalDateTime joinedAt;
+}
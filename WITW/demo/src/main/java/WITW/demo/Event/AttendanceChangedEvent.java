@@ -0,0 +1,10 @@
+package WITW.demo.Event;
+
+import lombok.Value;
+
+@Value
+public class AttendanceChangedEvent {
+    Long eventId;
+    Integer userId;
+    boolean attending;
+}
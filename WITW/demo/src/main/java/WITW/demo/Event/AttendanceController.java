@@ -0,0 +1,40 @@
+package WITW.demo.Event;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import WITW.demo.User.User;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/events/{id}/attendance")
+@RequiredArgsConstructor
+public class AttendanceController {
+
+    private final AttendanceService attendanceService;
+
+    @GetMapping
+    public ResponseEntity<AttendanceResponse> get(@PathVariable Long id, @AuthenticationPrincipal User user)
+    {
+        return ResponseEntity.ok(attendanceService.get(id, user));
+    }
+
+    @PostMapping
+    public ResponseEntity<AttendanceResponse> join(@PathVariable Long id, @AuthenticationPrincipal User user)
+    {
+        return ResponseEntity.ok(attendanceService.join(id, user));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<AttendanceResponse> leave(@PathVariable Long id, @AuthenticationPrincipal User user)
+    {
+        return ResponseEntity.ok(attendanceService.leave(id, user));
+    }
+}
@@ -0,0 +1,21 @@
+package WITW.demo.Event;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface AttendanceRepository extends JpaRepository<Attendance,Long> {
+
+    boolean existsByEventIdAndUserId(Long eventId, Integer userId);
+
+    long countByEventId(Long eventId);
+
+    @Modifying
+    @Query("delete from Attendance a where a.eventId=:eventId and a.userId=:userId")
+    int deleteByEventIdAndUserId(@Param("eventId") Long eventId, @Param("userId") Integer userId);
+
+    @Modifying
+    @Query("delete from Attendance a where a.eventId=:eventId")
+    int deleteByEventId(@Param("eventId") Long eventId);
+}
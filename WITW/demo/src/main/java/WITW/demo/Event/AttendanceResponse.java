@@ -0,0 +1,18 @@
+package WITW.demo.Event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceResponse {
+    Long eventId;
+    boolean attending;
+    int capacity;
+    int attendeeCount;
+    int remaining;
+}
@@ -0,0 +1,114 @@
+package WITW.demo.Event;
+
+import java.time.LocalDateTime;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import WITW.demo.User.User;
+
+/**
+ * Reservas de cupos con la capacidad garantizada por la base de datos.
+ * Cada inscripción inserta la fila de asistencia (la restricción única la hace idempotente por usuario)
+ * y después incrementa el contador del evento con un update condicional, todo en la misma transacción:
+ * si no quedan cupos, la inserción se revierte. Ambas operaciones toman los locks en el mismo orden
+ * que la cancelación, así que un evento muy concurrido solo serializa un update corto por inscripción.
+ */
+@Service
+public class AttendanceService {
+
+    private final EventRepository eventRepository;
+    private final AttendanceRepository attendanceRepository;
+    private final TransactionTemplate transaction;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AttendanceService(EventRepository eventRepository, AttendanceRepository attendanceRepository,
+        PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher)
+    {
+        this.eventRepository=eventRepository;
+        this.attendanceRepository=attendanceRepository;
+        this.transaction=new TransactionTemplate(transactionManager);
+        this.eventPublisher=eventPublisher;
+    }
+
+    public AttendanceResponse join(Long eventId, User user) {
+        if (attendanceRepository.existsByEventIdAndUserId(eventId, user.getId()))
+        {
+            return status(eventId, true);
+        }
+        // Lectura sin locks: cuando el evento ya está lleno se rechaza sin competir por la fila del evento.
+        if (seats(eventId).getRemaining()==0)
+        {
+            throw full();
+        }
+        try
+        {
+            transaction.executeWithoutResult(tx -> {
+                attendanceRepository.saveAndFlush(Attendance.builder()
+                    .eventId(eventId)
+                    .userId(user.getId())
+                    .joinedAt(LocalDateTime.now())
+                    .build());
+
+                if (eventRepository.reserveSeat(eventId)==0)
+                {
+                    throw eventRepository.existsById(eventId) ? full() : notFound();
+                }
+                eventPublisher.publishEvent(new AttendanceChangedEvent(eventId, user.getId(), true));
+            });
+        }
+        catch (DataIntegrityViolationException e)
+        {
+            // Otra request del mismo usuario se inscribió primero.
+            if (!attendanceRepository.existsByEventIdAndUserId(eventId, user.getId()))
+            {
+                throw e;
+            }
+        }
+        return status(eventId, true);
+    }
+
+    public AttendanceResponse leave(Long eventId, User user) {
+        transaction.executeWithoutResult(tx -> {
+            if (attendanceRepository.deleteByEventIdAndUserId(eventId, user.getId())>0)
+            {
+                eventRepository.releaseSeat(eventId);
+                eventPublisher.publishEvent(new AttendanceChangedEvent(eventId, user.getId(), false));
+            }
+        });
+        return status(eventId, false);
+    }
+
+    public AttendanceResponse get(Long eventId, User user) {
+        return status(eventId, attendanceRepository.existsByEventIdAndUserId(eventId, user.getId()));
+    }
+
+    private AttendanceResponse status(Long eventId, boolean attending) {
+        final SeatCount seats=seats(eventId);
+
+        return AttendanceResponse.builder()
+            .eventId(eventId)
+            .attending(attending)
+            .capacity(seats.getCapacity())
+            .attendeeCount(seats.getAttendeeCount())
+            .remaining(seats.getRemaining())
+            .build();
+    }
+
+    private SeatCount seats(Long eventId) {
+        return eventRepository.findSeatCount(eventId).orElseThrow(AttendanceService::notFound);
+    }
+
+    private static ResponseStatusException full() {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Event is full");
+    }
+
+    private static ResponseStatusException notFound() {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Event not found");
+    }
+}
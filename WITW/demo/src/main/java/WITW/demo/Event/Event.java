@@ -0,0 +1,49 @@
+package WITW.demo.Event;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@EntityListeners(EventEntityListener.class)
+@Table(name="event", indexes = {
+    @Index(name="idx_event_geohash", columnList="geohash"),
+    @Index(name="idx_event_starts_at", columnList="startsAt, id")
+})
+public class Event {
+    @Id
+    @GeneratedValue
+    Long id;
+    @Column(nullable = false)
+    String name;
+    String place;
+    @Column(length = 2000)
+    String description;
+    String imageUrl;
+    @Column(nullable = false)
+    LocalDateTime startsAt;
+    int capacity;
+    // Solo se modifica con updates condicionales (ver EventRepository): un save() del evento no lo pisa.
+    @Column(nullable = false, updatable = false)
+    int attendeeCount;
+    double latitude;
+    double longitude;
+    // Geohash de precisión máxima: los prefijos permiten buscar por celdas usando el índice.
+    @Column(nullable = false, length = 12)
+    String geohash;
+    Integer creatorId;
+}
@@ -0,0 +1,30 @@
+package WITW.demo.Event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import WITW.demo.Comment.CommentPreview;
+
+import lombok.Data;
+
+/**
+ * Un evento tal como lo muestra su tarjeta en el listado. Se arma directo desde la consulta con las columnas
+ * finales (ver EventRepository.CARD), sin cargar la entidad.
+ */
+@Data
+public class EventCard {
+    private final Long id;
+    private final String name;
+    private final String place;
+    private final String description;
+    private final String imageUrl;
+    private final LocalDateTime startsAt;
+    private final int capacity;
+    private final int attendeeCount;
+    private final long ratingCount;
+    // Null sin valoraciones.
+    private final Double ratingAverage;
+    // Los comentarios más recientes y, si hay más, el cursor para seguir con GET /events/{id}/comments/page.
+    private List<CommentPreview> comments=List.of();
+    private String moreComments;
+}
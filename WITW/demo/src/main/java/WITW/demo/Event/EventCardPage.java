@@ -0,0 +1,13 @@
+package WITW.demo.Event;
+
+import java.util.List;
+
+import lombok.Value;
+
+@Value
+public class EventCardPage {
+    // Por fecha de inicio y, a igual fecha, por id.
+    List<EventCard> events;
+    // Cursor para la página siguiente, o null si no hay más.
+    String next;
+}
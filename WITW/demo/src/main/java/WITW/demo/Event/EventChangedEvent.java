@@ -0,0 +1,9 @@
+package WITW.demo.Event;
+
+import lombok.Value;
+
+@Value
+public class EventChangedEvent {
+    Event event;
+    boolean removed;
+}
@@ -0,0 +1,128 @@
+package WITW.demo.Event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import WITW.demo.Geo.BoundingBox;
+import WITW.demo.Sync.ChangeVersions;
+import WITW.demo.User.User;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/events")
+@RequiredArgsConstructor
+public class EventController {
+
+    // El navegador guarda la respuesta pero la revalida siempre con su ETag.
+    static final CacheControl REVALIDATE=CacheControl.noCache().cachePrivate();
+
+    private final EventService eventService;
+    private final ChangeVersions versions;
+
+    @PostMapping
+    public ResponseEntity<EventResponse> create(@RequestBody EventRequest request, @AuthenticationPrincipal User user)
+    {
+        return ResponseEntity.ok(eventService.create(request, user));
+    }
+
+    @GetMapping(value = "{id}")
+    public ResponseEntity<EventResponse> get(@PathVariable Long id, WebRequest request)
+    {
+        // La versión se lee antes que los datos: si cambian en el medio, el cuerpo queda más nuevo que su ETag
+        // (el próximo GET lo vuelve a bajar) y nunca al revés.
+        if (request.checkNotModified(versions.eventTag(id)))
+        {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(eventService.get(id));
+    }
+
+    @PutMapping(value = "{id}")
+    public ResponseEntity<EventResponse> update(@PathVariable Long id, @RequestBody EventRequest request, @AuthenticationPrincipal User user)
+    {
+        return ResponseEntity.ok(eventService.update(id, request, user));
+    }
+
+    @DeleteMapping(value = "{id}")
+    public ResponseEntity<Void> delete(@PathVariable Long id, @AuthenticationPrincipal User user)
+    {
+        eventService.delete(id, user);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping
+    public ResponseEntity<List<EventResponse>> within(
+        @RequestParam double minLat, @RequestParam double minLon,
+        @RequestParam double maxLat, @RequestParam double maxLon, WebRequest request)
+    {
+        if (request.checkNotModified(versions.allEventsTag()))
+        {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(eventService.within(BoundingBox.of(minLat, minLon, maxLat, maxLon)));
+    }
+
+    @GetMapping(value = "viewport")
+    public ResponseEntity<List<IndexedEvent>> viewport(
+        @RequestParam double minLat, @RequestParam double minLon,
+        @RequestParam double maxLat, @RequestParam double maxLon,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        @RequestParam(defaultValue = "500") int limit, WebRequest request)
+    {
+        if (request.checkNotModified(eventService.viewportTag()))
+        {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(eventService.viewport(BoundingBox.of(minLat, minLon, maxLat, maxLon), from, to, limit));
+    }
+
+    @GetMapping(value = "cards")
+    public ResponseEntity<EventCardPage> cards(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "20") int limit, WebRequest request)
+    {
+        if (request.checkNotModified(versions.allEventsTag()))
+        {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(eventService.cards(from, cursor, limit));
+    }
+
+    @GetMapping(value = "near")
+    public ResponseEntity<List<EventResponse>> near(
+        @RequestParam double lat, @RequestParam double lon,
+        @RequestParam(defaultValue = "10") double radiusKm,
+        @RequestParam(defaultValue = "50") int limit, WebRequest request)
+    {
+        if (request.checkNotModified(versions.allEventsTag()))
+        {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(eventService.near(lat, lon, radiusKm, limit));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Void> invalidArea()
+    {
+        return ResponseEntity.badRequest().build();
+    }
+}
@@ -0,0 +1,26 @@
+package WITW.demo.Event;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+
+// Igual que UserEntityListener: Hibernate lo crea con el contenedor de beans de Spring.
+@RequiredArgsConstructor
+public class EventEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onEventSaved(Event event) {
+        eventPublisher.publishEvent(new EventChangedEvent(event, false));
+    }
+
+    @PostRemove
+    public void onEventRemoved(Event event) {
+        eventPublisher.publishEvent(new EventChangedEvent(event, true));
+    }
+}
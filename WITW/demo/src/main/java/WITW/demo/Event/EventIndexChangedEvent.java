@@ -0,0 +1,10 @@
+package WITW.demo.Event;
+
+import lombok.Value;
+
+// Publicado por EventSpatialIndex después de aplicar un cambio; previous o current son null en altas y bajas.
+@Value
+public class EventIndexChangedEvent {
+    IndexedEvent previous;
+    IndexedEvent current;
+}
@@ -0,0 +1,57 @@
+package WITW.demo.Event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import WITW.demo.Search.SearchableEvent;
+
+import jakarta.persistence.LockModeType;
+
+public interface EventRepository extends JpaRepository<Event,Long>, EventRepositoryCustom {
+
+    // El promedio de valoraciones sale del agregado de event_rating (una fila por evento, por clave primaria).
+    String CARD="select new WITW.demo.Event.EventCard(e.id, e.name, e.place, e.description, e.imageUrl, e.startsAt,"
+        +" e.capacity, e.attendeeCount, coalesce(r.ratingCount, 0), cast(r.ratingSum as double)/nullif(r.ratingCount, 0))"
+        +" from Event e left join EventRating r on r.eventId=e.id ";
+
+    // El chequeo de capacidad y el incremento son una sola sentencia: la fila queda bloqueada hasta el commit.
+    @Modifying
+    @Query("update Event e set e.attendeeCount=e.attendeeCount+1 where e.id=:id and e.attendeeCount<e.capacity")
+    int reserveSeat(@Param("id") Long id);
+
+    @Modifying
+    @Query("update Event e set e.attendeeCount=e.attendeeCount-1 where e.id=:id and e.attendeeCount>0")
+    int releaseSeat(@Param("id") Long id);
+
+    // Toma la fila en exclusiva hasta el commit: los comentarios diferidos del evento que se estén escribiendo
+    // terminan antes (y se borran con él) o esperan y lo encuentran borrado.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e.id from Event e where e.id=:id")
+    Optional<Long> lockById(@Param("id") Long id);
+
+    @Query("select new WITW.demo.Event.SeatCount(e.capacity, e.attendeeCount) from Event e where e.id=:id")
+    Optional<SeatCount> findSeatCount(@Param("id") Long id);
+
+    // Para reconstruir el índice de búsqueda sin cargar las entidades completas.
+    @Query("select new WITW.demo.Search.SearchableEvent(e.id, e.name, e.place, e.description) from Event e where e.id>:after order by e.id")
+    List<SearchableEvent> findSearchable(@Param("after") long after, Pageable pageable);
+
+    // Igual que findSearchable, con las columnas de EventSpatialIndex.
+    @Query("select new WITW.demo.Event.IndexedEvent(e.id, e.name, e.latitude, e.longitude, e.startsAt) from Event e where e.id>:after order by e.id")
+    List<IndexedEvent> findIndexed(@Param("after") long after, Pageable pageable);
+
+    // Paginación por keyset sobre (startsAt, id): cada página es un rango de idx_event_starts_at.
+    @Query(CARD+"order by e.startsAt, e.id")
+    List<EventCard> findCards(Pageable pageable);
+
+    @Query(CARD+"where e.startsAt>:startsAt or (e.startsAt=:startsAt and e.id>:id) order by e.startsAt, e.id")
+    List<EventCard> findCardsAfter(@Param("startsAt") LocalDateTime startsAt, @Param("id") long id, Pageable pageable);
+}
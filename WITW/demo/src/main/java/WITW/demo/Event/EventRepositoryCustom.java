@@ -0,0 +1,11 @@
+package WITW.demo.Event;
+
+import java.util.Collection;
+import java.util.List;
+
+import WITW.demo.Geo.BoundingBox;
+
+public interface EventRepositoryCustom {
+    // Como mucho limit eventos cualesquiera de la caja: el límite se aplica en la consulta.
+    List<Event> findInCells(Collection<String> geohashCells, BoundingBox box, int limit);
+}
@@ -0,0 +1,44 @@
+package WITW.demo.Event;
+
+import java.util.Collection;
+import java.util.List;
+
+import WITW.demo.Geo.BoundingBox;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+public class EventRepositoryImpl implements EventRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Un rango "geohash LIKE 'celda%'" por celda (todos resueltos con idx_event_geohash)
+    // y después el filtro exacto por latitud y longitud sobre los pocos candidatos.
+    @Override
+    public List<Event> findInCells(Collection<String> geohashCells, BoundingBox box, int limit) {
+        return entityManager.createQuery(inCells(geohashCells, box))
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    private CriteriaQuery<Event> inCells(Collection<String> geohashCells, BoundingBox box) {
+        final CriteriaBuilder cb=entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Event> query=cb.createQuery(Event.class);
+        final Root<Event> event=query.from(Event.class);
+
+        final Predicate inCells=cb.or(geohashCells.stream()
+            .map(cell -> cb.like(event.get("geohash"), cell+"%"))
+            .toArray(Predicate[]::new));
+
+        query.select(event).where(
+            inCells,
+            cb.between(event.get("latitude"), box.getMinLatitude(), box.getMaxLatitude()),
+            cb.between(event.get("longitude"), box.getMinLongitude(), box.getMaxLongitude()));
+        return query;
+    }
+}
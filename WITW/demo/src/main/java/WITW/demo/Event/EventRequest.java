@@ -0,0 +1,23 @@
+package WITW.demo.Event;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventRequest {
+    String name;
+    String place;
+    String description;
+    String imageUrl;
+    LocalDateTime startsAt;
+    Integer capacity;
+    Double latitude;
+    Double longitude;
+}
@@ -0,0 +1,43 @@
+package WITW.demo.Event;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventResponse {
+    Long id;
+    String name;
+    String place;
+    String description;
+    String imageUrl;
+    LocalDateTime startsAt;
+    int capacity;
+    int attendeeCount;
+    double latitude;
+    double longitude;
+    Integer creatorId;
+    Double distanceKm;
+
+    public static EventResponse from(Event event) {
+        return EventResponse.builder()
+            .id(event.getId())
+            .name(event.getName())
+            .place(event.getPlace())
+            .description(event.getDescription())
+            .imageUrl(event.getImageUrl())
+            .startsAt(event.getStartsAt())
+            .capacity(event.getCapacity())
+            .attendeeCount(event.getAttendeeCount())
+            .latitude(event.getLatitude())
+            .longitude(event.getLongitude())
+            .creatorId(event.getCreatorId())
+            .build();
+    }
+}
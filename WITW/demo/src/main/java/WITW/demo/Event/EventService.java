@@ -0,0 +1,217 @@
+package WITW.demo.Event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import WITW.demo.Comment.CommentPage;
+import WITW.demo.Comment.CommentPreview;
+import WITW.demo.Comment.CommentRepository;
+import WITW.demo.Gazetteer.Gazetteer;
+import WITW.demo.Geo.BoundingBox;
+import WITW.demo.Geo.GeoDistance;
+import WITW.demo.Geo.GeoHash;
+import WITW.demo.Paging.KeysetCursor;
+import WITW.demo.Rating.EventRating;
+import WITW.demo.Rating.EventRatingRepository;
+import WITW.demo.Rating.RatingRepository;
+import WITW.demo.User.Role;
+import WITW.demo.User.User;
+
+import lombok.RequiredArgsConstructor;
+
+@Service
+@RequiredArgsConstructor
+public class EventService {
+
+    // Suficientes celdas para acotar bien el área sin generar una consulta con demasiados rangos.
+    static final int MAX_QUERY_CELLS=16;
+    static final double MAX_RADIUS_KM=500;
+    static final int MAX_RESULTS=500;
+    private static final int DEFAULT_CAPACITY=10;
+
+    static final int MAX_MARKERS=2000;
+
+    static final int MAX_CARDS=100;
+    static final int COMMENT_PREVIEWS=3;
+
+    private final EventRepository eventRepository;
+    private final EventSpatialIndex spatialIndex;
+    private final AttendanceRepository attendanceRepository;
+    private final CommentRepository commentRepository;
+    private final RatingRepository ratingRepository;
+    private final EventRatingRepository eventRatingRepository;
+    private final Gazetteer gazetteer;
+
+    @Transactional
+    public EventResponse create(EventRequest request, User creator) {
+        Event event=Event.builder()
+            .creatorId(creator.getId())
+            .build();
+        apply(request, event);
+        return EventResponse.from(eventRepository.save(event));
+    }
+
+    @Transactional
+    public EventResponse update(Long id, EventRequest request, User user) {
+        Event event=findOwned(id, user);
+        apply(request, event);
+        eventRatingRepository.relocate(id, EventRating.cellOf(event.getLatitude(), event.getLongitude()),
+            event.getLatitude(), event.getLongitude());
+        return EventResponse.from(eventRepository.save(event));
+    }
+
+    @Transactional
+    public void delete(Long id, User user) {
+        Event event=findOwned(id, user);
+        eventRepository.lockById(event.getId());
+        attendanceRepository.deleteByEventId(event.getId());
+        commentRepository.deleteByEventId(event.getId());
+        ratingRepository.deleteByEventId(event.getId());
+        eventRatingRepository.deleteByEventId(event.getId());
+        eventRepository.delete(event);
+    }
+
+    @Transactional(readOnly = true)
+    public EventResponse get(Long id) {
+        return EventResponse.from(find(id));
+    }
+
+    @Transactional(readOnly = true)
+    public List<EventResponse> within(BoundingBox box) {
+        return eventRepository.findInCells(GeoHash.coveringCells(box, MAX_QUERY_CELLS), box, MAX_RESULTS).stream()
+            .map(EventResponse::from)
+            .toList();
+    }
+
+    // Se responde desde el índice en memoria, sin tocar MySQL.
+    public List<IndexedEvent> viewport(BoundingBox box, LocalDateTime from, LocalDateTime to, int limit) {
+        return spatialIndex.query(box, from, to, Math.max(1, Math.min(limit, MAX_MARKERS)));
+    }
+
+    // ETag de viewport: la versión del índice que la responde, no la de change_log, que avanza al confirmar la
+    // transacción, antes de que el índice aplique el cambio (y también con cambios de otros nodos).
+    public String viewportTag() {
+        return "W/\"viewport-"+spatialIndex.version()+"\"";
+    }
+
+    // El índice en memoria elige los limit más cercanos; de MySQL solo se cargan esos, por id.
+    @Transactional(readOnly = true)
+    public List<EventResponse> near(double latitude, double longitude, double radiusKm, int limit) {
+        if (radiusKm<=0 || radiusKm>MAX_RADIUS_KM)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "radiusKm must be between 0 and "+MAX_RADIUS_KM);
+        }
+        final List<IndexedEvent> nearest=spatialIndex.nearest(latitude, longitude, radiusKm, Math.max(1, Math.min(limit, MAX_RESULTS)));
+        if (nearest.isEmpty())
+        {
+            return List.of();
+        }
+        final Map<Long,Event> events=eventRepository.findAllById(nearest.stream().map(IndexedEvent::getId).toList()).stream()
+            .collect(Collectors.toMap(Event::getId, Function.identity()));
+
+        // Un evento borrado después de que el índice lo eligiera ya no está en la base y se omite.
+        return nearest.stream()
+            .map(indexed -> events.get(indexed.getId()))
+            .filter(Objects::nonNull)
+            .map(event -> {
+                EventResponse response=EventResponse.from(event);
+                response.setDistanceKm(GeoDistance.kilometers(latitude, longitude, event.getLatitude(), event.getLongitude()));
+                return response;
+            })
+            .toList();
+    }
+
+    // Tarjetas por (fecha, id), cada una con sus últimos comentarios: dos sentencias por página, cualquiera sea
+    // la página. Con cursor se sigue tras el último evento entregado; sin él se empieza en from (o al principio).
+    @Transactional(readOnly = true)
+    public EventCardPage cards(LocalDateTime from, String cursor, int limit) {
+        final int size=Math.max(1, Math.min(limit, MAX_CARDS));
+        final PageRequest page=PageRequest.of(0, size+1);
+        final List<EventCard> rows;
+        if (cursor!=null)
+        {
+            final KeysetCursor after=KeysetCursor.decode(cursor);
+            rows=eventRepository.findCardsAfter(after.getAt(), after.longId(), page);
+        }
+        else if (from!=null)
+        {
+            // Los ids empiezan en 1: "después de (from, 0)" incluye los eventos que empiezan justo en from.
+            rows=eventRepository.findCardsAfter(from, 0, page);
+        }
+        else
+        {
+            rows=eventRepository.findCards(page);
+        }
+
+        final List<EventCard> cards=rows.size()>size ? rows.subList(0, size) : rows;
+        final Map<Long,List<CommentPreview>> previews=commentRepository.findLatestPreviews(
+            cards.stream().map(EventCard::getId).toList(), COMMENT_PREVIEWS+1);
+        for (EventCard card : cards)
+        {
+            final CommentPage comments=CommentPage.of(previews.getOrDefault(card.getId(), List.of()), COMMENT_PREVIEWS);
+            card.setComments(comments.getComments());
+            card.setMoreComments(comments.getNext());
+        }
+
+        if (rows.size()<=size)
+        {
+            return new EventCardPage(cards, null);
+        }
+        final EventCard last=cards.get(size-1);
+        return new EventCardPage(List.copyOf(cards), KeysetCursor.encode(last.getStartsAt(), last.getId()));
+    }
+
+    private void apply(EventRequest request, Event event) {
+        if (request.getName()==null || request.getName().isBlank() || request.getStartsAt()==null)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "name and startsAt are required");
+        }
+        if (request.getLatitude()==null && request.getLongitude()==null)
+        {
+            // Sin coordenadas se toman las de la localidad escrita en place, si el gazetteer la conoce.
+            gazetteer.locate(request.getPlace()).ifPresent(place -> {
+                request.setLatitude(place.getLatitude());
+                request.setLongitude(place.getLongitude());
+            });
+        }
+        if (request.getLatitude()==null || request.getLongitude()==null
+            || Math.abs(request.getLatitude())>90 || Math.abs(request.getLongitude())>180)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "valid latitude and longitude, or a known place, are required");
+        }
+        event.setName(request.getName());
+        event.setPlace(request.getPlace());
+        event.setDescription(request.getDescription());
+        event.setImageUrl(request.getImageUrl());
+        event.setStartsAt(request.getStartsAt());
+        event.setCapacity(request.getCapacity()==null || request.getCapacity()<1 ? DEFAULT_CAPACITY : request.getCapacity());
+        event.setLatitude(request.getLatitude());
+        event.setLongitude(request.getLongitude());
+        event.setGeohash(GeoHash.encode(request.getLatitude(), request.getLongitude(), GeoHash.MAX_PRECISION));
+    }
+
+    private Event find(Long id) {
+        return eventRepository.findById(id)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Event not found"));
+    }
+
+    private Event findOwned(Long id, User user) {
+        Event event=find(id);
+        if (user.getRole()!=Role.ADMIN && !user.getId().equals(event.getCreatorId()))
+        {
+            throw new AccessDeniedException("Only the creator can modify this event");
+        }
+        return event;
+    }
+}
@@ -0,0 +1,338 @@
+package WITW.demo.Event;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import WITW.demo.Geo.BoundingBox;
+import WITW.demo.Geo.GeoDistance;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Índice espacio-temporal en memoria para las consultas del mapa ("eventos en esta vista y rango de fechas").
+ * Es una grilla de celdas de {@value #CELL_DEGREES}°; cada celda es un arreglo inmutable ordenado por fecha
+ * de inicio, así el rango de fechas se resuelve con búsqueda binaria. Las escrituras copian solo la celda
+ * afectada (copy-on-write) bajo un lock; las lecturas nunca bloquean y ven cada celda de forma consistente.
+ * Un evento que cambia de celda se publica con una copia del mapa de celdas, en un solo cambio de estado:
+ * una consulta concurrente lo ve exactamente una vez, en su posición anterior o en la nueva.
+ * {@link #version()} avanza después de aplicar cada cambio y sirve de ETag para lo que devuelve {@link #query}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventSpatialIndex {
+
+    static final double CELL_DEGREES=0.25;
+    private static final long COLUMNS=(long) (360/CELL_DEGREES);
+    static final int REBUILD_PAGE_SIZE=1000;
+    private static final IndexedEvent[] EMPTY={};
+    private static final Comparator<IndexedEvent> BY_START=Comparator
+        .comparing(IndexedEvent::getStartsAt)
+        .thenComparing(IndexedEvent::getId);
+
+    private final EventRepository eventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ReentrantLock writeLock=new ReentrantLock();
+    private volatile State state=new State();
+    // Cada nodo (y cada arranque) tiene su propio índice: sus versiones no son comparables entre sí.
+    private final String instance=Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private volatile long version;
+
+    private static final class State {
+        final Map<Long,IndexedEvent[]> cells;
+        final Map<Long,IndexedEvent> byId;
+
+        State() {
+            this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+
+        State(Map<Long,IndexedEvent[]> cells, Map<Long,IndexedEvent> byId) {
+            this.cells=cells;
+            this.byId=byId;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        writeLock.lock();
+        try
+        {
+            final Map<Long,List<IndexedEvent>> grouped=new HashMap<>();
+            final State rebuilt=new State();
+            // Por keyset y solo con las columnas del índice: cada página cuesta lo mismo y no se cargan entidades.
+            long after=0;
+            List<IndexedEvent> page;
+            do
+            {
+                page=eventRepository.findIndexed(after, PageRequest.of(0, REBUILD_PAGE_SIZE));
+                for (IndexedEvent indexed : page)
+                {
+                    rebuilt.byId.put(indexed.getId(), indexed);
+                    grouped.computeIfAbsent(cellKey(indexed.getLatitude(), indexed.getLongitude()), k -> new ArrayList<>()).add(indexed);
+                    after=indexed.getId();
+                }
+            }
+            while (page.size()==REBUILD_PAGE_SIZE);
+            grouped.forEach((key, events) -> {
+                final IndexedEvent[] cell=events.toArray(EMPTY);
+                Arrays.sort(cell, BY_START);
+                rebuilt.cells.put(key, cell);
+            });
+            state=rebuilt;
+            version++;
+            log.info("Event spatial index rebuilt with {} events in {} cells", rebuilt.byId.size(), rebuilt.cells.size());
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChanged(EventChangedEvent change) {
+        final IndexedEvent current=change.isRemoved() ? null : IndexedEvent.from(change.getEvent());
+        final IndexedEvent previous=current==null ? remove(change.getEvent().getId()) : upsert(current);
+
+        if (previous!=null || current!=null)
+        {
+            eventPublisher.publishEvent(new EventIndexChangedEvent(previous, current));
+        }
+    }
+
+    public IndexedEvent upsert(IndexedEvent event) {
+        writeLock.lock();
+        try
+        {
+            final State current=state;
+            final IndexedEvent previous=current.byId.put(event.getId(), event);
+            final long key=cellKey(event.getLatitude(), event.getLongitude());
+            if (previous==null)
+            {
+                current.cells.put(key, with(current.cells.getOrDefault(key, EMPTY), event));
+            }
+            else if (cellKey(previous.getLatitude(), previous.getLongitude())==key)
+            {
+                // Misma celda: quitar y agregar se publican juntos.
+                current.cells.put(key, with(without(current.cells.getOrDefault(key, EMPTY), previous), event));
+            }
+            else
+            {
+                // Cambio de celda (raro: solo al editar la ubicación): las dos celdas se publican juntas en un estado nuevo.
+                final State moved=new State(new ConcurrentHashMap<>(current.cells), current.byId);
+                removeFromCell(moved, previous);
+                moved.cells.put(key, with(moved.cells.getOrDefault(key, EMPTY), event));
+                state=moved;
+            }
+            version++;
+            return previous;
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    public IndexedEvent remove(Long id) {
+        writeLock.lock();
+        try
+        {
+            final State current=state;
+            final IndexedEvent previous=current.byId.remove(id);
+            if (previous!=null)
+            {
+                removeFromCell(current, previous);
+                version++;
+            }
+            return previous;
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    public IndexedEvent get(Long id) {
+        return state.byId.get(id);
+    }
+
+    public int size() {
+        return state.byId.size();
+    }
+
+    /**
+     * Versión del contenido del índice en este nodo. Se incrementa recién después de publicar cada cambio, así
+     * que una versión leída antes de {@link #query} nunca es más nueva que su resultado.
+     */
+    public String version() {
+        return instance+"-"+version;
+    }
+
+    /**
+     * Eventos dentro de la vista y con fecha de inicio en [from, to] (cualquiera de los dos puede ser null).
+     */
+    public List<IndexedEvent> query(BoundingBox box, LocalDateTime from, LocalDateTime to, int limit) {
+        final State current=state;
+        final long firstRow=row(box.getMinLatitude()), lastRow=row(box.getMaxLatitude());
+        final long firstColumn=column(box.getMinLongitude()), lastColumn=column(box.getMaxLongitude());
+        final List<IndexedEvent> result=new ArrayList<>();
+
+        // Con vistas muy amplias hay menos celdas pobladas que celdas cubiertas: se recorren las pobladas.
+        if ((lastRow-firstRow+1)*(lastColumn-firstColumn+1)>current.cells.size())
+        {
+            for (Map.Entry<Long,IndexedEvent[]> entry : current.cells.entrySet())
+            {
+                final long r=entry.getKey()/COLUMNS, c=entry.getKey()%COLUMNS;
+                if (r>=firstRow && r<=lastRow && c>=firstColumn && c<=lastColumn
+                    && collect(entry.getValue(), box, from, to, limit, result))
+                {
+                    return result;
+                }
+            }
+            return result;
+        }
+
+        for (long r=firstRow; r<=lastRow; r++)
+        {
+            for (long c=firstColumn; c<=lastColumn; c++)
+            {
+                final IndexedEvent[] cell=current.cells.get(r*COLUMNS+c);
+                if (cell!=null && collect(cell, box, from, to, limit, result))
+                {
+                    return result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Los limit eventos más cercanos al punto dentro de radiusKm, del más cercano al más lejano.
+     * Se recorren las celdas de la caja que rodea el círculo guardando solo los limit mejores en un heap.
+     */
+    public List<IndexedEvent> nearest(double latitude, double longitude, double radiusKm, int limit) {
+        final PriorityQueue<Neighbor> best=new PriorityQueue<>(Comparator.comparingDouble(Neighbor::distanceKm).reversed());
+        for (IndexedEvent event : query(BoundingBox.around(latitude, longitude, radiusKm), null, null, Integer.MAX_VALUE))
+        {
+            final double distanceKm=GeoDistance.kilometers(latitude, longitude, event.getLatitude(), event.getLongitude());
+            if (distanceKm<=radiusKm && (best.size()<limit || distanceKm<best.peek().distanceKm()))
+            {
+                best.add(new Neighbor(event, distanceKm));
+                if (best.size()>limit)
+                {
+                    best.poll();
+                }
+            }
+        }
+        return best.stream()
+            .sorted(Comparator.comparingDouble(Neighbor::distanceKm))
+            .map(Neighbor::event)
+            .toList();
+    }
+
+    private record Neighbor(IndexedEvent event, double distanceKm) {
+    }
+
+    // Devuelve true cuando se alcanzó el límite.
+    private static boolean collect(IndexedEvent[] cell, BoundingBox box, LocalDateTime from, LocalDateTime to,
+            int limit, List<IndexedEvent> result) {
+        for (int i=from==null ? 0 : firstStartingAtOrAfter(cell, from); i<cell.length; i++)
+        {
+            final IndexedEvent event=cell[i];
+            if (to!=null && event.getStartsAt().isAfter(to))
+            {
+                break;
+            }
+            if (box.contains(event.getLatitude(), event.getLongitude()))
+            {
+                result.add(event);
+                if (result.size()>=limit)
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int firstStartingAtOrAfter(IndexedEvent[] cell, LocalDateTime from) {
+        int low=0, high=cell.length;
+        while (low<high)
+        {
+            final int mid=(low+high)>>>1;
+            if (cell[mid].getStartsAt().isBefore(from))
+            {
+                low=mid+1;
+            }
+            else
+            {
+                high=mid;
+            }
+        }
+        return low;
+    }
+
+    private static void removeFromCell(State current, IndexedEvent event) {
+        final long key=cellKey(event.getLatitude(), event.getLongitude());
+        final IndexedEvent[] updated=without(current.cells.getOrDefault(key, EMPTY), event);
+        if (updated.length==0)
+        {
+            current.cells.remove(key);
+        }
+        else
+        {
+            current.cells.put(key, updated);
+        }
+    }
+
+    private static IndexedEvent[] with(IndexedEvent[] cell, IndexedEvent event) {
+        int position=Arrays.binarySearch(cell, event, BY_START);
+        position=position<0 ? -position-1 : position;
+        final IndexedEvent[] updated=new IndexedEvent[cell.length+1];
+        System.arraycopy(cell, 0, updated, 0, position);
+        updated[position]=event;
+        System.arraycopy(cell, position, updated, position+1, cell.length-position);
+        return updated;
+    }
+
+    private static IndexedEvent[] without(IndexedEvent[] cell, IndexedEvent event) {
+        final int position=Arrays.binarySearch(cell, event, BY_START);
+        if (position<0)
+        {
+            return cell;
+        }
+        final IndexedEvent[] updated=new IndexedEvent[cell.length-1];
+        System.arraycopy(cell, 0, updated, 0, position);
+        System.arraycopy(cell, position+1, updated, position, cell.length-position-1);
+        return updated;
+    }
+
+    private static long cellKey(double latitude, double longitude) {
+        return row(latitude)*COLUMNS+column(longitude);
+    }
+
+    private static long row(double latitude) {
+        return Math.min((long) ((latitude+90)/CELL_DEGREES), (long) (180/CELL_DEGREES)-1);
+    }
+
+    private static long column(double longitude) {
+        return Math.min((long) ((longitude+180)/CELL_DEGREES), COLUMNS-1);
+    }
+}
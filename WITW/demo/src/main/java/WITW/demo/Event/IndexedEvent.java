@@ -0,0 +1,18 @@
+package WITW.demo.Event;
+
+import java.time.LocalDateTime;
+
+import lombok.Value;
+
+@Value
+public class IndexedEvent {
+    Long id;
+    String name;
+    double latitude;
+    double longitude;
+    LocalDateTime startsAt;
+
+    public static IndexedEvent from(Event event) {
+        return new IndexedEvent(event.getId(), event.getName(), event.getLatitude(), event.getLongitude(), event.getStartsAt());
+    }
+}
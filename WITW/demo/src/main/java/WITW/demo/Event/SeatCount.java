@@ -0,0 +1,13 @@
+package WITW.demo.Event;
+
+import lombok.Value;
+
+@Value
+public class SeatCount {
+    int capacity;
+    int attendeeCount;
+
+    public int getRemaining() {
+        return Math.max(0, capacity-attendeeCount);
+    }
+}
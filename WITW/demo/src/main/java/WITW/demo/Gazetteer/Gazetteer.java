@@ -0,0 +1,214 @@
+package WITW.demo.Gazetteer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Geocodificador offline: nombre de localidad a coordenadas y sugerencias por prefijo, sin red. Lee la imagen
+ * binaria que arma GazetteerCompiler en el build y la mapea a memoria tal cual: al arrancar no se parsea nada
+ * ni se crean objetos por localidad, y cada búsqueda recorre unos pocos nodos del trie directamente sobre el
+ * archivo.
+ *
+ * Formato (big-endian): cabecera (magic, cantidad de localidades, offset de la raíz); localidades de
+ * {@value #PLACE_BYTES} bytes ordenadas por población descendente (offset del nombre, offset de la región,
+ * latitud y longitud en millonésimas de grado, población); strings como largo u16 + UTF-8; y el trie de los
+ * nombres normalizados con fold(), un nodo por byte. Cada nodo guarda sus hijos ordenados por byte, las
+ * localidades que terminan en él y las {@value #TOP_PLACES} más pobladas bajo él, así que sugerir es bajar por
+ * el prefijo y leer esa lista.
+ */
+@Slf4j
+@Component
+public class Gazetteer {
+
+    static final int MAGIC=0x57475a31;
+    static final int HEADER_BYTES=12;
+    static final int PLACE_BYTES=20;
+    static final int TOP_PLACES=8;
+    static final int MIN_PREFIX=2;
+    private static final Pattern MARKS=Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS=Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Solo se usan lecturas absolutas, que no mueven la posición del buffer: lo comparten todos los hilos.
+    private final ByteBuffer image;
+    private final int size;
+    private final int root;
+
+    public Gazetteer(@Value("${witw.gazetteer.file:classpath:gazetteer/cl.bin}") Resource file) throws IOException {
+        this.image=map(file);
+        if (image!=null && image.getInt(0)!=MAGIC)
+        {
+            throw new IllegalStateException(file+" is not a gazetteer image");
+        }
+        this.size=image==null ? 0 : image.getInt(4);
+        this.root=image==null ? -1 : image.getInt(8);
+        log.info("Gazetteer mapped with {} places", size);
+    }
+
+    // Minúsculas, sin tildes y con un espacio entre palabras: "Viña del Mar" y "vina  del-mar" son la misma clave.
+    static String fold(String text) {
+        final String unmarked=MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(unmarked.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Localidad con ese nombre exacto (sin contar tildes ni mayúsculas); si no hay, la primera de las partes
+     * separadas por coma que sea una, p. ej. "Teatro Municipal, Viña del Mar". Entre homónimas, la más poblada.
+     */
+    public Optional<Place> locate(String text) {
+        if (text==null)
+        {
+            return Optional.empty();
+        }
+        Optional<Place> place=exact(text);
+        if (place.isEmpty() && text.indexOf(',')>=0)
+        {
+            for (String part : text.split(","))
+            {
+                place=exact(part);
+                if (place.isPresent())
+                {
+                    break;
+                }
+            }
+        }
+        return place;
+    }
+
+    // Las localidades más pobladas cuyo nombre, o alguna de sus palabras, empieza con prefix.
+    public List<Place> complete(String prefix, int limit) {
+        final List<Place> places=new ArrayList<>();
+        final String key=prefix==null ? "" : fold(prefix);
+        final int node=key.length()<MIN_PREFIX ? -1 : find(key);
+        if (node<0)
+        {
+            return places;
+        }
+        final int children=children(node);
+        final int exact=Byte.toUnsignedInt(image.get(node+2));
+        final int top=Byte.toUnsignedInt(image.get(node+3));
+        final int ids=node+4+children*5+exact*4;
+        for (int i=0; i<Math.min(top, limit); i++)
+        {
+            places.add(place(image.getInt(ids+i*4)));
+        }
+        return places;
+    }
+
+    private Optional<Place> exact(String text) {
+        final int node=find(fold(text));
+        if (node<0 || image.get(node+2)==0)
+        {
+            return Optional.empty();
+        }
+        return Optional.of(place(image.getInt(node+4+children(node)*5)));
+    }
+
+    // Offset del nodo al final del camino key, o -1.
+    private int find(String key) {
+        if (image==null || key.isEmpty())
+        {
+            return -1;
+        }
+        int node=root;
+        for (byte label : key.getBytes(StandardCharsets.UTF_8))
+        {
+            node=child(node, Byte.toUnsignedInt(label));
+            if (node<0)
+            {
+                return -1;
+            }
+        }
+        return node;
+    }
+
+    private int child(int node, int label) {
+        final int children=children(node);
+        int low=0;
+        int high=children-1;
+        while (low<=high)
+        {
+            final int middle=(low+high)>>>1;
+            final int candidate=Byte.toUnsignedInt(image.get(node+4+middle));
+            if (candidate<label)
+            {
+                low=middle+1;
+            }
+            else if (candidate>label)
+            {
+                high=middle-1;
+            }
+            else
+            {
+                return image.getInt(node+4+children+middle*4);
+            }
+        }
+        return -1;
+    }
+
+    private int children(int node) {
+        return Short.toUnsignedInt(image.getShort(node));
+    }
+
+    private Place place(int id) {
+        final int at=HEADER_BYTES+id*PLACE_BYTES;
+        return new Place(string(image.getInt(at)), string(image.getInt(at+4)),
+            image.getInt(at+8)/1e6, image.getInt(at+12)/1e6);
+    }
+
+    private String string(int offset) {
+        final byte[] bytes=new byte[Short.toUnsignedInt(image.getShort(offset))];
+        image.get(offset+2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer map(Resource file) throws IOException {
+        if (!file.exists())
+        {
+            // Sin el paso del build (p. ej. al correr desde el IDE) no hay imagen: no se geocodifica nada.
+            log.warn("Gazetteer image {} not found: places will not be geocoded", file);
+            return null;
+        }
+        Path path;
+        if (file.isFile())
+        {
+            path=file.getFile().toPath();
+        }
+        else
+        {
+            // Dentro del jar no se puede mapear: se copia una vez a un archivo temporal.
+            path=Files.createTempFile("gazetteer", ".bin");
+            path.toFile().deleteOnExit();
+            try (InputStream in=file.getInputStream())
+            {
+                Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        try (FileChannel channel=FileChannel.open(path, StandardOpenOption.READ))
+        {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
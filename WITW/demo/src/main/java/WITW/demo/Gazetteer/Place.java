@@ -0,0 +1,11 @@
+package WITW.demo.Gazetteer;
+
+import lombok.Value;
+
+@Value
+public class Place {
+    String name;
+    String region;
+    double latitude;
+    double longitude;
+}
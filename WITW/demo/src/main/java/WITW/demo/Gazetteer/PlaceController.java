@@ -0,0 +1,30 @@
+package WITW.demo.Gazetteer;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/places")
+@RequiredArgsConstructor
+public class PlaceController {
+
+    // El gazetteer solo cambia con un deploy.
+    private static final CacheControl CACHE=CacheControl.maxAge(Duration.ofHours(1)).cachePrivate();
+
+    private final Gazetteer gazetteer;
+
+    @GetMapping
+    public ResponseEntity<List<Place>> complete(@RequestParam String q, @RequestParam(defaultValue = "8") int limit)
+    {
+        return ResponseEntity.ok().cacheControl(CACHE).body(gazetteer.complete(q, limit));
+    }
+}
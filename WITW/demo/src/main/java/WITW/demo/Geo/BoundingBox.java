@@ -0,0 +1,46 @@
+package WITW.demo.Geo;
+
+import lombok.Value;
+
+@Value
+public class BoundingBox {
+    private static final double KM_PER_DEGREE=111.32;
+
+    double minLatitude;
+    double minLongitude;
+    double maxLatitude;
+    double maxLongitude;
+
+    public static BoundingBox of(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        if (minLatitude>maxLatitude || minLongitude>maxLongitude)
+        {
+            throw new IllegalArgumentException("Invalid bounding box");
+        }
+        return new BoundingBox(
+            clamp(minLatitude, -90, 90),
+            clamp(minLongitude, -180, 180),
+            clamp(maxLatitude, -90, 90),
+            clamp(maxLongitude, -180, 180));
+    }
+
+    // Caja que contiene el círculo de radio radiusKm alrededor del punto.
+    public static BoundingBox around(double latitude, double longitude, double radiusKm) {
+        final double latDelta=radiusKm/KM_PER_DEGREE;
+        final double cos=Math.cos(Math.toRadians(latitude));
+        final double lonDelta=cos<1e-6 ? 180 : radiusKm/(KM_PER_DEGREE*cos);
+        return of(latitude-latDelta, longitude-lonDelta, latitude+latDelta, longitude+lonDelta);
+    }
+
+    public boolean contains(double latitude, double longitude) {
+        return latitude>=minLatitude && latitude<=maxLatitude && longitude>=minLongitude && longitude<=maxLongitude;
+    }
+
+    public boolean intersects(BoundingBox other) {
+        return other.minLatitude<=maxLatitude && other.maxLatitude>=minLatitude
+            && other.minLongitude<=maxLongitude && other.maxLongitude>=minLongitude;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
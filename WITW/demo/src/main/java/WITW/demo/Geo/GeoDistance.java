@@ -0,0 +1,18 @@
+package WITW.demo.Geo;
+
+public final class GeoDistance {
+
+    private static final double EARTH_RADIUS_KM=6371.0088;
+
+    private GeoDistance() {
+    }
+
+    // Distancia haversine en kilómetros.
+    public static double kilometers(double lat1, double lon1, double lat2, double lon2) {
+        final double dLat=Math.toRadians(lat2-lat1);
+        final double dLon=Math.toRadians(lon2-lon1);
+        final double a=Math.sin(dLat/2)*Math.sin(dLat/2)
+            +Math.cos(Math.toRadians(lat1))*Math.cos(Math.toRadians(lat2))*Math.sin(dLon/2)*Math.sin(dLon/2);
+        return 2*EARTH_RADIUS_KM*Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,146 @@
+package WITW.demo.Geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Codificación geohash (base32) y cálculo de las celdas que cubren un área.
+ * Los geohash con un mismo prefijo están contenidos en la misma celda, por lo que una búsqueda
+ * por área se reduce a unos pocos rangos de prefijo sobre un índice ordinario.
+ */
+public final class GeoHash {
+
+    public static final int MAX_PRECISION=12;
+    private static final char[] BASE32="0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final int[] DECODE=new int[128];
+
+    static
+    {
+        Arrays.fill(DECODE, -1);
+        for (int i=0; i<BASE32.length; i++)
+        {
+            DECODE[BASE32[i]]=i;
+        }
+    }
+
+    private GeoHash() {
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        if (precision<1 || precision>MAX_PRECISION)
+        {
+            throw new IllegalArgumentException("Geohash precision must be between 1 and "+MAX_PRECISION);
+        }
+        double minLat=-90, maxLat=90, minLon=-180, maxLon=180;
+        final char[] hash=new char[precision];
+        boolean evenBit=true;
+        int bit=0, index=0;
+
+        for (int i=0; i<precision; )
+        {
+            if (evenBit)
+            {
+                final double mid=(minLon+maxLon)/2;
+                if (longitude>=mid) { index=(index<<1)|1; minLon=mid; } else { index<<=1; maxLon=mid; }
+            }
+            else
+            {
+                final double mid=(minLat+maxLat)/2;
+                if (latitude>=mid) { index=(index<<1)|1; minLat=mid; } else { index<<=1; maxLat=mid; }
+            }
+            evenBit=!evenBit;
+            if (++bit==5)
+            {
+                hash[i++]=BASE32[index];
+                bit=0;
+                index=0;
+            }
+        }
+        return new String(hash);
+    }
+
+    public static BoundingBox decode(String geohash) {
+        double minLat=-90, maxLat=90, minLon=-180, maxLon=180;
+        boolean evenBit=true;
+
+        for (int i=0; i<geohash.length(); i++)
+        {
+            final char c=geohash.charAt(i);
+            final int value=c<128 ? DECODE[c] : -1;
+            if (value<0)
+            {
+                throw new IllegalArgumentException("Invalid geohash: "+geohash);
+            }
+            for (int b=4; b>=0; b--)
+            {
+                final boolean set=((value>>b)&1)==1;
+                if (evenBit)
+                {
+                    final double mid=(minLon+maxLon)/2;
+                    if (set) minLon=mid; else maxLon=mid;
+                }
+                else
+                {
+                    final double mid=(minLat+maxLat)/2;
+                    if (set) minLat=mid; else maxLat=mid;
+                }
+                evenBit=!evenBit;
+            }
+        }
+        return new BoundingBox(minLat, minLon, maxLat, maxLon);
+    }
+
+    public static double cellHeight(int precision) {
+        return 180.0/(1L<<(5*precision/2));
+    }
+
+    public static double cellWidth(int precision) {
+        return 360.0/(1L<<((5*precision+1)/2));
+    }
+
+    /**
+     * Celdas de la mayor precisión posible que cubren la caja sin superar maxCells.
+     */
+    public static List<String> coveringCells(BoundingBox box, int maxCells) {
+        int precision=MAX_PRECISION;
+        while (precision>1 && cellCount(box, precision)>maxCells)
+        {
+            precision--;
+        }
+        return cells(box, precision);
+    }
+
+    public static List<String> cells(BoundingBox box, int precision) {
+        final double height=cellHeight(precision);
+        final double width=cellWidth(precision);
+        final long firstRow=row(box.getMinLatitude(), height), lastRow=row(box.getMaxLatitude(), height);
+        final long firstColumn=column(box.getMinLongitude(), width), lastColumn=column(box.getMaxLongitude(), width);
+        final List<String> cells=new ArrayList<>((int) ((lastRow-firstRow+1)*(lastColumn-firstColumn+1)));
+
+        for (long r=firstRow; r<=lastRow; r++)
+        {
+            for (long c=firstColumn; c<=lastColumn; c++)
+            {
+                // El centro de la celda identifica la celda completa.
+                cells.add(encode(-90+(r+0.5)*height, -180+(c+0.5)*width, precision));
+            }
+        }
+        return cells;
+    }
+
+    private static long cellCount(BoundingBox box, int precision) {
+        final double height=cellHeight(precision);
+        final double width=cellWidth(precision);
+        return (row(box.getMaxLatitude(), height)-row(box.getMinLatitude(), height)+1)
+            *(column(box.getMaxLongitude(), width)-column(box.getMinLongitude(), width)+1);
+    }
+
+    private static long row(double latitude, double height) {
+        return Math.min((long) ((latitude+90)/height), Math.round(180/height)-1);
+    }
+
+    private static long column(double longitude, double width) {
+        return Math.min((long) ((longitude+180)/width), Math.round(360/width)-1);
+    }
+}
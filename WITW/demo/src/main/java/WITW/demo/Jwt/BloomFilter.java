@@ -0,0 +1,76 @@
+package WITW.demo.Jwt;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom sobre ids de revocación. Los ids son caracteres base64url de un HMAC, o sea bits ya
+ * uniformes: los índices salen de esos caracteres (doble hashing) sin calcular otro hash ni asignar memoria.
+ * Agregar y consultar son thread-safe y sin locks.
+ */
+final class BloomFilter {
+
+    private static final double LN2_SQUARED=Math.log(2)*Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    /**
+     * @param expectedEntries cantidad de ids para la que se dimensiona
+     * @param falsePositiveRate probabilidad de falso positivo con esa cantidad
+     */
+    BloomFilter(int expectedEntries, double falsePositiveRate) {
+        final long optimalBits=(long) Math.ceil(-Math.max(1, expectedEntries)*Math.log(falsePositiveRate)/LN2_SQUARED);
+        this.words=new AtomicLongArray((int) Math.max(1, (optimalBits+63)/64));
+        this.bits=words.length()*64L;
+        this.hashes=Math.max(1, (int) Math.round((double) bits/Math.max(1, expectedEntries)*Math.log(2)));
+    }
+
+    /**
+     * @param source texto que contiene el id
+     * @param offset comienzo del id: se usan 20 caracteres base64url desde ahí
+     */
+    void add(CharSequence source, int offset) {
+        final long first=bits(source, offset);
+        final long second=bits(source, offset+10)|1;
+        for (int i=0; i<hashes; i++)
+        {
+            final long bit=Long.remainderUnsigned(first+i*second, bits);
+            final int word=(int) (bit>>>6);
+            final long mask=1L<<bit;
+            long current=words.get(word);
+            while ((current&mask)==0 && !words.weakCompareAndSetVolatile(word, current, current|mask))
+            {
+                current=words.get(word);
+            }
+        }
+    }
+
+    boolean mightContain(CharSequence source, int offset) {
+        final long first=bits(source, offset);
+        final long second=bits(source, offset+10)|1;
+        for (int i=0; i<hashes; i++)
+        {
+            final long bit=Long.remainderUnsigned(first+i*second, bits);
+            if ((words.get((int) (bit>>>6))&(1L<<bit))==0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 10 caracteres base64url = 60 bits.
+    private static long bits(CharSequence source, int offset) {
+        long value=0;
+        for (int i=offset; i<offset+10; i++)
+        {
+            value=value<<6|sextet(source.charAt(i));
+        }
+        return value;
+    }
+
+    private static int sextet(char c) {
+        return c=='_' ? 63 : c>='a' ? c-'a'+26 : c>='A' ? c-'A' : c>='0' ? c-'0'+52 : 62;
+    }
+}
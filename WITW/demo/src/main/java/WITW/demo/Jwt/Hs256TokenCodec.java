@@ -0,0 +1,533 @@
+package WITW.demo.Jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.crypto.Mac;
+
+import WITW.demo.User.Role;
+
+import io.jsonwebtoken.security.SignatureException;
+
+/**
+ * Codec HS256 para la forma exacta de los tokens que emite {@link JwtService} con una clave del anillo: header
+ * {"kid":"...","alg":"HS256"} (o {"alg":"HS256"} para la clave sin kid) y un payload plano con sub, iat, exp y
+ * opcionalmente uid, role, ver y jti. Firma y verifica sobre buffers reutilizables, sin
+ * Jackson ni el parser de jjwt, y compara la firma en tiempo constante.
+ *
+ * Devuelve null ante cualquier token que no reconoce (otro header, otros claims, escapes en strings, expirado),
+ * y el llamador lo resuelve con jjwt, que produce las excepciones de siempre.
+ */
+final class Hs256TokenCodec {
+
+    private static final String ALGORITHM="HmacSHA256";
+    private static final int SIGNATURE_BYTES=32;
+    private static final int SIGNATURE_CHARS=43;
+    private static final int MAX_TOKEN_LENGTH=4096;
+    private static final int MAX_DIGITS=18;
+
+    private static final byte[] ALPHABET="ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+        .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DECODE=new byte[128];
+    private static final String[] ROLES;
+
+    static {
+        java.util.Arrays.fill(DECODE, (byte) -1);
+        for (int i=0; i<ALPHABET.length; i++)
+        {
+            DECODE[ALPHABET[i]]=(byte) i;
+        }
+        final Role[] roles=Role.values();
+        ROLES=new String[roles.length];
+        for (int i=0; i<roles.length; i++)
+        {
+            ROLES[i]=roles[i].name();
+        }
+    }
+
+    private final Key key;
+    private final String header;
+    // Cada Mac y sus buffers los usa un solo hilo a la vez. Un ThreadLocal no sirve con hilos virtuales (uno
+    // nuevo por request): se toman de una ranura según el id del hilo y se devuelven al terminar.
+    private final AtomicReferenceArray<Workspace> workspaces;
+    private final int mask;
+
+    /**
+     * @param kid id de la clave que va en el header, o null para emitir tokens sin kid
+     */
+    Hs256TokenCodec(Key key, String kid) {
+        this.key=key;
+        final byte[] json=(kid==null ? "{\"alg\":\"HS256\"}" : "{\"kid\":\""+kid+"\",\"alg\":\"HS256\"}")
+            .getBytes(StandardCharsets.US_ASCII);
+        final byte[] encoded=new byte[base64Length(json.length)];
+        this.header=new String(encoded, 0, encodeBase64(json, json.length, encoded, 0), StandardCharsets.US_ASCII);
+        final int stripes=Integer.highestOneBit(Math.max(16, Runtime.getRuntime().availableProcessors()*4)-1)<<1;
+        this.workspaces=new AtomicReferenceArray<>(stripes);
+        this.mask=stripes-1;
+    }
+
+    /**
+     * Primer segmento, ya en base64url, de los tokens que emite y reconoce este codec.
+     */
+    String header() {
+        return header;
+    }
+
+    /**
+     * Emite un token firmado, o null si el subject necesita escapes JSON (lo emite jjwt).
+     * Las fechas van en segundos, igual que jjwt.
+     */
+    String encode(String subject, Integer userId, String role, Integer tokenVersion, String tokenId,
+                  long issuedAt, long expiration) {
+        if (!isPlain(subject) || (role!=null && !isPlain(role)) || (tokenId!=null && !isPlain(tokenId)))
+        {
+            return null;
+        }
+
+        final StringBuilder json=new StringBuilder(160).append('{');
+        if (userId!=null)
+        {
+            json.append("\"uid\":").append(userId).append(',');
+        }
+        if (role!=null)
+        {
+            json.append("\"role\":\"").append(role).append("\",");
+        }
+        if (tokenVersion!=null)
+        {
+            json.append("\"ver\":").append(tokenVersion).append(',');
+        }
+        if (tokenId!=null)
+        {
+            json.append("\"jti\":\"").append(tokenId).append("\",");
+        }
+        json.append("\"sub\":\"").append(subject)
+            .append("\",\"iat\":").append(issuedAt)
+            .append(",\"exp\":").append(expiration)
+            .append('}');
+        final byte[] payload=json.toString().getBytes(StandardCharsets.UTF_8);
+
+        final Workspace workspace=acquire();
+        try
+        {
+            final byte[] buffer=workspace.buffer(header.length()+2+base64Length(payload.length)+SIGNATURE_CHARS);
+            int position=0;
+            for (int i=0; i<header.length(); i++)
+            {
+                buffer[position++]=(byte) header.charAt(i);
+            }
+            buffer[position++]='.';
+            position=encodeBase64(payload, payload.length, buffer, position);
+
+            workspace.mac.update(buffer, 0, position);
+            workspace.mac.doFinal(workspace.expected, 0);
+
+            buffer[position++]='.';
+            position=encodeBase64(workspace.expected, SIGNATURE_BYTES, buffer, position);
+            return new String(buffer, 0, position, StandardCharsets.ISO_8859_1);
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw new IllegalStateException("Cannot sign token", e);
+        }
+        finally
+        {
+            release(workspace);
+        }
+    }
+
+    /**
+     * Verifica firma y expiración de un token con la forma conocida.
+     *
+     * @return los claims del token, o null si el token no tiene la forma conocida o expiró
+     * @throws SignatureException si la forma es la conocida pero la firma no corresponde
+     */
+    VerifiedToken decode(String token) {
+        final int length=token.length();
+        final int payloadStart=header.length()+1;
+        final int signatureStart=length-SIGNATURE_CHARS;
+
+        if (length>MAX_TOKEN_LENGTH || signatureStart<=payloadStart || !token.startsWith(header)
+            || token.indexOf('.')!=payloadStart-1 || token.indexOf('.', payloadStart)!=signatureStart-1
+            || token.indexOf('.', signatureStart)>=0)
+        {
+            return null;
+        }
+
+        final Workspace workspace=acquire();
+        try
+        {
+            final byte[] buffer=workspace.buffer(length);
+            if (!copyAscii(token, buffer))
+            {
+                return null;
+            }
+
+            if (decodeBase64(buffer, signatureStart, SIGNATURE_CHARS, workspace.actual)!=SIGNATURE_BYTES)
+            {
+                return null;
+            }
+            workspace.mac.update(buffer, 0, signatureStart-1);
+            workspace.mac.doFinal(workspace.expected, 0);
+            if (!MessageDigest.isEqual(workspace.expected, workspace.actual))
+            {
+                throw new SignatureException("JWT signature does not match locally computed signature");
+            }
+
+            final byte[] payload=workspace.payload(signatureStart-1-payloadStart);
+            final int payloadLength=decodeBase64(buffer, payloadStart, signatureStart-1-payloadStart, payload);
+            if (payloadLength<0)
+            {
+                return null;
+            }
+            return parse(payload, payloadLength);
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw new IllegalStateException("Cannot verify token", e);
+        }
+        finally
+        {
+            release(workspace);
+        }
+    }
+
+    // Parser de un objeto JSON plano con claves conocidas; cualquier otra cosa devuelve null.
+    private static VerifiedToken parse(byte[] json, int length) {
+        String subject=null;
+        String role=null;
+        long issuedAt=-1;
+        long expiration=-1;
+        long userId=-1;
+        long tokenVersion=-1;
+        boolean tokenId=false;
+
+        if (length<2 || json[0]!='{' || json[length-1]!='}')
+        {
+            return null;
+        }
+        int position=1;
+        while (position<length-1)
+        {
+            if (json[position]!='"')
+            {
+                return null;
+            }
+            final int keyStart=position+1;
+            final int keyEnd=indexOf(json, keyStart, length, (byte) '"');
+            if (keyEnd<0 || keyEnd+1>=length || json[keyEnd+1]!=':')
+            {
+                return null;
+            }
+            position=keyEnd+2;
+
+            final int valueEnd;
+            if (json[position]=='"')
+            {
+                valueEnd=indexOf(json, position+1, length, (byte) '"');
+                if (valueEnd<0 || !isPlain(json, position+1, valueEnd))
+                {
+                    return null;
+                }
+                if (is(json, keyStart, keyEnd, "sub") && subject==null)
+                {
+                    subject=new String(json, position+1, valueEnd-position-1, StandardCharsets.UTF_8);
+                }
+                else if (is(json, keyStart, keyEnd, "role") && role==null)
+                {
+                    role=role(json, position+1, valueEnd);
+                    if (role==null)
+                    {
+                        return null;
+                    }
+                }
+                else if (is(json, keyStart, keyEnd, "jti") && !tokenId)
+                {
+                    // Solo hace único al token (para revocarlo); no hace falta leerlo.
+                    tokenId=true;
+                }
+                else
+                {
+                    return null;
+                }
+                position=valueEnd+1;
+            }
+            else
+            {
+                valueEnd=digitsEnd(json, position, length);
+                if (valueEnd<0)
+                {
+                    return null;
+                }
+                final long value=number(json, position, valueEnd);
+                if (is(json, keyStart, keyEnd, "iat") && issuedAt<0)
+                {
+                    issuedAt=value;
+                }
+                else if (is(json, keyStart, keyEnd, "exp") && expiration<0)
+                {
+                    expiration=value;
+                }
+                else if (is(json, keyStart, keyEnd, "uid") && userId<0 && value<=Integer.MAX_VALUE)
+                {
+                    userId=value;
+                }
+                else if (is(json, keyStart, keyEnd, "ver") && tokenVersion<0 && value<=Integer.MAX_VALUE)
+                {
+                    tokenVersion=value;
+                }
+                else
+                {
+                    return null;
+                }
+                position=valueEnd;
+            }
+
+            if (json[position]==',' && position+1<length-1)
+            {
+                position++;
+            }
+            else if (position!=length-1)
+            {
+                return null;
+            }
+        }
+
+        // Igual que jjwt sin tolerancia de reloj: el token vale hasta el milisegundo de exp inclusive.
+        if (subject==null || expiration<0 || System.currentTimeMillis()>expiration*1000)
+        {
+            return null;
+        }
+        return new VerifiedToken(
+            subject,
+            issuedAt<0 ? null : Instant.ofEpochSecond(issuedAt),
+            Instant.ofEpochSecond(expiration),
+            userId<0 ? null : (int) userId,
+            role,
+            tokenVersion<0 ? null : (int) tokenVersion);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static boolean copyAscii(String token, byte[] buffer) {
+        // getBytes(int, int, byte[], int) trunca cada char a un byte sin asignar memoria; el OR detecta si alguno
+        // no era ASCII, y los bytes ASCII fuera del alfabeto los rechaza después el decodificador base64.
+        int bits=0;
+        for (int i=0; i<token.length(); i++)
+        {
+            bits|=token.charAt(i);
+        }
+        if (bits>=128)
+        {
+            return false;
+        }
+        token.getBytes(0, token.length(), buffer, 0);
+        return true;
+    }
+
+    private static int indexOf(byte[] bytes, int from, int to, byte value) {
+        for (int i=from; i<to; i++)
+        {
+            if (bytes[i]==value)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int digitsEnd(byte[] bytes, int from, int to) {
+        int i=from;
+        while (i<to && bytes[i]>='0' && bytes[i]<='9')
+        {
+            i++;
+        }
+        return i==from || i-from>MAX_DIGITS ? -1 : i;
+    }
+
+    private static long number(byte[] bytes, int from, int to) {
+        long value=0;
+        for (int i=from; i<to; i++)
+        {
+            value=value*10+(bytes[i]-'0');
+        }
+        return value;
+    }
+
+    private static boolean is(byte[] bytes, int from, int to, String name) {
+        if (to-from!=name.length())
+        {
+            return false;
+        }
+        for (int i=0; i<name.length(); i++)
+        {
+            if (bytes[from+i]!=name.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Reutiliza el nombre del enum: un rol desconocido lo resuelve jjwt, como antes.
+    private static String role(byte[] bytes, int from, int to) {
+        for (String role : ROLES)
+        {
+            if (is(bytes, from, to, role))
+            {
+                return role;
+            }
+        }
+        return null;
+    }
+
+    // Strings que se pueden escribir y leer entre comillas sin escapes JSON.
+    private static boolean isPlain(String value) {
+        for (int i=0; i<value.length(); i++)
+        {
+            final char c=value.charAt(i);
+            if (c<0x20 || c=='"' || c=='\\')
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPlain(byte[] bytes, int from, int to) {
+        for (int i=from; i<to; i++)
+        {
+            if ((bytes[i]&0xff)<0x20 || bytes[i]=='\\')
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int base64Length(int bytes) {
+        return (bytes*4+2)/3;
+    }
+
+    private static int encodeBase64(byte[] source, int length, byte[] target, int position) {
+        int i=0;
+        for (; i+3<=length; i+=3)
+        {
+            final int bits=(source[i]&0xff)<<16 | (source[i+1]&0xff)<<8 | (source[i+2]&0xff);
+            target[position++]=ALPHABET[bits>>>18];
+            target[position++]=ALPHABET[(bits>>>12)&0x3f];
+            target[position++]=ALPHABET[(bits>>>6)&0x3f];
+            target[position++]=ALPHABET[bits&0x3f];
+        }
+        if (length-i==1)
+        {
+            final int bits=(source[i]&0xff)<<16;
+            target[position++]=ALPHABET[bits>>>18];
+            target[position++]=ALPHABET[(bits>>>12)&0x3f];
+        }
+        else if (length-i==2)
+        {
+            final int bits=(source[i]&0xff)<<16 | (source[i+1]&0xff)<<8;
+            target[position++]=ALPHABET[bits>>>18];
+            target[position++]=ALPHABET[(bits>>>12)&0x3f];
+            target[position++]=ALPHABET[(bits>>>6)&0x3f];
+        }
+        return position;
+    }
+
+    // Devuelve los bytes escritos, o -1 si la entrada no es base64url canónico sin padding.
+    // Un carácter inválido decodifica a -1 y deja negativo el grupo entero.
+    private static int decodeBase64(byte[] source, int offset, int length, byte[] target) {
+        final int remainder=length%4;
+        if (remainder==1 || length/4*3+Math.max(0, remainder-1)>target.length)
+        {
+            return -1;
+        }
+        final int end=offset+length-remainder;
+        int position=0;
+        for (int i=offset; i<end; i+=4)
+        {
+            final int bits=DECODE[source[i]]<<18 | DECODE[source[i+1]]<<12 | DECODE[source[i+2]]<<6 | DECODE[source[i+3]];
+            if (bits<0)
+            {
+                return -1;
+            }
+            target[position++]=(byte) (bits>>>16);
+            target[position++]=(byte) (bits>>>8);
+            target[position++]=(byte) bits;
+        }
+        if (remainder==2)
+        {
+            final int bits=DECODE[source[end]]<<6 | DECODE[source[end+1]];
+            if (bits<0 || (bits&0xf)!=0)
+            {
+                return -1;
+            }
+            target[position++]=(byte) (bits>>>4);
+        }
+        else if (remainder==3)
+        {
+            final int bits=DECODE[source[end]]<<12 | DECODE[source[end+1]]<<6 | DECODE[source[end+2]];
+            if (bits<0 || (bits&0x3)!=0)
+            {
+                return -1;
+            }
+            target[position++]=(byte) (bits>>>10);
+            target[position++]=(byte) (bits>>>2);
+        }
+        return position;
+    }
+
+    private Workspace acquire() {
+        final Workspace workspace=workspaces.getAndSet(slot(), null);
+        return workspace!=null ? workspace : new Workspace(key);
+    }
+
+    private void release(Workspace workspace) {
+        workspaces.compareAndSet(slot(), null, workspace);
+    }
+
+    private int slot() {
+        return (int) Thread.currentThread().threadId()&mask;
+    }
+
+    private static final class Workspace {
+        private final Mac mac;
+        private final byte[] expected=new byte[SIGNATURE_BYTES];
+        private final byte[] actual=new byte[SIGNATURE_BYTES];
+        private byte[] buffer=new byte[512];
+        private byte[] payload=new byte[384];
+
+        private Workspace(Key key) {
+            try
+            {
+                this.mac=Mac.getInstance(ALGORITHM);
+                this.mac.init(key);
+            }
+            catch (GeneralSecurityException e)
+            {
+                throw new IllegalStateException("HmacSHA256 not available", e);
+            }
+        }
+
+        private byte[] buffer(int length) {
+            if (buffer.length<length)
+            {
+                buffer=new byte[length];
+            }
+            return buffer;
+        }
+
+        private byte[] payload(int base64Length) {
+            final int length=base64Length/4*3+2;
+            if (payload.length<length)
+            {
+                payload=new byte[length];
+            }
+            return payload;
+        }
+    }
+}
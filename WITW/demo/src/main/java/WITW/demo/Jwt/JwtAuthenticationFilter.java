@@ -1,50 +1,103 @@
 package WITW.demo.Jwt;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.util.StringUtils;
 
+import WITW.demo.User.Role;
+import WITW.demo.User.User;
+
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // EventSource no puede enviar el header Authorization: solo el stream SSE acepta el token como parámetro.
+    static final String QUERY_TOKEN_PATH="/api/v1/stream";
+    static final String QUERY_TOKEN_PARAMETER="access_token";
+
+    // El token autenticado y su vencimiento quedan en la request: el stream SSE los usa para cerrarse a tiempo.
+    public static final String TOKEN_ATTRIBUTE="witw.jwt.token";
+    public static final String TOKEN_EXPIRATION_ATTRIBUTE="witw.jwt.token.expiration";
+
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final TokenVersionRegistry tokenVersions;
+    private final TokenRevocationList revocations;
+
+    // Latencia por etapa y resultado de cada intento de autenticación (meters creados una sola vez).
+    private final Timer verifyStage;
+    private final Timer userLookupStage;
+    private final Counter authenticated;
+    private final Counter invalidToken;
+    private final Counter unknownUser;
+    private final Counter staleToken;
+    private final Counter revokedToken;
+
+    // Si está activo, el principal se reconstruye desde los claims del token sin consultar la base de datos.
+    @Value("${witw.jwt.claims-authentication:true}")
+    private boolean claimsAuthentication;
+
+    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService,
+            TokenVersionRegistry tokenVersions, TokenRevocationList revocations, MeterRegistry meterRegistry) {
+        this.jwtService=jwtService;
+        this.userDetailsService=userDetailsService;
+        this.tokenVersions=tokenVersions;
+        this.revocations=revocations;
+        this.verifyStage=stage(meterRegistry, "verify");
+        this.userLookupStage=stage(meterRegistry, "user_lookup");
+        this.authenticated=outcome(meterRegistry, "authenticated");
+        this.invalidToken=outcome(meterRegistry, "invalid_token");
+        this.unknownUser=outcome(meterRegistry, "unknown_user");
+        this.staleToken=outcome(meterRegistry, "stale_token");
+        this.revokedToken=outcome(meterRegistry, "revoked_token");
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
-       
+
         final String token = getTokenFromRequest(request);
-        final String username;
 
-        if (token==null)
+        if (token==null || SecurityContextHolder.getContext().getAuthentication()!=null)
         {
             filterChain.doFilter(request, response);
             return;
         }
 
-        username=jwtService.getUsernameFromToken(token);
+        // Un único parseo y verificación de firma por request (o ninguno si el token está en caché).
+        final long start=System.nanoTime();
+        final VerifiedToken verifiedToken=verify(token);
+        final boolean revoked=verifiedToken!=null && revocations.isRevoked(token);
+        verifyStage.record(System.nanoTime()-start, TimeUnit.NANOSECONDS);
 
-        if (username!=null && SecurityContextHolder.getContext().getAuthentication()==null)
+        if (revoked)
+        {
+            revokedToken.increment();
+        }
+        else if (verifiedToken!=null && verifiedToken.getUsername()!=null)
         {
-            UserDetails userDetails=userDetailsService.loadUserByUsername(username);
+            UserDetails userDetails=resolveUser(verifiedToken);
 
-            if (jwtService.isTokenValid(token, userDetails))
+            if (userDetails!=null && verifiedToken.isIssuedFor(userDetails))
             {
                 UsernamePasswordAuthenticationToken authToken= new UsernamePasswordAuthenticationToken(
                     userDetails,
@@ -54,10 +107,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+                request.setAttribute(TOKEN_ATTRIBUTE, token);
+                request.setAttribute(TOKEN_EXPIRATION_ATTRIBUTE, verifiedToken.getExpiration());
+                authenticated.increment();
+            }
+            else if (userDetails!=null)
+            {
+                invalidToken.increment();
             }
 
         }
-        
+        else
+        {
+            invalidToken.increment();
+        }
+
         filterChain.doFilter(request, response);
     }
 
@@ -67,6 +131,88 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return request.getServletPath().startsWith("/auth/");
     }
 
+    private UserDetails resolveUser(VerifiedToken verifiedToken) {
+        if (claimsAuthentication && verifiedToken.hasUserClaims()
+            && !tokenVersions.isStale(verifiedToken.getUsername(), verifiedToken.getTokenVersion()))
+        {
+            final Role role=role(verifiedToken.getRole());
+            if (role==null)
+            {
+                // Firmado por nosotros pero con un rol que no existe: se trata como un token inválido.
+                invalidToken.increment();
+                return null;
+            }
+            return User.builder()
+                .id(verifiedToken.getUserId())
+                .username(verifiedToken.getUsername())
+                .role(role)
+                .tokenVersion(verifiedToken.getTokenVersion())
+                .build();
+        }
+
+        final UserDetails userDetails;
+        final long start=System.nanoTime();
+        try
+        {
+            userDetails=userDetailsService.loadUserByUsername(verifiedToken.getUsername());
+        }
+        catch (UsernameNotFoundException e)
+        {
+            unknownUser.increment();
+            return null;
+        }
+        finally
+        {
+            userLookupStage.record(System.nanoTime()-start, TimeUnit.NANOSECONDS);
+        }
+
+        // Tokens emitidos antes de un cambio de credenciales o de rol ya no son válidos.
+        if (verifiedToken.getTokenVersion()!=null && userDetails instanceof User user
+            && user.getTokenVersion()!=verifiedToken.getTokenVersion())
+        {
+            staleToken.increment();
+            return null;
+        }
+        return userDetails;
+    }
+
+    private VerifiedToken verify(String token) {
+        try
+        {
+            return jwtService.verify(token);
+        }
+        catch (JwtException | IllegalArgumentException e)
+        {
+            // Token inválido o expirado: la request sigue sin autenticar.
+            return null;
+        }
+    }
+
+    private static Role role(String name) {
+        for (Role role : Role.values())
+        {
+            if (role.name().equals(name))
+            {
+                return role;
+            }
+        }
+        return null;
+    }
+
+    private static Timer stage(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("witw.auth.filter.stage")
+            .description("Latency of each JWT filter stage")
+            .tag("stage", stage)
+            .register(meterRegistry);
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("witw.auth.filter.attempts")
+            .description("Bearer token authentication attempts by outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
     private String getTokenFromRequest(HttpServletRequest request) {
         final String authHeader=request.getHeader(HttpHeaders.AUTHORIZATION);
 
@@ -74,10 +220,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         {
             return authHeader.substring(7);
         }
+        if (QUERY_TOKEN_PATH.equals(request.getServletPath()))
+        {
+            final String queryToken=request.getParameter(QUERY_TOKEN_PARAMETER);
+            return StringUtils.hasText(queryToken) ? queryToken : null;
+        }
         return null;
     }
 
 
 
-    
+
 }
\ No newline at end of file
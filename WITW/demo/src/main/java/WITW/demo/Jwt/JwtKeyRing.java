@@ -0,0 +1,286 @@
+package WITW.demo.Jwt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Claves HMAC de los tokens, identificadas por kid: una firma y todas verifican. Se cargan de un archivo
+ * .properties (signing-kid=... y key.&lt;kid&gt;=&lt;secreto en base64&gt;) o de un keystore PKCS12/JCEKS con
+ * entradas de clave secreta, donde el alias es el kid y firma la entrada más reciente. El archivo se vuelve a
+ * leer cuando cambia; si la nueva versión es inválida se conserva la anterior.
+ *
+ * Sin archivo configurado queda solo la clave histórica bajo el kid {@value #LEGACY_KID}, que firma sin header
+ * kid como antes: los tokens sin kid se verifican con ella mientras siga en el anillo.
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    public static final String LEGACY_KID="legacy";
+    // Se decodifica como base64, igual que lo hacía JwtService: así los tokens ya emitidos siguen siendo válidos.
+    private static final String LEGACY_SECRET="586E3272357538782F413F4428472B4B6250655368566B597033733676397924";
+    private static final String SIGNING_KID_PROPERTY="signing-kid";
+    private static final String KEY_PROPERTY_PREFIX="key.";
+    private static final Pattern KID=Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    private static final int MIN_KEY_BYTES=32;
+
+    private final Path location;
+    private final char[] password;
+    private final List<Runnable> listeners=new CopyOnWriteArrayList<>();
+    private final ReentrantLock reloadLock=new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+    private FileTime loadedVersion;
+
+    /**
+     * @param location archivo de claves; vacío para usar solo la clave histórica
+     * @param password contraseña del keystore (se ignora con archivos .properties)
+     */
+    public JwtKeyRing(@Value("${witw.jwt.keys.location:}") String location,
+                      @Value("${witw.jwt.keys.password:}") String password) {
+        this.location=location==null || location.isBlank() ? null : Path.of(location);
+        this.password=password==null ? new char[0] : password.toCharArray();
+        if (this.location==null)
+        {
+            this.snapshot=new Snapshot(LEGACY_KID, Map.of(LEGACY_KID, Base64.getDecoder().decode(LEGACY_SECRET)));
+        }
+        else
+        {
+            this.loadedVersion=lastModified();
+            this.snapshot=load();
+        }
+    }
+
+    /**
+     * Clave con la que se firman los tokens nuevos.
+     */
+    public SigningKey signingKey() {
+        return snapshot.signing;
+    }
+
+    /**
+     * Clave del token según su primer segmento tal como viene en el token, o null si ninguna lo emite.
+     */
+    SigningKey byHeader(String encodedHeader) {
+        return snapshot.byHeader.get(encodedHeader);
+    }
+
+    /**
+     * Clave de verificación para el kid del header; un token sin kid usa la clave {@value #LEGACY_KID}.
+     */
+    public SigningKey byKid(String kid) {
+        return snapshot.byKid.get(kid==null ? LEGACY_KID : kid);
+    }
+
+    /**
+     * Se ejecuta después de cada recarga que cambió las claves.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${witw.jwt.keys.reload-interval:PT30S}")
+    public void reload() {
+        if (location==null)
+        {
+            return;
+        }
+        reloadLock.lock();
+        try
+        {
+            final FileTime version=lastModified();
+            if (version.equals(loadedVersion))
+            {
+                return;
+            }
+            final Snapshot loaded=load();
+            loadedVersion=version;
+            snapshot=loaded;
+            log.info("Reloaded JWT keys from {}: signing with {}, verifying {}", location, loaded.signing.getKid(), loaded.byKid.keySet());
+            listeners.forEach(Runnable::run);
+        }
+        catch (RuntimeException e)
+        {
+            log.error("Cannot reload JWT keys from {}, keeping the previous ones", location, e);
+        }
+        finally
+        {
+            reloadLock.unlock();
+        }
+    }
+
+    private FileTime lastModified() {
+        try
+        {
+            return Files.getLastModifiedTime(location);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Cannot read JWT keys from "+location, e);
+        }
+    }
+
+    private Snapshot load() {
+        final String name=location.getFileName().toString().toLowerCase();
+        return name.endsWith(".properties") ? loadProperties() : loadKeyStore();
+    }
+
+    private Snapshot loadProperties() {
+        final Properties properties=new Properties();
+        try (InputStream in=Files.newInputStream(location))
+        {
+            properties.load(in);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Cannot read JWT keys from "+location, e);
+        }
+
+        final Map<String,byte[]> secrets=new HashMap<>();
+        for (String property : properties.stringPropertyNames())
+        {
+            if (property.startsWith(KEY_PROPERTY_PREFIX))
+            {
+                secrets.put(property.substring(KEY_PROPERTY_PREFIX.length()),
+                    Base64.getDecoder().decode(properties.getProperty(property).trim()));
+            }
+        }
+        final String signingKid=properties.getProperty(SIGNING_KID_PROPERTY);
+        if (signingKid==null)
+        {
+            throw new IllegalArgumentException("Missing "+SIGNING_KID_PROPERTY+" in "+location);
+        }
+        return new Snapshot(signingKid.trim(), secrets);
+    }
+
+    private Snapshot loadKeyStore() {
+        try
+        {
+            final KeyStore keyStore=KeyStore.getInstance(location.toFile(), password);
+            final KeyStore.PasswordProtection protection=new KeyStore.PasswordProtection(password);
+            final Map<String,byte[]> secrets=new HashMap<>();
+            String signingKid=null;
+            Date newest=null;
+            for (String alias : Collections.list(keyStore.aliases()))
+            {
+                if (!keyStore.entryInstanceOf(alias, KeyStore.SecretKeyEntry.class))
+                {
+                    continue;
+                }
+                final SecretKey secret=((KeyStore.SecretKeyEntry) keyStore.getEntry(alias, protection)).getSecretKey();
+                secrets.put(alias, secret.getEncoded());
+                final Date created=keyStore.getCreationDate(alias);
+                if (newest==null || created.after(newest))
+                {
+                    newest=created;
+                    signingKid=alias;
+                }
+            }
+            if (signingKid==null)
+            {
+                throw new IllegalArgumentException("No secret keys in "+location);
+            }
+            return new Snapshot(signingKid, secrets);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Cannot read JWT keys from "+location, e);
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw new IllegalArgumentException("Cannot read JWT keys from "+location, e);
+        }
+    }
+
+    /**
+     * Clave del anillo con su codec ya inicializado, compartido por todos los tokens de ese kid.
+     */
+    public static final class SigningKey {
+        private final String kid;
+        private final Key key;
+        private final Hs256TokenCodec codec;
+
+        private SigningKey(String kid, byte[] secret) {
+            if (!KID.matcher(kid).matches())
+            {
+                throw new IllegalArgumentException("Invalid JWT key id: "+kid);
+            }
+            if (secret.length<MIN_KEY_BYTES)
+            {
+                throw new IllegalArgumentException("JWT key "+kid+" must have at least 256 bits");
+            }
+            this.kid=kid;
+            this.key=new SecretKeySpec(secret, "HmacSHA256");
+            this.codec=new Hs256TokenCodec(key, LEGACY_KID.equals(kid) ? null : kid);
+        }
+
+        public String getKid() {
+            return kid;
+        }
+
+        public Key getKey() {
+            return key;
+        }
+
+        /**
+         * Kid que va en el header, o null para la clave histórica.
+         */
+        public String getHeaderKid() {
+            return LEGACY_KID.equals(kid) ? null : kid;
+        }
+
+        Hs256TokenCodec getCodec() {
+            return codec;
+        }
+    }
+
+    // Vista inmutable del anillo: una recarga reemplaza la referencia entera.
+    private static final class Snapshot {
+        private final SigningKey signing;
+        private final Map<String,SigningKey> byKid;
+        private final Map<String,SigningKey> byHeader;
+
+        private Snapshot(String signingKid, Map<String,byte[]> secrets) {
+            final Map<String,SigningKey> keys=new HashMap<>();
+            final Map<String,SigningKey> headers=new HashMap<>();
+            secrets.forEach((kid, secret) -> {
+                final SigningKey key=new SigningKey(kid, secret);
+                keys.put(kid, key);
+                headers.put(key.codec.header(), key);
+            });
+            this.signing=keys.get(signingKid);
+            if (signing==null)
+            {
+                throw new IllegalArgumentException("Signing key "+signingKid+" is not in the key ring");
+            }
+            this.byKid=Map.copyOf(keys);
+            this.byHeader=Map.copyOf(headers);
+        }
+    }
+}
@@ -1,60 +1,237 @@
 package WITW.demo.Jwt;
 
 import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import WITW.demo.User.User;
+
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @Service
 public class JwtService {
 
-    private static final String SECRET_KEY="586E3272357538782F413F4428472B4B6250655368566B597033733676397924";
+    private static final long VERIFIED_TOKEN_CACHE_SIZE=10_000;
+    public static final Duration TOKEN_VALIDITY=Duration.ofMinutes(24);
+
+    static final String USER_ID_CLAIM="uid";
+    static final String ROLE_CLAIM="role";
+    static final String TOKEN_VERSION_CLAIM="ver";
+
+    private final JwtKeyRing keyRing;
+    // El parser es inmutable y thread-safe: se construye una sola vez y busca la clave por kid en el anillo.
+    private final JwtParser parser;
+
+    // Tokens ya verificados, expulsados cuando el token expira. La clave es el token mismo: calcular un SHA-256
+    // por búsqueda costaba tanto como verificar el HMAC con el codec.
+    private final Cache<String,VerifiedToken> verifiedTokens=Caffeine.newBuilder()
+        .maximumSize(VERIFIED_TOKEN_CACHE_SIZE)
+        .expireAfter(Expiry.<String,VerifiedToken>creating((token, verified) ->
+            Duration.between(Instant.now(), verified.getExpiration())))
+        .build();
+
+    // Meters registrados una sola vez: en el camino caliente solo se suma a contadores ya existentes.
+    private final Timer signTimer;
+    private final Timer parseTimer;
+    private final Timer codecTimer;
+    private final Counter cachedVerifications;
+    private final Counter freshVerifications;
+    private final Counter rejectedVerifications;
+
+    public JwtService(JwtKeyRing keyRing, MeterRegistry meterRegistry) {
+        this.keyRing=keyRing;
+        this.parser=Jwts.parserBuilder().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                final JwtKeyRing.SigningKey key=keyRing.byKid(header.getKeyId());
+                if (key==null)
+                {
+                    throw new UnsupportedJwtException("Unknown signing key: "+header.getKeyId());
+                }
+                return key.getKey();
+            }
+        }).build();
+        // Una clave retirada del anillo invalida sus tokens aunque ya estén en la caché.
+        keyRing.addListener(verifiedTokens::invalidateAll);
+
+        this.signTimer=Timer.builder("witw.jwt.sign")
+            .description("Time to build and sign a token")
+            .register(meterRegistry);
+        this.parseTimer=Timer.builder("witw.jwt.parse")
+            .description("Time to parse a token and check its signature, on verified-token cache misses")
+            .tag("codec", "jjwt")
+            .register(meterRegistry);
+        this.codecTimer=Timer.builder("witw.jwt.parse")
+            .description("Time to parse a token and check its signature, on verified-token cache misses")
+            .tag("codec", "hs256")
+            .register(meterRegistry);
+        this.cachedVerifications=verifications(meterRegistry, "cached");
+        this.freshVerifications=verifications(meterRegistry, "verified");
+        this.rejectedVerifications=verifications(meterRegistry, "rejected");
+    }
 
     public String getToken(UserDetails user) {
-        return getToken(new HashMap<>(), user);
+        final Map<String,Object> extraClaims=new HashMap<>();
+
+        // Con estos claims el filtro puede autenticar la request sin volver a consultar la base de datos.
+        if (user instanceof User appUser && appUser.getId()!=null && appUser.getRole()!=null)
+        {
+            extraClaims.put(USER_ID_CLAIM, appUser.getId());
+            extraClaims.put(ROLE_CLAIM, appUser.getRole().name());
+            extraClaims.put(TOKEN_VERSION_CLAIM, appUser.getTokenVersion());
+        }
+        return getToken(extraClaims, user);
     }
 
     private String getToken(Map<String,Object> extraClaims, UserDetails user) {
-        return Jwts
-            .builder()
-            .setClaims(extraClaims)
-            .setSubject(user.getUsername())
-            .setIssuedAt(new Date(System.currentTimeMillis()))
-            .setExpiration(new Date(System.currentTimeMillis()+1000*60*24))
-            .signWith(getKey(), SignatureAlgorithm.HS256)
-            .compact();
+        return signTimer.record(() -> {
+            // jjwt escribe las fechas en segundos: se truncan igual en ambos caminos.
+            final long issuedAt=System.currentTimeMillis()/1000;
+            final long expiration=issuedAt+TOKEN_VALIDITY.toSeconds();
+            // Dos logins del mismo usuario en el mismo segundo darían el mismo token: el jti los distingue,
+            // y revocar uno no revoca el otro.
+            final String tokenId=Long.toString(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE), 36);
+            final JwtKeyRing.SigningKey signing=keyRing.signingKey();
+            final String token=signing.getCodec().encode(user.getUsername(),
+                (Integer) extraClaims.get(USER_ID_CLAIM),
+                (String) extraClaims.get(ROLE_CLAIM),
+                (Integer) extraClaims.get(TOKEN_VERSION_CLAIM),
+                tokenId, issuedAt, expiration);
+            if (token!=null)
+            {
+                return token;
+            }
+            final JwtBuilder builder=Jwts.builder();
+            if (signing.getHeaderKid()!=null)
+            {
+                builder.setHeaderParam(JwsHeader.KEY_ID, signing.getHeaderKid());
+            }
+            return builder
+                .setClaims(extraClaims)
+                .setSubject(user.getUsername())
+                .setId(tokenId)
+                .setIssuedAt(new Date(issuedAt*1000))
+                .setExpiration(new Date(expiration*1000))
+                .signWith(signing.getKey(), SignatureAlgorithm.HS256)
+                .compact();
+        });
     }
 
-    private Key getKey() {
-       byte[] keyBytes=Decoders.BASE64.decode(SECRET_KEY);
-       return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Verifica la firma y la expiración del token una sola vez y devuelve sus claims inmutables.
+     * Los tokens repetidos se resuelven desde la caché sin volver a calcular el HMAC ni parsear el JSON; los que
+     * emite este servicio se verifican con el codec HS256 y cualquier otra forma de token, con jjwt.
+     *
+     * @throws io.jsonwebtoken.JwtException si el token es inválido, está adulterado o expiró
+     */
+    public VerifiedToken verify(String token) {
+        final VerifiedToken cached=verifiedTokens.getIfPresent(token);
+
+        if (cached!=null && !cached.isExpired())
+        {
+            cachedVerifications.increment();
+            return cached;
+        }
+
+        VerifiedToken verified=decode(token);
+        if (verified==null)
+        {
+            verified=parse(token);
+        }
+
+        verifiedTokens.put(token, verified);
+        freshVerifications.increment();
+        return verified;
+    }
+
+    private VerifiedToken decode(String token) {
+        final long start=System.nanoTime();
+        try
+        {
+            // El primer segmento identifica la clave: una búsqueda en el mapa y un HMAC.
+            final int headerEnd=token.indexOf('.');
+            final JwtKeyRing.SigningKey key=headerEnd<0 ? null : keyRing.byHeader(token.substring(0, headerEnd));
+            return key==null ? null : key.getCodec().decode(token);
+        }
+        catch (JwtException e)
+        {
+            rejectedVerifications.increment();
+            throw e;
+        }
+        finally
+        {
+            codecTimer.record(System.nanoTime()-start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private VerifiedToken parse(String token) {
+        final Claims claims;
+        final long start=System.nanoTime();
+        try
+        {
+            claims=getAllClaims(token);
+        }
+        catch (JwtException | IllegalArgumentException e)
+        {
+            rejectedVerifications.increment();
+            throw e;
+        }
+        finally
+        {
+            parseTimer.record(System.nanoTime()-start, TimeUnit.NANOSECONDS);
+        }
+
+        if (claims.getExpiration()==null)
+        {
+            rejectedVerifications.increment();
+            throw new MalformedJwtException("Token without expiration");
+        }
+
+        return new VerifiedToken(
+            claims.getSubject(),
+            claims.getIssuedAt()==null ? null : claims.getIssuedAt().toInstant(),
+            claims.getExpiration().toInstant(),
+            claims.get(USER_ID_CLAIM, Integer.class),
+            claims.get(ROLE_CLAIM, String.class),
+            claims.get(TOKEN_VERSION_CLAIM, Integer.class));
     }
 
     public String getUsernameFromToken(String token) {
-        return getClaim(token, Claims::getSubject);
+        return verify(token).getUsername();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username=getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername())&& !isTokenExpired(token));
+        return verify(token).isIssuedFor(userDetails);
     }
 
     private Claims getAllClaims(String token)
     {
-        return Jwts
-            .parserBuilder()
-            .setSigningKey(getKey())
-            .build()
+        return parser
             .parseClaimsJws(token)
             .getBody();
     }
@@ -65,14 +242,12 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
-    private Date getExpiration(String token)
+    private static Counter verifications(MeterRegistry meterRegistry, String result)
     {
-        return getClaim(token, Claims::getExpiration);
+        return Counter.builder("witw.jwt.verifications")
+            .description("Token verifications by result")
+            .tag("result", result)
+            .register(meterRegistry);
     }
 
-    private boolean isTokenExpired(String token)
-    {
-        return getExpiration(token).before(new Date());
-    }
-    
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package WITW.demo.Jwt;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name="revoked_token", indexes = {@Index(name="idx_revoked_token_expires_at", columnList="expiresAt")})
+public class RevokedToken {
+    // Los primeros 40 caracteres de la firma (240 bits del HMAC): identifican al token sin guardarlo.
+    @Id
+    @Column(length = TokenRevocationList.ID_LENGTH)
+    String id;
+    // Vencimiento del token: después de esa fecha la entrada ya no hace falta.
+    @Column(nullable = false)
+    Instant expiresAt;
+}
@@ -0,0 +1,19 @@
+package WITW.demo.Jwt;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken,String> {
+
+    @Query("select r.id from RevokedToken r where r.expiresAt>:now")
+    List<String> findActiveIds(@Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from RevokedToken r where r.expiresAt<=:now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,178 @@
+package WITW.demo.Jwt;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tokens revocados antes de vencer (logout). La tabla revoked_token es la fuente exacta y compartida entre
+ * nodos; cada nodo la mantiene en memoria como un filtro de Bloom que se reconstruye periódicamente, así la
+ * consulta del filtro JWT es O(1), sin asignar memoria y sin base de datos. Solo un acierto del filtro
+ * (token revocado o falso positivo) consulta la tabla, y esa respuesta se recuerda hasta la próxima reconstrucción.
+ *
+ * Una revocación hecha en este nodo rige de inmediato; las de otros nodos, desde la siguiente reconstrucción.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    static final int ID_LENGTH=40;
+    private static final double FALSE_POSITIVE_RATE=0.01;
+    private static final long EXACT_CHECK_CACHE_SIZE=10_000;
+
+    private final RevokedTokenRepository repository;
+    private final TransactionTemplate transaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int minimumCapacity;
+    private final Cache<String,Boolean> exactChecks;
+
+    private final ReentrantLock rebuildLock=new ReentrantLock();
+    // Revocaciones locales durante una reconstrucción: se agregan también al filtro nuevo.
+    private List<String> revokedWhileRebuilding;
+    private volatile BloomFilter filter;
+
+    public TokenRevocationList(RevokedTokenRepository repository, PlatformTransactionManager transactionManager,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${witw.jwt.revocation.refresh-interval:PT10S}") Duration refreshInterval,
+            @Value("${witw.jwt.revocation.minimum-capacity:10000}") int minimumCapacity) {
+        this.repository=repository;
+        this.transaction=new TransactionTemplate(transactionManager);
+        this.eventPublisher=eventPublisher;
+        this.minimumCapacity=minimumCapacity;
+        this.exactChecks=Caffeine.newBuilder()
+            .maximumSize(EXACT_CHECK_CACHE_SIZE)
+            .expireAfterWrite(refreshInterval)
+            .build();
+        this.filter=new BloomFilter(minimumCapacity, FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Revoca el token hasta su vencimiento y avisa con un {@link TokenRevokedEvent} (cierra sus streams SSE).
+     * El token ya tiene que estar verificado.
+     */
+    public void revoke(String token, Instant expiration) {
+        final String id=id(token);
+        transaction.executeWithoutResult(tx -> repository.save(new RevokedToken(id, expiration)));
+        exactChecks.put(id, true);
+
+        rebuildLock.lock();
+        try
+        {
+            filter.add(token, signatureStart(token));
+            if (revokedWhileRebuilding!=null)
+            {
+                revokedWhileRebuilding.add(id);
+            }
+        }
+        finally
+        {
+            rebuildLock.unlock();
+        }
+        eventPublisher.publishEvent(new TokenRevokedEvent(token));
+    }
+
+    /**
+     * Si el token fue revocado. Un token con firma HS256 que no está en el filtro se resuelve sin asignar memoria.
+     */
+    public boolean isRevoked(String token) {
+        final int offset=signatureStart(token);
+        if (offset<0 || !filter.mightContain(token, offset))
+        {
+            return false;
+        }
+        final String id=token.substring(offset, offset+ID_LENGTH);
+        final Boolean cached=exactChecks.getIfPresent(id);
+        if (cached!=null)
+        {
+            return cached;
+        }
+        // La consulta no corre dentro del compute de la caché (fijaría el hilo virtual a su carrier durante
+        // el I/O de JDBC). putIfAbsent: un revoke concurrente que ya guardó true no se pisa con esta respuesta.
+        final boolean revoked=repository.existsById(id);
+        final Boolean previous=exactChecks.asMap().putIfAbsent(id, revoked);
+        return previous!=null ? previous : revoked;
+    }
+
+    @Scheduled(fixedDelayString = "${witw.jwt.revocation.refresh-interval:PT10S}")
+    public void rebuild() {
+        rebuildLock.lock();
+        try
+        {
+            revokedWhileRebuilding=new ArrayList<>();
+        }
+        finally
+        {
+            rebuildLock.unlock();
+        }
+
+        BloomFilter rebuilt=null;
+        try
+        {
+            final List<String> ids=repository.findActiveIds(Instant.now());
+            // El doble de la cantidad actual deja lugar a las revocaciones hasta la próxima reconstrucción.
+            rebuilt=new BloomFilter(Math.max(minimumCapacity, ids.size()*2), FALSE_POSITIVE_RATE);
+            for (String id : ids)
+            {
+                rebuilt.add(id, 0);
+            }
+        }
+        catch (RuntimeException e)
+        {
+            log.warn("Cannot rebuild the token revocation filter, keeping the current one", e);
+        }
+
+        rebuildLock.lock();
+        try
+        {
+            if (rebuilt!=null)
+            {
+                for (String id : revokedWhileRebuilding)
+                {
+                    rebuilt.add(id, 0);
+                }
+                filter=rebuilt;
+            }
+            revokedWhileRebuilding=null;
+        }
+        finally
+        {
+            rebuildLock.unlock();
+        }
+    }
+
+    @Scheduled(cron = "${witw.jwt.revocation.prune-cron:0 */15 * * * *}")
+    public void prune() {
+        // Un token vencido ya lo rechaza la verificación: su entrada sobra en la tabla y en el próximo filtro.
+        final int removed=transaction.execute(tx -> repository.deleteExpired(Instant.now()));
+        log.info("Pruned {} expired token revocations", removed);
+    }
+
+    // Comienzo de la firma; -1 si el token no tiene una firma HS256 (43 caracteres).
+    private static int signatureStart(String token) {
+        final int start=token.lastIndexOf('.')+1;
+        return start>0 && token.length()-start>=ID_LENGTH ? start : -1;
+    }
+
+    private static String id(String token) {
+        final int offset=signatureStart(token);
+        if (offset<0)
+        {
+            throw new IllegalArgumentException("Token without HS256 signature");
+        }
+        return token.substring(offset, offset+ID_LENGTH);
+    }
+}
@@ -0,0 +1,9 @@
+package WITW.demo.Jwt;
+
+import lombok.Value;
+
+// Publicado por TokenRevocationList al revocar un token en este nodo (logout).
+@Value
+public class TokenRevokedEvent {
+    String token;
+}
@@ -0,0 +1,40 @@
+package WITW.demo.Jwt;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import WITW.demo.User.UserChangedEvent;
+
+/**
+ * Tabla en memoria con la última versión de token conocida de los usuarios modificados.
+ * Solo guarda usuarios que cambiaron durante la vigencia máxima de un token: pasado ese tiempo
+ * ningún token antiguo sigue siendo válido y la entrada se puede descartar.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private static final long MAX_TRACKED_USERS=100_000;
+
+    private final Cache<String,Integer> versions=Caffeine.newBuilder()
+        .maximumSize(MAX_TRACKED_USERS)
+        .expireAfterWrite(JwtService.TOKEN_VALIDITY)
+        .build();
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        // Un usuario eliminado invalida todos sus tokens: se fuerza la consulta a la base de datos.
+        record(event.getUsername(), event.isRemoved() ? Integer.MAX_VALUE : event.getTokenVersion());
+    }
+
+    public void record(String username, int tokenVersion) {
+        versions.asMap().merge(username, tokenVersion, Math::max);
+    }
+
+    public boolean isStale(String username, int tokenVersion) {
+        final Integer known=versions.getIfPresent(username);
+        return known!=null && known>tokenVersion;
+    }
+}
@@ -0,0 +1,35 @@
+package WITW.demo.Jwt;
+
+import java.time.Instant;
+
+import org.springframework.security.core.userdetails.UserDetails;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+@Value
+@AllArgsConstructor
+public class VerifiedToken {
+    String username;
+    Instant issuedAt;
+    Instant expiration;
+    Integer userId;
+    String role;
+    Integer tokenVersion;
+
+    public VerifiedToken(String username, Instant issuedAt, Instant expiration) {
+        this(username, issuedAt, expiration, null, null, null);
+    }
+
+    public boolean hasUserClaims() {
+        return userId!=null && role!=null && tokenVersion!=null;
+    }
+
+    public boolean isExpired() {
+        return !expiration.isAfter(Instant.now());
+    }
+
+    public boolean isIssuedFor(UserDetails userDetails) {
+        return username!=null && username.equals(userDetails.getUsername()) && !isExpired();
+    }
+}
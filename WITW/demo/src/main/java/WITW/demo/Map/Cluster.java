@@ -0,0 +1,13 @@
+package WITW.demo.Map;
+
+import WITW.demo.Event.IndexedEvent;
+
+import lombok.Value;
+
+@Value
+public class Cluster {
+    double latitude;
+    double longitude;
+    int count;
+    IndexedEvent topEvent;
+}
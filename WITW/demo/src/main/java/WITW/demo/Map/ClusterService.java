@@ -0,0 +1,192 @@
+package WITW.demo.Map;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import WITW.demo.Event.EventIndexChangedEvent;
+import WITW.demo.Event.EventSpatialIndex;
+import WITW.demo.Event.IndexedEvent;
+import WITW.demo.Geo.BoundingBox;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Agrupa los eventos del índice espacial en clusters por tile y nivel de zoom.
+ * Cada tile se divide en una grilla de {@value #GRID}x{@value #GRID} celdas (64 px en pantalla) y cada celda
+ * con eventos produce un cluster. Los tiles calculados se cachean; ante un cambio solo se invalidan los tiles
+ * de los zoom en que el evento cambió de celda (cambian los conteos). El resto de los tiles afectados, y todos
+ * los de zoom bajo, que recorren gran parte del índice, se recalculan en segundo plano sirviendo el anterior.
+ */
+@Service
+@RequiredArgsConstructor
+public class ClusterService {
+
+    static final int GRID=4;
+    static final int MAX_ZOOM=18;
+    static final int MAX_TILES_PER_REQUEST=64;
+    // Bajo este zoom un tile cubre más de 300 km: recalcularlo en la request de cada alta o baja es caro.
+    static final int BACKGROUND_ZOOM=8;
+    private static final long MAX_CACHED_TILES=50_000;
+
+    private final EventSpatialIndex spatialIndex;
+
+    private final Cache<TileKey,List<Cluster>> tiles=Caffeine.newBuilder()
+        .maximumSize(MAX_CACHED_TILES)
+        .build();
+    private final Set<TileKey> stale=ConcurrentHashMap.newKeySet();
+
+    public List<Cluster> clusters(BoundingBox viewport, int zoom) {
+        if (zoom<0 || zoom>MAX_ZOOM)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "zoom must be between 0 and "+MAX_ZOOM);
+        }
+        final TileKey topLeft=TileKey.containing(viewport.getMaxLatitude(), viewport.getMinLongitude(), zoom);
+        final TileKey bottomRight=TileKey.containing(viewport.getMinLatitude(), viewport.getMaxLongitude(), zoom);
+        final long tileCount=(long) (bottomRight.getX()-topLeft.getX()+1)*(bottomRight.getY()-topLeft.getY()+1);
+
+        if (tileCount>MAX_TILES_PER_REQUEST)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "viewport too large for zoom "+zoom);
+        }
+
+        final List<Cluster> result=new ArrayList<>();
+        for (int x=topLeft.getX(); x<=bottomRight.getX(); x++)
+        {
+            for (int y=topLeft.getY(); y<=bottomRight.getY(); y++)
+            {
+                result.addAll(tiles.get(new TileKey(zoom, x, y), this::computeTile));
+            }
+        }
+        return result;
+    }
+
+    @EventListener
+    public void onIndexChanged(EventIndexChangedEvent change) {
+        final IndexedEvent previous=change.getPrevious();
+        final IndexedEvent current=change.getCurrent();
+
+        for (int zoom=0; zoom<=MAX_ZOOM; zoom++)
+        {
+            final TileKey previousTile=previous==null ? null : TileKey.containing(previous.getLatitude(), previous.getLongitude(), zoom);
+            final TileKey currentTile=current==null ? null : TileKey.containing(current.getLatitude(), current.getLongitude(), zoom);
+            final boolean cellChanged=previousTile==null || currentTile==null || !previousTile.equals(currentTile)
+                || cellIndex(previous, previousTile)!=cellIndex(current, currentTile);
+
+            for (TileKey tile : new TileKey[] {previousTile, currentTile})
+            {
+                if (tile==null)
+                {
+                    continue;
+                }
+                // Si el tile se está calculando, Caffeine espera a que termine antes de invalidarlo: nunca queda uno viejo.
+                if (cellChanged && zoom>=BACKGROUND_ZOOM)
+                {
+                    tiles.invalidate(tile);
+                }
+                else
+                {
+                    stale.add(tile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recalcula los tiles marcados por {@link #onIndexChanged}; mientras tanto se sigue sirviendo la versión
+     * anterior. Un tile que cambia de nuevo durante el cálculo queda marcado para la siguiente pasada.
+     */
+    @Scheduled(fixedDelayString = "${witw.map.tile-refresh-interval:PT1S}")
+    public void refreshStaleTiles() {
+        for (Iterator<TileKey> iterator=stale.iterator(); iterator.hasNext();)
+        {
+            final TileKey tile=iterator.next();
+            iterator.remove();
+            // Los tiles que no están en caché se calculan con el índice actual cuando se pidan.
+            tiles.asMap().computeIfPresent(tile, (key, clusters) -> computeTile(key));
+        }
+    }
+
+    private List<Cluster> computeTile(TileKey tile) {
+        final Accumulator[] cells=new Accumulator[GRID*GRID];
+        final BoundingBox bounds=tile.bounds();
+        final LocalDateTime now=LocalDateTime.now();
+
+        for (IndexedEvent event : spatialIndex.query(bounds, null, null, Integer.MAX_VALUE))
+        {
+            // Los bordes compartidos pertenecen a un solo tile.
+            if (!TileKey.containing(event.getLatitude(), event.getLongitude(), tile.getZoom()).equals(tile))
+            {
+                continue;
+            }
+            final int index=cellIndex(event, tile);
+            if (cells[index]==null)
+            {
+                cells[index]=new Accumulator();
+            }
+            cells[index].add(event, now);
+        }
+
+        final List<Cluster> clusters=new ArrayList<>();
+        for (Accumulator cell : cells)
+        {
+            if (cell!=null)
+            {
+                clusters.add(new Cluster(cell.latitudeSum/cell.count, cell.longitudeSum/cell.count, cell.count, cell.top));
+            }
+        }
+        return List.copyOf(clusters);
+    }
+
+    private static int cellIndex(IndexedEvent event, TileKey tile) {
+        final int column=cell(TileKey.tileX(event.getLongitude(), tile.getZoom())-tile.getX());
+        final int row=cell(TileKey.tileY(event.getLatitude(), tile.getZoom())-tile.getY());
+        return row*GRID+column;
+    }
+
+    private static int cell(double offsetInTile) {
+        return Math.max(0, Math.min(GRID-1, (int) (offsetInTile*GRID)));
+    }
+
+    private static final class Accumulator {
+        int count;
+        double latitudeSum;
+        double longitudeSum;
+        IndexedEvent top;
+
+        void add(IndexedEvent event, LocalDateTime now) {
+            count++;
+            latitudeSum+=event.getLatitude();
+            longitudeSum+=event.getLongitude();
+            if (top==null || isBetter(event, top, now))
+            {
+                top=event;
+            }
+        }
+
+        // El evento destacado es el próximo en comenzar; si todos pasaron, el más reciente.
+        private static boolean isBetter(IndexedEvent candidate, IndexedEvent current, LocalDateTime now) {
+            final boolean candidateUpcoming=!candidate.getStartsAt().isBefore(now);
+            final boolean currentUpcoming=!current.getStartsAt().isBefore(now);
+            if (candidateUpcoming!=currentUpcoming)
+            {
+                return candidateUpcoming;
+            }
+            return candidateUpcoming
+                ? candidate.getStartsAt().isBefore(current.getStartsAt())
+                : candidate.getStartsAt().isAfter(current.getStartsAt());
+        }
+    }
+}
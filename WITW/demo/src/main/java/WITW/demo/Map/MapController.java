@@ -0,0 +1,37 @@
+package WITW.demo.Map;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import WITW.demo.Geo.BoundingBox;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/map")
+@RequiredArgsConstructor
+public class MapController {
+
+    private final ClusterService clusterService;
+
+    @GetMapping(value = "clusters")
+    public ResponseEntity<List<Cluster>> clusters(
+        @RequestParam double minLat, @RequestParam double minLon,
+        @RequestParam double maxLat, @RequestParam double maxLon,
+        @RequestParam int zoom)
+    {
+        return ResponseEntity.ok(clusterService.clusters(BoundingBox.of(minLat, minLon, maxLat, maxLon), zoom));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Void> invalidArea()
+    {
+        return ResponseEntity.badRequest().build();
+    }
+}
@@ -0,0 +1,44 @@
+package WITW.demo.Map;
+
+import WITW.demo.Geo.BoundingBox;
+
+import lombok.Value;
+
+/**
+ * Tile Web Mercator z/x/y, el mismo esquema que usan las capas de Leaflet.
+ */
+@Value
+public class TileKey {
+    static final double MAX_LATITUDE=85.05112878;
+
+    int zoom;
+    int x;
+    int y;
+
+    public static TileKey containing(double latitude, double longitude, int zoom) {
+        final int tiles=1<<zoom;
+        return new TileKey(zoom, (int) Math.floor(tileX(longitude, zoom)) & (tiles-1), Math.min(tiles-1, (int) Math.floor(tileY(latitude, zoom))));
+    }
+
+    static double tileX(double longitude, int zoom) {
+        return Math.min((longitude+180)/360, 1-1e-12)*(1<<zoom);
+    }
+
+    static double tileY(double latitude, int zoom) {
+        final double lat=Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        return (1-Math.log(Math.tan(lat)+1/Math.cos(lat))/Math.PI)/2*(1<<zoom);
+    }
+
+    public BoundingBox bounds() {
+        final double tiles=1<<zoom;
+        return new BoundingBox(
+            latitude(y+1, tiles),
+            x/tiles*360-180,
+            latitude(y, tiles),
+            (x+1)/tiles*360-180);
+    }
+
+    private static double latitude(int y, double tiles) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI*(1-2*y/tiles))));
+    }
+}
@@ -0,0 +1,66 @@
+package WITW.demo.Metrics;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate prepara en el hilo actual mientras hay un conteo abierto.
+ * Más barato que hibernate.generate_statistics: un ThreadLocal y un incremento por sentencia, y nada
+ * en los hilos sin conteo (write-behind, tareas programadas).
+ */
+@Component
+public class HibernateStatementCounter implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private static final ThreadLocal<int[]> COUNT=new ThreadLocal<>();
+
+    @Override
+    public void customize(Map<String,Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        final int[] count=COUNT.get();
+        if (count!=null)
+        {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    // Para tareas que el hilo de la request delega a otro pool y espera (p. ej. el login en el pool de hashing).
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        final int[] count=COUNT.get();
+        if (count==null)
+        {
+            return task;
+        }
+        return () -> {
+            COUNT.set(count);
+            try
+            {
+                return task.get();
+            }
+            finally
+            {
+                COUNT.remove();
+            }
+        };
+    }
+
+    // Devuelve las sentencias contadas desde start() y cierra el conteo.
+    public static int stop() {
+        final int[] count=COUNT.get();
+        COUNT.remove();
+        return count==null ? 0 : count[0];
+    }
+}
@@ -0,0 +1,77 @@
+package WITW.demo.Metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registra cuántas sentencias SQL ejecutó cada request, por endpoint, y avisa cuando una request
+ * supera el umbral: un N+1 aparece como un endpoint con muchas sentencias por request.
+ * Va antes de la cadena de Spring Security para incluir la consulta del usuario del filtro JWT.
+ */
+@Slf4j
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER-1)
+public class StatementCountFilter extends OncePerRequestFilter {
+
+    private static final String UNKNOWN_URI="UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    private final int warnThreshold;
+    // Un summary por método y patrón de uri: registrarlo en cada request cuesta más que la medición.
+    private final Map<String, DistributionSummary> summaries=new ConcurrentHashMap<>();
+
+    public StatementCountFilter(MeterRegistry meterRegistry,
+            @Value("${witw.metrics.statements-warn-threshold:25}") int warnThreshold) {
+        this.meterRegistry=meterRegistry;
+        this.warnThreshold=warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        HibernateStatementCounter.start();
+        try
+        {
+            filterChain.doFilter(request, response);
+        }
+        finally
+        {
+            record(request, HibernateStatementCounter.stop());
+        }
+    }
+
+    private void record(HttpServletRequest request, int statements) {
+        final Object pattern=request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        final String uri=pattern==null ? UNKNOWN_URI : pattern.toString();
+
+        summaries.computeIfAbsent(request.getMethod()+" "+uri, key->
+            DistributionSummary.builder("witw.http.statements")
+                .description("SQL statements prepared per HTTP request")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry))
+            .record(statements);
+
+        if (statements>warnThreshold)
+        {
+            log.warn("{} {} ran {} SQL statements (possible N+1)", request.getMethod(), uri, statements);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package WITW.demo.Paging;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+import lombok.Value;
+
+/**
+ * Posición de un listado paginado por keyset: la clave de orden (fecha, id) del último elemento entregado.
+ * La página siguiente es el rango del índice que empieza justo después, así que cuesta lo mismo en la página 1
+ * que en la 10.000 (con OFFSET la base recorre y descarta todas las filas anteriores). Para el cliente es un
+ * string opaco que solo se devuelve tal cual.
+ */
+@Value
+public class KeysetCursor {
+    private static final char SEPARATOR='|';
+
+    LocalDateTime at;
+    String id;
+
+    public static String encode(LocalDateTime at, Object id) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((at.toString()+SEPARATOR+id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try
+        {
+            final String value=new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            final int separator=value.indexOf(SEPARATOR);
+            if (separator<0)
+            {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new KeysetCursor(LocalDateTime.parse(value.substring(0, separator)), value.substring(separator+1));
+        }
+        catch (DateTimeParseException e)
+        {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+
+    public long longId() {
+        return Long.parseLong(id);
+    }
+
+    public UUID uuidId() {
+        return UUID.fromString(id);
+    }
+}
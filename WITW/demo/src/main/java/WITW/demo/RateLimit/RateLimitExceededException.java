@@ -0,0 +1,15 @@
+package WITW.demo.RateLimit;
+
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(long retryAfterSeconds) {
+        super("Rate limit exceeded, retry in "+retryAfterSeconds+"s");
+        this.retryAfterSeconds=retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,40 @@
+package WITW.demo.RateLimit;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Rechaza con 429 y Retry-After las requests que superan el límite por IP de su ruta. Va antes del filtro JWT:
+ * una request rechazada no verifica su token ni llega a pedir un hash BCrypt.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimits rateLimits;
+
+    public RateLimitFilter(RateLimits rateLimits) {
+        this.rateLimits=rateLimits;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        final long wait=rateLimits.acquire(request);
+        if (wait>0)
+        {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(RateLimits.retryAfterSeconds(wait)));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
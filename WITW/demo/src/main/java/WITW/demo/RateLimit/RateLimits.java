@@ -0,0 +1,103 @@
+package WITW.demo.RateLimit;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Límites de requests por ruta: login y registro por IP (cada intento cuesta un hash BCrypt), login también
+ * por username para frenar el credential stuffing repartido entre muchas IPs, y la API por IP. Un límite vacío
+ * deja la ruta sin límite.
+ */
+@Component
+public class RateLimits {
+
+    static final String LOGIN_PATH="/auth/login";
+    static final String REGISTER_PATH="/auth/register";
+    static final String API_PREFIX="/api/";
+
+    private final TokenBucketLimiter loginPerIp;
+    private final TokenBucketLimiter loginPerUsername;
+    private final TokenBucketLimiter registerPerIp;
+    private final TokenBucketLimiter apiPerIp;
+
+    public RateLimits(@Value("${witw.rate-limit.enabled:true}") boolean enabled,
+                      @Value("${witw.rate-limit.login.per-ip:20/PT1M}") String loginPerIp,
+                      @Value("${witw.rate-limit.login.per-username:10/PT5M}") String loginPerUsername,
+                      @Value("${witw.rate-limit.register.per-ip:5/PT10M}") String registerPerIp,
+                      @Value("${witw.rate-limit.api.per-ip:600/PT1M}") String apiPerIp,
+                      @Value("${witw.rate-limit.max-keys:100000}") long maxKeys,
+                      MeterRegistry meterRegistry) {
+        this.loginPerIp=enabled ? limiter("login_ip", loginPerIp, maxKeys, meterRegistry) : null;
+        this.loginPerUsername=enabled ? limiter("login_username", loginPerUsername, maxKeys, meterRegistry) : null;
+        this.registerPerIp=enabled ? limiter("register_ip", registerPerIp, maxKeys, meterRegistry) : null;
+        this.apiPerIp=enabled ? limiter("api_ip", apiPerIp, maxKeys, meterRegistry) : null;
+    }
+
+    /**
+     * Consume un token del límite por IP de la ruta de la request.
+     *
+     * @return 0 si la request se admite, o los nanosegundos hasta que se admita otra
+     */
+    public long acquire(HttpServletRequest request) {
+        final TokenBucketLimiter limiter=forPath(request.getServletPath());
+        return limiter==null ? 0 : limiter.tryAcquire(request.getRemoteAddr());
+    }
+
+    /**
+     * Consume un intento de login del username, antes de pagar el hash de la contraseña.
+     *
+     * @throws RateLimitExceededException si el username agotó sus intentos
+     */
+    public void acquireLogin(String username) {
+        if (loginPerUsername==null || username==null)
+        {
+            return;
+        }
+        final long wait=loginPerUsername.tryAcquire(usernameKey(username));
+        if (wait>0)
+        {
+            throw new RateLimitExceededException(retryAfterSeconds(wait));
+        }
+    }
+
+    /**
+     * Segundos para el header Retry-After, redondeados hacia arriba.
+     */
+    public static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos+TimeUnit.SECONDS.toNanos(1)-1)/TimeUnit.SECONDS.toNanos(1));
+    }
+
+    // La collation por defecto de MySQL 8 (utf8mb4_0900_ai_ci) no distingue mayúsculas ni acentos: "ALICE" y "Álice" son
+    // la misma cuenta que "alice" y comparten los intentos. Los espacios de los extremos también se ignoran.
+    private static String usernameKey(String username) {
+        return Normalizer.normalize(username.trim(), Normalizer.Form.NFD)
+            .replaceAll("\\p{M}", "")
+            .toLowerCase(Locale.ROOT);
+    }
+
+    private TokenBucketLimiter forPath(String path) {
+        if (LOGIN_PATH.equals(path))
+        {
+            return loginPerIp;
+        }
+        if (REGISTER_PATH.equals(path))
+        {
+            return registerPerIp;
+        }
+        return path.startsWith(API_PREFIX) ? apiPerIp : null;
+    }
+
+    private static TokenBucketLimiter limiter(String name, String spec, long maxKeys, MeterRegistry meterRegistry) {
+        return spec==null || spec.isBlank() ? null
+            : new TokenBucketLimiter(name, spec, maxKeys, Ticker.systemTicker(), meterRegistry);
+    }
+}
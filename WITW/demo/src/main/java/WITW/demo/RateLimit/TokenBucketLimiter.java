@@ -0,0 +1,92 @@
+package WITW.demo.RateLimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Token bucket por clave (IP, username): admite ráfagas de hasta capacity requests y repone capacity tokens
+ * por período. Cada balde es un solo long, el instante en que vuelve a estar lleno, que se actualiza con CAS
+ * sin locks (la forma "virtual scheduling" del algoritmo). Los baldes viven en una caché de Caffeine acotada
+ * en tamaño; uno que pasa un período sin uso ya está lleno y se descarta sin perder nada.
+ */
+public class TokenBucketLimiter {
+
+    private final Cache<String,AtomicLong> buckets;
+    private final Ticker ticker;
+    // Nanosegundos que cuesta un token y deuda máxima admitida (capacity-1 tokens por adelantado).
+    private final long interval;
+    private final long tolerance;
+    private final Counter rejected;
+
+    /**
+     * @param name nombre del límite en las métricas
+     * @param spec capacidad y período, p. ej. 20/PT1M
+     * @param maxKeys cantidad máxima de claves en memoria
+     */
+    public TokenBucketLimiter(String name, String spec, long maxKeys, Ticker ticker, MeterRegistry meterRegistry) {
+        final int slash=spec.indexOf('/');
+        if (slash<0)
+        {
+            throw new IllegalArgumentException("Invalid rate limit "+name+": "+spec+" (expected capacity/period)");
+        }
+        final int capacity=Integer.parseInt(spec.substring(0, slash).trim());
+        final Duration period=Duration.parse(spec.substring(slash+1).trim());
+        if (capacity<1 || period.isNegative() || period.isZero())
+        {
+            throw new IllegalArgumentException("Invalid rate limit "+name+": "+spec);
+        }
+        this.ticker=ticker;
+        this.interval=Math.max(1, period.toNanos()/capacity);
+        this.tolerance=interval*(capacity-1);
+        this.buckets=Caffeine.newBuilder()
+            .maximumSize(maxKeys)
+            .expireAfterAccess(period)
+            .ticker(ticker)
+            .build();
+        this.rejected=Counter.builder("witw.ratelimit.rejected")
+            .description("Requests rejected by a rate limit")
+            .tag("limit", name)
+            .register(meterRegistry);
+        Gauge.builder("witw.ratelimit.keys", buckets, Cache::estimatedSize)
+            .description("Keys tracked by a rate limit")
+            .tag("limit", name)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Consume un token de la clave.
+     *
+     * @return 0 si la request se admite, o los nanosegundos hasta que haya un token disponible
+     */
+    public long tryAcquire(String key) {
+        final AtomicLong bucket=buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        final long now=ticker.read();
+        while (true)
+        {
+            final long full=bucket.get();
+            final long debt=Math.max(full, now)-now;
+            if (debt>tolerance)
+            {
+                rejected.increment();
+                return debt-tolerance;
+            }
+            if (bucket.compareAndSet(full, now+debt+interval))
+            {
+                return 0;
+            }
+        }
+    }
+
+    long estimatedSize() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
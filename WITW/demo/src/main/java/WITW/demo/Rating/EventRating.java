@@ -0,0 +1,71 @@
+package WITW.demo.Rating;
+
+import WITW.demo.Geo.GeoHash;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Agregado de las valoraciones de un evento, mantenido en la misma transacción que cada valoración
+ * (ver EventRatingRepository.apply): leer el promedio o el ranking nunca recorre la tabla rating.
+ *
+ * La celda y las coordenadas se copian del evento para que "mejor valorados cerca" sea una lectura de
+ * idx_event_rating_cell_score por celda, ya ordenada por puntaje.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name="event_rating", indexes = {@Index(name="idx_event_rating_cell_score", columnList="cell, score")})
+public class EventRating {
+    // Celdas de unos 39 x 20 km: un radio de 50 km se cubre con pocas decenas.
+    static final int CELL_PRECISION=4;
+
+    @Id
+    Long eventId;
+    // Los contadores solo se modifican con updates relativos: un save() de la entidad no los pisa.
+    @Column(nullable = false, updatable = false)
+    long ratingCount;
+    @Column(nullable = false, updatable = false)
+    long ratingSum;
+    // Histograma: cantidad de valoraciones de 1 a 5 estrellas.
+    @Column(nullable = false, updatable = false)
+    long stars1;
+    @Column(nullable = false, updatable = false)
+    long stars2;
+    @Column(nullable = false, updatable = false)
+    long stars3;
+    @Column(nullable = false, updatable = false)
+    long stars4;
+    @Column(nullable = false, updatable = false)
+    long stars5;
+    // Promedio bayesiano: el promedio real tirado hacia la media a priori mientras haya pocas valoraciones,
+    // así un evento con una sola valoración de 5 no encabeza el ranking.
+    @Column(nullable = false, updatable = false)
+    double score;
+    // Geohash del evento con precisión CELL_PRECISION.
+    @Column(nullable = false, length = 12)
+    String cell;
+    double latitude;
+    double longitude;
+
+    public static String cellOf(double latitude, double longitude) {
+        return GeoHash.encode(latitude, longitude, CELL_PRECISION);
+    }
+
+    public Double getAverage() {
+        return ratingCount==0 ? null : (double) ratingSum/ratingCount;
+    }
+
+    public long[] getHistogram() {
+        return new long[] {stars1, stars2, stars3, stars4, stars5};
+    }
+}
@@ -0,0 +1,38 @@
+package WITW.demo.Rating;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface EventRatingRepository extends JpaRepository<EventRating,Long>, EventRatingRepositoryCustom {
+
+    // Un solo update relativo bloquea la fila hasta el commit y suma los deltas de la valoración.
+    // El puntaje va primero: MySQL evalúa las asignaciones en orden con los valores ya actualizados y
+    // el estándar (H2) con los originales; así las dos bases ven los contadores originales. Los cast evitan que
+    // Hibernate tome los parámetros como enteros por los contadores y haga una división entera. Se limpia el
+    // contexto de persistencia para que una lectura posterior en la misma request no vea el agregado anterior.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update EventRating r set r.score=(cast(:priorSum as double)+r.ratingSum+cast(:sum as long))"
+        +"/(cast(:priorWeight as double)+r.ratingCount+cast(:count as long)),"
+        +" r.ratingCount=r.ratingCount+:count, r.ratingSum=r.ratingSum+:sum,"
+        +" r.stars1=r.stars1+:d1, r.stars2=r.stars2+:d2, r.stars3=r.stars3+:d3, r.stars4=r.stars4+:d4, r.stars5=r.stars5+:d5"
+        +" where r.eventId=:eventId")
+    int apply(@Param("eventId") Long eventId, @Param("count") long count, @Param("sum") long sum,
+        @Param("d1") long d1, @Param("d2") long d2, @Param("d3") long d3, @Param("d4") long d4, @Param("d5") long d5,
+        @Param("priorSum") double priorSum, @Param("priorWeight") double priorWeight);
+
+    // Recalcula todos los puntajes con la media a priori configurada (una sentencia, al arrancar si cambió).
+    @Modifying
+    @Query("update EventRating r set r.score=(cast(:priorSum as double)+r.ratingSum)/(cast(:priorWeight as double)+r.ratingCount)")
+    int rescore(@Param("priorSum") double priorSum, @Param("priorWeight") double priorWeight);
+
+    @Modifying
+    @Query("update EventRating r set r.cell=:cell, r.latitude=:latitude, r.longitude=:longitude where r.eventId=:eventId")
+    int relocate(@Param("eventId") Long eventId, @Param("cell") String cell,
+        @Param("latitude") double latitude, @Param("longitude") double longitude);
+
+    @Modifying
+    @Query("delete from EventRating r where r.eventId=:eventId")
+    int deleteByEventId(@Param("eventId") Long eventId);
+}
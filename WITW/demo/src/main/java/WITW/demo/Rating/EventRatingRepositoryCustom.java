@@ -0,0 +1,7 @@
+package WITW.demo.Rating;
+
+import java.util.List;
+
+public interface EventRatingRepositoryCustom {
+    List<TopRatedEvent> findTopRated(List<String> cells, double latitude, double longitude, double radiusKm, int limit);
+}
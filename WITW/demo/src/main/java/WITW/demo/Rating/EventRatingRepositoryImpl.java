@@ -0,0 +1,61 @@
+package WITW.demo.Rating;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+public class EventRatingRepositoryImpl implements EventRatingRepositoryCustom {
+
+    private static final double KM_PER_DEGREE=111.195;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Una parte por celda, cada una recorriendo idx_event_rating_cell_score de mayor a menor puntaje hasta juntar
+    // limit eventos dentro del radio: ni se agrega ni se ordena nada que no vaya a devolverse. El radio se evalúa
+    // con la aproximación equirectangular (basta para distancias de decenas de km).
+    @Override
+    public List<TopRatedEvent> findTopRated(List<String> cells, double latitude, double longitude, double radiusKm, int limit) {
+        if (cells.isEmpty())
+        {
+            return List.of();
+        }
+        final StringBuilder hql=new StringBuilder("select t.eventId, t.name, t.score, t.ratingCount, t.latitude, t.longitude from (");
+        for (int i=0; i<cells.size(); i++)
+        {
+            hql.append(i==0 ? "(" : " union all (")
+                .append("select r.eventId eventId, e.name name, r.score score, r.ratingCount ratingCount,")
+                .append(" r.latitude latitude, r.longitude longitude from EventRating r join Event e on e.id=r.eventId")
+                .append(" where r.cell=:cell").append(i)
+                .append(" and (r.latitude-:latitude)*(r.latitude-:latitude)")
+                .append("+(r.longitude-:longitude)*(r.longitude-:longitude)*:longitudeScale<=:radius2")
+                .append(" order by r.score desc, r.eventId limit :limit)");
+        }
+        hql.append(") t order by t.score desc, t.eventId");
+
+        final double cos=Math.cos(Math.toRadians(latitude));
+        final double radius=radiusKm/KM_PER_DEGREE;
+        final TypedQuery<Object[]> query=entityManager.createQuery(hql.toString(), Object[].class);
+        for (int i=0; i<cells.size(); i++)
+        {
+            query.setParameter("cell"+i, cells.get(i));
+        }
+        query.setParameter("latitude", latitude);
+        query.setParameter("longitude", longitude);
+        query.setParameter("longitudeScale", cos*cos);
+        query.setParameter("radius2", radius*radius);
+        query.setParameter("limit", limit);
+        query.setMaxResults(limit);
+
+        final List<TopRatedEvent> events=new ArrayList<>();
+        for (Object[] row : query.getResultList())
+        {
+            events.add(new TopRatedEvent((Long) row[0], (String) row[1], (Double) row[2], (Long) row[3],
+                (Double) row[4], (Double) row[5]));
+        }
+        return events;
+    }
+}
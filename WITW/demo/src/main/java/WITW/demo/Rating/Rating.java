@@ -0,0 +1,36 @@
+package WITW.demo.Rating;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name="rating",
+    uniqueConstraints = {@UniqueConstraint(name="uk_rating_event_user", columnNames = {"eventId", "userId"})})
+public class Rating {
+    @Id
+    @GeneratedValue
+    Long id;
+    @Column(nullable = false)
+    Long eventId;
+    @Column(nullable = false)
+    Integer userId;
+    // De 1 a 5.
+    @Column(nullable = false)
+    int stars;
+    @Column(nullable = false)
+    LocalDateTime ratedAt;
+}
@@ -0,0 +1,9 @@
+package WITW.demo.Rating;
+
+import lombok.Value;
+
+@Value
+public class RatingChangedEvent {
+    Long eventId;
+    Integer userId;
+}
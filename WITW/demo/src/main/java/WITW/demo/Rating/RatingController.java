@@ -0,0 +1,53 @@
+package WITW.demo.Rating;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import WITW.demo.User.User;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/events")
+@RequiredArgsConstructor
+public class RatingController {
+
+    private final RatingService ratingService;
+
+    @GetMapping(value = "{id}/rating")
+    public ResponseEntity<RatingResponse> get(@PathVariable Long id, @AuthenticationPrincipal User user)
+    {
+        return ResponseEntity.ok(ratingService.get(id, user));
+    }
+
+    @PutMapping(value = "{id}/rating")
+    public ResponseEntity<RatingResponse> rate(@PathVariable Long id, @RequestBody RatingRequest request, @AuthenticationPrincipal User user)
+    {
+        return ResponseEntity.ok(ratingService.rate(id, request.getStars(), user));
+    }
+
+    @DeleteMapping(value = "{id}/rating")
+    public ResponseEntity<RatingResponse> remove(@PathVariable Long id, @AuthenticationPrincipal User user)
+    {
+        return ResponseEntity.ok(ratingService.remove(id, user));
+    }
+
+    @GetMapping(value = "top-rated")
+    public ResponseEntity<List<TopRatedEvent>> topRated(
+        @RequestParam double lat, @RequestParam double lon,
+        @RequestParam(defaultValue = "10") double radiusKm,
+        @RequestParam(defaultValue = "20") int limit)
+    {
+        return ResponseEntity.ok(ratingService.topRated(lat, lon, radiusKm, limit));
+    }
+}
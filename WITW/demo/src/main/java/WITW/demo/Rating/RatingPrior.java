@@ -0,0 +1,26 @@
+package WITW.demo.Rating;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Media a priori con la que están calculados los puntajes de event_rating. Tiene una sola fila: al arrancar se
+ * compara con la configurada y solo si difiere se recalculan los puntajes (ver RatingService.rescore).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name="rating_prior")
+public class RatingPrior {
+    static final int ID=1;
+
+    @Id
+    Integer id;
+    double mean;
+    double weight;
+}
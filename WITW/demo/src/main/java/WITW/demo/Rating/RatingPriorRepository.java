@@ -0,0 +1,6 @@
+package WITW.demo.Rating;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface RatingPriorRepository extends JpaRepository<RatingPrior,Integer> {
+}
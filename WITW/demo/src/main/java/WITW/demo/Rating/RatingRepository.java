@@ -0,0 +1,25 @@
+package WITW.demo.Rating;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+
+public interface RatingRepository extends JpaRepository<Rating,Long> {
+
+    // Con lock: dos cambios simultáneos del mismo usuario no pueden aplicar al agregado la misma valoración anterior.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Rating> findByEventIdAndUserId(Long eventId, Integer userId);
+
+    @Query("select r.stars from Rating r where r.eventId=:eventId and r.userId=:userId")
+    Optional<Integer> findStars(@Param("eventId") Long eventId, @Param("userId") Integer userId);
+
+    @Modifying
+    @Query("delete from Rating r where r.eventId=:eventId")
+    int deleteByEventId(@Param("eventId") Long eventId);
+}
@@ -0,0 +1,22 @@
+package WITW.demo.Rating;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingResponse {
+    Long eventId;
+    long ratingCount;
+    // Null sin valoraciones.
+    Double average;
+    double score;
+    // Valoraciones de 1 a 5 estrellas.
+    long[] histogram;
+    // Valoración del usuario, o null si no valoró el evento.
+    Integer myStars;
+}
@@ -0,0 +1,190 @@
+package WITW.demo.Rating;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import WITW.demo.Event.Event;
+import WITW.demo.Event.EventRepository;
+import WITW.demo.Geo.BoundingBox;
+import WITW.demo.Geo.GeoDistance;
+import WITW.demo.Geo.GeoHash;
+import WITW.demo.User.User;
+
+/**
+ * Valoraciones de eventos con agregados mantenidos en línea. Cada alta, cambio o baja de una valoración suma su
+ * delta al agregado del evento (cantidad, suma, histograma y puntaje bayesiano) en la misma transacción, igual
+ * que las inscripciones con el contador de asistentes: el agregado siempre coincide con la tabla rating y leerlo
+ * cuesta una fila. El lock de la fila del agregado solo dura ese update corto.
+ */
+@Service
+public class RatingService {
+
+    static final double MAX_RADIUS_KM=50;
+    static final int MAX_RESULTS=50;
+
+    private final RatingRepository ratingRepository;
+    private final EventRatingRepository eventRatingRepository;
+    private final RatingPriorRepository ratingPriorRepository;
+    private final EventRepository eventRepository;
+    private final TransactionTemplate transaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final double priorMean;
+    private final double priorWeight;
+
+    public RatingService(RatingRepository ratingRepository, EventRatingRepository eventRatingRepository,
+        RatingPriorRepository ratingPriorRepository, EventRepository eventRepository, PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+        @Value("${witw.ratings.prior-mean:3.5}") double priorMean,
+        @Value("${witw.ratings.prior-weight:5}") double priorWeight)
+    {
+        this.ratingRepository=ratingRepository;
+        this.eventRatingRepository=eventRatingRepository;
+        this.ratingPriorRepository=ratingPriorRepository;
+        this.eventRepository=eventRepository;
+        this.transaction=new TransactionTemplate(transactionManager);
+        this.eventPublisher=eventPublisher;
+        this.priorMean=priorMean;
+        this.priorWeight=priorWeight;
+    }
+
+    // Si cambió la media a priori con que se calcularon, los puntajes guardados se recalculan con una sola
+    // sentencia; si no, arrancar no toca event_rating.
+    @EventListener(ApplicationReadyEvent.class)
+    public void rescore() {
+        transaction.executeWithoutResult(tx -> {
+            final Optional<RatingPrior> applied=ratingPriorRepository.findById(RatingPrior.ID);
+            if (applied.isPresent() && applied.get().getMean()==priorMean && applied.get().getWeight()==priorWeight)
+            {
+                return;
+            }
+            eventRatingRepository.rescore(priorMean*priorWeight, priorWeight);
+            ratingPriorRepository.save(new RatingPrior(RatingPrior.ID, priorMean, priorWeight));
+        });
+    }
+
+    public RatingResponse rate(Long eventId, Integer stars, User user) {
+        if (stars==null || stars<1 || stars>5)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "stars must be between 1 and 5");
+        }
+        createAggregate(eventId);
+        try
+        {
+            write(eventId, stars, user.getId());
+        }
+        catch (DataIntegrityViolationException e)
+        {
+            // Otra request del mismo usuario insertó su primera valoración a la vez: ahora es un cambio.
+            write(eventId, stars, user.getId());
+        }
+        return get(eventId, user);
+    }
+
+    public RatingResponse remove(Long eventId, User user) {
+        transaction.executeWithoutResult(tx -> ratingRepository.findByEventIdAndUserId(eventId, user.getId())
+            .ifPresent(rating -> {
+                ratingRepository.delete(rating);
+                apply(eventId, rating.getStars(), 0);
+                eventPublisher.publishEvent(new RatingChangedEvent(eventId, user.getId()));
+            }));
+        return get(eventId, user);
+    }
+
+    public RatingResponse get(Long eventId, User user) {
+        final Optional<EventRating> aggregate=eventRatingRepository.findById(eventId);
+        if (aggregate.isEmpty() && !eventRepository.existsById(eventId))
+        {
+            throw notFound();
+        }
+        final EventRating rating=aggregate.orElseGet(() -> EventRating.builder().eventId(eventId).score(priorMean).build());
+
+        return RatingResponse.builder()
+            .eventId(eventId)
+            .ratingCount(rating.getRatingCount())
+            .average(rating.getAverage())
+            .score(rating.getScore())
+            .histogram(rating.getHistogram())
+            .myStars(user==null ? null : ratingRepository.findStars(eventId, user.getId()).orElse(null))
+            .build();
+    }
+
+    public List<TopRatedEvent> topRated(double latitude, double longitude, double radiusKm, int limit) {
+        if (radiusKm<=0 || radiusKm>MAX_RADIUS_KM)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "radiusKm must be between 0 and "+MAX_RADIUS_KM);
+        }
+        final List<String> cells=GeoHash.cells(BoundingBox.around(latitude, longitude, radiusKm), EventRating.CELL_PRECISION);
+        final List<TopRatedEvent> events=eventRatingRepository.findTopRated(cells, latitude, longitude, radiusKm,
+            Math.max(1, Math.min(limit, MAX_RESULTS)));
+        for (TopRatedEvent event : events)
+        {
+            event.setDistanceKm(GeoDistance.kilometers(latitude, longitude, event.getLatitude(), event.getLongitude()));
+        }
+        return events;
+    }
+
+    private void write(Long eventId, int stars, Integer userId) {
+        transaction.executeWithoutResult(tx -> {
+            final Optional<Rating> existing=ratingRepository.findByEventIdAndUserId(eventId, userId);
+            final int previous=existing.map(Rating::getStars).orElse(0);
+            if (previous==stars)
+            {
+                return;
+            }
+            final Rating rating=existing.orElseGet(() -> Rating.builder().eventId(eventId).userId(userId).build());
+            rating.setStars(stars);
+            rating.setRatedAt(LocalDateTime.now());
+            ratingRepository.saveAndFlush(rating);
+            apply(eventId, previous, stars);
+            eventPublisher.publishEvent(new RatingChangedEvent(eventId, userId));
+        });
+    }
+
+    // Delta de reemplazar una valoración de removed estrellas por una de added (0 = ninguna).
+    private void apply(Long eventId, int removed, int added) {
+        final long[] buckets=new long[6];
+        buckets[removed]--;
+        buckets[added]++;
+        eventRatingRepository.apply(eventId, Integer.signum(added)-Integer.signum(removed), added-removed,
+            buckets[1], buckets[2], buckets[3], buckets[4], buckets[5], priorMean*priorWeight, priorWeight);
+    }
+
+    // La fila del agregado se crea aparte, antes de la primera valoración: si dos requests la insertan a la vez,
+    // la que pierde solo descarta su insert y no revierte la valoración.
+    private void createAggregate(Long eventId) {
+        if (eventRatingRepository.existsById(eventId))
+        {
+            return;
+        }
+        final Event event=eventRepository.findById(eventId).orElseThrow(RatingService::notFound);
+        try
+        {
+            transaction.executeWithoutResult(tx -> eventRatingRepository.saveAndFlush(EventRating.builder()
+                .eventId(eventId)
+                .score(priorMean)
+                .cell(EventRating.cellOf(event.getLatitude(), event.getLongitude()))
+                .latitude(event.getLatitude())
+                .longitude(event.getLongitude())
+                .build()));
+        }
+        catch (DataIntegrityViolationException e)
+        {
+            // Ya la creó otra request.
+        }
+    }
+
+    private static ResponseStatusException notFound() {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Event not found");
+    }
+}
@@ -0,0 +1,14 @@
+package WITW.demo.Rating;
+
+import lombok.Data;
+
+@Data
+public class TopRatedEvent {
+    private final Long eventId;
+    private final String name;
+    private final double score;
+    private final long ratingCount;
+    private final double latitude;
+    private final double longitude;
+    private Double distanceKm;
+}
@@ -0,0 +1,300 @@
+package WITW.demo.Realtime;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import WITW.demo.Comment.CommentChangedEvent;
+import WITW.demo.Comment.CommentResponse;
+import WITW.demo.Event.AttendanceChangedEvent;
+import WITW.demo.Event.EventIndexChangedEvent;
+import WITW.demo.Event.EventSpatialIndex;
+import WITW.demo.Event.IndexedEvent;
+import WITW.demo.Geo.GeoHash;
+import WITW.demo.Jwt.TokenRevocationList;
+import WITW.demo.Jwt.TokenRevokedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Envía por SSE los cambios de eventos, asistencias y comentarios a los clientes suscritos a la celda
+ * (geohash de 2 a {@value #MAX_PRECISION} caracteres) donde ocurrió el cambio.
+ * Cada cambio se serializa una sola vez y se encola en los suscriptores de las celdas que lo contienen;
+ * cada cola la vacía un hilo virtual propio, así que un cliente cuyo {@code send} queda bloqueado solo
+ * retiene su hilo y no atrasa a los demás. Un cliente que no lee llena su cola y se desconecta: al
+ * reconectarse se pone al día con /api/v1/sync.
+ * Una conexión dura como mucho hasta que vence su token. Si el token se revoca en este nodo se cierra de
+ * inmediato; si se revoca en otro, en el primer heartbeat después de que el filtro de revocaciones lo incluya.
+ */
+@Slf4j
+@Component
+public class EventBroadcaster implements DisposableBean {
+
+    static final int MIN_PRECISION=2;
+    static final int MAX_PRECISION=5;
+    static final int MAX_CELLS=64;
+
+    private final ObjectMapper objectMapper;
+    private final EventSpatialIndex spatialIndex;
+    private final TokenRevocationList revocations;
+    private final int queueCapacity;
+    private final Duration timeout;
+
+    private final Map<String,Set<Subscriber>> subscribersByCell=new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers=ConcurrentHashMap.newKeySet();
+    private final ExecutorService writers;
+    private final ScheduledExecutorService heartbeats;
+    private final Counter dropped;
+
+    public EventBroadcaster(
+            ObjectMapper objectMapper,
+            EventSpatialIndex spatialIndex,
+            TokenRevocationList revocations,
+            MeterRegistry meterRegistry,
+            @Value("${witw.stream.queue-capacity:32}") int queueCapacity,
+            @Value("${witw.stream.timeout:PT30M}") Duration timeout,
+            @Value("${witw.stream.heartbeat:PT25S}") Duration heartbeat) {
+        this.objectMapper=objectMapper;
+        this.spatialIndex=spatialIndex;
+        this.revocations=revocations;
+        this.queueCapacity=queueCapacity;
+        this.timeout=timeout;
+        this.writers=Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-writer-", 0).factory());
+        this.heartbeats=Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("sse-heartbeat-"));
+        this.heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+
+        Gauge.builder("witw.stream.subscribers", subscribers, Set::size)
+            .description("Open SSE connections")
+            .register(meterRegistry);
+        this.dropped=Counter.builder("witw.stream.dropped")
+            .description("SSE connections closed because the client was not reading")
+            .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(Collection<String> cells, String token, Instant expiration) {
+        final List<String> normalized=normalize(cells);
+        final long untilExpiration=Math.max(1, Duration.between(Instant.now(), expiration).toMillis());
+        final SseEmitter emitter=new SseEmitter(Math.min(timeout.toMillis(), untilExpiration));
+        attach(emitter, normalized, token);
+        return emitter;
+    }
+
+    void attach(SseEmitter emitter, List<String> cells, String token) {
+        final Subscriber subscriber=new Subscriber(emitter, cells, token, queueCapacity);
+        subscribers.add(subscriber);
+        for (String cell : cells)
+        {
+            subscribersByCell.computeIfAbsent(cell, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        emitter.onCompletion(() -> detach(subscriber));
+        emitter.onTimeout(() -> detach(subscriber));
+        emitter.onError(error -> detach(subscriber));
+
+        // Primer mensaje: confirma las celdas y hace que el cliente reciba los headers de inmediato.
+        deliver(subscriber, frame("subscribed", Map.of("cells", cells)));
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @EventListener
+    public void onIndexChanged(EventIndexChangedEvent change) {
+        final IndexedEvent current=change.getCurrent();
+        final IndexedEvent previous=change.getPrevious();
+        final Set<DataWithMediaType> frame=current!=null
+            ? frame("event", current)
+            : frame("event-removed", Map.of("id", previous.getId()));
+
+        // Si el evento se movió, también se avisa a quienes miran la posición anterior.
+        final Set<Subscriber> targets=new HashSet<>();
+        collect(current, targets);
+        collect(previous, targets);
+        publish(targets, frame);
+    }
+
+    @EventListener
+    public void onTokenRevoked(TokenRevokedEvent revoked) {
+        for (Subscriber subscriber : subscribers)
+        {
+            if (revoked.getToken().equals(subscriber.getToken()))
+            {
+                close(subscriber);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAttendanceChanged(AttendanceChangedEvent change) {
+        final IndexedEvent event=spatialIndex.get(change.getEventId());
+        if (event!=null)
+        {
+            publish(event, frame("attendance", Map.of("eventId", change.getEventId())));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentChanged(CommentChangedEvent change) {
+        final IndexedEvent event=spatialIndex.get(change.getComment().getEventId());
+        if (event!=null)
+        {
+            publish(event, frame("comment", CommentResponse.from(change.getComment())));
+        }
+    }
+
+    private void publish(IndexedEvent event, Set<DataWithMediaType> frame) {
+        final Set<Subscriber> targets=new HashSet<>();
+        collect(event, targets);
+        publish(targets, frame);
+    }
+
+    private void publish(Set<Subscriber> targets, Set<DataWithMediaType> frame) {
+        for (Subscriber subscriber : targets)
+        {
+            deliver(subscriber, frame);
+        }
+    }
+
+    // Un cambio le interesa a las celdas de todas las precisiones que contienen su posición.
+    private void collect(IndexedEvent event, Set<Subscriber> targets) {
+        if (event==null)
+        {
+            return;
+        }
+        final String geohash=GeoHash.encode(event.getLatitude(), event.getLongitude(), MAX_PRECISION);
+        for (int precision=MIN_PRECISION; precision<=MAX_PRECISION; precision++)
+        {
+            final Set<Subscriber> cell=subscribersByCell.get(geohash.substring(0, precision));
+            if (cell!=null)
+            {
+                targets.addAll(cell);
+            }
+        }
+    }
+
+    private void deliver(Subscriber subscriber, Set<DataWithMediaType> frame) {
+        if (!subscriber.offer(frame))
+        {
+            if (!subscriber.isClosed())
+            {
+                dropped.increment();
+                close(subscriber);
+            }
+            return;
+        }
+        if (subscriber.startDraining())
+        {
+            writers.execute(() -> {
+                if (!subscriber.drain())
+                {
+                    close(subscriber);
+                }
+            });
+        }
+    }
+
+    void heartbeat() {
+        final Set<DataWithMediaType> ping=build(SseEmitter.event().comment("ping"));
+        for (Subscriber subscriber : subscribers)
+        {
+            // Las revocaciones de otros nodos llegan solo por el filtro: se revisan en cada heartbeat.
+            if (subscriber.getToken()!=null && revocations.isRevoked(subscriber.getToken()))
+            {
+                close(subscriber);
+                continue;
+            }
+            deliver(subscriber, ping);
+        }
+    }
+
+    private Set<DataWithMediaType> frame(String name, Object payload) {
+        try
+        {
+            return build(SseEmitter.event().name(name).data(objectMapper.writeValueAsString(payload)));
+        }
+        catch (JsonProcessingException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Set<DataWithMediaType> build(SseEmitter.SseEventBuilder event) {
+        return event.build();
+    }
+
+    private void close(Subscriber subscriber) {
+        detach(subscriber);
+        subscriber.getEmitter().complete();
+    }
+
+    private void detach(Subscriber subscriber) {
+        subscriber.close();
+        if (!subscribers.remove(subscriber))
+        {
+            return;
+        }
+        for (String cell : subscriber.getCells())
+        {
+            subscribersByCell.computeIfPresent(cell, (key, cellSubscribers) -> {
+                cellSubscribers.remove(subscriber);
+                return cellSubscribers.isEmpty() ? null : cellSubscribers;
+            });
+        }
+    }
+
+    static List<String> normalize(Collection<String> cells) {
+        if (cells==null || cells.isEmpty() || cells.size()>MAX_CELLS)
+        {
+            throw new IllegalArgumentException("Between 1 and "+MAX_CELLS+" cells are required");
+        }
+        final Set<String> normalized=new LinkedHashSet<>();
+        for (String cell : cells)
+        {
+            final String geohash=cell.trim().toLowerCase();
+            if (geohash.length()<MIN_PRECISION || geohash.length()>MAX_PRECISION)
+            {
+                throw new IllegalArgumentException("Cells must have between "+MIN_PRECISION+" and "+MAX_PRECISION+" characters");
+            }
+            // Valida el alfabeto del geohash.
+            GeoHash.decode(geohash);
+            normalized.add(geohash);
+        }
+        return List.copyOf(normalized);
+    }
+
+    @Override
+    public void destroy() {
+        heartbeats.shutdownNow();
+        for (Subscriber subscriber : List.copyOf(subscribers))
+        {
+            close(subscriber);
+        }
+        writers.shutdown();
+    }
+}
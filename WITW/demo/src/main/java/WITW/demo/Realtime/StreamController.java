@@ -0,0 +1,42 @@
+package WITW.demo.Realtime;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import WITW.demo.Jwt.JwtAuthenticationFilter;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/stream")
+@RequiredArgsConstructor
+public class StreamController {
+
+    private final EventBroadcaster broadcaster;
+
+    // EventSource no permite headers: el token puede ir en ?access_token= (ver JwtAuthenticationFilter).
+    // El stream se cierra cuando el token vence o se revoca.
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam List<String> cells,
+            @RequestAttribute(JwtAuthenticationFilter.TOKEN_ATTRIBUTE) String token,
+            @RequestAttribute(JwtAuthenticationFilter.TOKEN_EXPIRATION_ATTRIBUTE) Instant expiration)
+    {
+        return broadcaster.subscribe(cells, token, expiration);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Void> invalidCells()
+    {
+        return ResponseEntity.badRequest().build();
+    }
+}
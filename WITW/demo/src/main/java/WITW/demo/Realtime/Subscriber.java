@@ -0,0 +1,86 @@
+package WITW.demo.Realtime;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import lombok.Getter;
+
+/**
+ * Una conexión SSE con su cola acotada de mensajes pendientes.
+ * Como mucho un hilo escribe en la conexión a la vez; el que publica nunca espera al cliente.
+ * {@link #drain()} bloquea mientras el cliente no lee, por eso se corre en un hilo virtual.
+ */
+final class Subscriber {
+
+    @Getter
+    private final SseEmitter emitter;
+    @Getter
+    private final List<String> cells;
+    // El token con que se abrió la conexión: se cierra si lo revocan.
+    @Getter
+    private final String token;
+    private final ArrayBlockingQueue<Set<DataWithMediaType>> queue;
+    private final AtomicBoolean draining=new AtomicBoolean();
+    private volatile boolean closed;
+
+    Subscriber(SseEmitter emitter, List<String> cells, String token, int queueCapacity) {
+        this.emitter=emitter;
+        this.cells=cells;
+        this.token=token;
+        this.queue=new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Encola el mensaje. Devuelve false si la cola está llena: el cliente no está leyendo.
+     */
+    boolean offer(Set<DataWithMediaType> frame) {
+        return !closed && queue.offer(frame);
+    }
+
+    /**
+     * Reserva el derecho a escribir; quien lo obtiene debe llamar a {@link #drain()}.
+     */
+    boolean startDraining() {
+        return !queue.isEmpty() && draining.compareAndSet(false, true);
+    }
+
+    /**
+     * Escribe lo encolado. Devuelve false si la conexión se cortó.
+     */
+    boolean drain() {
+        try
+        {
+            do
+            {
+                for (Set<DataWithMediaType> frame=queue.poll(); frame!=null && !closed; frame=queue.poll())
+                {
+                    emitter.send(frame);
+                }
+                draining.set(false);
+                // Un mensaje encolado justo después del último poll no puede quedar sin escribir.
+            }
+            while (!closed && !queue.isEmpty() && draining.compareAndSet(false, true));
+            return true;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            draining.set(false);
+            return false;
+        }
+    }
+
+    void close() {
+        closed=true;
+        queue.clear();
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+}
@@ -0,0 +1,404 @@
+package WITW.demo.Search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToDoubleFunction;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import WITW.demo.Event.Event;
+import WITW.demo.Event.EventChangedEvent;
+import WITW.demo.Event.EventRepository;
+import WITW.demo.Event.EventSpatialIndex;
+import WITW.demo.Event.IndexedEvent;
+import WITW.demo.Geo.BoundingBox;
+import WITW.demo.Geo.GeoDistance;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Índice invertido en memoria para buscar eventos por nombre, lugar y descripción. Cada término (ver TextAnalyzer)
+ * apunta a sus postings comprimidos y los resultados se ordenan por BM25, con el nombre pesando más que el lugar
+ * y el lugar más que la descripción. Un evento aparece si contiene todas las palabras de la consulta; la última,
+ * si no termina en espacio, vale también como prefijo (type-ahead) y se expande recorriendo el diccionario ordenado
+ * de términos, sin guardar un término por cada prefijo. Un prefijo abarca a lo sumo {@value #MAX_EXPANSIONS}
+ * términos, los de más docs: con prefijos cortos eso limita lo que se encuentra, y un evento que solo coincide por
+ * un término raro aparece recién cuando se escribe una letra más.
+ *
+ * Los docs son ids internos crecientes: un evento editado entra como doc nuevo y el anterior queda marcado como
+ * borrado hasta la próxima compactación, así los postings solo crecen al final. Las escrituras toman el lock de
+ * escritura y las búsquedas el de lectura.
+ */
+@Slf4j
+@Component
+public class EventSearchIndex {
+
+    static final int MIN_PREFIX=2;
+    // Términos que puede abarcar un prefijo: acota el costo de puntuar prefijos cortos como "co".
+    static final int MAX_EXPANSIONS=64;
+    static final int MAX_RESULTS=50;
+    static final double MAX_RADIUS_KM=50;
+    private static final double K1=1.2;
+    private static final double B=0.75;
+    private static final int NAME_WEIGHT=3;
+    private static final int PLACE_WEIGHT=2;
+    private static final int REBUILD_PAGE_SIZE=1000;
+    // Se compacta cuando los docs borrados pasan de esta fracción de los vivos.
+    private static final double COMPACT_RATIO=0.25;
+    private static final int COMPACT_MIN_DELETED=1000;
+
+    private final EventRepository eventRepository;
+    private final EventSpatialIndex spatialIndex;
+    private final ReentrantReadWriteLock lock=new ReentrantReadWriteLock();
+    private State state=new State();
+
+    public EventSearchIndex(EventRepository eventRepository, EventSpatialIndex spatialIndex, MeterRegistry meterRegistry) {
+        this.eventRepository=eventRepository;
+        this.spatialIndex=spatialIndex;
+        gauge(meterRegistry, "witw.search.documents", current -> current.docByEvent.size());
+        gauge(meterRegistry, "witw.search.terms", current -> current.terms.size());
+        gauge(meterRegistry, "witw.search.postings.bytes", current -> current.postingBytes);
+    }
+
+    private static final class State {
+        final TreeMap<String,PostingList> terms=new TreeMap<>();
+        final Map<Long,Integer> docByEvent=new HashMap<>();
+        final BitSet deleted=new BitSet();
+        long[] eventIds=new long[1024];
+        int[] lengths=new int[1024];
+        int docs;
+        int deletedDocs;
+        long totalLength;
+        long postingBytes;
+
+        void add(long eventId, String name, String place, String description) {
+            final Map<String,Integer> frequencies=new HashMap<>();
+            final int length=count(frequencies, name, NAME_WEIGHT)+count(frequencies, place, PLACE_WEIGHT)
+                +count(frequencies, description, 1);
+            if (frequencies.isEmpty())
+            {
+                return;
+            }
+            final int doc=docs++;
+            if (doc==eventIds.length)
+            {
+                eventIds=Arrays.copyOf(eventIds, doc*2);
+                lengths=Arrays.copyOf(lengths, doc*2);
+            }
+            eventIds[doc]=eventId;
+            lengths[doc]=length;
+            totalLength+=length;
+            docByEvent.put(eventId, doc);
+            frequencies.forEach((term, frequency) -> append(terms.computeIfAbsent(term, t -> new PostingList()), doc, frequency));
+        }
+
+        void remove(long eventId) {
+            final Integer doc=docByEvent.remove(eventId);
+            if (doc!=null)
+            {
+                deleted.set(doc);
+                deletedDocs++;
+                totalLength-=lengths[doc];
+            }
+        }
+
+        void append(PostingList postings, int doc, int frequency) {
+            final int before=postings.bytes();
+            postings.add(doc, frequency);
+            postingBytes+=postings.bytes()-before;
+        }
+
+        // Cantidad de términos del campo (la longitud para BM25); cada aparición suma weight a la frecuencia.
+        private static int count(Map<String,Integer> frequencies, String text, int weight) {
+            final List<String> terms=TextAnalyzer.terms(text);
+            for (String term : terms)
+            {
+                frequencies.merge(term, weight, Integer::sum);
+            }
+            return terms.size();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try
+        {
+            final State rebuilt=new State();
+            long after=0;
+            List<SearchableEvent> page;
+            do
+            {
+                page=eventRepository.findSearchable(after, PageRequest.of(0, REBUILD_PAGE_SIZE));
+                for (SearchableEvent event : page)
+                {
+                    rebuilt.add(event.getId(), event.getName(), event.getPlace(), event.getDescription());
+                    after=event.getId();
+                }
+            }
+            while (page.size()==REBUILD_PAGE_SIZE);
+            state=rebuilt;
+            log.info("Event search index rebuilt with {} events, {} terms and {} KiB of postings",
+                rebuilt.docByEvent.size(), rebuilt.terms.size(), rebuilt.postingBytes/1024);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventChanged(EventChangedEvent change) {
+        final Event event=change.getEvent();
+        lock.writeLock().lock();
+        try
+        {
+            state.remove(event.getId());
+            if (!change.isRemoved())
+            {
+                state.add(event.getId(), event.getName(), event.getPlace(), event.getDescription());
+            }
+            if (state.deletedDocs>=COMPACT_MIN_DELETED && state.deletedDocs>state.docByEvent.size()*COMPACT_RATIO)
+            {
+                compact();
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param latitude  con longitude y radiusKm, solo eventos a esa distancia; null para no filtrar
+     */
+    public List<SearchHit> search(String query, Double latitude, Double longitude, double radiusKm, int limit) {
+        if ((latitude==null)!=(longitude==null))
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "lat and lon must be given together");
+        }
+        if (latitude!=null && (radiusKm<=0 || radiusKm>MAX_RADIUS_KM))
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "radiusKm must be between 0 and "+MAX_RADIUS_KM);
+        }
+        final List<String> tokens=TextAnalyzer.tokens(query);
+        if (tokens.isEmpty())
+        {
+            return List.of();
+        }
+        // Mientras se escribe, la última palabra puede estar incompleta.
+        String prefix=null;
+        if (!Character.isWhitespace(query.charAt(query.length()-1)) && tokens.get(tokens.size()-1).length()>=MIN_PREFIX)
+        {
+            prefix=tokens.remove(tokens.size()-1);
+        }
+        final List<String> words=tokens.stream().filter(token -> !TextAnalyzer.isStopWord(token)).distinct().toList();
+        if (words.isEmpty() && prefix==null)
+        {
+            return List.of();
+        }
+        final BoundingBox area=latitude==null ? null : BoundingBox.around(latitude, longitude, radiusKm);
+        final int size=Math.max(1, Math.min(limit, MAX_RESULTS));
+
+        lock.readLock().lock();
+        try
+        {
+            final State current=state;
+            final List<List<PostingList>> clauses=new ArrayList<>();
+            for (String word : words)
+            {
+                final PostingList postings=current.terms.get(word);
+                if (postings==null)
+                {
+                    return List.of();
+                }
+                clauses.add(List.of(postings));
+            }
+            if (prefix!=null)
+            {
+                final List<PostingList> expansions=expand(current, prefix);
+                if (expansions.isEmpty())
+                {
+                    return List.of();
+                }
+                clauses.add(expansions);
+            }
+            // Primero la cláusula más rara: las siguientes solo puntúan los docs que ya coincidieron.
+            clauses.sort(Comparator.comparingInt(clause -> clause.stream().mapToInt(PostingList::count).sum()));
+
+            final Map<Integer,Double> scores=score(current, clauses);
+            final PriorityQueue<SearchHit> top=new PriorityQueue<>(Comparator.comparingDouble(SearchHit::getScore));
+            for (Map.Entry<Integer,Double> entry : scores.entrySet())
+            {
+                final IndexedEvent event=spatialIndex.get(current.eventIds[entry.getKey()]);
+                if (event==null)
+                {
+                    continue;
+                }
+                Double distance=null;
+                if (area!=null)
+                {
+                    if (!area.contains(event.getLatitude(), event.getLongitude()))
+                    {
+                        continue;
+                    }
+                    distance=GeoDistance.kilometers(latitude, longitude, event.getLatitude(), event.getLongitude());
+                    if (distance>radiusKm)
+                    {
+                        continue;
+                    }
+                }
+                top.add(SearchHit.builder()
+                    .eventId(event.getId())
+                    .name(event.getName())
+                    .startsAt(event.getStartsAt())
+                    .latitude(event.getLatitude())
+                    .longitude(event.getLongitude())
+                    .score(entry.getValue())
+                    .distanceKm(distance)
+                    .build());
+                if (top.size()>size)
+                {
+                    top.poll();
+                }
+            }
+            final List<SearchHit> hits=new ArrayList<>(top);
+            hits.sort(Comparator.comparingDouble(SearchHit::getScore).reversed().thenComparing(SearchHit::getEventId));
+            return hits;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    // BM25 de los docs que coinciden con todas las cláusulas. De un prefijo cuenta la expansión que mejor puntúa.
+    // Los MAX_EXPANSIONS términos del prefijo con más docs: si sobran, se descartan los raros y no los que
+    // vienen después en orden alfabético.
+    private static List<PostingList> expand(State current, String prefix) {
+        final PriorityQueue<PostingList> top=new PriorityQueue<>(Comparator.comparingInt(PostingList::count));
+        for (PostingList postings : current.terms.subMap(prefix, true, prefix+Character.MAX_VALUE, false).values())
+        {
+            top.add(postings);
+            if (top.size()>MAX_EXPANSIONS)
+            {
+                top.poll();
+            }
+        }
+        return new ArrayList<>(top);
+    }
+
+    private static Map<Integer,Double> score(State current, List<List<PostingList>> clauses) {
+        final int live=current.docByEvent.size();
+        final double averageLength=Math.max(1.0, (double) current.totalLength/Math.max(1, live));
+        Map<Integer,Double> scores=null;
+        for (List<PostingList> clause : clauses)
+        {
+            final Map<Integer,Double> matched=new HashMap<>();
+            for (PostingList postings : clause)
+            {
+                final double idf=Math.log(1+Math.max(0, live-postings.count()+0.5)/(postings.count()+0.5));
+                final PostingList.Cursor cursor=postings.cursor();
+                while (cursor.next())
+                {
+                    final int doc=cursor.doc();
+                    if (current.deleted.get(doc) || scores!=null && !scores.containsKey(doc))
+                    {
+                        continue;
+                    }
+                    final double frequency=cursor.frequency();
+                    final double norm=K1*(1-B+B*current.lengths[doc]/averageLength);
+                    matched.merge(doc, idf*frequency*(K1+1)/(frequency+norm), Math::max);
+                }
+            }
+            if (scores!=null)
+            {
+                final Map<Integer,Double> previous=scores;
+                matched.replaceAll((doc, score) -> score+previous.get(doc));
+            }
+            scores=matched;
+            if (scores.isEmpty())
+            {
+                break;
+            }
+        }
+        return scores;
+    }
+
+    // Reescribe los postings sin los docs borrados, renumerando los vivos en el mismo orden.
+    private void compact() {
+        final long started=System.nanoTime();
+        final State old=state;
+        final State compacted=new State();
+        final int[] remap=new int[old.docs];
+        for (int doc=0; doc<old.docs; doc++)
+        {
+            if (old.deleted.get(doc))
+            {
+                remap[doc]=-1;
+                continue;
+            }
+            final int target=compacted.docs++;
+            if (target==compacted.eventIds.length)
+            {
+                compacted.eventIds=Arrays.copyOf(compacted.eventIds, target*2);
+                compacted.lengths=Arrays.copyOf(compacted.lengths, target*2);
+            }
+            compacted.eventIds[target]=old.eventIds[doc];
+            compacted.lengths[target]=old.lengths[doc];
+            compacted.docByEvent.put(old.eventIds[doc], target);
+            remap[doc]=target;
+        }
+        compacted.totalLength=old.totalLength;
+        old.terms.forEach((term, postings) -> {
+            final PostingList rewritten=new PostingList();
+            final PostingList.Cursor cursor=postings.cursor();
+            while (cursor.next())
+            {
+                if (remap[cursor.doc()]>=0)
+                {
+                    compacted.append(rewritten, remap[cursor.doc()], cursor.frequency());
+                }
+            }
+            if (rewritten.count()>0)
+            {
+                compacted.terms.put(term, rewritten);
+            }
+        });
+        state=compacted;
+        log.info("Event search index compacted: dropped {} deleted docs in {} ms", old.deletedDocs,
+            (System.nanoTime()-started)/1_000_000);
+    }
+
+    private void gauge(MeterRegistry meterRegistry, String name, ToDoubleFunction<State> value) {
+        Gauge.builder(name, this, index -> index.read(value)).register(meterRegistry);
+    }
+
+    private double read(ToDoubleFunction<State> value) {
+        lock.readLock().lock();
+        try
+        {
+            return value.applyAsDouble(state);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package WITW.demo.Search;
+
+import java.util.Arrays;
+
+/**
+ * Postings de un término: pares (doc, frecuencia) en orden de doc creciente, guardados como la diferencia con el
+ * doc anterior y la frecuencia, ambos en varint (un byte por valor menor a 128). Un posting típico ocupa dos bytes
+ * en lugar de los ocho de dos int. Solo se agrega al final: el índice asigna los docs en orden creciente.
+ */
+final class PostingList {
+
+    private byte[] data=new byte[4];
+    private int size;
+    private int count;
+    private int last=-1;
+
+    void add(int doc, int frequency) {
+        if (size+10>data.length)
+        {
+            data=Arrays.copyOf(data, Math.max(data.length*2, size+10));
+        }
+        size=writeVarint(doc-last, size);
+        size=writeVarint(frequency, size);
+        last=doc;
+        count++;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int bytes() {
+        return data.length;
+    }
+
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    // Recorre los postings en orden; next() avanza y devuelve false al terminar.
+    final class Cursor {
+        private int position;
+        private int doc=-1;
+        private int frequency;
+
+        boolean next() {
+            if (position>=size)
+            {
+                return false;
+            }
+            doc+=readVarint();
+            frequency=readVarint();
+            return true;
+        }
+
+        int doc() {
+            return doc;
+        }
+
+        int frequency() {
+            return frequency;
+        }
+
+        private int readVarint() {
+            int value=0;
+            int shift=0;
+            byte b;
+            do
+            {
+                b=data[position++];
+                value|=(b&0x7f)<<shift;
+                shift+=7;
+            }
+            while (b<0);
+            return value;
+        }
+    }
+
+    private int writeVarint(int value, int at) {
+        while ((value&~0x7f)!=0)
+        {
+            data[at++]=(byte) ((value&0x7f)|0x80);
+            value>>>=7;
+        }
+        data[at++]=(byte) value;
+        return at;
+    }
+}
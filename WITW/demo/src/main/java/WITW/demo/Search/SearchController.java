@@ -0,0 +1,40 @@
+package WITW.demo.Search;
+
+import java.util.List;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import WITW.demo.Sync.ChangeVersions;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/events")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final EventSearchIndex searchIndex;
+    private final ChangeVersions versions;
+
+    @GetMapping(value = "search")
+    public ResponseEntity<List<SearchHit>> search(
+        @RequestParam String q,
+        @RequestParam(required = false) Double lat, @RequestParam(required = false) Double lon,
+        @RequestParam(defaultValue = "10") double radiusKm,
+        @RequestParam(defaultValue = "20") int limit, WebRequest request)
+    {
+        // El índice sigue a los mismos cambios que la versión de todos los eventos.
+        if (request.checkNotModified(versions.allEventsTag()))
+        {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate())
+            .body(searchIndex.search(q, lat, lon, radiusKm, limit));
+    }
+}
@@ -0,0 +1,24 @@
+package WITW.demo.Search;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHit {
+    Long eventId;
+    String name;
+    LocalDateTime startsAt;
+    double latitude;
+    double longitude;
+    // Relevancia BM25: solo sirve para comparar resultados de la misma consulta.
+    double score;
+    // Solo con filtro geográfico.
+    Double distanceKm;
+}
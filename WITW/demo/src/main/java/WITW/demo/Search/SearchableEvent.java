@@ -0,0 +1,12 @@
+package WITW.demo.Search;
+
+import lombok.Value;
+
+// Las columnas que indexa EventSearchIndex, leídas sin cargar la entidad al reconstruir el índice.
+@Value
+public class SearchableEvent {
+    Long id;
+    String name;
+    String place;
+    String description;
+}
@@ -0,0 +1,53 @@
+package WITW.demo.Search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Análisis de texto del índice de búsqueda: minúsculas, sin tildes ni diéresis (se descompone en NFD y se quitan
+ * las marcas, así "música" y "musica" son el mismo término y la ñ queda como n) y cortado en palabras de letras
+ * y dígitos. Se aplica igual a los eventos y a las consultas.
+ */
+final class TextAnalyzer {
+
+    static final int MAX_TERM_LENGTH=32;
+    private static final Pattern MARKS=Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS=Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOP_WORDS=Set.of("a", "al", "con", "de", "del", "el", "en", "la", "las", "lo",
+        "los", "o", "para", "por", "que", "se", "su", "un", "una", "y");
+
+    private TextAnalyzer() {
+    }
+
+    // Todas las palabras, incluidas las vacías (la última de una consulta puede ser el prefijo de otra).
+    static List<String> tokens(String text) {
+        final List<String> tokens=new ArrayList<>();
+        if (text==null)
+        {
+            return tokens;
+        }
+        final String folded=MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        for (String token : SEPARATORS.split(folded))
+        {
+            if (!token.isEmpty())
+            {
+                tokens.add(token.length()>MAX_TERM_LENGTH ? token.substring(0, MAX_TERM_LENGTH) : token);
+            }
+        }
+        return tokens;
+    }
+
+    static List<String> terms(String text) {
+        final List<String> terms=tokens(text);
+        terms.removeIf(TextAnalyzer::isStopWord);
+        return terms;
+    }
+
+    static boolean isStopWord(String token) {
+        return STOP_WORDS.contains(token);
+    }
+}
@@ -0,0 +1,43 @@
+package WITW.demo.Sync;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name="change_log", indexes = {
+    @Index(name="idx_change_log_changed_at", columnList="changedAt"),
+    @Index(name="idx_change_log_event_seq", columnList="eventId, seq")
+})
+public class ChangeLog {
+    // Número de secuencia, asignado al confirmar la transacción que produjo el cambio (ver ChangeLogRecorder).
+    @Id
+    @GeneratedValue
+    Long seq;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    ChangeType type;
+    @Column(nullable = false)
+    Long eventId;
+    Integer userId;
+    // Id del comentario para COMMENT_CREATED.
+    @Column(length = 36)
+    String entityKey;
+    @Column(nullable = false)
+    LocalDateTime changedAt;
+}
@@ -0,0 +1,206 @@
+package WITW.demo.Sync;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import WITW.demo.Comment.CommentChangedEvent;
+import WITW.demo.Event.AttendanceChangedEvent;
+import WITW.demo.Event.EventChangedEvent;
+import WITW.demo.Rating.RatingChangedEvent;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registra en change_log los cambios de eventos, asistencias, comentarios y valoraciones, dentro de la misma
+ * transacción que los produce: si esa transacción se confirma, su entrada también, y si se cae el proceso no
+ * queda un cambio sin registrar.
+ *
+ * Los seq se asignan al confirmar y dos transacciones pueden confirmarse en otro orden que el de sus seq, así que
+ * un seq visible no implica que los anteriores lo sean. {@link #visibleSeq()} da el mayor seq hasta el que ya no
+ * queda ninguno pendiente y la sincronización no lee más allá: un cliente que sincronizó hasta N nunca se salta un
+ * cambio que se confirme más tarde con un seq menor. Los pendientes se conocen solo en este nodo: con varios nodos
+ * escribiendo (cada uno con su rango del generador de seq) la garantía no vale entre nodos.
+ */
+@Slf4j
+@Component
+public class ChangeLogRecorder {
+
+    private final ChangeLogRepository changeLogRepository;
+    private final ChangeVersions versions;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaction;
+    // Seq asignados cuya transacción todavía no termina, y el último asignado (-1 hasta leerlo de la base).
+    private final ReentrantLock seqLock=new ReentrantLock();
+    private final NavigableSet<Long> pending=new TreeSet<>();
+    private long lastAssigned=-1;
+
+    @Value("${witw.sync.retention:P30D}")
+    private Duration retention;
+
+    public ChangeLogRecorder(ChangeLogRepository changeLogRepository, ChangeVersions versions,
+        EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.changeLogRepository=changeLogRepository;
+        this.versions=versions;
+        this.entityManager=entityManager;
+        this.transaction=new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener
+    public void onEventChanged(EventChangedEvent change) {
+        record(change.isRemoved() ? ChangeType.EVENT_DELETED : ChangeType.EVENT_UPSERTED, change.getEvent().getId(), null, null);
+    }
+
+    @EventListener
+    public void onAttendanceChanged(AttendanceChangedEvent change) {
+        record(change.isAttending() ? ChangeType.ATTENDANCE_JOINED : ChangeType.ATTENDANCE_LEFT, change.getEventId(), change.getUserId(), null);
+    }
+
+    @EventListener
+    public void onCommentChanged(CommentChangedEvent change) {
+        record(ChangeType.COMMENT_CREATED, change.getComment().getEventId(), change.getComment().getUserId(),
+            change.getComment().getId().toString());
+    }
+
+    @EventListener
+    public void onRatingChanged(RatingChangedEvent change) {
+        record(ChangeType.RATING_CHANGED, change.getEventId(), change.getUserId(), null);
+    }
+
+    private void record(ChangeType type, Long eventId, Integer userId, String entityKey) {
+        final ChangeLog change=ChangeLog.builder()
+            .type(type)
+            .eventId(eventId)
+            .userId(userId)
+            .entityKey(entityKey)
+            .changedAt(LocalDateTime.now())
+            .build();
+        if (!TransactionSynchronizationManager.isActualTransactionActive())
+        {
+            transaction.executeWithoutResult(tx -> pendingChanges().add(change));
+            return;
+        }
+        pendingChanges().add(change);
+    }
+
+    /**
+     * Las entradas de la transacción actual. Los listeners de entidades publican durante el flush, que puede
+     * ocurrir ya en el commit, así que se escriben en el beforeTransactionCompletion de Hibernate, que corre
+     * después de ese último flush y antes del commit de la base (como hace Envers con sus tablas de auditoría).
+     */
+    private List<ChangeLog> pendingChanges() {
+        final EventSource session=entityManager.unwrap(EventSource.class);
+        Batch batch=(Batch) TransactionSynchronizationManager.getResource(session);
+        if (batch==null)
+        {
+            batch=new Batch(session);
+            TransactionSynchronizationManager.bindResource(session, batch);
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) batch);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) batch);
+        }
+        return batch.changes;
+    }
+
+    /**
+     * El mayor seq tal que ninguna entrada con un seq menor o igual sigue sin confirmar en este nodo.
+     */
+    public long visibleSeq() {
+        seqLock.lock();
+        try
+        {
+            if (!pending.isEmpty())
+            {
+                return pending.first()-1;
+            }
+            if (lastAssigned<0)
+            {
+                // Al arrancar todo lo que hay en la tabla ya está confirmado.
+                lastAssigned=changeLogRepository.findLastSeq();
+            }
+            return lastAssigned;
+        }
+        finally
+        {
+            seqLock.unlock();
+        }
+    }
+
+    private final class Batch implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+        private final Object key;
+        private final List<ChangeLog> changes=new ArrayList<>();
+        private final List<Long> assigned=new ArrayList<>();
+
+        Batch(Object key) {
+            this.key=key;
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            // El seq se asigna en persist: asignarlo y marcarlo pendiente juntos evita que alguien vea un seq
+            // posterior sin que el anterior figure como pendiente.
+            seqLock.lock();
+            try
+            {
+                for (ChangeLog change : changes)
+                {
+                    session.persist(change);
+                    assigned.add(change.getSeq());
+                    pending.add(change.getSeq());
+                    lastAssigned=Math.max(lastAssigned, change.getSeq());
+                }
+            }
+            finally
+            {
+                seqLock.unlock();
+            }
+            session.flush();
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(key);
+            seqLock.lock();
+            try
+            {
+                pending.removeAll(assigned);
+            }
+            finally
+            {
+                seqLock.unlock();
+            }
+            if (success && !assigned.isEmpty())
+            {
+                versions.recorded(changes);
+            }
+        }
+    }
+
+    @Scheduled(cron = "${witw.sync.prune-cron:0 0 4 * * *}")
+    public void prune() {
+        // La última entrada se conserva siempre: con el log vacío no se podría distinguir un token viejo de uno al día.
+        final int removed=transaction.execute(tx -> changeLogRepository.deleteOlderThan(
+            LocalDateTime.now().minus(retention), changeLogRepository.findLastSeq()));
+        log.info("Pruned {} change log entries older than {}", removed, retention);
+    }
+}
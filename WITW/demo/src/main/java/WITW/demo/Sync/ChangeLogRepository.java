@@ -0,0 +1,30 @@
+package WITW.demo.Sync;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ChangeLogRepository extends JpaRepository<ChangeLog,Long> {
+
+    List<ChangeLog> findBySeqGreaterThanOrderBySeq(long seq, Pageable pageable);
+
+    List<ChangeLog> findBySeqGreaterThanAndSeqLessThanEqualOrderBySeq(long seq, long maxSeq, Pageable pageable);
+
+    @Query("select coalesce(max(c.seq), 0) from ChangeLog c")
+    long findLastSeq();
+
+    @Query("select max(c.seq) from ChangeLog c where c.eventId=:eventId")
+    Long findLastSeqByEventId(@Param("eventId") long eventId);
+
+    @Query("select coalesce(min(c.seq), 0) from ChangeLog c")
+    long findFirstSeq();
+
+    @Modifying
+    @Query("delete from ChangeLog c where c.changedAt<:before and c.seq<:keepFrom")
+    int deleteOlderThan(@Param("before") LocalDateTime before, @Param("keepFrom") long keepFrom);
+}
@@ -0,0 +1,11 @@
+package WITW.demo.Sync;
+
+public enum ChangeType {
+    EVENT_UPSERTED,
+    EVENT_DELETED,
+    ATTENDANCE_JOINED,
+    ATTENDANCE_LEFT,
+    COMMENT_CREATED,
+    // Cambia el agregado de valoraciones: mueve las versiones de ETag, SyncService no lo entrega.
+    RATING_CHANGED
+}
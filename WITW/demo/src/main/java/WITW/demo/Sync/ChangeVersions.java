@@ -0,0 +1,73 @@
+package WITW.demo.Sync;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Versiones de los datos que sirven los GET de eventos, para usarlas como ETag: el último seq de change_log,
+ * de todos los eventos o de uno solo. Cualquier cambio registrado (evento, asistencia o comentario) las hace
+ * crecer, así que una respuesta armada con una versión sigue vigente mientras la versión no cambie y un 304
+ * solo cuesta esta consulta.
+ *
+ * Se cachean por witw.etag.version-ttl; los cambios que escribe este nodo las actualizan en el momento, los de
+ * otros nodos se ven al vencer la entrada.
+ */
+@Component
+public class ChangeVersions {
+
+    private static final long ALL_EVENTS=-1;
+
+    private final ChangeLogRepository changeLogRepository;
+    private final Cache<Long,Long> versions;
+
+    public ChangeVersions(ChangeLogRepository changeLogRepository,
+        @Value("${witw.etag.version-ttl:PT1S}") Duration ttl,
+        @Value("${witw.etag.max-events:100000}") long maxEvents) {
+        this.changeLogRepository=changeLogRepository;
+        this.versions=Caffeine.newBuilder()
+            .expireAfterWrite(ttl)
+            .maximumSize(maxEvents)
+            .build();
+    }
+
+    public String allEventsTag() {
+        return "W/\"events-"+version(ALL_EVENTS)+"\"";
+    }
+
+    public String eventTag(long eventId) {
+        return "W/\"event-"+eventId+"-"+version(eventId)+"\"";
+    }
+
+    long version(long key) {
+        final Long cached=versions.getIfPresent(key);
+        if (cached!=null)
+        {
+            return cached;
+        }
+        // La consulta va fuera del cache: Caffeine la correría bajo un lock y fijaría el hilo virtual durante el IO.
+        final long loaded=key==ALL_EVENTS ? changeLogRepository.findLastSeq() : loadEvent(key);
+        return versions.asMap().merge(key, loaded, Math::max);
+    }
+
+    private long loadEvent(long eventId) {
+        final Long last=changeLogRepository.findLastSeqByEventId(eventId);
+        // Sin entradas (nunca cambió o ya se podaron) vale lo mismo para todos: el seq previo a la primera entrada
+        // que queda. No baja al podar, así un ETag viejo no vuelve a coincidir después de una poda.
+        return last!=null ? last : Math.max(changeLogRepository.findFirstSeq()-1, 0);
+    }
+
+    // Llamado por el escritor de change_log con las entradas ya insertadas.
+    void recorded(List<ChangeLog> changes) {
+        for (ChangeLog change : changes)
+        {
+            versions.asMap().computeIfPresent(change.getEventId(), (key, version) -> Math.max(version, change.getSeq()));
+            versions.asMap().computeIfPresent(ALL_EVENTS, (key, version) -> Math.max(version, change.getSeq()));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package WITW.demo.Sync;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import WITW.demo.User.User;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/v1/sync")
+@RequiredArgsConstructor
+public class SyncController {
+
+    private final SyncService syncService;
+
+    @GetMapping
+    public ResponseEntity<SyncResponse> sync(
+        @RequestParam(required = false) Long since,
+        @RequestParam(defaultValue = "500") int limit,
+        @AuthenticationPrincipal User user)
+    {
+        return ResponseEntity.ok(syncService.sync(since, limit, user));
+    }
+}
@@ -0,0 +1,29 @@
+package WITW.demo.Sync;
+
+import java.util.List;
+
+import WITW.demo.Comment.CommentResponse;
+import WITW.demo.Event.EventResponse;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncResponse {
+    // Token para la próxima sincronización.
+    long token;
+    // El token es demasiado antiguo (o no se envió): el cliente debe descartar su copia y cargar todo de nuevo.
+    boolean reset;
+    // Hay más cambios: volver a sincronizar de inmediato con el nuevo token.
+    boolean hasMore;
+    List<EventResponse> events;
+    List<Long> deletedEventIds;
+    List<Long> joinedEventIds;
+    List<Long> leftEventIds;
+    List<CommentResponse> comments;
+}
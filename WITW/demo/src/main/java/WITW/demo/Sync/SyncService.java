@@ -0,0 +1,111 @@
+package WITW.demo.Sync;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import WITW.demo.Comment.CommentRepository;
+import WITW.demo.Comment.CommentResponse;
+import WITW.demo.Event.EventRepository;
+import WITW.demo.Event.EventResponse;
+import WITW.demo.User.User;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Sincronización incremental: devuelve solo lo que cambió después del token del cliente,
+ * con el estado actual de cada evento modificado (varios cambios del mismo evento se envían una vez).
+ */
+@Service
+@RequiredArgsConstructor
+public class SyncService {
+
+    static final int MAX_CHANGES=1000;
+
+    private final ChangeLogRepository changeLogRepository;
+    private final EventRepository eventRepository;
+    private final CommentRepository commentRepository;
+    private final ChangeLogRecorder changeLogRecorder;
+
+    @Transactional(readOnly = true)
+    public SyncResponse sync(Long since, int limit, User user) {
+        if (since==null || since<0)
+        {
+            return reset();
+        }
+        // Si ya se podaron cambios posteriores al token, el cliente no puede ponerse al día con deltas.
+        final long firstSeq=changeLogRepository.findFirstSeq();
+        if (firstSeq>since+1)
+        {
+            return reset();
+        }
+
+        final int pageSize=Math.max(1, Math.min(limit, MAX_CHANGES));
+        // Solo hasta donde no quedan seq menores sin confirmar: el token devuelto nunca salta un cambio pendiente.
+        final List<ChangeLog> changes=changeLogRepository.findBySeqGreaterThanAndSeqLessThanEqualOrderBySeq(since,
+            changeLogRecorder.visibleSeq(), PageRequest.of(0, pageSize+1));
+        final boolean hasMore=changes.size()>pageSize;
+        final List<ChangeLog> page=hasMore ? changes.subList(0, pageSize) : changes;
+
+        final Set<Long> updatedEvents=new LinkedHashSet<>();
+        final Set<Long> deletedEvents=new LinkedHashSet<>();
+        final Map<Long,Boolean> attendance=new LinkedHashMap<>();
+        final List<UUID> comments=new ArrayList<>();
+
+        for (ChangeLog change : page)
+        {
+            switch (change.getType())
+            {
+                case EVENT_UPSERTED -> updatedEvents.add(change.getEventId());
+                case EVENT_DELETED -> deletedEvents.add(change.getEventId());
+                case ATTENDANCE_JOINED, ATTENDANCE_LEFT -> {
+                    // Cualquier inscripción cambia los cupos del evento; la del propio usuario además su estado.
+                    updatedEvents.add(change.getEventId());
+                    if (user.getId().equals(change.getUserId()))
+                    {
+                        attendance.put(change.getEventId(), change.getType()==ChangeType.ATTENDANCE_JOINED);
+                    }
+                }
+                case COMMENT_CREATED -> comments.add(UUID.fromString(change.getEntityKey()));
+                // Las valoraciones no viajan en la sincronización: la entrada solo mueve las versiones de ETag.
+                case RATING_CHANGED -> { }
+            }
+        }
+        updatedEvents.removeAll(deletedEvents);
+        attendance.keySet().removeAll(deletedEvents);
+
+        return SyncResponse.builder()
+            .token(page.isEmpty() ? since : page.get(page.size()-1).getSeq())
+            .hasMore(hasMore)
+            .events(eventRepository.findAllById(updatedEvents).stream().map(EventResponse::from).toList())
+            .deletedEventIds(List.copyOf(deletedEvents))
+            .joinedEventIds(attendance.entrySet().stream().filter(Map.Entry::getValue).map(Map.Entry::getKey).toList())
+            .leftEventIds(attendance.entrySet().stream().filter(entry -> !entry.getValue()).map(Map.Entry::getKey).toList())
+            .comments(commentRepository.findAllById(comments).stream()
+                .filter(comment -> !deletedEvents.contains(comment.getEventId()))
+                .map(CommentResponse::from)
+                .toList())
+            .build();
+    }
+
+    // El cliente recarga todo con los endpoints habituales y guarda este token para los deltas siguientes.
+    private SyncResponse reset() {
+        return SyncResponse.builder()
+            .token(Math.min(changeLogRepository.findLastSeq(), changeLogRecorder.visibleSeq()))
+            .reset(true)
+            .events(List.of())
+            .deletedEventIds(List.of())
+            .joinedEventIds(List.of())
+            .leftEventIds(List.of())
+            .comments(List.of())
+            .build();
+    }
+}
@@ -0,0 +1,83 @@
+package WITW.demo.User;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Decorador de {@link UserDetailsService} con una caché acotada en tamaño y en tiempo (W-TinyLFU de Caffeine).
+ * Las cargas concurrentes de un mismo username se agrupan en una sola consulta y las entradas se invalidan
+ * cuando un {@link User} se guarda, se modifica o se elimina.
+ */
+public class CachedUserDetailsService implements UserDetailsService {
+
+    private final UserDetailsService delegate;
+    private final AsyncCache<String,UserDetails> users;
+
+    public CachedUserDetailsService(UserDetailsService delegate, long maximumSize, Duration timeToLive) {
+        this.delegate=delegate;
+        this.users=Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(timeToLive)
+            .recordStats()
+            .buildAsync();
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        // Una ráfaga de requests del mismo usuario dispara una sola carga: el primero registra un future y
+        // hace la consulta en su propio hilo, el resto espera ese future. La consulta no corre dentro del
+        // compute del mapa (un monitor que fijaría un hilo virtual a su carrier durante el I/O de JDBC).
+        final CompletableFuture<UserDetails> pending=new CompletableFuture<>();
+        final CompletableFuture<UserDetails> user=users.get(username, (key, executor) -> pending);
+
+        if (user==pending)
+        {
+            try
+            {
+                pending.complete(delegate.loadUserByUsername(username));
+            }
+            catch (RuntimeException e)
+            {
+                // Caffeine descarta los futures fallidos: los usuarios inexistentes no se cachean.
+                pending.completeExceptionally(e);
+            }
+        }
+
+        try
+        {
+            return user.join();
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof RuntimeException cause)
+            {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Después del commit, para que una carga concurrente no vuelva a cachear el estado anterior.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.getUsername());
+    }
+
+    public void invalidate(String username) {
+        users.synchronous().invalidate(username);
+    }
+
+    public CacheStats stats() {
+        return users.synchronous().stats();
+    }
+}
@@ -2,6 +2,7 @@ package WITW.demo.User;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -10,22 +11,34 @@ import org.springframework.security.core.userdetails.UserDetails;
 import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.persistence.UniqueConstraint;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@EntityListeners(UserEntityListener.class)
 @Table(name="user", uniqueConstraints = {@UniqueConstraint(columnNames = {"username"})})
 public class User implements UserDetails {
     @Id
@@ -41,6 +54,37 @@ public class User implements UserDetails {
     String password;
     @Enumerated(EnumType.STRING) 
     Role role;
+    // Se incrementa cada vez que cambian las credenciales o el rol: invalida los tokens emitidos antes.
+    int tokenVersion;
+    // Contraseña y rol tal como se leyeron o guardaron por última vez, para detectar el cambio en @PreUpdate.
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    String persistedPassword;
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    Role persistedRole;
+
+    @PreUpdate
+    void bumpTokenVersion() {
+        if (!Objects.equals(password, persistedPassword) || role!=persistedRole)
+        {
+            tokenVersion++;
+        }
+    }
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void rememberCredentials() {
+        persistedPassword=password;
+        persistedRole=role;
+    }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
@@ -0,0 +1,11 @@
+package WITW.demo.User;
+
+import lombok.Value;
+
+@Value
+public class UserChangedEvent {
+    Integer userId;
+    String username;
+    int tokenVersion;
+    boolean removed;
+}
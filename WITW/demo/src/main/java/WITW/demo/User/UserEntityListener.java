@@ -0,0 +1,26 @@
+package WITW.demo.User;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+
+// Hibernate lo instancia a través del contenedor de beans de Spring, por eso puede recibir dependencias.
+@RequiredArgsConstructor
+public class UserEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onUserSaved(User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getUsername(), user.getTokenVersion(), false));
+    }
+
+    @PostRemove
+    public void onUserRemoved(User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getUsername(), user.getTokenVersion(), true));
+    }
+}
@@ -3,7 +3,18 @@ package WITW.demo.User;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface UserRepository extends JpaRepository<User,Integer> {
     Optional<User> findByUsername(String username); 
+
+    // Otro hash de la misma contraseña no es un cambio de credenciales: la sentencia no pasa por @PreUpdate y los
+    // tokens emitidos siguen valiendo.
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.password=:password where u.username=:username")
+    int rehashPassword(@Param("username") String username, @Param("password") String password);
 }
\ No newline at end of file
@@ -11,6 +11,8 @@ export class MapManager {
     constructor() {
         this.map = null;
         this.mapInitialized = false;
+        this.clusterLayer = null;
+        this.pendingRequest = null;
     }
 
     /**
@@ -19,7 +21,7 @@ export class MapManager {
      * Si el mapa ya fue inicializado previamente, se ajusta su tamaño para corregir
      * problemas de renderizado (común cuando el contenedor estaba oculto con display: none).
      * Si es la primera vez, crea la instancia de Leaflet, configura la vista centrada en Chile
-     * y añade los marcadores por defecto.
+     * y carga los clusters de eventos de la vista actual, que se recargan al mover el mapa.
      *
      * @returns {void}
      */
@@ -39,12 +41,81 @@ export class MapManager {
             attribution: '&copy; OpenStreetMap contributors'
         }).addTo(this.map);
 
-        L.marker(chileCenter).addTo(this.map)
-            .bindPopup('<b>Santiago de Chile</b><br>Evento central.')
-            .openPopup();
+        this.clusterLayer = L.layerGroup().addTo(this.map);
+        this.map.on('moveend', () => this.loadClusters());
 
         this.mapInitialized = true;
 
         setTimeout(() => this.map.invalidateSize(), 100);
+        this.loadClusters();
     }
-}
\ No newline at end of file
+
+    /**
+     * Pide al backend los clusters de la vista y el zoom actuales y reemplaza los marcadores.
+     * El servidor agrupa los eventos por tile, así que la cantidad de marcadores depende del
+     * tamaño de la vista y no del total de eventos. Una petición en curso se cancela si el
+     * usuario vuelve a mover el mapa.
+     *
+     * @returns {Promise<void>}
+     */
+    async loadClusters() {
+        if (!this.map || typeof fetch !== 'function') return;
+
+        if (this.pendingRequest) this.pendingRequest.abort();
+        const request = new AbortController();
+        this.pendingRequest = request;
+
+        const bounds = this.map.getBounds();
+        const params = new URLSearchParams({
+            minLat: bounds.getSouth(),
+            minLon: bounds.getWest(),
+            maxLat: bounds.getNorth(),
+            maxLon: bounds.getEast(),
+            zoom: this.map.getZoom()
+        });
+        const token = localStorage.getItem('token');
+
+        try {
+            const response = await fetch(`/api/v1/map/clusters?${params}`, {
+                headers: token ? { Authorization: `Bearer ${token}` } : {},
+                signal: request.signal
+            });
+            if (!response.ok) return;
+            this.renderClusters(await response.json());
+        } catch (error) {
+            if (error.name !== 'AbortError') console.error('No se pudieron cargar los eventos del mapa', error);
+        } finally {
+            if (this.pendingRequest === request) this.pendingRequest = null;
+        }
+    }
+
+    /**
+     * Dibuja un marcador por cluster: los eventos individuales muestran su nombre y los grupos
+     * muestran la cantidad y el próximo evento.
+     *
+     * @param {Array<{latitude: number, longitude: number, count: number, topEvent: {name: string}}>} clusters
+     * @returns {void}
+     */
+    renderClusters(clusters) {
+        this.clusterLayer.clearLayers();
+
+        clusters.forEach(cluster => {
+            const position = [cluster.latitude, cluster.longitude];
+            if (cluster.count === 1) {
+                L.marker(position).bindPopup(`<b>${escapeHtml(cluster.topEvent.name)}</b>`).addTo(this.clusterLayer);
+                return;
+            }
+            L.marker(position, {
+                icon: L.divIcon({ className: 'event-cluster', html: `<span>${cluster.count}</span>` })
+            })
+                .bindPopup(`<b>${cluster.count} eventos</b><br>Próximo: ${escapeHtml(cluster.topEvent.name)}`)
+                .addTo(this.clusterLayer);
+        });
+    }
+}
+
+function escapeHtml(text) {
+    const element = document.createElement('span');
+    element.textContent = text;
+    return element.innerHTML;
+}
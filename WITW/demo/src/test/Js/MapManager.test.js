@@ -11,7 +11,22 @@ import { MapManager } from '../../main/resources/static/js/MapManager.js';
 const mockMapInstance = {
     setView: jest.fn().mockReturnThis(),
     invalidateSize: jest.fn(),
-    on: jest.fn()
+    on: jest.fn(),
+    getZoom: jest.fn(() => 5),
+    getBounds: jest.fn(() => ({
+        getSouth: () => -56,
+        getWest: () => -76,
+        getNorth: () => -17,
+        getEast: () => -66
+    }))
+};
+
+/**
+ * Mock para simular la capa que agrupa los marcadores de clusters.
+ */
+const mockLayerGroupInstance = {
+    addTo: jest.fn().mockReturnThis(),
+    clearLayers: jest.fn()
 };
 
 /**
@@ -38,7 +53,9 @@ const mockTileLayerInstance = {
 global.L = {
     map: jest.fn(() => mockMapInstance),
     tileLayer: jest.fn(() => mockTileLayerInstance),
-    marker: jest.fn(() => mockMarkerInstance)
+    marker: jest.fn(() => mockMarkerInstance),
+    layerGroup: jest.fn(() => mockLayerGroupInstance),
+    divIcon: jest.fn(options => options)
 };
 
 /**
@@ -58,6 +75,7 @@ describe('Clase MapManager', () => {
     beforeEach(() => {
         document.body.innerHTML = '<div id="map-container"></div>';
         jest.clearAllMocks();
+        global.fetch = jest.fn(() => Promise.resolve({ ok: true, json: () => Promise.resolve([]) }));
         mapManager = new MapManager();
     });
 
@@ -107,4 +125,39 @@ describe('Clase MapManager', () => {
 
         expect(L.map).not.toHaveBeenCalled();
     });
-});
\ No newline at end of file
+
+    /**
+     * Verifica que los clusters se pidan al backend con la vista y el zoom actuales,
+     * y que se recarguen cuando el usuario mueve el mapa.
+     */
+    test('Debe pedir los clusters de la vista actual', () => {
+        mapManager.initMap();
+
+        expect(fetch).toHaveBeenCalledTimes(1);
+        const url = fetch.mock.calls[0][0];
+        expect(url).toContain('/api/v1/map/clusters?');
+        expect(url).toContain('minLat=-56');
+        expect(url).toContain('maxLon=-66');
+        expect(url).toContain('zoom=5');
+        expect(mockMapInstance.on).toHaveBeenCalledWith('moveend', expect.any(Function));
+    });
+
+    /**
+     * Verifica que cada cluster se dibuje como un único marcador, sin importar
+     * cuántos eventos agrupe, y que los marcadores anteriores se eliminen.
+     */
+    test('Debe dibujar un marcador por cluster', () => {
+        mapManager.initMap();
+        jest.clearAllMocks();
+
+        mapManager.renderClusters([
+            { latitude: -33.45, longitude: -70.65, count: 1200, topEvent: { name: 'Feria' } },
+            { latitude: -41.47, longitude: -72.94, count: 1, topEvent: { name: '<b>Trekking</b>' } }
+        ]);
+
+        expect(mockLayerGroupInstance.clearLayers).toHaveBeenCalled();
+        expect(L.marker).toHaveBeenCalledTimes(2);
+        expect(L.divIcon).toHaveBeenCalledWith(expect.objectContaining({ html: '<span>1200</span>' }));
+        expect(mockMarkerInstance.bindPopup).toHaveBeenCalledWith('<b>&lt;b&gt;Trekking&lt;/b&gt;</b>');
+    });
+});
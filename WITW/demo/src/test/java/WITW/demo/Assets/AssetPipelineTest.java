@@ -0,0 +1,97 @@
+package WITW.demo.Assets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AssetPipelineTest {
+
+    @TempDir
+    Path source;
+
+    @TempDir
+    Path output;
+
+    @Test
+    void run_bundlesModulesWithHashedNames_andRewritesPages() throws IOException {
+        write("index.html", """
+            <link rel="stylesheet" href="style.css">
+            <script src="https://unpkg.com/leaflet.js"></script>
+            <script type="module" src="./js/Main.js"></script>
+            """);
+        write("style.css", "body {\n  color: red;\n}\n");
+        write("js/Main.js", "import { Greeter as G } from './Greeter.js';\nnew G().greet();\n");
+        write("js/Greeter.js", "const PREFIX = 'Hola ';\nexport class Greeter {\n  greet() { return PREFIX; }\n}\n");
+
+        Map<Path, String> built = new AssetPipeline(source, output, false).run();
+
+        String script = built.get(source.resolve("js/Main.js"));
+        String style = built.get(source.resolve("style.css"));
+        assertTrue(script.matches("assets/main\\.[0-9a-f]{10}\\.js"), script);
+        assertTrue(style.matches("assets/style\\.[0-9a-f]{10}\\.css"), style);
+
+        String bundle = Files.readString(output.resolve(script));
+        assertEquals("const __module0=(()=>{const PREFIX='Hola ';class Greeter{greet(){return PREFIX;}}\nreturn{Greeter};})();"
+            + "const{Greeter:G}=__module0;new G().greet();", bundle);
+        assertEquals("body{color:red}", Files.readString(output.resolve(style)));
+
+        String page = Files.readString(output.resolve("index.html"));
+        assertTrue(page.contains("<link rel=\"stylesheet\" href=\"" + style + "\">"));
+        assertTrue(page.contains("<script type=\"module\" src=\"" + script + "\">"));
+        assertTrue(page.contains("https://unpkg.com/leaflet.js"));
+    }
+
+    @Test
+    void run_writesGzipVariantsOnlyWhenSmaller() throws IOException {
+        String body = "<p>" + "Eventos cerca de ti. ".repeat(50) + "</p>";
+        write("index.html", body);
+        write("tiny.html", "<p>x</p>");
+
+        new AssetPipeline(source, output, false).run();
+
+        byte[] compressed = Files.readAllBytes(output.resolve("index.html.gz"));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertEquals(body, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertFalse(Files.exists(output.resolve("tiny.html.gz")));
+    }
+
+    @Test
+    void run_sameContent_keepsName_andChangedContent_getsANewOne() throws IOException {
+        write("index.html", "<link rel=\"stylesheet\" href=\"style.css\">");
+        write("style.css", "body { color: red; }");
+        String first = new AssetPipeline(source, output, false).run().get(source.resolve("style.css"));
+        String again = new AssetPipeline(source, output, false).run().get(source.resolve("style.css"));
+
+        write("style.css", "body { color: blue; }");
+        String changed = new AssetPipeline(source, output, false).run().get(source.resolve("style.css"));
+
+        assertEquals(first, again);
+        assertNotEquals(first, changed);
+        // stale assets from earlier builds are removed
+        assertFalse(Files.exists(output.resolve(first)));
+    }
+
+    @Test
+    void run_unsupportedModuleSyntax_failsTheBuild() throws IOException {
+        write("index.html", "<script type=\"module\" src=\"Main.js\"></script>");
+        write("Main.js", "import L from 'leaflet';\n");
+
+        assertThrows(IllegalStateException.class, () -> new AssetPipeline(source, output, false).run());
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = source.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,62 @@
+package WITW.demo.Assets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class MinifierTest {
+
+    @Test
+    void js_removesCommentsAndIndentation_keepingWordSeparators() {
+        String source = """
+            /**
+             * Doc comment.
+             */
+            export class Counter {
+                // line comment
+                increment(step) {
+                    return this.value + step;
+                }
+            }
+            """;
+
+        assertEquals("export class Counter{increment(step){return this.value+step;}}", Minifier.js(source));
+    }
+
+    @Test
+    void js_keepsStringsTemplatesAndRegexesVerbatim() {
+        String source = """
+            const a = "  // not a comment  ";
+            const b = `<b>  ${ items.map(i => `${i}  `).join(' ') }  </b>`;
+            const c = text.replace(/ \\/\\/ [/*]  /g, '');
+            """;
+
+        assertEquals("const a=\"  // not a comment  \";const b=`<b>  ${ items.map(i => `${i}  `).join(' ') }  </b>`;"
+            + "const c=text.replace(/ \\/\\/ [/*]  /g,'');", Minifier.js(source));
+    }
+
+    @Test
+    void js_keepsNewlinesWhereAStatementMayEnd() {
+        assertEquals("let a=b\nlet c=a+ +b\nreturn/x/.test(c)", Minifier.js("let a = b\nlet c = a + +b\nreturn /x/.test(c)"));
+    }
+
+    @Test
+    void js_divisionIsNotTakenForARegex() {
+        assertEquals("const half=total/2/count;", Minifier.js("const half = total / 2 / count;"));
+    }
+
+    @Test
+    void css_collapsesWhitespaceAndDropsLastSemicolon() {
+        String source = """
+            /* botones */
+            .dark .btn:hover ,
+            .dark :-ms-input-placeholder {
+                font-family: 'Segoe UI', Tahoma;
+                margin: -12px 0 0 -12px;
+            }
+            """;
+
+        assertEquals(".dark .btn:hover,.dark :-ms-input-placeholder{font-family:'Segoe UI',Tahoma;margin:-12px 0 0 -12px}",
+            Minifier.css(source));
+    }
+}
@@ -1,4 +1,140 @@
 package WITW.demo.Auth;
 
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import WITW.demo.Jwt.JwtService;
+import WITW.demo.Jwt.TokenRevocationList;
+import WITW.demo.Jwt.VerifiedToken;
+import WITW.demo.RateLimit.RateLimitExceededException;
+import WITW.demo.RateLimit.RateLimits;
+import WITW.demo.User.Role;
+import WITW.demo.User.User;
+import WITW.demo.User.UserRepository;
+
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+@ExtendWith(MockitoExtension.class)
 class AuthServiceTest {
-}
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private AuthenticationManager authenticationManager;
+
+    @Mock
+    private TokenRevocationList revocations;
+
+    private PasswordHashingExecutor passwordHashing;
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        passwordHashing = new PasswordHashingExecutor(2, 4, new SimpleMeterRegistry());
+        authService = new AuthService(userRepository, jwtService, passwordEncoder, authenticationManager, passwordHashing,
+            revocations, new RateLimits(true, "", "2/PT1H", "", "", 1000, new SimpleMeterRegistry()), ObservationRegistry.NOOP);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashing.destroy();
+    }
+
+    @Test
+    void login_issuesTokenForAuthenticatedPrincipal_withoutSecondLookup() {
+        User user = User.builder().id(1).username("alice").password("hash").role(Role.USER).build();
+        when(authenticationManager.authenticate(any()))
+            .thenReturn(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        when(jwtService.getToken(user)).thenReturn("token");
+
+        AuthResponse response = authService.login(new LoginRequest("alice", "secret"));
+
+        assertEquals("token", response.getToken());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void login_badCredentials_propagatesOriginalException() {
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        assertThrows(BadCredentialsException.class, () -> authService.login(new LoginRequest("alice", "wrong")));
+    }
+
+    @Test
+    void login_afterUsernameRunsOutOfAttempts_rejectsWithoutHashing() {
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        assertThrows(BadCredentialsException.class, () -> authService.login(new LoginRequest("alice", "wrong1")));
+        assertThrows(BadCredentialsException.class, () -> authService.login(new LoginRequest("alice", "wrong2")));
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class,
+            () -> authService.login(new LoginRequest("alice", "wrong3")));
+
+        assertTrue(e.getRetryAfterSeconds() > 0);
+        verify(authenticationManager, times(2)).authenticate(any());
+        // other usernames keep their own attempts
+        assertThrows(BadCredentialsException.class, () -> authService.login(new LoginRequest("bob", "wrong")));
+    }
+
+    @Test
+    void login_caseAndSpaceVariantsOfAUsername_shareItsAttempts() {
+        when(authenticationManager.authenticate(any())).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        assertThrows(BadCredentialsException.class, () -> authService.login(new LoginRequest("Alice", "wrong1")));
+        assertThrows(BadCredentialsException.class, () -> authService.login(new LoginRequest("ALICE", "wrong2")));
+        assertThrows(RateLimitExceededException.class, () -> authService.login(new LoginRequest("Álice ", "wrong3")));
+
+        verify(authenticationManager, times(2)).authenticate(any());
+    }
+
+    @Test
+    void register_encodesPasswordAndSavesUser() {
+        when(passwordEncoder.encode("secret")).thenReturn("hash");
+        when(jwtService.getToken(any())).thenReturn("token");
+
+        AuthResponse response = authService.register(new RegisterRequest("bob", "secret", "Bob", "Builder", "Chile"));
+
+        assertEquals("token", response.getToken());
+        verify(userRepository).save(argThat(user -> user.getPassword().equals("hash") && user.getRole() == Role.USER));
+    }
+
+    @Test
+    void logout_revokesTokenUntilItExpires() {
+        Instant expiration = Instant.now().plusSeconds(600);
+        when(jwtService.verify("token")).thenReturn(new VerifiedToken("alice", Instant.now(), expiration));
+
+        authService.logout("token");
+
+        verify(revocations).revoke("token", expiration);
+    }
+
+    @Test
+    void logout_invalidToken_revokesNothing() {
+        when(jwtService.verify("tampered")).thenThrow(new MalformedJwtException("bad token"));
+
+        assertThrows(MalformedJwtException.class, () -> authService.logout("tampered"));
+        verifyNoInteractions(revocations);
+    }
+}
\ No newline at end of file
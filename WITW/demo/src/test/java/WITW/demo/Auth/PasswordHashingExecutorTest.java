@@ -0,0 +1,64 @@
+package WITW.demo.Auth;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PasswordHashingExecutorTest {
+
+    @Test
+    void execute_returnsResultOfTask() {
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1, new SimpleMeterRegistry());
+
+        assertEquals("hash", executor.execute(() -> "hash"));
+
+        executor.destroy();
+    }
+
+    @Test
+    void execute_whenPoolAndQueueAreFull_rejectsImmediately() throws InterruptedException {
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1, new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+
+        // one task running and one waiting in the queue
+        for (int i = 0; i < 2; i++) {
+            callers.submit(() -> executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }));
+        }
+        Thread.sleep(200);
+
+        assertThrows(HashingCapacityExceededException.class, () -> executor.execute(() -> "hash"));
+
+        release.countDown();
+        callers.shutdown();
+        assertTrue(callers.awaitTermination(5, TimeUnit.SECONDS));
+        executor.destroy();
+    }
+
+    @Test
+    void execute_recordsQueueWaitAndHashingTime() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1, meterRegistry);
+
+        executor.execute(() -> "hash");
+        executor.destroy();
+
+        assertEquals(1, meterRegistry.get("witw.auth.hashing.wait").timer().count());
+        assertEquals(1, meterRegistry.get("witw.auth.hashing.run").timer().count());
+        assertEquals(0, meterRegistry.get("witw.auth.hashing.queue").gauge().value());
+    }
+}
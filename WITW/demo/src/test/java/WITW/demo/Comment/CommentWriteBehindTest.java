@@ -0,0 +1,248 @@
+package WITW.demo.Comment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import WITW.demo.Event.Event;
+import WITW.demo.Event.EventRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CommentWriteBehindTest {
+
+    @TempDir
+    Path journalDirectory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<CommentWriteBehind> writers = new ArrayList<>();
+    private Long eventId;
+
+    @BeforeEach
+    void setUp() {
+        eventId = eventRepository.save(Event.builder()
+            .name("Con comentarios")
+            .startsAt(LocalDateTime.now().plusDays(1))
+            .capacity(10)
+            .geohash("66jc")
+            .build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (CommentWriteBehind writer : writers) {
+            writer.destroy();
+        }
+        commentRepository.deleteAll();
+        eventRepository.deleteAll();
+    }
+
+    private CommentWriteBehind writer(int queueCapacity, int flushSize, Duration flushInterval) {
+        return writer(queueCapacity, flushSize, flushInterval, false);
+    }
+
+    private CommentWriteBehind writer(int queueCapacity, int flushSize, Duration flushInterval, boolean fsync) {
+        CommentWriteBehind writer = new CommentWriteBehind(entityManager, transactionManager, objectMapper, meterRegistry,
+            queueCapacity, flushSize, flushInterval, 20, journalDirectory, fsync);
+        writers.add(writer);
+        return writer;
+    }
+
+    private Comment comment(int n) {
+        return Comment.builder()
+            .id(UUID.randomUUID())
+            .eventId(eventId)
+            .userId(n)
+            .username("user" + n)
+            .text("Comentario " + n)
+            .createdAt(LocalDateTime.now())
+            .build();
+    }
+
+    private void awaitCount(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (commentRepository.count() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, commentRepository.count());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    @Test
+    void submittedComments_areWrittenAfterTheFlushInterval() throws Exception {
+        CommentWriteBehind writer = writer(1000, 1000, Duration.ofMillis(50));
+        writer.start();
+
+        for (int i = 0; i < 250; i++) {
+            writer.submit(comment(i));
+        }
+
+        awaitCount(250);
+        // The meters are recorded right after the commit that makes the rows visible.
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (meterRegistry.summary("witw.comments.flush.size").totalAmount() < 250 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(250, meterRegistry.summary("witw.comments.flush.size").totalAmount());
+        assertTrue(meterRegistry.timer("witw.comments.flush").count() >= 1);
+    }
+
+    @Test
+    void reachingTheFlushSize_writesWithoutWaitingForTheInterval() throws Exception {
+        CommentWriteBehind writer = writer(1000, 10, Duration.ofHours(1));
+        writer.start();
+
+        for (int i = 0; i < 10; i++) {
+            writer.submit(comment(i));
+        }
+
+        awaitCount(10);
+    }
+
+    @Test
+    void concurrentSubmitsWithFsync_areAllWrittenWhileTheWriterRotatesTheJournal() throws Exception {
+        CommentWriteBehind writer = writer(1000, 20, Duration.ofMillis(10), true);
+        writer.start();
+
+        List<Thread> submitters = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t * 50;
+            submitters.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 50; i++) {
+                    writer.submit(comment(offset + i));
+                }
+            }));
+        }
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+
+        awaitCount(400);
+    }
+
+    @Test
+    void fullQueue_rejectsNewComments() {
+        CommentWriteBehind writer = writer(3, 100, Duration.ofHours(1));
+        for (int i = 0; i < 3; i++) {
+            writer.submit(comment(i));
+        }
+
+        assertThrows(WriteQueueFullException.class, () -> writer.submit(comment(4)));
+        assertEquals(3, meterRegistry.get("witw.comments.queue.depth").gauge().value());
+        assertEquals(1, meterRegistry.counter("witw.comments.rejected").count());
+    }
+
+    @Test
+    void acceptedComments_surviveARestartThroughTheJournal() throws Exception {
+        CommentWriteBehind crashed = writer(100, 100, Duration.ofHours(1));
+        List<Comment> accepted = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            accepted.add(comment(i));
+            crashed.submit(accepted.get(i));
+        }
+        // Simulates a crash: the writer never flushed, only the journal has the comments.
+        // A torn last line and a comment that already reached the database must not break recovery.
+        commentRepository.save(accepted.get(0));
+        Files.writeString(segments().get(0), "{\"id\":\"trunc", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        CommentWriteBehind restarted = writer(100, 100, Duration.ofHours(1));
+
+        assertTrue(restarted.flush());
+        assertEquals(5, commentRepository.count());
+        assertEquals(1, segments().size());
+    }
+
+    @Test
+    void flush_deletesTheJournalSegmentsOnceWritten() throws Exception {
+        CommentWriteBehind writer = writer(100, 100, Duration.ofHours(1));
+        writer.submit(comment(1));
+        writer.submit(comment(2));
+
+        assertTrue(writer.flush());
+
+        assertEquals(2, commentRepository.count());
+        List<Path> remaining = segments();
+        assertEquals(1, remaining.size());
+        assertEquals(0, Files.size(remaining.get(0)));
+    }
+
+    @Test
+    void aCommentTheDatabaseRejects_isDeadLetteredWithoutHoldingBackTheRest() throws Exception {
+        CommentWriteBehind writer = writer(100, 100, Duration.ofHours(1));
+        Comment bad = comment(2);
+        bad.setText("x".repeat(1001));
+        writer.submit(comment(1));
+        writer.submit(bad);
+        writer.submit(comment(3));
+
+        // The whole batch fails a few times, then the comments are retried one by one until the bad one gives up.
+        int attempts = 1;
+        while (!writer.flush()) {
+            attempts++;
+            assertTrue(attempts <= CommentWriteBehind.BATCH_ATTEMPTS + CommentWriteBehind.ROW_ATTEMPTS);
+        }
+
+        assertEquals(2, commentRepository.count());
+        assertFalse(commentRepository.existsById(bad.getId()));
+        assertEquals(1, meterRegistry.counter("witw.comments.dead_lettered").count());
+        List<String> deadLetters = Files.readAllLines(journalDirectory.resolve("dead-letter.log"));
+        assertEquals(1, deadLetters.size());
+        assertTrue(deadLetters.get(0).contains(bad.getId().toString()));
+    }
+
+    @Test
+    void commentsOfAnEventDeletedBeforeTheFlush_areDiscarded() throws Exception {
+        CommentWriteBehind writer = writer(100, 100, Duration.ofHours(1));
+        writer.submit(comment(1));
+        writer.submit(comment(2));
+
+        eventRepository.deleteById(eventId);
+
+        assertTrue(writer.flush());
+        assertEquals(0, commentRepository.count());
+        assertEquals(2, meterRegistry.counter("witw.comments.discarded").count());
+    }
+}
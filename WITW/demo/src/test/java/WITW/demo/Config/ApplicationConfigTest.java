@@ -2,17 +2,26 @@ package WITW.demo.Config;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.util.Optional;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import WITW.demo.User.User;
 import WITW.demo.User.UserRepository;
@@ -26,6 +35,13 @@ class ApplicationConfigTest {
     @InjectMocks
     private ApplicationConfig applicationConfig;
 
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(applicationConfig, "bcryptStrength", 4);
+        ReflectionTestUtils.setField(applicationConfig, "userCacheMaximumSize", 100L);
+        ReflectionTestUtils.setField(applicationConfig, "userCacheTimeToLive", Duration.ofMinutes(1));
+    }
+
     @Test
     void userDetailsService_returnsUser_whenUserExists() {
         // Arrange
@@ -59,4 +75,32 @@ class ApplicationConfigTest {
         );
     }
 
+    @Test
+    void userDetailsService_cachesRepeatedLookups() {
+        User mockUser = User.builder()
+                .username("testuser")
+                .password("encoded")
+                .build();
+
+        when(userRepository.findByUsername("testuser"))
+                .thenReturn(Optional.of(mockUser));
+
+        UserDetailsService service = applicationConfig.userDetailService();
+        service.loadUserByUsername("testuser");
+        service.loadUserByUsername("testuser");
+
+        verify(userRepository, times(1)).findByUsername("testuser");
+    }
+
+    @Test
+    void passwordEncoder_usesConfiguredStrength_andFlagsWeakerHashesForUpgrade() {
+        String weakHash = new BCryptPasswordEncoder(4).encode("secret");
+        ReflectionTestUtils.setField(applicationConfig, "bcryptStrength", 6);
+
+        PasswordEncoder encoder = applicationConfig.passwordEncoder();
+
+        assertTrue(encoder.encode("secret").startsWith("$2a$06$"));
+        assertTrue(encoder.upgradeEncoding(weakHash));
+    }
+
 }
@@ -0,0 +1,168 @@
+package WITW.demo.Event;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import WITW.demo.User.User;
+
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Import(AttendanceService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AttendanceServiceTest {
+
+    private static final int THREADS = 32;
+
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @AfterEach
+    void tearDown() {
+        attendanceRepository.deleteAll();
+        eventRepository.deleteAll();
+    }
+
+    private Long event(int capacity) {
+        return eventRepository.save(Event.builder()
+            .name("Hot event")
+            .startsAt(LocalDateTime.now().plusDays(1))
+            .capacity(capacity)
+            .geohash("66jc")
+            .build()).getId();
+    }
+
+    private static User user(int id) {
+        return User.builder().id(id).username("user" + id).build();
+    }
+
+    @Test
+    void join_isIdempotentPerUser() {
+        Long eventId = event(5);
+
+        attendanceService.join(eventId, user(1));
+        AttendanceResponse second = attendanceService.join(eventId, user(1));
+
+        assertTrue(second.isAttending());
+        assertEquals(1, second.getAttendeeCount());
+        assertEquals(4, second.getRemaining());
+    }
+
+    @Test
+    void join_whenFull_isRejectedWithoutKeepingTheAttendance() {
+        Long eventId = event(1);
+        attendanceService.join(eventId, user(1));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> attendanceService.join(eventId, user(2)));
+
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        assertFalse(attendanceService.get(eventId, user(2)).isAttending());
+        assertEquals(1, attendanceRepository.countByEventId(eventId));
+    }
+
+    @Test
+    void join_unknownEvent_isNotFound() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> attendanceService.join(404L, user(1)));
+
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+        assertEquals(0, attendanceRepository.count());
+    }
+
+    @Test
+    void leave_releasesTheSeat() {
+        Long eventId = event(1);
+        attendanceService.join(eventId, user(1));
+
+        AttendanceResponse afterLeave = attendanceService.leave(eventId, user(1));
+        attendanceService.leave(eventId, user(1));
+
+        assertEquals(1, afterLeave.getRemaining());
+        assertEquals(1, attendanceService.join(eventId, user(2)).getAttendeeCount());
+    }
+
+    @Test
+    void concurrentJoins_neverExceedCapacity() throws Exception {
+        final int capacity = 250;
+        final int users = 2000;
+        Long eventId = event(capacity);
+
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger full = new AtomicInteger();
+        runConcurrently(users, i -> {
+            try {
+                attendanceService.join(eventId, user(i));
+                accepted.incrementAndGet();
+            }
+            catch (ResponseStatusException e) {
+                assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+                full.incrementAndGet();
+            }
+        });
+
+        assertEquals(capacity, accepted.get());
+        assertEquals(users - capacity, full.get());
+        assertEquals(capacity, attendanceRepository.countByEventId(eventId));
+        assertEquals(0, attendanceService.get(eventId, user(1)).getRemaining());
+    }
+
+    @Test
+    void concurrentJoins_ofTheSameUser_takeOneSeat() throws Exception {
+        Long eventId = event(10);
+
+        runConcurrently(200, i -> attendanceService.join(eventId, user(7)));
+
+        assertEquals(1, attendanceRepository.countByEventId(eventId));
+        assertEquals(9, attendanceService.get(eventId, user(7)).getRemaining());
+    }
+
+    private interface Join {
+        void run(int user) throws Exception;
+    }
+
+    // Releases every join at once. Throughput is measured by AttendanceJoinBenchmark in the jmh profile.
+    private static void runConcurrently(int count, Join join) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 1; i <= count; i++) {
+                final int user = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    join.run(user);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package WITW.demo.Event;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import WITW.demo.Comment.Comment;
+import WITW.demo.Comment.CommentPage;
+import WITW.demo.Comment.CommentPreview;
+import WITW.demo.Comment.CommentRepository;
+import WITW.demo.Comment.CommentService;
+import WITW.demo.Gazetteer.Gazetteer;
+
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Import({EventService.class, EventSpatialIndex.class, Gazetteer.class})
+class EventCardsTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 11, 15, 9, 0);
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private Event event(String name, LocalDateTime startsAt) {
+        return eventRepository.save(Event.builder()
+            .name(name)
+            .description("Descripción de " + name)
+            .startsAt(startsAt)
+            .capacity(10)
+            .geohash("66jc")
+            .build());
+    }
+
+    private void comment(Event event, String text, LocalDateTime createdAt) {
+        commentRepository.save(Comment.builder()
+            .id(UUID.randomUUID())
+            .eventId(event.getId())
+            .userId(2)
+            .username("bruno")
+            .text(text)
+            .createdAt(createdAt)
+            .build());
+    }
+
+    @Test
+    void cards_walksAllEventsByDateThenId_withoutGapsOrRepeats() {
+        List<Long> expected = new ArrayList<>();
+        expected.add(event("Primero", START).getId());
+        // Same start time: the id breaks the tie, also across a page boundary.
+        for (int i = 0; i < 4; i++) {
+            expected.add(event("Empate " + i, START.plusDays(1)).getId());
+        }
+        expected.add(event("Último", START.plusDays(2)).getId());
+        event("Antes de from", START.minusDays(1));
+
+        List<Long> seen = new ArrayList<>();
+        EventCardPage page = eventService.cards(START, null, 2);
+        seen.addAll(page.getEvents().stream().map(EventCard::getId).toList());
+        while (page.getNext() != null) {
+            page = eventService.cards(START, page.getNext(), 2);
+            seen.addAll(page.getEvents().stream().map(EventCard::getId).toList());
+        }
+
+        assertEquals(expected, seen);
+        EventCard first = eventService.cards(START, null, 1).getEvents().get(0);
+        assertEquals("Descripción de Primero", first.getDescription());
+        assertEquals(0, first.getRatingCount());
+        assertNull(first.getRatingAverage());
+    }
+
+    @Test
+    void cards_carryTheLatestCommentsAndACursorForTheRest() {
+        Event busy = event("Con muchos comentarios", START);
+        Event quiet = event("Con uno", START.plusDays(1));
+        for (int i = 0; i < 5; i++) {
+            comment(busy, "Comentario " + i, START.minusDays(10).plusMinutes(i));
+        }
+        comment(quiet, "Solo uno", START.minusDays(3));
+
+        List<EventCard> cards = eventService.cards(null, null, 10).getEvents();
+        EventCard first = cards.get(0);
+        EventCard second = cards.get(1);
+
+        assertEquals(List.of("Comentario 4", "Comentario 3", "Comentario 2"),
+            first.getComments().stream().map(CommentPreview::getText).toList());
+        assertNotNull(first.getMoreComments());
+        assertEquals(List.of("Solo uno"), second.getComments().stream().map(CommentPreview::getText).toList());
+        assertNull(second.getMoreComments());
+
+        CommentPage rest = new CommentService(commentRepository, null, null).page(busy.getId(), first.getMoreComments(), 10);
+        assertEquals(List.of("Comentario 1", "Comentario 0"), rest.getComments().stream().map(CommentPreview::getText).toList());
+        assertNull(rest.getNext());
+    }
+
+    @Test
+    void cards_withMalformedCursor_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> eventService.cards(null, "no-es-un-cursor", 10));
+    }
+}
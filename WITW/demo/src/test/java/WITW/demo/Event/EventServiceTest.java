@@ -0,0 +1,161 @@
+package WITW.demo.Event;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.server.ResponseStatusException;
+
+import WITW.demo.Comment.CommentRepository;
+import WITW.demo.Gazetteer.Gazetteer;
+import WITW.demo.Gazetteer.Place;
+import WITW.demo.Geo.BoundingBox;
+import WITW.demo.Geo.GeoHash;
+import WITW.demo.Rating.EventRatingRepository;
+import WITW.demo.Rating.RatingRepository;
+import WITW.demo.User.Role;
+import WITW.demo.User.User;
+
+@ExtendWith(MockitoExtension.class)
+class EventServiceTest {
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private EventSpatialIndex spatialIndex;
+
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    @Mock
+    private RatingRepository ratingRepository;
+
+    @Mock
+    private EventRatingRepository eventRatingRepository;
+
+    @Mock
+    private Gazetteer gazetteer;
+
+    @InjectMocks
+    private EventService eventService;
+
+    private final User creator = User.builder().id(1).username("alice").role(Role.CREATOR).build();
+
+    private static Event event(long id, double lat, double lon) {
+        return Event.builder()
+            .id(id)
+            .name("Evento " + id)
+            .startsAt(LocalDateTime.of(2026, 1, 20, 11, 0))
+            .capacity(10)
+            .latitude(lat)
+            .longitude(lon)
+            .geohash(GeoHash.encode(lat, lon, GeoHash.MAX_PRECISION))
+            .creatorId(1)
+            .build();
+    }
+
+    @Test
+    void create_computesGeohashAndDefaultCapacity() {
+        when(eventRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        EventRequest request = EventRequest.builder()
+            .name("Día de Playa y Surf")
+            .place("Pichilemu")
+            .startsAt(LocalDateTime.of(2026, 1, 20, 11, 0))
+            .latitude(-34.3870)
+            .longitude(-72.0033)
+            .build();
+
+        EventResponse response = eventService.create(request, creator);
+
+        assertEquals(10, response.getCapacity());
+        assertEquals(1, response.getCreatorId());
+        verify(eventRepository).save(argThat(e -> e.getGeohash().equals(GeoHash.encode(-34.3870, -72.0033, 12))));
+    }
+
+    @Test
+    void create_withoutCoordinates_isRejected() {
+        EventRequest request = EventRequest.builder()
+            .name("Sin lugar")
+            .startsAt(LocalDateTime.now())
+            .build();
+
+        assertThrows(ResponseStatusException.class, () -> eventService.create(request, creator));
+        verifyNoInteractions(eventRepository);
+    }
+
+    @Test
+    void create_withOnlyAPlace_takesTheGazetteerCoordinates() {
+        when(eventRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(gazetteer.locate("Caleta Portales, Valparaíso"))
+            .thenReturn(Optional.of(new Place("Valparaíso", "Valparaíso", -33.0472, -71.6127)));
+        EventRequest request = EventRequest.builder()
+            .name("Feria costera")
+            .place("Caleta Portales, Valparaíso")
+            .startsAt(LocalDateTime.of(2026, 1, 20, 11, 0))
+            .build();
+
+        EventResponse response = eventService.create(request, creator);
+
+        assertEquals(-33.0472, response.getLatitude());
+        assertEquals("Caleta Portales, Valparaíso", response.getPlace());
+        verify(eventRepository).save(argThat(e -> e.getGeohash().equals(GeoHash.encode(-33.0472, -71.6127, 12))));
+    }
+
+    @Test
+    void near_loadsOnlyTheNearestEventsChosenByTheIndex() {
+        Event close = event(1, -33.4500, -70.6500);
+        Event closer = event(2, -33.4570, -70.6480);
+        when(spatialIndex.nearest(-33.45694, -70.64827, 10, 50))
+            .thenReturn(List.of(IndexedEvent.from(closer), IndexedEvent.from(close)));
+        when(eventRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(close, closer));
+
+        List<EventResponse> result = eventService.near(-33.45694, -70.64827, 10, 50);
+
+        assertEquals(List.of(2L, 1L), result.stream().map(EventResponse::getId).toList());
+        assertTrue(result.get(0).getDistanceKm() < result.get(1).getDistanceKm());
+        verify(eventRepository, never()).findInCells(anyCollection(), any(), anyInt());
+    }
+
+    @Test
+    void near_capsTheLimitAtTheResultLimit() {
+        eventService.near(-33.45694, -70.64827, 10, 100_000);
+
+        verify(spatialIndex).nearest(-33.45694, -70.64827, 10, EventService.MAX_RESULTS);
+        verifyNoInteractions(eventRepository);
+    }
+
+    @Test
+    void within_asksTheDatabaseForAtMostTheResultLimit() {
+        when(eventRepository.findInCells(anyCollection(), any(), eq(EventService.MAX_RESULTS)))
+            .thenReturn(List.of(event(1, -33.4500, -70.6500)));
+
+        List<EventResponse> result = eventService.within(BoundingBox.of(-33.60, -70.80, -33.35, -70.45));
+
+        assertEquals(List.of(1L), result.stream().map(EventResponse::getId).toList());
+    }
+
+    @Test
+    void update_byAnotherUser_isDenied() {
+        when(eventRepository.findById(1L)).thenReturn(Optional.of(event(1, -33.45, -70.65)));
+        User other = User.builder().id(2).username("bob").role(Role.USER).build();
+
+        assertThrows(AccessDeniedException.class, () -> eventService.update(1L, new EventRequest(), other));
+    }
+}
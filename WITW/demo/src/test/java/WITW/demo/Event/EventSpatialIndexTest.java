@@ -0,0 +1,170 @@
+package WITW.demo.Event;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import WITW.demo.Geo.BoundingBox;
+
+class EventSpatialIndexTest {
+
+    private static final LocalDateTime NOV_15 = LocalDateTime.of(2025, 11, 15, 9, 0);
+    private static final LocalDateTime JAN_20 = LocalDateTime.of(2026, 1, 20, 11, 0);
+
+    private static final BoundingBox SANTIAGO = BoundingBox.of(-33.7, -70.9, -33.2, -70.4);
+    private static final BoundingBox CHILE = BoundingBox.of(-56, -76, -17, -66);
+
+    private EventRepository eventRepository;
+    private EventSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        eventRepository = mock(EventRepository.class);
+        index = new EventSpatialIndex(eventRepository, event -> { });
+    }
+
+    private static List<Long> ids(List<IndexedEvent> events) {
+        return events.stream().map(IndexedEvent::getId).sorted().toList();
+    }
+
+    @Test
+    void query_returnsEventsInsideViewportAndDateRange() {
+        index.upsert(new IndexedEvent(1L, "Santiago", -33.45, -70.65, NOV_15));
+        index.upsert(new IndexedEvent(2L, "Santiago 2", -33.40, -70.60, JAN_20));
+        index.upsert(new IndexedEvent(3L, "Pichilemu", -34.39, -72.00, JAN_20));
+
+        assertEquals(List.of(1L, 2L), ids(index.query(SANTIAGO, null, null, 100)));
+        assertEquals(List.of(2L), ids(index.query(SANTIAGO, JAN_20.minusDays(1), null, 100)));
+        assertEquals(List.of(1L), ids(index.query(SANTIAGO, null, NOV_15, 100)));
+        assertEquals(List.of(1L, 2L, 3L), ids(index.query(CHILE, null, null, 100)));
+    }
+
+    @Test
+    void upsert_movingAnEvent_removesItFromItsOldCell() {
+        index.upsert(new IndexedEvent(1L, "Evento", -33.45, -70.65, NOV_15));
+
+        IndexedEvent previous = index.upsert(new IndexedEvent(1L, "Evento", -34.39, -72.00, JAN_20));
+
+        assertEquals(-33.45, previous.getLatitude());
+        assertTrue(index.query(SANTIAGO, null, null, 100).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void remove_dropsEventFromQueries() {
+        index.upsert(new IndexedEvent(1L, "Evento", -33.45, -70.65, NOV_15));
+
+        index.remove(1L);
+
+        assertTrue(index.query(CHILE, null, null, 100).isEmpty());
+        assertNull(index.get(1L));
+    }
+
+    @Test
+    void version_advancesWithEveryAppliedChangeOnly() {
+        String empty = index.version();
+
+        index.upsert(new IndexedEvent(1L, "Evento", -33.45, -70.65, NOV_15));
+        String added = index.version();
+        index.remove(2L);
+        String unchanged = index.version();
+        index.remove(1L);
+
+        assertNotEquals(empty, added);
+        assertEquals(added, unchanged);
+        assertNotEquals(added, index.version());
+        assertNotEquals(empty, new EventSpatialIndex(eventRepository, event -> { }).version());
+    }
+
+    @Test
+    void query_respectsLimit() {
+        for (long id = 1; id <= 50; id++) {
+            index.upsert(new IndexedEvent(id, "Evento " + id, -33.45, -70.65, NOV_15.plusHours(id)));
+        }
+
+        assertEquals(10, index.query(SANTIAGO, null, null, 10).size());
+    }
+
+    @Test
+    void nearest_keepsTheClosestEventsInsideTheRadiusOrderedByDistance() {
+        index.upsert(new IndexedEvent(1L, "Centro", -33.4500, -70.6500, NOV_15));
+        index.upsert(new IndexedEvent(2L, "Más cerca", -33.4570, -70.6480, NOV_15));
+        index.upsert(new IndexedEvent(3L, "Maipú", -33.5100, -70.7600, NOV_15));
+        index.upsert(new IndexedEvent(4L, "Valparaíso", -33.0472, -71.6127, NOV_15));
+
+        List<IndexedEvent> nearest = index.nearest(-33.45694, -70.64827, 20, 2);
+
+        assertEquals(List.of(2L, 1L), nearest.stream().map(IndexedEvent::getId).toList());
+        assertEquals(List.of(2L, 1L, 3L),
+            index.nearest(-33.45694, -70.64827, 20, 10).stream().map(IndexedEvent::getId).toList());
+    }
+
+    @Test
+    void query_duringConcurrentMoves_seesTheEventExactlyOnce() throws InterruptedException {
+        // Muchas celdas pobladas para que la vista chica se recorra por grilla y la grande por celdas pobladas.
+        for (long id = 2; id <= 500; id++) {
+            index.upsert(new IndexedEvent(id, "Relleno " + id, 10 + id * 0.3, 20, NOV_15));
+        }
+        IndexedEvent[] positions = {
+            new IndexedEvent(1L, "Evento", -33.45, -70.65, NOV_15),
+            new IndexedEvent(1L, "Evento", -33.46, -70.66, JAN_20),
+            new IndexedEvent(1L, "Evento", -34.39, -72.00, NOV_15)
+        };
+        BoundingBox both = BoundingBox.of(-34.5, -72.1, -33.3, -70.5);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; running.get(); i++) {
+                index.upsert(positions[i % positions.length]);
+            }
+        });
+        index.upsert(positions[0]);
+        writer.start();
+        try {
+            for (int i = 0; i < 20_000; i++) {
+                assertEquals(1, index.query(both, null, null, 100).size());
+                assertEquals(1, index.query(CHILE, null, null, 100).size());
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    @Test
+    void rebuild_loadsEveryEventFromTheDatabase() {
+        IndexedEvent first = new IndexedEvent(1L, "A", -33.45, -70.65, NOV_15);
+        IndexedEvent second = new IndexedEvent(2L, "B", -33.40, -70.60, JAN_20);
+        when(eventRepository.findIndexed(eq(0L), any(Pageable.class))).thenReturn(List.of(first, second));
+
+        index.rebuild();
+
+        assertEquals(List.of(1L, 2L), ids(index.query(SANTIAGO, null, null, 100)));
+        verify(eventRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void rebuild_pagesByTheLastIdSeen() {
+        List<IndexedEvent> fullPage = LongStream.rangeClosed(1, EventSpatialIndex.REBUILD_PAGE_SIZE)
+            .mapToObj(id -> new IndexedEvent(id * 2, "Evento " + id, -33.45, -70.65, NOV_15))
+            .toList();
+        long lastId = 2L * EventSpatialIndex.REBUILD_PAGE_SIZE;
+        when(eventRepository.findIndexed(eq(0L), any(Pageable.class))).thenReturn(fullPage);
+        when(eventRepository.findIndexed(eq(lastId), any(Pageable.class)))
+            .thenReturn(List.of(new IndexedEvent(lastId + 1, "Último", -33.40, -70.60, JAN_20)));
+
+        index.rebuild();
+
+        assertEquals(EventSpatialIndex.REBUILD_PAGE_SIZE + 1, index.query(SANTIAGO, null, null, 5000).size());
+        verify(eventRepository, times(2)).findIndexed(anyLong(), any(Pageable.class));
+    }
+}
@@ -0,0 +1,87 @@
+package WITW.demo.Gazetteer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+class GazetteerTest {
+
+    @TempDir
+    Path dir;
+
+    private Gazetteer gazetteer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path source = dir.resolve("places.tsv");
+        Files.writeString(source, """
+            # name	region	lat	lon	population
+            Valparaíso	Valparaíso	-33.0472	-71.6127	296655
+            Viña del Mar	Valparaíso	-33.0245	-71.5518	334248
+            Villarrica	La Araucanía	-39.2857	-72.2279	55478
+            Puerto Montt	Los Lagos	-41.4693	-72.9424	245902
+            Puerto Varas	Los Lagos	-41.3195	-72.9854	44578
+            Ñuñoa	Metropolitana	-33.4569	-70.5979	208237
+            Santa Cruz	O'Higgins	-34.6386	-71.3650	37855
+            Santa Cruz	Bolivia	-17.7833	-63.1821	1400000
+            """);
+        Path image = dir.resolve("out/places.bin");
+
+        assertEquals(8, GazetteerCompiler.compile(source, image));
+        gazetteer = new Gazetteer(new FileSystemResource(image));
+    }
+
+    private static List<String> names(List<Place> places) {
+        return places.stream().map(Place::getName).toList();
+    }
+
+    @Test
+    void locate_ignoresAccentsCaseAndPunctuation() {
+        Place place = gazetteer.locate("  VALPARAISO ").orElseThrow();
+
+        assertEquals("Valparaíso", place.getName());
+        assertEquals(-33.0472, place.getLatitude(), 1e-6);
+        assertEquals(-71.6127, place.getLongitude(), 1e-6);
+        assertEquals("Ñuñoa", gazetteer.locate("nunoa").orElseThrow().getName());
+        assertEquals("Viña del Mar", gazetteer.locate("viña-del-mar").orElseThrow().getName());
+    }
+
+    @Test
+    void locate_fallsBackToACommaSeparatedPart_andPrefersTheMostPopulous() {
+        assertEquals("Viña del Mar", gazetteer.locate("Quinta Vergara, Viña del Mar").orElseThrow().getName());
+        assertEquals("Bolivia", gazetteer.locate("Santa Cruz").orElseThrow().getRegion());
+        assertTrue(gazetteer.locate("Parque Forestal").isEmpty());
+        // A prefix is not a place.
+        assertTrue(gazetteer.locate("Valpa").isEmpty());
+        assertTrue(gazetteer.locate(null).isEmpty());
+    }
+
+    @Test
+    void complete_suggestsByPopulation_alsoFromInnerWords() {
+        assertEquals(List.of("Viña del Mar", "Villarrica"), names(gazetteer.complete("vi", 8)));
+        assertEquals(List.of("Viña del Mar"), names(gazetteer.complete("vi", 1)));
+        assertEquals(List.of("Puerto Montt", "Puerto Varas"), names(gazetteer.complete("Puerto ", 8)));
+        assertEquals(List.of("Puerto Montt"), names(gazetteer.complete("mon", 8)));
+        assertEquals(List.of("Viña del Mar"), names(gazetteer.complete("del m", 8)));
+        // Too short to be useful.
+        assertEquals(List.of(), gazetteer.complete("v", 8));
+        assertEquals(List.of(), gazetteer.complete("xyz", 8));
+    }
+
+    @Test
+    void missingImage_geocodesNothing() throws IOException {
+        Gazetteer empty = new Gazetteer(new FileSystemResource(dir.resolve("missing.bin")));
+
+        assertEquals(0, empty.size());
+        assertTrue(empty.locate("Valparaíso").isEmpty());
+        assertTrue(empty.complete("va", 8).isEmpty());
+    }
+}
@@ -0,0 +1,47 @@
+package WITW.demo.Geo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class GeoHashTest {
+
+    @Test
+    void encode_matchesReferenceValue() {
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+        assertEquals("66jc", GeoHash.encode(-33.45694, -70.64827, 4));
+    }
+
+    @Test
+    void decode_returnsCellContainingPoint() {
+        BoundingBox cell = GeoHash.decode(GeoHash.encode(-33.45694, -70.64827, 7));
+
+        assertTrue(cell.contains(-33.45694, -70.64827));
+        assertEquals(GeoHash.cellHeight(7), cell.getMaxLatitude() - cell.getMinLatitude(), 1e-9);
+        assertEquals(GeoHash.cellWidth(7), cell.getMaxLongitude() - cell.getMinLongitude(), 1e-9);
+    }
+
+    @Test
+    void coveringCells_coverEveryPointInTheBox() {
+        BoundingBox box = BoundingBox.around(-33.45694, -70.64827, 25);
+
+        List<String> cells = GeoHash.coveringCells(box, 16);
+
+        assertTrue(cells.size() <= 16);
+        for (double lat = box.getMinLatitude(); lat <= box.getMaxLatitude(); lat += 0.01) {
+            for (double lon = box.getMinLongitude(); lon <= box.getMaxLongitude(); lon += 0.01) {
+                String hash = GeoHash.encode(lat, lon, GeoHash.MAX_PRECISION);
+                assertTrue(cells.stream().anyMatch(hash::startsWith), "uncovered point " + lat + "," + lon);
+            }
+        }
+    }
+
+    @Test
+    void distance_santiagoToValparaiso() {
+        double km = GeoDistance.kilometers(-33.45694, -70.64827, -33.04720, -71.61268);
+
+        assertEquals(100, km, 5);
+    }
+}
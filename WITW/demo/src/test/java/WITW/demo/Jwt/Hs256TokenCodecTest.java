@@ -0,0 +1,124 @@
+package WITW.demo.Jwt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.security.Key;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+
+class Hs256TokenCodecTest {
+
+    private final Key key = Keys.hmacShaKeyFor("0123456789abcdef0123456789abcdef".getBytes());
+    private final Hs256TokenCodec codec = new Hs256TokenCodec(key, null);
+
+    @Test
+    void encode_producesTokenThatJjwtAccepts() {
+        long now = System.currentTimeMillis() / 1000;
+
+        String token = codec.encode("alice", 7, "CREATOR", 2, "t1", now, now + 60);
+        Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+
+        assertEquals("alice", claims.getSubject());
+        assertEquals(7, claims.get("uid", Integer.class));
+        assertEquals("CREATOR", claims.get("role", String.class));
+        assertEquals(2, claims.get("ver", Integer.class));
+        assertEquals("t1", claims.getId());
+        assertEquals(new Date(now * 1000), claims.getIssuedAt());
+        assertEquals(new Date((now + 60) * 1000), claims.getExpiration());
+    }
+
+    @Test
+    void decode_acceptsTokenIssuedByJjwt() {
+        long now = System.currentTimeMillis() / 1000;
+        // same claims jjwt used to emit, in whatever order its map iterates them
+        String token = Jwts.builder()
+            .claim("ver", 0)
+            .claim("role", "USER")
+            .claim("uid", 12)
+            .setId("t2")
+            .setSubject("bob")
+            .setIssuedAt(new Date(now * 1000))
+            .setExpiration(new Date((now + 60) * 1000))
+            .signWith(key, SignatureAlgorithm.HS256)
+            .compact();
+
+        VerifiedToken verified = codec.decode(token);
+
+        assertNotNull(verified);
+        assertEquals("bob", verified.getUsername());
+        assertEquals(12, verified.getUserId());
+        assertEquals("USER", verified.getRole());
+        assertEquals(0, verified.getTokenVersion());
+        assertEquals(Instant.ofEpochSecond(now), verified.getIssuedAt());
+        assertEquals(Instant.ofEpochSecond(now + 60), verified.getExpiration());
+    }
+
+    @Test
+    void decode_roundTripsNonAsciiSubjectWithoutUserClaims() {
+        long now = System.currentTimeMillis() / 1000;
+
+        VerifiedToken verified = codec.decode(codec.encode("josé", null, null, null, null, now, now + 60));
+
+        assertEquals("josé", verified.getUsername());
+        assertFalse(verified.hasUserClaims());
+    }
+
+    @Test
+    void decode_tamperedPayload_throwsSignatureException() {
+        long now = System.currentTimeMillis() / 1000;
+        String[] parts = codec.encode("carol", 1, "USER", 0, null, now, now + 60).split("\\.");
+        String forged = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(("{\"uid\":1,\"role\":\"ADMIN\",\"ver\":0,\"sub\":\"carol\",\"iat\":" + now + ",\"exp\":" + (now + 60) + "}").getBytes());
+
+        assertThrows(SignatureException.class, () -> codec.decode(parts[0] + "." + forged + "." + parts[2]));
+    }
+
+    @Test
+    void decode_tokenSignedWithAnotherKey_throwsSignatureException() {
+        long now = System.currentTimeMillis() / 1000;
+        Hs256TokenCodec other = new Hs256TokenCodec(Keys.hmacShaKeyFor("fedcba9876543210fedcba9876543210".getBytes()), null);
+
+        String token = other.encode("dave", null, null, null, null, now, now + 60);
+
+        assertThrows(SignatureException.class, () -> codec.decode(token));
+    }
+
+    @Test
+    void decode_unknownShapes_returnNullForJjwtFallback() {
+        long now = System.currentTimeMillis() / 1000;
+        Date expiration = new Date((now + 60) * 1000);
+
+        // extra claim
+        assertNull(codec.decode(Jwts.builder().claim("aud", "witw").setSubject("erin").setExpiration(expiration)
+            .signWith(key, SignatureAlgorithm.HS256).compact()));
+        // different header
+        assertNull(codec.decode(Jwts.builder().setHeaderParam("typ", "JWT").setSubject("erin").setExpiration(expiration)
+            .signWith(key, SignatureAlgorithm.HS256).compact()));
+        // escaped characters in the subject
+        assertNull(codec.decode(Jwts.builder().setSubject("er\"in").setExpiration(expiration)
+            .signWith(key, SignatureAlgorithm.HS256).compact()));
+        // not a JWT at all
+        assertNull(codec.decode("not-a-token"));
+    }
+
+    @Test
+    void decode_expiredToken_returnsNullSoJjwtReportsIt() {
+        long now = System.currentTimeMillis() / 1000;
+
+        assertNull(codec.decode(codec.encode("frank", null, null, null, null, now - 120, now - 60)));
+    }
+
+    @Test
+    void encode_subjectNeedingEscapes_returnsNull() {
+        assertNull(codec.encode("gr\"ace", null, null, null, null, 0, 60));
+    }
+}
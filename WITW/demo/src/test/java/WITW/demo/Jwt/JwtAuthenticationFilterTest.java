@@ -10,13 +10,23 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import WITW.demo.User.Role;
+import WITW.demo.User.User;
+
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.time.Instant;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 
@@ -48,14 +58,21 @@ class JwtAuthenticationFilterTest {
     @Mock
     private UserDetails userDetails;
 
+    @Mock
+    private TokenRevocationList revocations;
+
     private AutoCloseable mocks;
+    private TokenVersionRegistry tokenVersions;
+    private SimpleMeterRegistry meterRegistry;
     private JwtAuthenticationFilter filter;
 
     @BeforeEach
     void setUp() {
         mocks = MockitoAnnotations.openMocks(this);
         SecurityContextHolder.clearContext();
-        filter = new JwtAuthenticationFilter(jwtService, userDetailsService);
+        tokenVersions = new TokenVersionRegistry();
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new JwtAuthenticationFilter(jwtService, userDetailsService, tokenVersions, revocations, meterRegistry);
     }
 
     @AfterEach
@@ -78,36 +95,49 @@ class JwtAuthenticationFilterTest {
     @Test
     void doFilterInternal_tokenPresent_butUsernameIsNull_callsChainAndDoesNotAuthenticate() throws ServletException, IOException {
         when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer sometoken");
-        when(jwtService.getUsernameFromToken("sometoken")).thenReturn(null);
+        when(jwtService.verify("sometoken")).thenReturn(new VerifiedToken(null, Instant.now(), Instant.now().plusSeconds(60)));
 
         filter.doFilterInternal(request, response, filterChain);
 
-        verify(jwtService, times(1)).getUsernameFromToken("sometoken");
+        verify(jwtService, times(1)).verify("sometoken");
         verify(filterChain, times(1)).doFilter(request, response);
         assertNull(SecurityContextHolder.getContext().getAuthentication());
         verifyNoMoreInteractions(userDetailsService);
     }
 
+    @Test
+    void doFilterInternal_invalidToken_callsChainAndDoesNotAuthenticate() throws ServletException, IOException {
+        when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer tampered");
+        when(jwtService.verify("tampered")).thenThrow(new MalformedJwtException("bad token"));
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain, times(1)).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userDetailsService);
+        assertEquals(1, attempts("invalid_token"));
+    }
+
     @Test
     void doFilterInternal_tokenPresent_usernamePresent_butAlreadyAuthenticated_skipsAuthentication() throws ServletException, IOException {
         when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer token123");
-        when(jwtService.getUsernameFromToken("token123")).thenReturn("user");
         // Put an existing authentication in the context
         SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("existing", null, null));
 
         filter.doFilterInternal(request, response, filterChain);
 
-        // Should not attempt to load UserDetails or validate token because authentication is non-null
-        verifyNoInteractions(userDetailsService, jwtService); // getUsernameFromToken already stubbed but will not be called due to early check
+        // Should not parse the token nor load UserDetails because authentication is non-null
+        verifyNoInteractions(userDetailsService, jwtService);
         verify(filterChain, times(1)).doFilter(request, response);
     }
 
     @Test
     void doFilterInternal_tokenValid_setsAuthenticationAndCallsChain() throws ServletException, IOException {
+        Instant expiration = Instant.now().plusSeconds(60);
         when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer validtoken");
-        when(jwtService.getUsernameFromToken("validtoken")).thenReturn("alice");
+        when(jwtService.verify("validtoken")).thenReturn(new VerifiedToken("alice", Instant.now(), expiration));
         when(userDetailsService.loadUserByUsername("alice")).thenReturn(userDetails);
-        when(jwtService.isTokenValid("validtoken", userDetails)).thenReturn(true);
+        when(userDetails.getUsername()).thenReturn("alice");
 
         // Provide some values used by WebAuthenticationDetailsSource (optional)
         when(request.getRemoteAddr()).thenReturn("127.0.0.1");
@@ -115,9 +145,10 @@ class JwtAuthenticationFilterTest {
 
         filter.doFilterInternal(request, response, filterChain);
 
-        verify(jwtService, times(1)).getUsernameFromToken("validtoken");
+        // The token is parsed and verified exactly once per request
+        verify(jwtService, times(1)).verify("validtoken");
+        verifyNoMoreInteractions(jwtService);
         verify(userDetailsService, times(1)).loadUserByUsername("alice");
-        verify(jwtService, times(1)).isTokenValid("validtoken", userDetails);
         verify(filterChain, times(1)).doFilter(request, response);
 
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -127,6 +158,139 @@ class JwtAuthenticationFilterTest {
         assertNull(auth.getCredentials());
         // authorities equality is handled by UserDetails mock if needed; at least ensure it's present (not null)
         assertNotNull(auth.getAuthorities());
+        assertEquals(1, attempts("authenticated"));
+        assertEquals(1, meterRegistry.get("witw.auth.filter.stage").tag("stage", "user_lookup").timer().count());
+        // The SSE stream closes itself with the token it was opened with.
+        verify(request).setAttribute(JwtAuthenticationFilter.TOKEN_ATTRIBUTE, "validtoken");
+        verify(request).setAttribute(JwtAuthenticationFilter.TOKEN_EXPIRATION_ATTRIBUTE, expiration);
+    }
+
+    @Test
+    void doFilterInternal_tokenForAnotherUser_doesNotAuthenticate() throws ServletException, IOException {
+        when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer validtoken");
+        when(jwtService.verify("validtoken")).thenReturn(new VerifiedToken("alice", Instant.now(), Instant.now().plusSeconds(60)));
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(userDetails);
+        when(userDetails.getUsername()).thenReturn("mallory");
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain, times(1)).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void doFilterInternal_claimsMode_authenticatesFromClaimsWithoutLoadingUser() throws ServletException, IOException {
+        ReflectionTestUtils.setField(filter, "claimsAuthentication", true);
+        when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer claimstoken");
+        when(jwtService.verify("claimstoken")).thenReturn(claimsToken("alice", 0));
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        verifyNoInteractions(userDetailsService);
+        verify(filterChain, times(1)).doFilter(request, response);
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(auth);
+        User principal = (User) auth.getPrincipal();
+        assertEquals(7, principal.getId());
+        assertEquals("alice", principal.getUsername());
+        assertTrue(auth.getAuthorities().contains(new SimpleGrantedAuthority("CREATOR")));
+    }
+
+    @Test
+    void doFilterInternal_claimsMode_staleVersion_fallsBackToDatabaseAndRejectsOldToken() throws ServletException, IOException {
+        ReflectionTestUtils.setField(filter, "claimsAuthentication", true);
+        tokenVersions.record("alice", 1);
+        when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer oldtoken");
+        when(jwtService.verify("oldtoken")).thenReturn(claimsToken("alice", 0));
+        when(userDetailsService.loadUserByUsername("alice"))
+            .thenReturn(User.builder().id(7).username("alice").role(Role.USER).tokenVersion(1).build());
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        verify(userDetailsService, times(1)).loadUserByUsername("alice");
+        verify(filterChain, times(1)).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1, attempts("stale_token"));
+    }
+
+    @Test
+    void doFilterInternal_claimsMode_unknownRole_isAnInvalidToken() throws ServletException, IOException {
+        ReflectionTestUtils.setField(filter, "claimsAuthentication", true);
+        when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer oddrole");
+        when(jwtService.verify("oddrole"))
+            .thenReturn(new VerifiedToken("alice", Instant.now(), Instant.now().plusSeconds(60), 7, "SUPERUSER", 0));
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain, times(1)).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userDetailsService);
+        assertEquals(1, attempts("invalid_token"));
+    }
+
+    @Test
+    void doFilterInternal_claimsMode_unknownUser_doesNotAuthenticate() throws ServletException, IOException {
+        ReflectionTestUtils.setField(filter, "claimsAuthentication", true);
+        tokenVersions.record("alice", Integer.MAX_VALUE);
+        when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer deleted");
+        when(jwtService.verify("deleted")).thenReturn(claimsToken("alice", 0));
+        when(userDetailsService.loadUserByUsername("alice")).thenThrow(new UsernameNotFoundException("gone"));
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain, times(1)).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertEquals(1, attempts("unknown_user"));
+        assertEquals(0, attempts("authenticated"));
+    }
+
+    @Test
+    void doFilterInternal_revokedToken_doesNotAuthenticate() throws ServletException, IOException {
+        ReflectionTestUtils.setField(filter, "claimsAuthentication", true);
+        when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer loggedout");
+        when(jwtService.verify("loggedout")).thenReturn(claimsToken("alice", 0));
+        when(revocations.isRevoked("loggedout")).thenReturn(true);
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain, times(1)).doFilter(request, response);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userDetailsService);
+        assertEquals(1, attempts("revoked_token"));
+        assertEquals(0, attempts("invalid_token"));
+    }
+
+    @Test
+    void doFilterInternal_streamPath_acceptsTokenFromQueryParameter() throws ServletException, IOException {
+        ReflectionTestUtils.setField(filter, "claimsAuthentication", true);
+        when(request.getServletPath()).thenReturn("/api/v1/stream");
+        when(request.getParameter("access_token")).thenReturn("querytoken");
+        when(jwtService.verify("querytoken")).thenReturn(claimsToken("alice", 0));
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_otherPaths_ignoreTokenInQueryParameter() throws ServletException, IOException {
+        when(request.getServletPath()).thenReturn("/api/v1/events");
+        when(request.getParameter("access_token")).thenReturn("querytoken");
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(jwtService);
+    }
+
+    private static VerifiedToken claimsToken(String username, int tokenVersion) {
+        return new VerifiedToken(username, Instant.now(), Instant.now().plusSeconds(60), 7, "CREATOR", tokenVersion);
+    }
+
+    private double attempts(String outcome) {
+        return meterRegistry.get("witw.auth.filter.attempts").tag("outcome", outcome).counter().count();
     }
 
     @Test
@@ -141,4 +305,4 @@ class JwtAuthenticationFilterTest {
         assertFalse(filter.shouldNotFilter(request));
     }
 
-}
+}
\ No newline at end of file
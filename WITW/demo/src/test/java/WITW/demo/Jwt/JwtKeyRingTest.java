@@ -0,0 +1,109 @@
+package WITW.demo.Jwt;
+
+import static WITW.demo.Jwt.JwtServiceTest.secret;
+import static WITW.demo.Jwt.JwtServiceTest.writeKeys;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.Base64;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JwtKeyRingTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void withoutKeyFile_signsWithLegacyKeyAndNoKidHeader() {
+        JwtKeyRing ring = new JwtKeyRing("", "");
+
+        assertEquals(JwtKeyRing.LEGACY_KID, ring.signingKey().getKid());
+        assertNull(ring.signingKey().getHeaderKid());
+        // tokens issued before the key ring carry no kid and still resolve
+        assertSame(ring.signingKey(), ring.byKid(null));
+        // base64url of {"alg":"HS256"}
+        assertSame(ring.signingKey(), ring.byHeader("eyJhbGciOiJIUzI1NiJ9"));
+    }
+
+    @Test
+    void propertiesFile_loadsAllKeysAndSignsWithConfiguredKid() throws IOException {
+        Path keys = dir.resolve("keys.properties");
+        writeKeys(keys, 1, "signing-kid=b", "key.a=" + secret('a'), "key.b=" + secret('b'));
+
+        JwtKeyRing ring = new JwtKeyRing(keys.toString(), "");
+
+        assertEquals("b", ring.signingKey().getKid());
+        assertNotNull(ring.byKid("a"));
+        assertNull(ring.byKid("c"));
+        assertSame(ring.byKid("a"), ring.byHeader(ring.byKid("a").getCodec().header()));
+    }
+
+    @Test
+    void propertiesFile_signingKidNotInRing_failsAtStartup() throws IOException {
+        Path keys = dir.resolve("keys.properties");
+        writeKeys(keys, 1, "signing-kid=missing", "key.a=" + secret('a'));
+
+        assertThrows(IllegalArgumentException.class, () -> new JwtKeyRing(keys.toString(), ""));
+    }
+
+    @Test
+    void propertiesFile_shortKey_isRejected() throws IOException {
+        Path keys = dir.resolve("keys.properties");
+        writeKeys(keys, 1, "signing-kid=a", "key.a=" + Base64.getEncoder().encodeToString(new byte[16]));
+
+        assertThrows(IllegalArgumentException.class, () -> new JwtKeyRing(keys.toString(), ""));
+    }
+
+    @Test
+    void reload_invalidFile_keepsPreviousKeysAndSkipsListeners() throws IOException {
+        Path keys = dir.resolve("keys.properties");
+        writeKeys(keys, 1, "signing-kid=a", "key.a=" + secret('a'));
+        JwtKeyRing ring = new JwtKeyRing(keys.toString(), "");
+        int[] reloads = {0};
+        ring.addListener(() -> reloads[0]++);
+
+        writeKeys(keys, 2, "signing-kid=b", "key.a=" + secret('a'));
+        ring.reload();
+
+        assertEquals("a", ring.signingKey().getKid());
+        assertEquals(0, reloads[0]);
+
+        writeKeys(keys, 3, "signing-kid=b", "key.a=" + secret('a'), "key.b=" + secret('b'));
+        ring.reload();
+        // an unchanged file is not read again
+        ring.reload();
+
+        assertEquals("b", ring.signingKey().getKid());
+        assertEquals(1, reloads[0]);
+    }
+
+    @Test
+    void keyStore_newestSecretEntrySigns() throws Exception {
+        Path file = dir.resolve("keys.p12");
+        char[] password = "changeit".toCharArray();
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, password);
+        keyStore.setEntry("old", new KeyStore.SecretKeyEntry(new SecretKeySpec(new byte[32], "HmacSHA256")),
+            new KeyStore.PasswordProtection(password));
+        // creation dates have millisecond resolution
+        Thread.sleep(5);
+        keyStore.setEntry("new", new KeyStore.SecretKeyEntry(new SecretKeySpec(new byte[48], "HmacSHA256")),
+            new KeyStore.PasswordProtection(password));
+        try (OutputStream out = Files.newOutputStream(file)) {
+            keyStore.store(out, password);
+        }
+
+        JwtKeyRing ring = new JwtKeyRing(file.toString(), "changeit");
+
+        assertEquals("new", ring.signingKey().getKid());
+        assertNotNull(ring.byKid("old"));
+    }
+}
@@ -3,9 +3,23 @@ package WITW.demo.Jwt;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.security.core.userdetails.UserDetails;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.mockito.Mockito;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import WITW.demo.User.Role;
+import WITW.demo.User.User;
 
 
 
@@ -13,11 +27,15 @@ import org.mockito.Mockito;
 
 public class JwtServiceTest {
 
+    private SimpleMeterRegistry meterRegistry;
+    private JwtKeyRing keyRing;
     private JwtService jwtService;
 
     @BeforeEach
     void setUp() {
-        jwtService = new JwtService();
+        meterRegistry = new SimpleMeterRegistry();
+        keyRing = new JwtKeyRing("", "");
+        jwtService = new JwtService(keyRing, meterRegistry);
     }
 
     @Test
@@ -67,4 +85,134 @@ public class JwtServiceTest {
         assertThrows(JwtException.class, () -> jwtService.getUsernameFromToken(tampered));
     }
 
-}
+    @Test
+    void verify_returnsClaimsOfToken() {
+        UserDetails user = Mockito.mock(UserDetails.class);
+        Mockito.when(user.getUsername()).thenReturn("frank");
+
+        VerifiedToken verified = jwtService.verify(jwtService.getToken(user));
+
+        assertEquals("frank", verified.getUsername());
+        assertNotNull(verified.getIssuedAt());
+        assertTrue(verified.getExpiration().isAfter(verified.getIssuedAt()));
+        assertTrue(verified.isIssuedFor(user));
+    }
+
+    @Test
+    void verify_repeatedToken_isServedFromCache() {
+        UserDetails user = Mockito.mock(UserDetails.class);
+        Mockito.when(user.getUsername()).thenReturn("grace");
+
+        String token = jwtService.getToken(user);
+
+        // the second call must return the very same verified instance, without parsing again
+        assertSame(jwtService.verify(token), jwtService.verify(token));
+    }
+
+    @Test
+    void verify_tamperedToken_isNeverCached() {
+        UserDetails user = Mockito.mock(UserDetails.class);
+        Mockito.when(user.getUsername()).thenReturn("heidi");
+
+        String tampered = jwtService.getToken(user) + "x";
+
+        assertThrows(JwtException.class, () -> jwtService.verify(tampered));
+        assertThrows(JwtException.class, () -> jwtService.verify(tampered));
+    }
+
+    @Test
+    void verify_tokenShapeUnknownToCodec_isVerifiedByJjwt() {
+        // an extra claim sends the token through the jjwt fallback
+        String token = Jwts.builder()
+            .claim("aud", "witw")
+            .setSubject("ivy")
+            .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+            .signWith(keyRing.signingKey().getKey(), SignatureAlgorithm.HS256)
+            .compact();
+
+        assertEquals("ivy", jwtService.verify(token).getUsername());
+        assertEquals(1, meterRegistry.get("witw.jwt.parse").tag("codec", "jjwt").timer().count());
+    }
+
+    @Test
+    void getToken_forApplicationUser_embedsUserClaims() {
+        User user = User.builder().id(42).username("ivan").role(Role.CREATOR).tokenVersion(3).build();
+
+        VerifiedToken verified = jwtService.verify(jwtService.getToken(user));
+
+        assertTrue(verified.hasUserClaims());
+        assertEquals(42, verified.getUserId());
+        assertEquals("CREATOR", verified.getRole());
+        assertEquals(3, verified.getTokenVersion());
+    }
+
+    @Test
+    void verify_recordsSignParseAndVerificationResults() {
+        UserDetails user = Mockito.mock(UserDetails.class);
+        Mockito.when(user.getUsername()).thenReturn("judy");
+
+        String token = jwtService.getToken(user);
+        jwtService.verify(token);
+        jwtService.verify(token);
+        assertThrows(JwtException.class, () -> jwtService.verify(token + "x"));
+
+        assertEquals(1, meterRegistry.get("witw.jwt.sign").timer().count());
+        // only cache misses reach the codec: the valid token once and the tampered one
+        assertEquals(2, meterRegistry.get("witw.jwt.parse").tag("codec", "hs256").timer().count());
+        // the tampered token no longer has the codec's shape and falls back to jjwt
+        assertEquals(1, meterRegistry.get("witw.jwt.parse").tag("codec", "jjwt").timer().count());
+        assertEquals(1, meterRegistry.get("witw.jwt.verifications").tag("result", "verified").counter().count());
+        assertEquals(1, meterRegistry.get("witw.jwt.verifications").tag("result", "cached").counter().count());
+        assertEquals(1, meterRegistry.get("witw.jwt.verifications").tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    void verify_afterRotation_acceptsOldKidUntilItLeavesTheRing(@TempDir Path dir) throws IOException {
+        Path keys = dir.resolve("jwt-keys.properties");
+        writeKeys(keys, 1, "signing-kid=k1", "key.k1=" + secret('1'));
+        JwtKeyRing ring = new JwtKeyRing(keys.toString(), "");
+        JwtService service = new JwtService(ring, meterRegistry);
+        UserDetails user = Mockito.mock(UserDetails.class);
+        Mockito.when(user.getUsername()).thenReturn("kim");
+
+        String oldToken = service.getToken(user);
+        assertEquals("kim", service.verify(oldToken).getUsername());
+
+        // k2 signs from now on, k1 still verifies
+        writeKeys(keys, 2, "signing-kid=k2", "key.k1=" + secret('1'), "key.k2=" + secret('2'));
+        ring.reload();
+        String newToken = service.getToken(user);
+        assertNotEquals(oldToken.substring(0, oldToken.indexOf('.')), newToken.substring(0, newToken.indexOf('.')));
+        assertEquals("kim", service.verify(oldToken).getUsername());
+        assertEquals("kim", service.verify(newToken).getUsername());
+
+        // once k1 is retired its tokens are rejected, even those already in the verified-token cache
+        writeKeys(keys, 3, "signing-kid=k2", "key.k2=" + secret('2'));
+        ring.reload();
+        assertThrows(JwtException.class, () -> service.verify(oldToken));
+        assertEquals("kim", service.verify(newToken).getUsername());
+    }
+
+    @Test
+    void verify_tokenWithoutKid_usesLegacyKeyFromKeyFile(@TempDir Path dir) throws IOException {
+        String legacyToken = jwtService.getToken(User.builder().id(5).username("lee").role(Role.USER).tokenVersion(0).build());
+        Path keys = dir.resolve("jwt-keys.properties");
+        String legacySecret = Base64.getEncoder().encodeToString(keyRing.signingKey().getKey().getEncoded());
+        writeKeys(keys, 1, "signing-kid=k1", "key.k1=" + secret('1'), "key.legacy=" + legacySecret);
+
+        JwtService rotated = new JwtService(new JwtKeyRing(keys.toString(), ""), meterRegistry);
+
+        assertEquals("lee", rotated.verify(legacyToken).getUsername());
+    }
+
+    static String secret(char fill) {
+        return Base64.getEncoder().encodeToString(String.valueOf(fill).repeat(32).getBytes());
+    }
+
+    static void writeKeys(Path file, long version, String... lines) throws IOException {
+        Files.write(file, List.of(lines));
+        // the ring reloads on a new modification time; make it differ regardless of the clock resolution
+        Files.setLastModifiedTime(file, FileTime.fromMillis(version * 1000));
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,141 @@
+package WITW.demo.Jwt;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import WITW.demo.User.Role;
+import WITW.demo.User.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenRevocationListTest {
+
+    @Autowired
+    private RevokedTokenRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final JwtService jwtService = new JwtService(new JwtKeyRing("", ""), new SimpleMeterRegistry());
+    private TokenRevocationList revocations;
+
+    @BeforeEach
+    void setUp() {
+        revocations = node();
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void revoke_takesEffectImmediatelyOnThisNode() {
+        // a second login within the same second gets a distinct token that stays valid
+        String token = token("ana");
+        String other = token("ana");
+
+        revocations.revoke(token, Instant.now().plusSeconds(600));
+
+        assertTrue(revocations.isRevoked(token));
+        assertFalse(revocations.isRevoked(other));
+    }
+
+    @Test
+    void rebuild_picksUpRevocationsFromOtherNodes() {
+        TokenRevocationList otherNode = node();
+        String token = token("bruno");
+
+        otherNode.revoke(token, Instant.now().plusSeconds(600));
+        assertFalse(revocations.isRevoked(token));
+
+        revocations.rebuild();
+        assertTrue(revocations.isRevoked(token));
+    }
+
+    @Test
+    void rebuild_dropsExpiredRevocations() {
+        String expired = token("carla");
+        revocations.revoke(expired, Instant.now().minusSeconds(1));
+
+        TokenRevocationList restarted = node();
+        restarted.rebuild();
+
+        assertFalse(restarted.isRevoked(expired));
+    }
+
+    @Test
+    void revoke_announcesTheRevokedToken() {
+        List<Object> published = new ArrayList<>();
+        TokenRevocationList revocations = new TokenRevocationList(repository, transactionManager, published::add, Duration.ofSeconds(10), 1000);
+        String token = token("fabian");
+
+        revocations.revoke(token, Instant.now().plusSeconds(600));
+
+        assertEquals(List.of(new TokenRevokedEvent(token)), published);
+    }
+
+    @Test
+    void isRevoked_remembersTheExactAnswerUntilTheNextRebuild() {
+        RevokedTokenRepository counting = mock(RevokedTokenRepository.class);
+        String token = token("gabriel");
+        int signature = token.lastIndexOf('.') + 1;
+        String id = token.substring(signature, signature + TokenRevocationList.ID_LENGTH);
+        when(counting.findActiveIds(any())).thenReturn(List.of(id));
+        when(counting.existsById(id)).thenReturn(true);
+        TokenRevocationList other = new TokenRevocationList(counting, transactionManager, event -> { }, Duration.ofSeconds(10), 1000);
+        other.rebuild();
+
+        assertTrue(other.isRevoked(token));
+        assertTrue(other.isRevoked(token));
+        verify(counting, times(1)).existsById(id);
+    }
+
+    @Test
+    void prune_deletesOnlyExpiredEntries() {
+        revocations.revoke(token("dario"), Instant.now().minusSeconds(1));
+        revocations.revoke(token("elena"), Instant.now().plusSeconds(600));
+
+        revocations.prune();
+
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void isRevoked_manyTokens_keepsFalsePositivesLowAndResolvesThemExactly() {
+        TokenRevocationList small = new TokenRevocationList(repository, transactionManager, event -> { }, Duration.ofSeconds(10), 100);
+        for (int i = 0; i < 100; i++) {
+            small.revoke(token("user" + i), Instant.now().plusSeconds(600));
+        }
+
+        // the exact check turns every Bloom false positive into a "not revoked"
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(small.isRevoked(token("other" + i)));
+        }
+    }
+
+    private TokenRevocationList node() {
+        return new TokenRevocationList(repository, transactionManager, event -> { }, Duration.ofSeconds(10), 1000);
+    }
+
+    private String token(String username) {
+        return jwtService.getToken(User.builder().id(1).username(username).role(Role.USER).tokenVersion(0).build());
+    }
+}
@@ -0,0 +1,163 @@
+package WITW.demo.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import WITW.demo.Event.EventIndexChangedEvent;
+import WITW.demo.Event.EventSpatialIndex;
+import WITW.demo.Event.IndexedEvent;
+import WITW.demo.Geo.BoundingBox;
+
+class ClusterServiceTest {
+
+    private static final LocalDateTime NEXT_WEEK = LocalDateTime.now().plusWeeks(1);
+    private static final BoundingBox SANTIAGO = BoundingBox.of(-33.7, -70.9, -33.2, -70.4);
+    private static final BoundingBox CHILE = BoundingBox.of(-56, -76, -17, -66);
+
+    private EventSpatialIndex index;
+    private ClusterService clusterService;
+
+    @BeforeEach
+    void setUp() {
+        index = spy(new EventSpatialIndex(null, event -> { }));
+        clusterService = new ClusterService(index);
+    }
+
+    private static int total(List<Cluster> clusters) {
+        return clusters.stream().mapToInt(Cluster::getCount).sum();
+    }
+
+    @Test
+    void clusters_lowZoomMergesNearbyEvents() {
+        index.upsert(new IndexedEvent(1L, "A", -33.45, -70.65, NEXT_WEEK));
+        index.upsert(new IndexedEvent(2L, "B", -33.44, -70.64, NEXT_WEEK.plusDays(1)));
+        index.upsert(new IndexedEvent(3L, "C", -33.46, -70.66, NEXT_WEEK.minusDays(1)));
+
+        List<Cluster> clusters = clusterService.clusters(CHILE, 4);
+
+        assertEquals(1, clusters.size());
+        Cluster cluster = clusters.get(0);
+        assertEquals(3, cluster.getCount());
+        assertEquals(-33.45, cluster.getLatitude(), 1e-9);
+        assertEquals(-70.65, cluster.getLongitude(), 1e-9);
+        assertEquals(3L, cluster.getTopEvent().getId());
+    }
+
+    @Test
+    void clusters_highZoomSeparatesDistantEvents() {
+        index.upsert(new IndexedEvent(1L, "Centro", -33.44, -70.65, NEXT_WEEK));
+        index.upsert(new IndexedEvent(2L, "Maipú", -33.51, -70.76, NEXT_WEEK));
+
+        List<Cluster> clusters = clusterService.clusters(SANTIAGO, 12);
+
+        assertEquals(2, clusters.size());
+        assertEquals(2, total(clusters));
+    }
+
+    @Test
+    void clusters_prefersUpcomingEventOverPastOne() {
+        index.upsert(new IndexedEvent(1L, "Pasado", -33.45, -70.65, LocalDateTime.now().minusDays(1)));
+        index.upsert(new IndexedEvent(2L, "Próximo", -33.45, -70.65, NEXT_WEEK.plusMonths(1)));
+
+        assertEquals(2L, clusterService.clusters(CHILE, 4).get(0).getTopEvent().getId());
+    }
+
+    @Test
+    void clusters_countsEachEventOnceAcrossTiles() {
+        for (long id = 1; id <= 200; id++) {
+            index.upsert(new IndexedEvent(id, "E" + id, -56 + id * 0.19, -76 + (id % 10), NEXT_WEEK));
+        }
+
+        assertEquals(200, total(clusterService.clusters(CHILE, 6)));
+    }
+
+    @Test
+    void clusters_reusesCachedTiles() {
+        index.upsert(new IndexedEvent(1L, "A", -33.45, -70.65, NEXT_WEEK));
+
+        clusterService.clusters(SANTIAGO, 10);
+        clearInvocations(index);
+        clusterService.clusters(SANTIAGO, 10);
+
+        verify(index, never()).query(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void onIndexChanged_invalidatesTilesOfPreviousAndCurrentPosition() {
+        IndexedEvent before = new IndexedEvent(1L, "A", -33.45, -70.65, NEXT_WEEK);
+        index.upsert(before);
+        assertEquals(1, total(clusterService.clusters(SANTIAGO, 11)));
+
+        IndexedEvent after = new IndexedEvent(1L, "A", -34.39, -72.00, NEXT_WEEK);
+        index.upsert(after);
+        clusterService.onIndexChanged(new EventIndexChangedEvent(before, after));
+
+        assertEquals(0, total(clusterService.clusters(SANTIAGO, 11)));
+        assertEquals(1, total(clusterService.clusters(CHILE, 3)));
+    }
+
+    @Test
+    void onIndexChanged_sameCell_refreshesTileInBackground() {
+        IndexedEvent before = new IndexedEvent(1L, "A", -33.45, -70.65, NEXT_WEEK);
+        index.upsert(before);
+        clusterService.clusters(SANTIAGO, 11);
+
+        IndexedEvent after = new IndexedEvent(1L, "A renamed", -33.451, -70.651, NEXT_WEEK);
+        index.upsert(after);
+        clusterService.onIndexChanged(new EventIndexChangedEvent(before, after));
+        clearInvocations(index);
+
+        assertEquals("A", clusterService.clusters(SANTIAGO, 11).get(0).getTopEvent().getName());
+        verify(index, never()).query(any(), any(), any(), anyInt());
+
+        clusterService.refreshStaleTiles();
+
+        Cluster cluster = clusterService.clusters(SANTIAGO, 11).get(0);
+        assertEquals("A renamed", cluster.getTopEvent().getName());
+        assertEquals(-33.451, cluster.getLatitude(), 1e-9);
+    }
+
+    @Test
+    void onIndexChanged_lowZoom_refreshesTileInBackground_highZoomInvalidatesAtOnce() {
+        index.upsert(new IndexedEvent(1L, "A", -33.45, -70.65, NEXT_WEEK));
+        assertEquals(1, total(clusterService.clusters(CHILE, 3)));
+        assertEquals(1, total(clusterService.clusters(SANTIAGO, 11)));
+
+        IndexedEvent added = new IndexedEvent(2L, "B", -33.44, -70.64, NEXT_WEEK);
+        index.upsert(added);
+        clusterService.onIndexChanged(new EventIndexChangedEvent(null, added));
+
+        assertEquals(1, total(clusterService.clusters(CHILE, 3)));
+        assertEquals(2, total(clusterService.clusters(SANTIAGO, 11)));
+
+        clusterService.refreshStaleTiles();
+
+        assertEquals(2, total(clusterService.clusters(CHILE, 3)));
+    }
+
+    @Test
+    void clusters_withoutInvalidation_servesCachedTile() {
+        index.upsert(new IndexedEvent(1L, "A", -33.45, -70.65, NEXT_WEEK));
+        assertEquals(1, total(clusterService.clusters(SANTIAGO, 11)));
+
+        index.remove(1L);
+
+        assertEquals(1, total(clusterService.clusters(SANTIAGO, 11)));
+    }
+
+    @Test
+    void clusters_rejectsTooManyTilesAndInvalidZoom() {
+        assertThrows(ResponseStatusException.class, () -> clusterService.clusters(CHILE, 14));
+        assertThrows(ResponseStatusException.class, () -> clusterService.clusters(SANTIAGO, 19));
+        assertThrows(ResponseStatusException.class, () -> clusterService.clusters(SANTIAGO, -1));
+    }
+}
@@ -0,0 +1,60 @@
+package WITW.demo.Metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+
+class StatementCountFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HibernateStatementCounter counter = new HibernateStatementCounter();
+    private final StatementCountFilter filter = new StatementCountFilter(meterRegistry, 25);
+
+    @Test
+    void doFilter_recordsStatementsPerRequestByUriPattern() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/events/7/comments");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            counter.inspect("select 1");
+            counter.inspect("select 2");
+            counter.inspect("select 3");
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/events/{id}/comments");
+        });
+
+        DistributionSummary statements = meterRegistry.get("witw.http.statements")
+            .tag("method", "GET")
+            .tag("uri", "/api/v1/events/{id}/comments")
+            .summary();
+        assertEquals(1, statements.count());
+        assertEquals(3, statements.totalAmount());
+    }
+
+    @Test
+    void doFilter_sameEndpoint_accumulatesInOneSummary() throws ServletException, IOException {
+        for (int i = 0; i < 2; i++) {
+            filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/events/" + i), new MockHttpServletResponse(), (req, res) -> {
+                counter.inspect("select 1");
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v1/events/{id}");
+            });
+        }
+
+        assertEquals(1, meterRegistry.find("witw.http.statements").summaries().size());
+        assertEquals(2, meterRegistry.get("witw.http.statements").tag("uri", "/api/v1/events/{id}").summary().count());
+    }
+
+    @Test
+    void inspect_outsideRequest_isNotCounted() {
+        counter.inspect("insert into comment values (?)");
+
+        assertEquals(0, HibernateStatementCounter.stop());
+    }
+}
@@ -0,0 +1,68 @@
+package WITW.demo.RateLimit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+
+class RateLimitFilterTest {
+
+    private final RateLimitFilter filter = new RateLimitFilter(
+        new RateLimits(true, "2/PT1M", "", "1/PT10M", "", 1000, new SimpleMeterRegistry()));
+
+    @Test
+    void loginFlood_fromOneAddress_isRejectedWithRetryAfter() throws ServletException, IOException {
+        assertEquals(200, send("/auth/login", "10.0.0.1").getStatus());
+        assertEquals(200, send("/auth/login", "10.0.0.1").getStatus());
+
+        MockHttpServletResponse rejected = send("/auth/login", "10.0.0.1");
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("30", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(200, send("/auth/login", "10.0.0.2").getStatus());
+    }
+
+    @Test
+    void routes_haveSeparateLimits() throws ServletException, IOException {
+        assertEquals(200, send("/auth/register", "10.0.0.1").getStatus());
+        assertEquals(429, send("/auth/register", "10.0.0.1").getStatus());
+
+        // login still has its own tokens and the API has no limit configured
+        assertEquals(200, send("/auth/login", "10.0.0.1").getStatus());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, send("/api/v1/events", "10.0.0.1").getStatus());
+        }
+    }
+
+    @Test
+    void disabled_admitsEverything() throws ServletException, IOException {
+        RateLimitFilter disabled = new RateLimitFilter(
+            new RateLimits(false, "1/PT1M", "1/PT1M", "1/PT1M", "1/PT1M", 1000, new SimpleMeterRegistry()));
+
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            disabled.doFilter(request("/auth/login", "10.0.0.1"), response, (req, res) -> { });
+            assertEquals(200, response.getStatus());
+        }
+    }
+
+    private MockHttpServletResponse send(String path, String address) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(path, address), response, (req, res) -> { });
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path, String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setServletPath(path);
+        request.setRemoteAddr(address);
+        return request;
+    }
+}
@@ -0,0 +1,79 @@
+package WITW.demo.RateLimit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TokenBucketLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TokenBucketLimiter limiter = new TokenBucketLimiter("test", "3/PT3S", 100, now::get, meterRegistry);
+
+    @Test
+    void tryAcquire_admitsBurstUpToCapacity_thenReportsWaitForNextToken() {
+        assertEquals(0, limiter.tryAcquire("1.2.3.4"));
+        assertEquals(0, limiter.tryAcquire("1.2.3.4"));
+        assertEquals(0, limiter.tryAcquire("1.2.3.4"));
+
+        assertEquals(Duration.ofSeconds(1).toNanos(), limiter.tryAcquire("1.2.3.4"));
+        assertEquals(1, meterRegistry.get("witw.ratelimit.rejected").tag("limit", "test").counter().count());
+    }
+
+    @Test
+    void tryAcquire_refillsOneTokenPerInterval() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("1.2.3.4");
+        }
+
+        now.addAndGet(Duration.ofMillis(1500).toNanos());
+
+        assertEquals(0, limiter.tryAcquire("1.2.3.4"));
+        assertEquals(Duration.ofMillis(500).toNanos(), limiter.tryAcquire("1.2.3.4"));
+    }
+
+    @Test
+    void tryAcquire_rejectedRequestsDoNotConsumeTokens() {
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("1.2.3.4");
+        }
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+
+        assertEquals(0, limiter.tryAcquire("1.2.3.4"));
+    }
+
+    @Test
+    void tryAcquire_keysHaveIndependentBuckets() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("1.2.3.4");
+        }
+
+        assertEquals(0, limiter.tryAcquire("5.6.7.8"));
+    }
+
+    @Test
+    void idleBuckets_areEvictedOnceFull() {
+        limiter.tryAcquire("1.2.3.4");
+        limiter.tryAcquire("5.6.7.8");
+        assertEquals(2, limiter.estimatedSize());
+
+        now.addAndGet(Duration.ofSeconds(3).toNanos());
+
+        assertEquals(0, limiter.estimatedSize());
+        assertEquals(0, limiter.tryAcquire("1.2.3.4"));
+    }
+
+    @Test
+    void constructor_invalidSpec_isRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new TokenBucketLimiter("bad", "20", 100, now::get, meterRegistry));
+        assertThrows(IllegalArgumentException.class,
+            () -> new TokenBucketLimiter("bad", "0/PT1M", 100, now::get, meterRegistry));
+    }
+}
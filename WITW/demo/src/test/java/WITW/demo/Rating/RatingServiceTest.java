@@ -0,0 +1,192 @@
+package WITW.demo.Rating;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import WITW.demo.Event.Event;
+import WITW.demo.Event.EventRepository;
+import WITW.demo.Geo.GeoHash;
+import WITW.demo.User.User;
+
+@DataJpaTest(properties = {"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "witw.ratings.prior-mean=3", "witw.ratings.prior-weight=2"})
+@Import(RatingService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RatingServiceTest {
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Autowired
+    private EventRatingRepository eventRatingRepository;
+
+    @Autowired
+    private RatingPriorRepository ratingPriorRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        ratingRepository.deleteAll();
+        eventRatingRepository.deleteAll();
+        ratingPriorRepository.deleteAll();
+        eventRepository.deleteAll();
+    }
+
+    private Long event(String name, double lat, double lon) {
+        return eventRepository.save(Event.builder()
+            .name(name)
+            .startsAt(LocalDateTime.now().plusDays(1))
+            .capacity(10)
+            .latitude(lat)
+            .longitude(lon)
+            .geohash(GeoHash.encode(lat, lon, GeoHash.MAX_PRECISION))
+            .build()).getId();
+    }
+
+    private static User user(int id) {
+        return User.builder().id(id).username("user" + id).build();
+    }
+
+    @Test
+    void rate_changeAndRemove_keepTheAggregateInStep() {
+        Long eventId = event("Feria", -33.45, -70.66);
+
+        ratingService.rate(eventId, 5, user(1));
+        ratingService.rate(eventId, 4, user(2));
+        ratingService.rate(eventId, 1, user(3));
+        ratingService.rate(eventId, 2, user(3));
+        RatingResponse response = ratingService.rate(eventId, 2, user(3));
+
+        assertEquals(3, response.getRatingCount());
+        assertEquals(11.0 / 3, response.getAverage(), 1e-9);
+        assertArrayEquals(new long[] {0, 1, 0, 1, 1}, response.getHistogram());
+        // (prior mean 3 * weight 2 + sum 11) / (weight 2 + count 3)
+        assertEquals(17.0 / 5, response.getScore(), 1e-9);
+        assertEquals(2, response.getMyStars());
+
+        RatingResponse removed = ratingService.remove(eventId, user(1));
+
+        assertEquals(2, removed.getRatingCount());
+        assertArrayEquals(new long[] {0, 1, 0, 1, 0}, removed.getHistogram());
+        assertEquals(12.0 / 4, removed.getScore(), 1e-9);
+        assertNull(removed.getMyStars());
+        assertEquals(2, ratingRepository.count());
+    }
+
+    @Test
+    void get_withoutRatings_returnsThePrior() {
+        Long eventId = event("Sin valorar", -33.45, -70.66);
+
+        RatingResponse response = ratingService.get(eventId, user(1));
+
+        assertEquals(0, response.getRatingCount());
+        assertNull(response.getAverage());
+        assertEquals(3, response.getScore());
+    }
+
+    @Test
+    void rate_invalidStarsOrUnknownEvent_isRejected() {
+        Long eventId = event("Feria", -33.45, -70.66);
+
+        assertEquals(HttpStatus.BAD_REQUEST,
+            assertThrows(ResponseStatusException.class, () -> ratingService.rate(eventId, 6, user(1))).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND,
+            assertThrows(ResponseStatusException.class, () -> ratingService.rate(404L, 3, user(1))).getStatusCode());
+    }
+
+    @Test
+    void concurrentRatings_areAllCounted() throws Exception {
+        final int users = 64;
+        Long eventId = event("Concurrido", -33.45, -70.66);
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                final int id = i;
+                // Every user rates twice at once: the second call is a change, never a second rating.
+                futures.add(executor.submit(() -> ratingService.rate(eventId, 1 + id % 5, user(id))));
+                futures.add(executor.submit(() -> ratingService.rate(eventId, 1 + id % 5, user(id))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        RatingResponse response = ratingService.get(eventId, null);
+        assertEquals(users, response.getRatingCount());
+        assertEquals(users, ratingRepository.count());
+        assertArrayEquals(new long[] {13, 13, 13, 13, 12}, response.getHistogram());
+    }
+
+    @Test
+    void rescore_onlyRecalculatesWhenThePriorChanged() {
+        Long eventId = event("Feria", -33.45, -70.66);
+        ratingService.rate(eventId, 5, user(1));
+        ratingService.rescore();
+        // Puntajes desalineados a propósito para ver si rescore los toca.
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> eventRatingRepository.rescore(0, 1));
+
+        ratingService.rescore();
+
+        assertEquals(2.5, ratingService.get(eventId, null).getScore(), 1e-9);
+
+        ratingPriorRepository.save(new RatingPrior(RatingPrior.ID, 3.5, 2));
+        ratingService.rescore();
+
+        // (prior mean 3 * weight 2 + sum 5) / (weight 2 + count 1)
+        assertEquals(11.0 / 3, ratingService.get(eventId, null).getScore(), 1e-9);
+        RatingPrior applied = ratingPriorRepository.findById(RatingPrior.ID).orElseThrow();
+        assertEquals(3, applied.getMean());
+        assertEquals(2, applied.getWeight());
+    }
+
+    @Test
+    void topRated_ordersByScoreWithinTheRadius() {
+        Long good = event("Bueno", -33.45, -70.66);
+        Long better = event("Mejor", -33.50, -70.60);
+        Long far = event("Lejos", -33.05, -71.62);
+        Long unrated = event("Sin valorar", -33.46, -70.65);
+        for (int i = 0; i < 5; i++) {
+            ratingService.rate(good, 4, user(i));
+            ratingService.rate(better, 5, user(i));
+            ratingService.rate(far, 5, user(i));
+        }
+
+        List<TopRatedEvent> top = ratingService.topRated(-33.45, -70.66, 20, 10);
+
+        assertEquals(List.of(better, good), top.stream().map(TopRatedEvent::getEventId).toList());
+        assertEquals("Mejor", top.get(0).getName());
+        assertTrue(top.get(0).getDistanceKm() < 20);
+        assertFalse(top.stream().anyMatch(e -> e.getEventId().equals(unrated)));
+    }
+}
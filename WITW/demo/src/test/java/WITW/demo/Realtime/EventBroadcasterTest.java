@@ -0,0 +1,236 @@
+package WITW.demo.Realtime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import WITW.demo.Comment.Comment;
+import WITW.demo.Comment.CommentChangedEvent;
+import WITW.demo.Event.EventIndexChangedEvent;
+import WITW.demo.Event.EventSpatialIndex;
+import WITW.demo.Event.IndexedEvent;
+import WITW.demo.Jwt.TokenRevocationList;
+import WITW.demo.Jwt.TokenRevokedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EventBroadcasterTest {
+
+    // Santiago is in geohash cell "66jc"; Puerto Montt is in "62sh".
+    private static final IndexedEvent SANTIAGO = new IndexedEvent(1L, "Feria", -33.45, -70.65, LocalDateTime.of(2026, 1, 20, 11, 0));
+    private static final IndexedEvent PUERTO_MONTT = new IndexedEvent(1L, "Feria", -41.47, -72.94, LocalDateTime.of(2026, 1, 20, 11, 0));
+
+    private EventSpatialIndex spatialIndex;
+    private TokenRevocationList revocations;
+    private SimpleMeterRegistry meterRegistry;
+    private EventBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        spatialIndex = mock(EventSpatialIndex.class);
+        meterRegistry = new SimpleMeterRegistry();
+        revocations = mock(TokenRevocationList.class);
+        broadcaster = new EventBroadcaster(new ObjectMapper().findAndRegisterModules(), spatialIndex, revocations, meterRegistry,
+            4, Duration.ofMinutes(1), Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.destroy();
+    }
+
+    /** Captures what would be written to the connection. */
+    static class RecordingEmitter extends SseEmitter {
+        final List<String> frames = new CopyOnWriteArrayList<>();
+        volatile CountDownLatch release = new CountDownLatch(0);
+        volatile boolean completed;
+
+        @Override
+        public void send(Set<DataWithMediaType> items) throws IOException {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            frames.add(items.stream().map(item -> item.getData().toString()).collect(Collectors.joining()));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        List<String> events() {
+            return frames.stream().filter(frame -> frame.startsWith("event:")).toList();
+        }
+    }
+
+    private static void await(RecordingEmitter emitter, int frames) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (emitter.frames.size() < frames && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void changes_areSentOnlyToSubscribersOfTheContainingCells() throws Exception {
+        RecordingEmitter santiago = new RecordingEmitter();
+        RecordingEmitter chile = new RecordingEmitter();
+        RecordingEmitter elsewhere = new RecordingEmitter();
+        broadcaster.attach(santiago, List.of("66jc"), null);
+        broadcaster.attach(chile, List.of("66", "62"), null);
+        broadcaster.attach(elsewhere, List.of("u09t"), null);
+
+        broadcaster.onIndexChanged(new EventIndexChangedEvent(null, SANTIAGO));
+
+        await(santiago, 2);
+        await(chile, 2);
+        assertEquals(2, santiago.frames.size());
+        assertTrue(santiago.frames.get(1).startsWith("event:event\ndata:{\"id\":1,\"name\":\"Feria\""));
+        assertEquals(santiago.frames.get(1), chile.frames.get(1));
+        assertEquals(1, elsewhere.frames.size());
+    }
+
+    @Test
+    void movedEvent_notifiesOldAndNewCells() throws Exception {
+        RecordingEmitter santiago = new RecordingEmitter();
+        RecordingEmitter puertoMontt = new RecordingEmitter();
+        broadcaster.attach(santiago, List.of("66jc"), null);
+        broadcaster.attach(puertoMontt, List.of("62sh"), null);
+
+        broadcaster.onIndexChanged(new EventIndexChangedEvent(SANTIAGO, PUERTO_MONTT));
+
+        await(santiago, 2);
+        await(puertoMontt, 2);
+        assertEquals(2, santiago.events().size());
+        assertEquals(2, puertoMontt.events().size());
+    }
+
+    @Test
+    void comments_areRoutedByTheEventPosition() throws Exception {
+        when(spatialIndex.get(1L)).thenReturn(SANTIAGO);
+        RecordingEmitter santiago = new RecordingEmitter();
+        broadcaster.attach(santiago, List.of("66j"), null);
+
+        broadcaster.onCommentChanged(new CommentChangedEvent(Comment.builder()
+            .id(UUID.randomUUID()).eventId(1L).userId(2).username("bruno").text("Voy").createdAt(LocalDateTime.now())
+            .build()));
+
+        await(santiago, 2);
+        assertTrue(santiago.frames.get(1).startsWith("event:comment\n"));
+    }
+
+    @Test
+    void slowSubscriber_isDisconnectedWithoutBlockingOthers() throws Exception {
+        RecordingEmitter slow = new RecordingEmitter();
+        slow.release = new CountDownLatch(1);
+        RecordingEmitter fast = new RecordingEmitter();
+        broadcaster.attach(slow, List.of("66jc"), null);
+        broadcaster.attach(fast, List.of("66jc"), null);
+
+        // The slow writer is stuck on its first frame; its queue holds 4 more before overflowing.
+        // The fast client keeps up, so publishing never waits for either of them.
+        for (int i = 0; i < 10; i++) {
+            broadcaster.onIndexChanged(new EventIndexChangedEvent(null, SANTIAGO));
+            await(fast, i + 2);
+        }
+
+        assertEquals(11, fast.frames.size());
+        assertTrue(slow.completed);
+        assertEquals(1, broadcaster.subscriberCount());
+        assertEquals(1, meterRegistry.counter("witw.stream.dropped").count());
+        slow.release.countDown();
+    }
+
+    @Test
+    void stalledSubscribers_doNotDelayTheOthers() throws Exception {
+        // More stalled connections than any fixed writer pool this used to run on.
+        List<RecordingEmitter> stalled = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            RecordingEmitter emitter = new RecordingEmitter();
+            emitter.release = new CountDownLatch(1);
+            stalled.add(emitter);
+            broadcaster.attach(emitter, List.of("66jc"), null);
+        }
+        RecordingEmitter healthy = new RecordingEmitter();
+        broadcaster.attach(healthy, List.of("66jc"), null);
+
+        // Within every stalled queue's capacity, so nobody is dropped: they are just stuck in send.
+        for (int i = 0; i < 3; i++) {
+            broadcaster.onIndexChanged(new EventIndexChangedEvent(null, SANTIAGO));
+        }
+
+        await(healthy, 4);
+        assertEquals(4, healthy.frames.size());
+        assertEquals(3, healthy.frames.stream().filter(frame -> frame.startsWith("event:event\n")).count());
+        assertEquals(17, broadcaster.subscriberCount());
+        assertTrue(stalled.stream().allMatch(emitter -> emitter.frames.isEmpty()));
+        stalled.forEach(emitter -> emitter.release.countDown());
+    }
+
+    @Test
+    void subscribe_rejectsInvalidCells() {
+        Instant expiration = Instant.now().plusSeconds(60);
+
+        assertThrows(IllegalArgumentException.class, () -> broadcaster.subscribe(List.of(), "token", expiration));
+        assertThrows(IllegalArgumentException.class, () -> broadcaster.subscribe(List.of("6"), "token", expiration));
+        assertThrows(IllegalArgumentException.class, () -> broadcaster.subscribe(List.of("66jcaa"), "token", expiration));
+        assertThrows(IllegalArgumentException.class, () -> broadcaster.subscribe(List.of("66ai"), "token", expiration));
+    }
+
+    @Test
+    void subscribe_endsTheStreamWhenTheTokenExpires() {
+        SseEmitter expiringSoon = broadcaster.subscribe(List.of("66jc"), "token", Instant.now().plusSeconds(5));
+        SseEmitter longLived = broadcaster.subscribe(List.of("66jc"), "other", Instant.now().plusSeconds(3600));
+
+        assertTrue(expiringSoon.getTimeout() <= 5000);
+        assertEquals(Duration.ofMinutes(1).toMillis(), longLived.getTimeout());
+    }
+
+    @Test
+    void revokingAToken_closesOnlyItsStreams() {
+        RecordingEmitter revoked = new RecordingEmitter();
+        RecordingEmitter other = new RecordingEmitter();
+        broadcaster.attach(revoked, List.of("66jc"), "revoked-token");
+        broadcaster.attach(other, List.of("66jc"), "other-token");
+
+        broadcaster.onTokenRevoked(new TokenRevokedEvent("revoked-token"));
+
+        assertTrue(revoked.completed);
+        assertFalse(other.completed);
+        assertEquals(1, broadcaster.subscriberCount());
+    }
+
+    @Test
+    void heartbeat_closesStreamsWhoseTokenWasRevokedOnAnotherNode() {
+        RecordingEmitter revoked = new RecordingEmitter();
+        RecordingEmitter other = new RecordingEmitter();
+        broadcaster.attach(revoked, List.of("66jc"), "revoked-token");
+        broadcaster.attach(other, List.of("66jc"), "other-token");
+        when(revocations.isRevoked("revoked-token")).thenReturn(true);
+
+        broadcaster.heartbeat();
+
+        assertTrue(revoked.completed);
+        assertFalse(other.completed);
+        assertEquals(1, broadcaster.subscriberCount());
+    }
+}
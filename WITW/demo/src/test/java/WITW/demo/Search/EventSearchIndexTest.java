@@ -0,0 +1,189 @@
+package WITW.demo.Search;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import WITW.demo.Event.Event;
+import WITW.demo.Event.EventChangedEvent;
+import WITW.demo.Event.EventRepository;
+import WITW.demo.Event.EventSpatialIndex;
+import WITW.demo.Event.IndexedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EventSearchIndexTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 11, 15, 9, 0);
+
+    private EventRepository eventRepository;
+    private EventSpatialIndex spatialIndex;
+    private EventSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        eventRepository = mock(EventRepository.class);
+        spatialIndex = new EventSpatialIndex(eventRepository, event -> { });
+        index = new EventSearchIndex(eventRepository, spatialIndex, new SimpleMeterRegistry());
+    }
+
+    private Event save(long id, String name, String place, String description, double lat, double lon) {
+        Event event = Event.builder()
+            .id(id)
+            .name(name)
+            .place(place)
+            .description(description)
+            .startsAt(START)
+            .capacity(10)
+            .latitude(lat)
+            .longitude(lon)
+            .build();
+        spatialIndex.onEventChanged(new EventChangedEvent(event, false));
+        index.onEventChanged(new EventChangedEvent(event, false));
+        return event;
+    }
+
+    private Event save(long id, String name, String description) {
+        return save(id, name, "Santiago", description, -33.45, -70.66);
+    }
+
+    private List<Long> search(String query) {
+        return index.search(query, null, null, 0, 20).stream().map(SearchHit::getEventId).toList();
+    }
+
+    @Test
+    void search_ignoresAccentsAndCase() {
+        save(1, "Festival de Música", "Bandas en vivo");
+        save(2, "Feria del Libro", "Ñuñoa lee");
+
+        assertEquals(List.of(1L), search("MUSICA "));
+        assertEquals(List.of(1L), search("música "));
+        assertEquals(List.of(2L), search("nunoa "));
+    }
+
+    @Test
+    void search_lastWordWhileTyping_matchesAsPrefix() {
+        save(1, "Concierto sinfónico", "Orquesta");
+        save(2, "Concurso de cocina", "Chefs");
+        save(3, "Feria", "Artesanía");
+
+        assertEquals(List.of(1L, 2L), search("conc").stream().sorted().toList());
+        assertEquals(List.of(1L), search("concie"));
+        // A finished word (followed by a space) must match exactly.
+        assertEquals(List.of(), search("conc "));
+        // Single letters are too broad to expand.
+        assertEquals(List.of(), search("c"));
+    }
+
+    @Test
+    void search_prefixWithTooManyTerms_keepsTheMostFrequentOnes() {
+        // More rare terms than the expansion cap, all sorting before "coro".
+        for (int i = 0; i < EventSearchIndex.MAX_EXPANSIONS; i++) {
+            save(i + 1, "Taller coa" + i, "Manualidades");
+        }
+        save(101, "Fiesta coro", "Canto");
+        save(102, "Fiesta coro", "Canto");
+
+        assertEquals(List.of(101L, 102L), search("fiesta co").stream().sorted().toList());
+    }
+
+    @Test
+    void search_requiresEveryWord_andRanksNameAboveDescription() {
+        save(1, "Taller abierto", "Jazz para principiantes");
+        save(2, "Noche de jazz", "Taller de improvisación");
+        save(3, "Noche de rock", "Bandas locales");
+
+        assertEquals(List.of(2L, 1L), search("jazz "));
+        assertEquals(List.of(2L), search("noche jazz "));
+        assertEquals(List.of(), search("rock jazz "));
+        // Stop words alone never match everything.
+        assertEquals(List.of(), search("de la "));
+    }
+
+    @Test
+    void search_followsUpdatesAndDeletes() {
+        Event event = save(1, "Cine al aire libre", "Películas clásicas");
+
+        event.setName("Teatro al aire libre");
+        index.onEventChanged(new EventChangedEvent(event, false));
+
+        assertEquals(List.of(), search("cine "));
+        assertEquals(List.of(1L), search("teatro "));
+
+        index.onEventChanged(new EventChangedEvent(event, true));
+
+        assertEquals(List.of(), search("teatro "));
+    }
+
+    @Test
+    void search_withLocation_keepsOnlyEventsInsideTheRadius() {
+        save(1, "Feria costumbrista", "Centro", "Comida típica", -33.45, -70.66);
+        save(2, "Feria costumbrista", "Viña", "Comida típica", -33.02, -71.55);
+
+        List<SearchHit> hits = index.search("feria ", -33.45, -70.66, 20, 20);
+
+        assertEquals(List.of(1L), hits.stream().map(SearchHit::getEventId).toList());
+        assertTrue(hits.get(0).getDistanceKm() < 1);
+        assertThrows(ResponseStatusException.class, () -> index.search("feria", -33.45, null, 20, 20));
+    }
+
+    @Test
+    void compaction_afterManyUpdates_keepsResultsAndShrinksPostings() {
+        save(1, "Mercado de pulgas", "Antigüedades");
+        Event busy = save(2, "Feria", "Versión 0");
+        for (int i = 1; i <= 3000; i++) {
+            busy.setDescription("Versión " + i);
+            index.onEventChanged(new EventChangedEvent(busy, false));
+        }
+
+        assertEquals(List.of(2L), search("feria "));
+        assertEquals(List.of(2L), search("version 3000 "));
+        assertEquals(List.of(), search("version 2999 "));
+        assertEquals(List.of(1L), search("pulgas "));
+    }
+
+    @Test
+    void rebuild_indexesEveryPage() {
+        List<SearchableEvent> first = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            first.add(new SearchableEvent(id, "Evento " + id, null, null));
+            spatialIndex.upsert(new IndexedEvent(id, "Evento " + id, -33.45, -70.66, START));
+        }
+        when(eventRepository.findSearchable(eq(0L), any())).thenReturn(first);
+        when(eventRepository.findSearchable(eq(1000L), any()))
+            .thenReturn(List.of(new SearchableEvent(1001L, "Último evento", null, "Cierre")));
+        save(1001, "Último evento", "Cierre");
+
+        index.rebuild();
+
+        assertEquals(List.of(1001L), search("ultimo "));
+        assertEquals(20, search("evento ").size());
+    }
+
+    @Test
+    void postingList_roundTripsDeltasAndFrequencies() {
+        PostingList postings = new PostingList();
+        int[] docs = {0, 1, 130, 20_000, 3_000_000};
+        int[] frequencies = {1, 300, 2, 1, 70_000};
+        for (int i = 0; i < docs.length; i++) {
+            postings.add(docs[i], frequencies[i]);
+        }
+
+        PostingList.Cursor cursor = postings.cursor();
+        for (int i = 0; i < docs.length; i++) {
+            assertTrue(cursor.next());
+            assertEquals(docs[i], cursor.doc());
+            assertEquals(frequencies[i], cursor.frequency());
+        }
+        assertFalse(cursor.next());
+        assertEquals(5, postings.count());
+    }
+}
@@ -0,0 +1,98 @@
+package WITW.demo.Sync;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import WITW.demo.Comment.Comment;
+import WITW.demo.Comment.CommentRepository;
+import WITW.demo.Event.Event;
+import WITW.demo.Event.EventRepository;
+
+// A long ttl: every tag change seen here comes from the recorder updating the cache, not from an expired entry.
+@DataJpaTest(properties = {"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect", "witw.etag.version-ttl=PT1H"})
+@Import({ChangeLogRecorder.class, ChangeVersions.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChangeVersionsTest {
+
+    @Autowired
+    private ChangeVersions versions;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+
+    @AfterEach
+    void tearDown() {
+        commentRepository.deleteAll();
+        eventRepository.deleteAll();
+    }
+
+    private Event event(String name) {
+        Event event = eventRepository.save(Event.builder()
+            .name(name)
+            .startsAt(LocalDateTime.now().plusDays(1))
+            .capacity(10)
+            .geohash("66jc")
+            .build());
+        return event;
+    }
+
+    @Test
+    void eventTag_changesOnlyWithThatEvent() {
+        Event event = event("Uno");
+        Event other = event("Dos");
+        String tag = versions.eventTag(event.getId());
+        String feed = versions.allEventsTag();
+
+        other.setName("Dos, editado");
+        eventRepository.save(other);
+
+        assertEquals(tag, versions.eventTag(event.getId()));
+        assertNotEquals(feed, versions.allEventsTag());
+    }
+
+    @Test
+    void eventTag_changesWithNewComments() {
+        Event event = event("Con comentarios");
+        String tag = versions.eventTag(event.getId());
+
+        commentRepository.save(Comment.builder()
+            .id(UUID.randomUUID())
+            .eventId(event.getId())
+            .userId(2)
+            .username("bruno")
+            .text("¡Nos vemos!")
+            .createdAt(LocalDateTime.now())
+            .build());
+
+        assertNotEquals(tag, versions.eventTag(event.getId()));
+    }
+
+    @Test
+    void version_withPrunedHistory_neverGoesBack() {
+        Event event = event("Podado");
+        long before = changeLogRepository.findLastSeqByEventId(event.getId());
+        event("Otro");
+        changeLogRepository.deleteAllInBatch(changeLogRepository.findAll().stream()
+            .filter(change -> change.getEventId().equals(event.getId()))
+            .toList());
+
+        assertTrue(new ChangeVersions(changeLogRepository, Duration.ofHours(1), 10).version(event.getId()) >= before);
+    }
+}
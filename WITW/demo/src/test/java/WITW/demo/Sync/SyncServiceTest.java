@@ -0,0 +1,251 @@
+package WITW.demo.Sync;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.event.spi.EventSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import WITW.demo.Comment.Comment;
+import WITW.demo.Comment.CommentRepository;
+import WITW.demo.Event.AttendanceRepository;
+import WITW.demo.Event.AttendanceService;
+import WITW.demo.Event.Event;
+import WITW.demo.Event.EventRepository;
+import WITW.demo.Event.EventResponse;
+import WITW.demo.User.User;
+
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Import({ChangeLogRecorder.class, ChangeVersions.class, SyncService.class, AttendanceService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SyncServiceTest {
+
+    private final User me = User.builder().id(1).username("ana").build();
+    private final User other = User.builder().id(2).username("bruno").build();
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private ChangeLogRecorder recorder;
+
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private ChangeLogRepository changeLogRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        commentRepository.deleteAll();
+        attendanceRepository.deleteAll();
+        eventRepository.deleteAll();
+    }
+
+    private Event event(String name) {
+        Event event = eventRepository.save(Event.builder()
+            .name(name)
+            .startsAt(LocalDateTime.now().plusDays(1))
+            .capacity(10)
+            .geohash("66jc")
+            .build());
+        return event;
+    }
+
+    private long initialToken() {
+        SyncResponse initial = syncService.sync(null, 100, me);
+        assertTrue(initial.isReset());
+        return initial.getToken();
+    }
+
+    @Test
+    void sync_returnsOnlyChangesAfterTheToken() {
+        event("Antes");
+        long token = initialToken();
+
+        Event created = event("Nuevo");
+        SyncResponse delta = syncService.sync(token, 100, me);
+
+        assertFalse(delta.isReset());
+        assertEquals(List.of(created.getId()), delta.getEvents().stream().map(EventResponse::getId).toList());
+        assertTrue(delta.getToken() > token);
+        assertTrue(syncService.sync(delta.getToken(), 100, me).getEvents().isEmpty());
+    }
+
+    @Test
+    void sync_collapsesRepeatedChangesAndDeletions() {
+        long token = initialToken();
+        Event updated = event("Uno");
+        updated.setName("Uno, editado");
+        eventRepository.save(updated);
+        Event deleted = event("Dos");
+        eventRepository.delete(deleted);
+
+        SyncResponse delta = syncService.sync(token, 100, me);
+
+        assertEquals(1, delta.getEvents().size());
+        assertEquals("Uno, editado", delta.getEvents().get(0).getName());
+        assertEquals(List.of(deleted.getId()), delta.getDeletedEventIds());
+    }
+
+    @Test
+    void sync_reportsOwnAttendanceAndSeatChangesFromOthers() {
+        Event mine = event("Mío");
+        Event theirs = event("Ajeno");
+        long token = initialToken();
+
+        attendanceService.join(mine.getId(), me);
+        attendanceService.join(theirs.getId(), other);
+        SyncResponse delta = syncService.sync(token, 100, me);
+
+        assertEquals(List.of(mine.getId()), delta.getJoinedEventIds());
+        assertTrue(delta.getLeftEventIds().isEmpty());
+        assertEquals(2, delta.getEvents().size());
+        assertEquals(1, delta.getEvents().stream().filter(e -> e.getId().equals(theirs.getId())).findFirst().orElseThrow().getAttendeeCount());
+
+        attendanceService.leave(mine.getId(), me);
+        assertEquals(List.of(mine.getId()), syncService.sync(delta.getToken(), 100, me).getLeftEventIds());
+    }
+
+    @Test
+    void sync_includesNewComments() {
+        Event event = event("Con comentarios");
+        long token = initialToken();
+
+        commentRepository.save(Comment.builder()
+            .id(UUID.randomUUID())
+            .eventId(event.getId())
+            .userId(2)
+            .username("bruno")
+            .text("¡Nos vemos!")
+            .createdAt(LocalDateTime.now())
+            .build());
+
+        assertEquals("¡Nos vemos!", syncService.sync(token, 100, me).getComments().get(0).getText());
+    }
+
+    @Test
+    void sync_pagesLargeDeltas() {
+        long token = initialToken();
+        for (int i = 0; i < 5; i++) {
+            event("Evento " + i);
+        }
+
+        SyncResponse first = syncService.sync(token, 3, me);
+        SyncResponse second = syncService.sync(first.getToken(), 3, me);
+
+        assertTrue(first.isHasMore());
+        assertEquals(3, first.getEvents().size());
+        assertFalse(second.isHasMore());
+        assertEquals(2, second.getEvents().size());
+    }
+
+    @Test
+    void rolledBackChange_isNotRecorded() {
+        long token = initialToken();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx -> {
+            event("Descartado");
+            tx.setRollbackOnly();
+        });
+
+        assertEquals(token, changeLogRepository.findLastSeq());
+        assertTrue(syncService.sync(token, 100, me).getEvents().isEmpty());
+    }
+
+    @Test
+    void sync_stopsBeforeAChangeThatIsStillCommitting() throws Exception {
+        long token = initialToken();
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // The first change gets its seq and then stalls before its commit reaches the database.
+        CompletableFuture<Event> slow = CompletableFuture.supplyAsync(() -> new TransactionTemplate(transactionManager).execute(tx -> {
+            Event event = event("Lento");
+            // Flushing now queues the recorder's write ahead of the stall.
+            entityManager.flush();
+            entityManager.unwrap(EventSource.class).getActionQueue().registerProcess((BeforeTransactionCompletionProcess) session -> {
+                written.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            return event;
+        }));
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        Event fast = event("Rápido");
+
+        // The later seq is committed, but handing it out would let the client skip the earlier one.
+        SyncResponse blocked = syncService.sync(token, 100, me);
+        assertTrue(blocked.getEvents().isEmpty());
+        assertEquals(token, blocked.getToken());
+
+        release.countDown();
+        Event committed = slow.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(committed.getId(), fast.getId()),
+            syncService.sync(token, 100, me).getEvents().stream().map(EventResponse::getId).toList());
+    }
+
+    @Test
+    void prune_keepsTheLatestChange() {
+        event("Uno");
+        long last = changeLogRepository.findLastSeq();
+        ReflectionTestUtils.setField(recorder, "retention", Duration.ofDays(-1));
+
+        recorder.prune();
+
+        assertEquals(last, changeLogRepository.findFirstSeq());
+        assertFalse(syncService.sync(last, 100, me).isReset());
+    }
+
+    @Test
+    void sync_withPrunedHistory_asksForAFullReload() {
+        long token = initialToken();
+        event("Uno");
+        event("Dos");
+        List<ChangeLog> changes = changeLogRepository.findBySeqGreaterThanOrderBySeq(token, Pageable.unpaged());
+        // Prunes everything up to (and including) the first change the client has not seen yet.
+        changeLogRepository.deleteAllInBatch(changeLogRepository.findAll().stream()
+            .filter(change -> change.getSeq() <= changes.get(0).getSeq())
+            .toList());
+
+        assertTrue(syncService.sync(token, 100, me).isReset());
+    }
+}
@@ -0,0 +1,102 @@
+package WITW.demo.User;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+class CachedUserDetailsServiceTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private UserDetails load(String username) {
+        loads.incrementAndGet();
+        if (username.equals("missing")) {
+            throw new UsernameNotFoundException("User not fournd");
+        }
+        return User.builder().username(username).password("encoded").role(Role.USER).build();
+    }
+
+    @Test
+    void loadUserByUsername_secondCall_isAHit() {
+        CachedUserDetailsService service = new CachedUserDetailsService(this::load, 100, Duration.ofMinutes(1));
+
+        UserDetails first = service.loadUserByUsername("alice");
+        UserDetails second = service.loadUserByUsername("alice");
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, service.stats().hitCount());
+        assertEquals(1, service.stats().missCount());
+    }
+
+    @Test
+    void loadUserByUsername_unknownUser_isNotCached() {
+        CachedUserDetailsService service = new CachedUserDetailsService(this::load, 100, Duration.ofMinutes(1));
+
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("missing"));
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("missing"));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void onUserChanged_invalidatesEntry() {
+        CachedUserDetailsService service = new CachedUserDetailsService(this::load, 100, Duration.ofMinutes(1));
+        service.loadUserByUsername("bob");
+
+        service.onUserChanged(new UserChangedEvent(1, "bob", 1, false));
+        service.loadUserByUsername("bob");
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadUserByUsername_concurrentBurst_loadsOnce() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CachedUserDetailsService service = new CachedUserDetailsService(username -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return load(username);
+        }, 100, Duration.ofMinutes(1));
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 64; i++) {
+            pool.submit(() -> service.loadUserByUsername("carol"));
+        }
+        Thread.sleep(100);
+        release.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void loadUserByUsername_virtualThread_loadsOnCallingThread() throws InterruptedException {
+        // The lookup must not run inside the cache's compute, where a virtual thread would stay pinned during JDBC I/O.
+        AtomicReference<Thread> loader = new AtomicReference<>();
+        CachedUserDetailsService service = new CachedUserDetailsService(username -> {
+            loader.set(Thread.currentThread());
+            return load(username);
+        }, 100, Duration.ofMinutes(1));
+
+        Thread caller = Thread.ofVirtual().start(() -> service.loadUserByUsername("dave"));
+        caller.join();
+
+        assertSame(caller, loader.get());
+        assertEquals(1, loads.get());
+    }
+}
@@ -0,0 +1,109 @@
+package WITW.demo.User;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import WITW.demo.Jwt.JwtAuthenticationFilter;
+import WITW.demo.Jwt.JwtService;
+import WITW.demo.Jwt.TokenRevocationList;
+import WITW.demo.Jwt.TokenVersionRegistry;
+import WITW.demo.Jwt.VerifiedToken;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// "user" es palabra reservada en H2.
+@DataJpaTest(properties = {"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.auto_quote_keyword=true"})
+@Import(TokenVersionRegistry.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserTokenVersionTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenVersionRegistry tokenVersions;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+        SecurityContextHolder.clearContext();
+    }
+
+    private User alice() {
+        return userRepository.save(User.builder()
+            .username("alice")
+            .lastname("A")
+            .password("hash-1")
+            .role(Role.USER)
+            .build());
+    }
+
+    @Test
+    void roleOrPasswordChange_bumpsTheVersion_otherEditsDoNot() {
+        User user = alice();
+        assertEquals(0, user.getTokenVersion());
+
+        user.setCountry("Chile");
+        user = userRepository.save(user);
+        assertEquals(0, user.getTokenVersion());
+
+        user.setRole(Role.CREATOR);
+        user = userRepository.save(user);
+        assertEquals(1, user.getTokenVersion());
+
+        user.setPassword("hash-2");
+        user = userRepository.save(user);
+        assertEquals(2, userRepository.findByUsername("alice").orElseThrow().getTokenVersion());
+    }
+
+    @Test
+    void rehash_keepsTheVersion() {
+        alice();
+
+        assertEquals(1, userRepository.rehashPassword("alice", "stronger-hash-1"));
+
+        User stored = userRepository.findByUsername("alice").orElseThrow();
+        assertEquals("stronger-hash-1", stored.getPassword());
+        assertEquals(0, stored.getTokenVersion());
+    }
+
+    @Test
+    void roleChange_makesClaimsTokensFallBackToTheDatabase() throws Exception {
+        User user = alice();
+        JwtService jwtService = mock(JwtService.class);
+        when(jwtService.verify("before"))
+            .thenReturn(new VerifiedToken("alice", Instant.now(), Instant.now().plusSeconds(60), user.getId(), "USER", 0));
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtService,
+            username -> userRepository.findByUsername(username).orElseThrow(), tokenVersions,
+            mock(TokenRevocationList.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "claimsAuthentication", true);
+
+        user.setRole(Role.ADMIN);
+        userRepository.save(user);
+
+        assertTrue(tokenVersions.isStale("alice", 0));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/events");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer before");
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // The token still says USER: it is checked against the stored version and rejected.
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+}